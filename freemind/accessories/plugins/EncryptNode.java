@@ -31,6 +31,7 @@ import javax.swing.JOptionPane;
 
 import freemind.controller.MenuItemEnabledListener;
 import freemind.extensions.HookRegistration;
+import freemind.modes.ControllerAdapter;
 import freemind.modes.MapAdapter;
 import freemind.modes.MindMap;
 import freemind.modes.MindMapNode;
@@ -151,8 +152,8 @@ public class EncryptNode extends MindMapNodeHookAdapter {
 		if (password == null) {
 			return;
 		}
-		ModeController newModeController = getMindMapController().getMode()
-				.createModeController();
+		ModeController newModeController = ControllerAdapter
+				.createModeController(getMindMapController().getMode());
 		EncryptedMindMapNode encryptedMindMapNode = new EncryptedMindMapNode(
 				getMindMapController().getText(
 						"accessories/plugins/EncryptNode.properties_select_me"),
@@ -33,11 +33,11 @@ import javax.imageio.ImageIO;
 import javax.xml.transform.Result;
 import javax.xml.transform.Source;
 import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
 
 import freemind.extensions.ExportHook;
+import freemind.main.TemplatesCache;
 
 /**
  * @author foltin
@@ -61,16 +61,46 @@ public class ExportToImage extends ExportHook {
 	 */
 	public void startupMapHook() {
 		super.startupMapHook();
-		BufferedImage image = createBufferedImage();
-		if (image != null) {
+		if (getController().getView() != null) {
 			String imageType = getResourceString("image_type");
 
-			exportToImage(image, imageType,
-					getResourceString("image_description"));
+			exportToImage(imageType, getResourceString("image_description"));
 		}
 
 	}
 
+	public boolean exportToFile(File pFile) throws IOException {
+		FileOutputStream out = new FileOutputStream(pFile);
+		try {
+			return writeImage(getResourceString("image_type"), out);
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Export the image of the map, rendered in strips while it is written.
+	 */
+	public boolean exportToImage(String type, String description) {
+		File chosenFile = chooseFile(type, description, null);
+		if (chosenFile == null) {
+			return false;
+		}
+		try {
+			getController().getFrame().setWaitingCursor(true);
+			FileOutputStream out = new FileOutputStream(chosenFile);
+			try {
+				writeImage(type, out);
+			} finally {
+				out.close();
+			}
+		} catch (IOException e1) {
+			freemind.main.Resources.getInstance().logException(e1);
+		}
+		getController().getFrame().setWaitingCursor(false);
+		return true;
+	}
+
 	/**
 	 * Export image.
 	 */
@@ -105,9 +135,8 @@ public class ExportToImage extends ExportHook {
 		// create an instance of TransformerFactory
 		try {
 			// System.out.println("make transform instance");
-			TransformerFactory transFact = TransformerFactory.newInstance();
-
-			Transformer trans = transFact.newTransformer(xsltSource);
+			Transformer trans = TemplatesCache.getInstance().newTransformer(
+					xsltSource);
 			// set parameter:
 			// relative directory <filename>_files
 			trans.setParameter("destination_dir", resultFile.getName()
@@ -28,8 +28,6 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.StringReader;
-import java.io.StringWriter;
 import java.net.URL;
 import java.text.DateFormat;
 import java.util.Date;
@@ -38,14 +36,14 @@ import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
 import javax.xml.transform.Result;
-import javax.xml.transform.Source;
 import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.stream.StreamResult;
-import javax.xml.transform.stream.StreamSource;
 
 import freemind.extensions.ExportHook;
+import freemind.main.TemplatesCache;
 import freemind.main.Tools;
+import freemind.modes.MindMap;
+import freemind.modes.mindmapmode.MapXmlReader;
 
 /**
  * @author foltin
@@ -91,19 +89,19 @@ public class ExportToOoWriter extends ExportHook {
 		getController().getFrame().setWaitingCursor(false);
 	}
 
+	public boolean exportToFile(File pFile) throws IOException {
+		return exportToOoWriter(pFile);
+	}
+
 	public boolean exportToOoWriter(File chosenFile) throws IOException {
-		// get output:
-		StringWriter writer = new StringWriter();
-		// get XML
-		getController().getMap().getFilteredXml(writer);
 		String xslts = getResourceString("files");
-		return exportToOoWriter(chosenFile, writer, xslts);
+		return exportToOoWriter(chosenFile, getController().getMap(), xslts);
 	}
 
 	/**
 	 * @return true, if successful.
 	 */
-	private boolean applyXsltFile(String xsltFileName, StringWriter writer,
+	private boolean applyXsltFile(String xsltFileName, MindMap map,
 			Result result) throws IOException {
 		URL xsltUrl = getResource(xsltFileName);
 		if (xsltUrl == null) {
@@ -111,25 +109,17 @@ public class ExportToOoWriter extends ExportHook {
 			throw new IllegalArgumentException("Can't find " + xsltFileName
 					+ " as resource.");
 		}
-		InputStream xsltStream = xsltUrl.openStream();
-		// System.out.println("set xsl");
-		Source xsltSource = new StreamSource(xsltStream);
 
-		// create an instance of TransformerFactory
 		try {
-			StringReader reader = new StringReader(writer.getBuffer()
-					.toString());
-
-			// System.out.println("make transform instance");
-			TransformerFactory transFact = TransformerFactory.newInstance();
-
-			Transformer trans = transFact.newTransformer(xsltSource);
+			Transformer trans = TemplatesCache.getInstance().newTransformer(
+					xsltUrl);
 			trans.setParameter(
 					"date",
 					DateFormat.getDateInstance(DateFormat.SHORT).format(
 							new Date()));
 
-			trans.transform(new StreamSource(reader), result);
+			// the map is delivered anew to each stylesheet:
+			trans.transform(MapXmlReader.createSource(map, false), result);
 			return true;
 		} catch (Exception e) {
 			// System.err.println("error applying the xslt file "+e);
@@ -138,7 +128,7 @@ public class ExportToOoWriter extends ExportHook {
 		}
 	}
 
-	public boolean exportToOoWriter(File file, StringWriter writer, String xslts)
+	public boolean exportToOoWriter(File file, MindMap map, String xslts)
 			throws IOException {
 		boolean resultValue = true;
 		ZipOutputStream zipout = new ZipOutputStream(new FileOutputStream(file));
@@ -154,7 +144,7 @@ public class ExportToOoWriter extends ExportHook {
 				if (files[0].endsWith(".xsl")) {
 					logger.info("Transforming with xslt " + files[0]
 							+ " to file " + files[1]);
-					resultValue &= applyXsltFile(files[0], writer, result);
+					resultValue &= applyXsltFile(files[0], map, result);
 				} else {
 					logger.info("Copying resource from " + files[0]
 							+ " to file " + files[1]);
@@ -25,7 +25,6 @@
  */
 package accessories.plugins;
 
-import java.awt.image.BufferedImage;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileOutputStream;
@@ -33,18 +32,14 @@ import java.io.FilenameFilter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStreamWriter;
-import java.io.StringReader;
-import java.io.StringWriter;
 import java.net.URL;
 import java.util.StringTokenizer;
 import java.util.Vector;
 
-import javax.imageio.ImageIO;
 import javax.swing.JOptionPane;
 import javax.xml.transform.Result;
 import javax.xml.transform.Source;
 import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
 
@@ -52,11 +47,13 @@ import accessories.plugins.util.html.ClickableImageCreator;
 import accessories.plugins.util.xslt.ExportDialog;
 import freemind.extensions.ExportHook;
 import freemind.main.Resources;
+import freemind.main.TemplatesCache;
 import freemind.main.Tools;
 import freemind.modes.MindIcon;
 import freemind.modes.MindMap;
 import freemind.modes.MindMapNode;
 import freemind.modes.ModeController;
+import freemind.modes.mindmapmode.MapXmlReader;
 
 /**
  * @author foltin
@@ -137,6 +134,15 @@ public class ExportWithXSLT extends ExportHook {
 		}
 	}
 
+	public boolean exportToFile(File pFile) {
+		try {
+			return transform(pFile) == null;
+		} catch (Exception e) {
+			freemind.main.Resources.getInstance().logException(e);
+			return false;
+		}
+	}
+
 	/**
 	 * @param saveFile
 	 * @return If ok: null, else: the resource identifier of the error string.
@@ -223,12 +229,14 @@ public class ExportWithXSLT extends ExportHook {
 		if (getController().getView() == null)
 			return;
 		// create image:
-		BufferedImage image = createBufferedImage();
 		try {
 			FileOutputStream out = new FileOutputStream(directoryName
 					+ File.separator + "image.png");
-			ImageIO.write(image, "png", out);
-			out.close();
+			try {
+				writeImage("png", out);
+			} finally {
+				out.close();
+			}
 		} catch (IOException e1) {
 			freemind.main.Resources.getInstance().logException(e1);
 		}
@@ -291,8 +299,6 @@ public class ExportWithXSLT extends ExportHook {
 	 */
 	private boolean transformMapWithXslt(String xsltFileName, File saveFile,
 			String areaCode) throws IOException {
-		StringWriter writer = getMapXml();
-		StringReader reader = new StringReader(writer.getBuffer().toString());
 		// search for xslt file:
 		URL xsltUrl = getResource(xsltFileName);
 		if (xsltUrl == null) {
@@ -300,19 +306,8 @@ public class ExportWithXSLT extends ExportHook {
 			throw new IllegalArgumentException("Can't find " + xsltFileName
 					+ " as resource.");
 		}
-		InputStream xsltFile = xsltUrl.openStream();
-		return transform(new StreamSource(reader), xsltFile, saveFile, areaCode);
-	}
-
-	/**
-	 * @throws IOException
-	 */
-	private StringWriter getMapXml() throws IOException {
-		// get output:
-		StringWriter writer = new StringWriter();
-		// get XML
-		getController().getMap().getFilteredXml(writer);
-		return writer;
+		return transform(MapXmlReader.createSource(getController().getMap(),
+				false), xsltUrl, saveFile, areaCode);
 	}
 
 	/**
@@ -337,17 +332,36 @@ public class ExportWithXSLT extends ExportHook {
 
 	public boolean transform(Source xmlSource, InputStream xsltStream,
 			File resultFile, String areaCode) {
-		// System.out.println("set xsl");
-		Source xsltSource = new StreamSource(xsltStream);
+		try {
+			return transform(xmlSource, TemplatesCache.getInstance()
+					.newTransformer(new StreamSource(xsltStream)), resultFile,
+					areaCode);
+		} catch (Exception e) {
+			freemind.main.Resources.getInstance().logException(e);
+			return false;
+		}
+	}
+
+	/**
+	 * The compiled stylesheet is cached, see {@link TemplatesCache}.
+	 */
+	public boolean transform(Source xmlSource, URL xsltUrl, File resultFile,
+			String areaCode) {
+		try {
+			return transform(xmlSource, TemplatesCache.getInstance()
+					.newTransformer(xsltUrl), resultFile, areaCode);
+		} catch (Exception e) {
+			freemind.main.Resources.getInstance().logException(e);
+			return false;
+		}
+	}
+
+	private boolean transform(Source xmlSource, Transformer trans,
+			File resultFile, String areaCode) {
 		// System.out.println("set result");
 		Result result = new StreamResult(resultFile);
 
-		// create an instance of TransformerFactory
 		try {
-			// System.out.println("make transform instance");
-			TransformerFactory transFact = TransformerFactory.newInstance();
-
-			Transformer trans = transFact.newTransformer(xsltSource);
 			// set parameter:
 			// relative directory <filename>_files
 			trans.setParameter("destination_dir", resultFile.getName()
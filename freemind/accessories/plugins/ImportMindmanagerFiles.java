@@ -25,7 +25,6 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.StringWriter;
 import java.net.URL;
 import java.util.zip.ZipEntry;
@@ -35,12 +34,12 @@ import javax.swing.JFileChooser;
 import javax.xml.transform.Result;
 import javax.xml.transform.Source;
 import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
 
 import freemind.extensions.ExportHook;
 import freemind.extensions.ModeControllerHookAdapter;
+import freemind.main.TemplatesCache;
 import freemind.main.XMLParseException;
 
 /**
@@ -102,8 +101,7 @@ public class ImportMindmanagerFiles extends ModeControllerHookAdapter {
 					throw new IllegalArgumentException("Can't find "
 							+ xsltFileName + " as resource.");
 				}
-				InputStream xsltFile = xsltUrl.openStream();
-				String xml = transForm(new StreamSource(in), xsltFile);
+				String xml = transForm(new StreamSource(in), xsltUrl);
 				if (xml != null) {
 					// now start a new map with this string:
 					File tempFile = File
@@ -125,15 +123,13 @@ public class ImportMindmanagerFiles extends ModeControllerHookAdapter {
 		}
 	}
 
-	public String transForm(Source xmlSource, InputStream xsltStream) {
-		Source xsltSource = new StreamSource(xsltStream);
+	public String transForm(Source xmlSource, URL xsltUrl) {
 		StringWriter writer = new StringWriter();
 		Result result = new StreamResult(writer);
 
-		// create an instance of TransformerFactory
 		try {
-			TransformerFactory transFact = TransformerFactory.newInstance();
-			Transformer trans = transFact.newTransformer(xsltSource);
+			Transformer trans = TemplatesCache.getInstance().newTransformer(
+					xsltUrl);
 			trans.transform(xmlSource, result);
 		} catch (Exception e) {
 			freemind.main.Resources.getInstance().logException(e);
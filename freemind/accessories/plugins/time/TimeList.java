@@ -85,6 +85,7 @@ import freemind.modes.MindMapNode;
 import freemind.modes.Mode;
 import freemind.modes.ModeController;
 import freemind.modes.common.plugins.ReminderHookBase;
+import freemind.modes.common.plugins.ReminderScheduler;
 import freemind.modes.mindmapmode.MindMapController;
 import freemind.modes.mindmapmode.hooks.MindMapHookAdapter;
 import freemind.view.MapModule;
@@ -614,28 +615,38 @@ public class TimeList extends MindMapHookAdapter implements
 		model.addColumn(COLUMN_CREATED);
 		model.addColumn(COLUMN_MODIFIED);
 		model.addColumn(COLUMN_NOTES);
-		updateModel(model, node);
+		if (showAllNodes) {
+			updateModel(model, node);
+		} else {
+			// the nodes with reminders are known to the scheduler:
+			for (Iterator i = ReminderScheduler.getInstance()
+					.getReminderNodes(getController().getMap()).iterator(); i
+					.hasNext();) {
+				addRow(model, (MindMapNode) i.next());
+			}
+		}
 		return model;
 	}
 
 	private void updateModel(DefaultTableModel model, MindMapNode node) {
+		addRow(model, node);
+		for (Iterator i = node.childrenUnfolded(); i.hasNext();) {
+			MindMapNode child = (MindMapNode) i.next();
+			updateModel(model, child);
+		}
+	}
+
+	private void addRow(DefaultTableModel model, MindMapNode node) {
 		ReminderHookBase hook = TimeManagementOrganizer.getHook(node);
 		Date date = null;
 		if (hook != null) {
 			date = new Date(hook.getRemindUserAt());
 		}
-		// show all nodes or only those with reminder:
-		if (showAllNodes || hook != null) {
-			model.addRow(new Object[] { date, new NodeHolder(node),
-					new IconsHolder(node),
-					node.getHistoryInformation().getCreatedAt(),
-					node.getHistoryInformation().getLastModifiedAt(),
-					new NotesHolder(node) });
-		}
-		for (Iterator i = node.childrenUnfolded(); i.hasNext();) {
-			MindMapNode child = (MindMapNode) i.next();
-			updateModel(model, child);
-		}
+		model.addRow(new Object[] { date, new NodeHolder(node),
+				new IconsHolder(node),
+				node.getHistoryInformation().getCreatedAt(),
+				node.getHistoryInformation().getLastModifiedAt(),
+				new NotesHolder(node) });
 	}
 
 	/**
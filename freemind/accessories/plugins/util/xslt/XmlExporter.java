@@ -31,10 +31,12 @@ import javax.swing.JFileChooser;
 import javax.xml.transform.Result;
 import javax.xml.transform.Source;
 import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
 
+import freemind.main.TemplatesCache;
+import freemind.main.Tools;
+
 /**
  * 
  * @author joerg
@@ -50,17 +52,14 @@ public class XmlExporter {
 	public void transForm(File xmlFile, File xsltFile, File resultFile) {
 		// System.out.println("set source");
 		Source xmlSource = new StreamSource(xmlFile);
-		// System.out.println("set xsl");
-		Source xsltSource = new StreamSource(xsltFile);
 		// System.out.println("set result");
 		Result result = new StreamResult(resultFile);
 
 		// create an instance of TransformerFactory
 		try {
 			// System.out.println("make transform instance");
-			TransformerFactory transFact = TransformerFactory.newInstance();
-
-			Transformer trans = transFact.newTransformer(xsltSource);
+			Transformer trans = TemplatesCache.getInstance().newTransformer(
+					Tools.fileToUrl(xsltFile));
 
 			trans.transform(xmlSource, result);
 		} catch (Exception e) {
@@ -1994,6 +1994,21 @@ public class Controller implements MapModuleChangeObserver {
 			}
 
 			public void numberOfOpenMapInformation(int pNumber, int pIndex) {
+				// create the tabs of maps added without changing to them:
+				List mapModules = getMapModuleManager().getMapModuleVector();
+				for (int i = 0; i < mapModules.size(); ++i) {
+					Object mapModule = mapModules.get(i);
+					if (!mTabbedPaneMapModules.contains(mapModule)) {
+						mTabbedPaneSelectionUpdate = false;
+						mTabbedPaneMapModules.add(i, mapModule);
+						mTabbedPane.insertTab(mapModule.toString(), null,
+								new JPanel(), null, i);
+						// the first tab is selected by the tabbed pane:
+						mTabbedPane.setSelectedIndex(mTabbedPaneMapModules
+								.indexOf(getMapModule()));
+						mTabbedPaneSelectionUpdate = true;
+					}
+				}
 			}
 
 			public void afterMapClose(MapModule pOldMapModule, Mode pOldMode) {
@@ -246,6 +246,23 @@ public class MapModuleManager {
 		setMapModule(mapModule, modeController.getMode());
 	}
 
+	/**
+	 * Adds the map at the given position without changing to it, e.g. for the
+	 * maps restored in the background. The observers are informed by
+	 * numberOfOpenMapInformation.
+	 */
+	public MapModule addMapModule(MindMap map, ModeController modeController,
+			int pIndex) {
+		MapModule mapModule = new MapModule(map, new MapView(map, mController),
+				modeController.getMode(), modeController);
+		addToOrChangeInMapModules(mapModule.toString(), mapModule);
+		mapModuleVector.remove(mapModule);
+		mapModuleVector.add(Math.max(0, Math.min(pIndex, mapModuleVector
+				.size())), mapModule);
+		fireNumberOfOpenMapInformation();
+		return mapModule;
+	}
+
 	public MapModule getModuleGivenModeController(ModeController pModeController) {
 		MapModule mapModule = null;
 		for (Iterator iter = getMapModules().entrySet().iterator(); iter
@@ -0,0 +1,253 @@
+/*FreeMind - A Program for creating and viewing Mindmaps
+ *Copyright (C) 2000-2012 Joerg Mueller, Daniel Polansky, Christian Foltin, Dimitri Polivaev and others.
+ *
+ *See COPYING for Details
+ *
+ *This program is free software; you can redistribute it and/or
+ *modify it under the terms of the GNU General Public License
+ *as published by the Free Software Foundation; either version 2
+ *of the License, or (at your option) any later version.
+ *
+ *This program is distributed in the hope that it will be useful,
+ *but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *GNU General Public License for more details.
+ *
+ *You should have received a copy of the GNU General Public License
+ *along with this program; if not, write to the Free Software
+ *Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package freemind.controller;
+
+import java.awt.EventQueue;
+import java.io.File;
+import java.net.URL;
+import java.util.Iterator;
+import java.util.List;
+
+import freemind.main.Resources;
+import freemind.main.Tools;
+import freemind.modes.ControllerAdapter;
+import freemind.modes.MapAdapter;
+import freemind.modes.mindmapmode.MindMapMapModel;
+import freemind.view.MapModule;
+
+/**
+ * Restores the mind maps of the last session. The maps are read by a pool of
+ * worker threads, the last focused map first. It is shown as soon as it is
+ * read, the others are added in the background at their former positions
+ * without changing to them. Only the views are created in the event dispatch
+ * thread.
+ */
+public class MapRestorer {
+
+	private final Controller mController;
+
+	/** Restorable strings of the maps, in the order of their tabs. */
+	private final String[] mRestorables;
+
+	private final int mFocused;
+
+	/** The maps in the order they are read, the focused map first. */
+	private final int[] mOrder;
+
+	private int mNextMap = 0;
+
+	/** Only used in the event dispatch thread. */
+	private final MapModule[] mMapModules;
+
+	/** Only used in the event dispatch thread. */
+	private boolean mFocusedMapFinished = false;
+
+	private int mFirstIndex;
+
+	private int mFinishedMaps = 0;
+
+	/** Only changed in the event dispatch thread. */
+	private boolean mFocusedMapShown = false;
+
+	/**
+	 * @param pRestorables
+	 *            the restorable strings of the maps in the order of their tabs.
+	 * @param pFocused
+	 *            the index of the map to be shown, -1 for the first.
+	 */
+	public MapRestorer(Controller pController, List pRestorables, int pFocused) {
+		mController = pController;
+		mRestorables = (String[]) pRestorables.toArray(new String[pRestorables
+				.size()]);
+		mFocused = (pFocused >= 0 && pFocused < mRestorables.length) ? pFocused
+				: 0;
+		mMapModules = new MapModule[mRestorables.length];
+		mOrder = new int[mRestorables.length];
+		for (int i = 0, j = 1; i < mRestorables.length; i++) {
+			if (i == mFocused) {
+				mOrder[0] = i;
+			} else {
+				mOrder[j++] = i;
+			}
+		}
+	}
+
+	/**
+	 * @return true, if all maps are mind maps, as only these are read in
+	 *         parallel.
+	 */
+	public static boolean canRestore(List pRestorables) {
+		if (pRestorables.isEmpty()) {
+			return false;
+		}
+		for (Iterator it = pRestorables.iterator(); it.hasNext();) {
+			String restorable = (String) it.next();
+			if (!restorable.startsWith(MindMapMapModel.RESTORE_MODE_MIND_MAP)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Starts the workers and waits until the focused map is shown. If it can't
+	 * be read, the first other map is shown. The other maps are read and added
+	 * afterwards.
+	 *
+	 * @return false, if no map could be read.
+	 */
+	public boolean restore(int pThreadCount) {
+		if (mRestorables.length == 0
+				|| !mController.createNewMode(Tools
+				.getModeFromRestorable(mRestorables[mFocused]))) {
+			return false;
+		}
+		final ControllerAdapter modeController = (ControllerAdapter) mController
+				.getMode().getDefaultModeController();
+		mFirstIndex = mController.getMapModuleManager().getMapModuleVector()
+				.size();
+		int threadCount = Math.max(1, Math.min(pThreadCount,
+				mRestorables.length));
+		for (int i = 0; i < threadCount; i++) {
+			Thread worker = new Thread(new Runnable() {
+				public void run() {
+					for (int index = nextMap(); index >= 0; index = nextMap()) {
+						readMap(modeController, index);
+					}
+				}
+			}, "MapRestorer-" + i);
+			worker.setDaemon(true);
+			worker.start();
+		}
+		synchronized (this) {
+			while (!mFocusedMapShown && mFinishedMaps < mRestorables.length) {
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					Resources.getInstance().logException(e);
+					return mFocusedMapShown;
+				}
+			}
+			return mFocusedMapShown;
+		}
+	}
+
+	/**
+	 * Waits until all maps are read and added.
+	 */
+	public synchronized void waitUntilFinished() throws InterruptedException {
+		while (mFinishedMaps < mRestorables.length) {
+			wait();
+		}
+	}
+
+	private synchronized int nextMap() {
+		if (mNextMap >= mOrder.length) {
+			return -1;
+		}
+		return mOrder[mNextMap++];
+	}
+
+	private void readMap(final ControllerAdapter pModeController,
+			final int pIndex) {
+		MapAdapter model = null;
+		try {
+			String fileName = Tools
+					.getFileNameFromRestorable(mRestorables[pIndex]);
+			model = pModeController.loadModel(Tools.fileToUrl(new File(
+					fileName)));
+		} catch (Exception e) {
+			Resources.getInstance().logException(e,
+					"Can't restore " + mRestorables[pIndex]);
+		}
+		final MapAdapter readModel = model;
+		EventQueue.invokeLater(new Runnable() {
+			public void run() {
+				addMap(pModeController, pIndex, readModel);
+			}
+		});
+	}
+
+	/**
+	 * Called in the event dispatch thread.
+	 */
+	private void addMap(ControllerAdapter pModeController, int pIndex,
+			MapAdapter pModel) {
+		MapModuleManager mapModuleManager = mController.getMapModuleManager();
+		MapModule shownMapModule = null;
+		try {
+			if (pModel != null) {
+				URL url = pModel.getURL();
+				if (url != null
+						&& mapModuleManager.checkIfFileIsAlreadyOpened(url) != null) {
+					pModel.destroy();
+				} else {
+					// behind the already added maps with a smaller index:
+					int position = mFirstIndex;
+					for (int i = 0; i < pIndex; i++) {
+						if (mMapModules[i] != null) {
+							++position;
+						}
+					}
+					mMapModules[pIndex] = pModeController.addLoadedMap(pModel,
+							position);
+				}
+			}
+			if (pIndex == mFocused) {
+				mFocusedMapFinished = true;
+			}
+			if (!mFocusedMapShown && mFocusedMapFinished) {
+				MapModule mapModule = getMapModuleToShow();
+				if (mapModule != null) {
+					mapModuleManager.changeToMapModule(mapModule);
+					shownMapModule = mapModule;
+				}
+			}
+		} catch (Exception e) {
+			Resources.getInstance().logException(e,
+					"Can't restore " + mRestorables[pIndex]);
+		} finally {
+			synchronized (this) {
+				++mFinishedMaps;
+				if (shownMapModule != null) {
+					mFocusedMapShown = true;
+				}
+				notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * @return the focused map, or if it couldn't be read, the first other map.
+	 */
+	private MapModule getMapModuleToShow() {
+		if (mMapModules[mFocused] != null) {
+			return mMapModules[mFocused];
+		}
+		for (int i = 0; i < mMapModules.length; i++) {
+			if (mMapModules[i] != null) {
+				return mMapModules[i];
+			}
+		}
+		return null;
+	}
+
+}
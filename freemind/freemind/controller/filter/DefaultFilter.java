@@ -23,11 +23,19 @@
  */
 package freemind.controller.filter;
 
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.ListIterator;
 
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
+import javax.swing.tree.DefaultTreeModel;
+
 import freemind.controller.Controller;
 import freemind.controller.filter.condition.Condition;
+import freemind.main.FreeMind;
+import freemind.main.Resources;
 import freemind.modes.MindMap;
 import freemind.modes.MindMapNode;
 import freemind.view.mindmapview.MapView;
@@ -35,12 +43,27 @@ import freemind.view.mindmapview.NodeView;
 
 /**
  * @author dimitri 07.05.2005
+ * 
+ *         If {@link FreeMind#RESOURCES_FILTER_ON_CHANGE} is set, the filter
+ *         applied last to a map listens to its changes. Only the changed and
+ *         inserted nodes are checked again, the ancestor and descendant flags
+ *         are corrected along their paths.
  */
-public class DefaultFilter implements Filter {
+public class DefaultFilter implements Filter, TreeModelListener {
 
 	private Condition condition = null;
 	private int options = 0;
 
+	/** The map whose changes are filtered or null. */
+	private MindMap mMap = null;
+
+	private Controller mController = null;
+
+	/** Nodes whose visibility changed by the current update. */
+	private LinkedHashSet mChangedNodes = new LinkedHashSet();
+
+	private boolean mRefreshingNodes = false;
+
 	/**
      */
 	public DefaultFilter(Condition condition, boolean areAnchestorsShown,
@@ -67,11 +90,7 @@ public class DefaultFilter implements Filter {
 				c.getFrame().setWaitingCursor(true);
 				MindMap map = c.getModel();
 				MapView mapView = c.getView();
-				MindMapNode root = map.getRootNode();
-				resetFilter(root);
-				if (filterChildren(root, c, condition.checkNode(c, root), false)) {
-					addFilterResult(root, FILTER_SHOW_ANCESTOR);
-				}
+				applyFilter(c, map);
 				selectVisibleNode(mapView);
 			} finally {
 				c.getFrame().setWaitingCursor(false);
@@ -79,6 +98,46 @@ public class DefaultFilter implements Filter {
 		}
 	}
 
+	/**
+	 * Checks all nodes of the map. If the filter is kept up to date on
+	 * changes, it starts to listen to the map (and the filter applied
+	 * previously stops).
+	 */
+	public void applyFilter(Controller c, MindMap map) {
+		if (condition == null) {
+			return;
+		}
+		MindMapNode root = map.getRootNode();
+		resetFilter(root);
+		if (filterChildren(root, c, condition.checkNode(c, root), false)) {
+			addFilterResult(root, FILTER_SHOW_ANCESTOR);
+		}
+		if (mMap != map) {
+			// the filter applied previously stops:
+			TreeModelListener[] listeners = ((DefaultTreeModel) map)
+					.getTreeModelListeners();
+			for (int i = 0; i < listeners.length; i++) {
+				if (listeners[i] instanceof DefaultFilter) {
+					((DefaultFilter) listeners[i]).stopListening();
+				}
+			}
+			stopListening();
+			if (Resources.getInstance().getBoolProperty(
+					FreeMind.RESOURCES_FILTER_ON_CHANGE)) {
+				mMap = map;
+				mMap.addTreeModelListener(this);
+			}
+		}
+		mController = c;
+	}
+
+	private void stopListening() {
+		if (mMap != null) {
+			mMap.removeTreeModelListener(this);
+			mMap = null;
+		}
+	}
+
 	static public void selectVisibleNode(MapView mapView) {
 		LinkedList selectedNodes = mapView.getSelecteds();
 		final int lastSelectedIndex = selectedNodes.size() - 1;
@@ -169,6 +228,220 @@ public class DefaultFilter implements Filter {
 		node.getFilterInfo().add(flag);
 	}
 
+	/*
+	 * The changes of the map.
+	 */
+
+	public void treeNodesChanged(TreeModelEvent e) {
+		if (mRefreshingNodes) {
+			// our own refresh.
+			return;
+		}
+		Object[] children = e.getChildren();
+		if (children == null) {
+			Object[] path = e.getPath();
+			nodeChanged((MindMapNode) path[path.length - 1]);
+		} else {
+			for (int i = 0; i < children.length; i++) {
+				nodeChanged((MindMapNode) children[i]);
+			}
+		}
+		refreshChangedNodes();
+	}
+
+	public void treeNodesInserted(TreeModelEvent e) {
+		Object[] path = e.getPath();
+		MindMapNode parent = (MindMapNode) path[path.length - 1];
+		Object[] children = e.getChildren();
+		if (children == null) {
+			treeStructureChanged(e);
+			return;
+		}
+		boolean isAncestorSelected = isSelectedForChildren(parent);
+		boolean isAncestorEclipsed = isEclipsedForChildren(parent);
+		for (int i = 0; i < children.length; i++) {
+			nodeInserted((MindMapNode) children[i], isAncestorSelected,
+					isAncestorEclipsed);
+		}
+		updateAncestorFlag(parent);
+		refreshChangedNodes();
+	}
+
+	public void treeNodesRemoved(TreeModelEvent e) {
+		Object[] path = e.getPath();
+		updateAncestorFlag((MindMapNode) path[path.length - 1]);
+		refreshChangedNodes();
+	}
+
+	/**
+	 * Sent on folding and pasting: only the new children are checked.
+	 */
+	public void treeStructureChanged(TreeModelEvent e) {
+		Object[] path = e.getPath();
+		MindMapNode parent = (MindMapNode) path[path.length - 1];
+		boolean isAncestorSelected = isSelectedForChildren(parent);
+		boolean isAncestorEclipsed = isEclipsedForChildren(parent);
+		for (ListIterator i = parent.childrenUnfolded(); i.hasNext();) {
+			MindMapNode node = (MindMapNode) i.next();
+			if (isNew(node)) {
+				nodeInserted(node, isAncestorSelected, isAncestorEclipsed);
+			}
+		}
+		updateAncestorFlag(parent);
+		refreshChangedNodes();
+	}
+
+	private static boolean isNew(MindMapNode node) {
+		return (node.getFilterInfo().get() & FILTER_INITIAL_VALUE) != 0;
+	}
+
+	private void nodeInserted(MindMapNode node, boolean isAncestorSelected,
+			boolean isAncestorEclipsed) {
+		if (isNew(node)) {
+			applyFilter(node, mController, isAncestorSelected,
+					isAncestorEclipsed, false);
+		} else {
+			// moved:
+			updateFlags(node, isAncestorSelected, isAncestorEclipsed);
+		}
+	}
+
+	/**
+	 * Checks the node again. If the result changed, the flags of its
+	 * ancestors and descendants are corrected.
+	 */
+	private void nodeChanged(MindMapNode node) {
+		if (node.isRoot()) {
+			// the root is never hidden, but its children depend on it:
+			updateDescendantFlags(node, isSelectedForChildren(node), false);
+			return;
+		}
+		FilterInfo info = node.getFilterInfo();
+		boolean conditionSatisfied = condition.checkNode(mController, node);
+		if (!isNew(node) && conditionSatisfied == info.isMatched()) {
+			return;
+		}
+		boolean wasVisible = isVisible(node);
+		info.remove(FILTER_SHOW_MATCHED | FILTER_SHOW_HIDDEN);
+		info.add(conditionSatisfied ? FILTER_SHOW_MATCHED : FILTER_SHOW_HIDDEN);
+		nodeFlagsChanged(node, wasVisible);
+		updateDescendantFlags(node, isSelectedForChildren(node),
+				isEclipsedForChildren(node));
+		updateAncestorFlag(node.getParentNode());
+	}
+
+	/**
+	 * @return true, if the children of the node have a matching ancestor.
+	 */
+	private boolean isSelectedForChildren(MindMapNode node) {
+		if (node.isRoot()) {
+			return condition.checkNode(mController, node);
+		}
+		FilterInfo info = node.getFilterInfo();
+		return info.isMatched()
+				|| (info.get() & FILTER_SHOW_DESCENDANT) != 0;
+	}
+
+	/**
+	 * @return true, if the children of the node have an ancestor (below the
+	 *         root), that doesn't match.
+	 */
+	private boolean isEclipsedForChildren(MindMapNode node) {
+		if (node.isRoot()) {
+			return false;
+		}
+		FilterInfo info = node.getFilterInfo();
+		return !info.isMatched() || (info.get() & FILTER_SHOW_ECLIPSED) != 0;
+	}
+
+	/**
+	 * Sets the descendant and eclipsed flags of the children. Only the
+	 * branches, whose flags change, are visited.
+	 */
+	private void updateDescendantFlags(MindMapNode parent,
+			boolean isAncestorSelected, boolean isAncestorEclipsed) {
+		for (ListIterator i = parent.childrenUnfolded(); i.hasNext();) {
+			updateFlags((MindMapNode) i.next(), isAncestorSelected,
+					isAncestorEclipsed);
+		}
+	}
+
+	private void updateFlags(MindMapNode node, boolean isAncestorSelected,
+			boolean isAncestorEclipsed) {
+		FilterInfo info = node.getFilterInfo();
+		int oldInfo = info.get();
+		boolean wasVisible = isVisible(node);
+		setFlag(info, FILTER_SHOW_DESCENDANT, isAncestorSelected);
+		setFlag(info, FILTER_SHOW_ECLIPSED, isAncestorEclipsed);
+		if (info.get() != oldInfo) {
+			nodeFlagsChanged(node, wasVisible);
+			updateDescendantFlags(node, isSelectedForChildren(node),
+					isEclipsedForChildren(node));
+		}
+	}
+
+	/**
+	 * Sets the ancestor flag of the node and its ancestors, until it doesn't
+	 * change any more.
+	 */
+	private void updateAncestorFlag(MindMapNode node) {
+		while (node != null) {
+			boolean isDescendantSelected = false;
+			for (ListIterator i = node.childrenUnfolded(); i.hasNext();) {
+				FilterInfo childInfo = ((MindMapNode) i.next())
+						.getFilterInfo();
+				if (childInfo.isMatched() || childInfo.isAncestor()) {
+					isDescendantSelected = true;
+					break;
+				}
+			}
+			FilterInfo info = node.getFilterInfo();
+			if (info.isAncestor() == isDescendantSelected) {
+				return;
+			}
+			boolean wasVisible = isVisible(node);
+			setFlag(info, FILTER_SHOW_ANCESTOR, isDescendantSelected);
+			nodeFlagsChanged(node, wasVisible);
+			node = node.getParentNode();
+		}
+	}
+
+	private static void setFlag(FilterInfo info, int flag, boolean value) {
+		if (value) {
+			info.add(flag);
+		} else {
+			info.remove(flag);
+		}
+	}
+
+	private void nodeFlagsChanged(MindMapNode node, boolean wasVisible) {
+		if (wasVisible != isVisible(node)) {
+			mChangedNodes.add(node);
+		}
+	}
+
+	/**
+	 * Updates the views of the nodes, whose visibility changed.
+	 */
+	private void refreshChangedNodes() {
+		if (mChangedNodes.isEmpty()) {
+			return;
+		}
+		mRefreshingNodes = true;
+		try {
+			for (Iterator i = mChangedNodes.iterator(); i.hasNext();) {
+				mMap.nodeRefresh((MindMapNode) i.next());
+			}
+		} finally {
+			mRefreshingNodes = false;
+			mChangedNodes.clear();
+		}
+		MapView mapView = mController.getView();
+		if (mapView != null && mapView.getModel() == mMap) {
+			selectVisibleNode(mapView);
+		}
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -59,6 +59,10 @@ public class FilterInfo {
 		info |= flag;
 	}
 
+	void remove(int flag) {
+		info &= ~flag;
+	}
+
 	int get() {
 		return info;
 	}
@@ -27,7 +27,8 @@ import freemind.controller.Controller;
 import freemind.main.Tools;
 import freemind.main.XMLElement;
 import freemind.modes.MindMapNode;
-import freemind.modes.attributes.AttributeTableModel;
+import freemind.modes.attributes.Attribute;
+import freemind.modes.attributes.NodeAttributeTableModel;
 
 /**
  * @author Dimitri Polivaev 12.07.2005
@@ -59,15 +60,25 @@ public class AttributeCompareCondition extends CompareConditionAdapter {
 	 * .MindMapNode)
 	 */
 	public boolean checkNode(Controller c, MindMapNode node) {
-		AttributeTableModel attributes = node.getAttributes();
+		NodeAttributeTableModel attributes = node.getAttributes();
 		for (int i = 0; i < attributes.getRowCount(); i++) {
-			try {
-				if (attributes.getValueAt(i, 0).equals(attribute)
-						&& succeed == (compareTo(attributes.getValueAt(i, 1)
-								.toString()) == comparationResult))
-					return true;
-			} catch (NumberFormatException fne) {
+			Attribute nodeAttribute = attributes.getAttribute(i);
+			if (!nodeAttribute.getName().equals(attribute)) {
+				continue;
 			}
+			int comparation;
+			if (isNumeric()) {
+				// the number is cached by the attribute:
+				Double number = nodeAttribute.getNumber();
+				if (number == null) {
+					continue;
+				}
+				comparation = compareTo(number.doubleValue());
+			} else {
+				comparation = compareToText(nodeAttribute.getValue());
+			}
+			if (succeed == (comparation == comparationResult))
+				return true;
 		}
 		return false;
 	}
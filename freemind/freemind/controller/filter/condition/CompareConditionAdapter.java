@@ -33,31 +33,47 @@ abstract class CompareConditionAdapter extends NodeCondition {
 	static final String VALUE = "value";
 	private String conditionValue;
 	private boolean ignoreCase;
+	/** The value parsed once, null if it isn't a number. */
+	private Double conditionNumber;
 
 	CompareConditionAdapter(String value, boolean ignoreCase) {
 		super();
 		this.conditionValue = value;
 		this.ignoreCase = ignoreCase;
+		try {
+			conditionNumber = new Double(Double.parseDouble(value));
+		} catch (RuntimeException e) {
+			// not a number (or null):
+			conditionNumber = null;
+		}
 	}
 
+	/**
+	 * Numbers are compared as numbers (integers give the same order as
+	 * doubles), other values as strings.
+	 */
 	protected int compareTo(String nodeValue) throws NumberFormatException {
-		try {
-			int i2 = Integer.parseInt(conditionValue);
-			int i1 = Integer.parseInt(nodeValue);
-			return i1 < i2 ? -1 : (i1 == i2 ? 0 : 1);
-		} catch (NumberFormatException fne) {
+		if (!isNumeric()) {
+			return compareToText(nodeValue);
 		}
-		;
-		double d2;
-		try {
-			d2 = Double.parseDouble(conditionValue);
-		} catch (NumberFormatException fne) {
-			return ignoreCase ? nodeValue.compareToIgnoreCase(conditionValue)
-					: nodeValue.compareTo(conditionValue);
-		}
-		;
-		double d1 = Double.parseDouble(nodeValue);
-		return Double.compare(d1, d2);
+		return compareTo(Double.parseDouble(nodeValue));
+	}
+
+	/**
+	 * @return true, if the value of the condition is a number. Then, only
+	 *         numbers can be compared to it.
+	 */
+	protected boolean isNumeric() {
+		return conditionNumber != null;
+	}
+
+	protected int compareTo(double nodeNumber) {
+		return Double.compare(nodeNumber, conditionNumber.doubleValue());
+	}
+
+	protected int compareToText(String nodeValue) {
+		return ignoreCase ? nodeValue.compareToIgnoreCase(conditionValue)
+				: nodeValue.compareTo(conditionValue);
 	}
 
 	public void saveAttributes(XMLElement child) {
@@ -23,6 +23,9 @@
  */
 package freemind.controller.filter.condition;
 
+import java.util.Arrays;
+import java.util.Comparator;
+
 import javax.swing.JComponent;
 import javax.swing.JLabel;
 
@@ -245,4 +248,66 @@ public class ConditionFactory {
 		return component;
 	}
 
+	/**
+	 * @return a rough measure of the time needed to check a node: conditions
+	 *         reading only node fields are cheap, text comparisons are
+	 *         expensive.
+	 */
+	static int getEvaluationCost(Condition condition) {
+		if (condition instanceof NoFilteringCondition) {
+			return 0;
+		}
+		if (condition instanceof IconContainedCondition
+				|| condition instanceof IconNotContainedCondition
+				|| condition instanceof AttributeExistsCondition
+				|| condition instanceof AttributeNotExistsCondition
+				|| condition instanceof SelectedViewCondition) {
+			return 1;
+		}
+		if (condition instanceof NodeContainsCondition
+				|| condition instanceof IgnoreCaseNodeContainsCondition) {
+			return 2;
+		}
+		if (condition instanceof CompareConditionAdapter) {
+			return 3;
+		}
+		if (condition instanceof ConditionNotSatisfiedDecorator) {
+			return getEvaluationCost(((ConditionNotSatisfiedDecorator) condition)
+					.getOriginalCondition());
+		}
+		if (condition instanceof ConjunctConditions) {
+			return getEvaluationCost(((ConjunctConditions) condition)
+					.getConditions());
+		}
+		if (condition instanceof DisjunctConditions) {
+			return getEvaluationCost(((DisjunctConditions) condition)
+					.getConditions());
+		}
+		return 4;
+	}
+
+	private static int getEvaluationCost(Object[] conditions) {
+		int cost = 0;
+		for (int i = 0; i < conditions.length; i++) {
+			cost += getEvaluationCost((Condition) conditions[i]);
+		}
+		return cost;
+	}
+
+	/**
+	 * @return a copy of the conditions with the cheapest first. Conditions of
+	 *         the same cost keep their order.
+	 */
+	static Object[] sortByEvaluationCost(Object[] conditions) {
+		Object[] sorted = new Object[conditions.length];
+		System.arraycopy(conditions, 0, sorted, 0, conditions.length);
+		Arrays.sort(sorted, new Comparator() {
+			public int compare(Object o1, Object o2) {
+				return getEvaluationCost((Condition) o1)
+						- getEvaluationCost((Condition) o2);
+			}
+		});
+		return sorted;
+	}
+
 }
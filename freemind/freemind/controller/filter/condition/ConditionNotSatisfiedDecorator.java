@@ -51,6 +51,10 @@ public class ConditionNotSatisfiedDecorator implements Condition {
 		this.originalCondition = originalCondition;
 	}
 
+	Condition getOriginalCondition() {
+		return originalCondition;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -42,12 +42,19 @@ public class ConjunctConditions implements Condition {
 
 	static final String NAME = "conjunct_condition";
 	private Object[] conditions;
+	/** The conditions in the order they are checked, the cheapest first. */
+	private Object[] checkedConditions;
 
 	/**
      *
      */
 	public ConjunctConditions(Object[] conditions) {
 		this.conditions = conditions;
+		checkedConditions = ConditionFactory.sortByEvaluationCost(conditions);
+	}
+
+	Object[] getConditions() {
+		return conditions;
 	}
 
 	/*
@@ -59,8 +66,8 @@ public class ConjunctConditions implements Condition {
 	 */
 	public boolean checkNode(Controller c, MindMapNode node) {
 		int i;
-		for (i = 0; i < conditions.length; i++) {
-			Condition cond = (Condition) conditions[i];
+		for (i = 0; i < checkedConditions.length; i++) {
+			Condition cond = (Condition) checkedConditions[i];
 			if (!cond.checkNode(c, node))
 				return false;
 		}
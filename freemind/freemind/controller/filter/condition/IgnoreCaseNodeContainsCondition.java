@@ -40,7 +40,8 @@ class IgnoreCaseNodeContainsCondition extends NodeCondition {
 	}
 
 	public boolean checkNode(Controller c, MindMapNode node) {
-		return node.getText().toLowerCase().indexOf(value) > -1;
+		return node.getMap().getRegistry().getTextIndex()
+				.containsText(node, value, false);
 	}
 
 	public void save(XMLElement element) {
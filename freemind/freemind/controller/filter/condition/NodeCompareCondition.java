@@ -28,6 +28,7 @@ import freemind.main.Resources;
 import freemind.main.Tools;
 import freemind.main.XMLElement;
 import freemind.modes.MindMapNode;
+import freemind.modes.PlainTextIndex;
 
 class NodeCompareCondition extends CompareConditionAdapter {
 
@@ -46,11 +47,16 @@ class NodeCompareCondition extends CompareConditionAdapter {
 	}
 
 	public boolean checkNode(Controller c, MindMapNode node) {
-		try {
-			return succeed == (compareTo(node.getText()) == comparationResult);
-		} catch (NumberFormatException fne) {
-			return false;
+		// the plain text and its number are cached per node:
+		PlainTextIndex index = node.getMap().getRegistry().getTextIndex();
+		if (isNumeric()) {
+			Double number = index.getNumber(node);
+			return number != null
+					&& succeed == (compareTo(number.doubleValue())
+							== comparationResult);
 		}
+		return succeed == (compareToText(index.getText(node, true))
+				== comparationResult);
 	}
 
 	public void save(XMLElement element) {
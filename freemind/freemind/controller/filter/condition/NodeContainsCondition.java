@@ -39,7 +39,8 @@ class NodeContainsCondition extends NodeCondition {
 	}
 
 	public boolean checkNode(Controller c, MindMapNode node) {
-		return node.getText().indexOf(value) > -1;
+		return node.getMap().getRegistry().getTextIndex()
+				.containsText(node, value, true);
 	}
 
 	public void save(XMLElement element) {
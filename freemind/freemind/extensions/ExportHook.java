@@ -30,11 +30,13 @@ import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URL;
 import java.text.MessageFormat;
 
+import javax.imageio.ImageIO;
 import javax.swing.JFileChooser;
 import javax.swing.JOptionPane;
 import javax.swing.filechooser.FileFilter;
@@ -42,6 +44,7 @@ import javax.swing.filechooser.FileFilter;
 import freemind.main.Tools;
 import freemind.modes.ModeController;
 import freemind.view.mindmapview.MapView;
+import freemind.view.mindmapview.StripRenderedImage;
 
 /**
  * @author foltin
@@ -139,6 +142,40 @@ public class ExportHook extends ModeControllerHookAdapter {
 		return returnValue;
 	}
 
+	/**
+	 * Exports the map into the given file without asking the user, e.g. for
+	 * the batch export, see {@link freemind.main.BatchExport}.
+	 * 
+	 * @return false, if the export failed or if this export needs the user.
+	 */
+	public boolean exportToFile(File pFile) throws IOException {
+		return false;
+	}
+
+	/**
+	 * Writes the image of the map in strips, see {@link StripRenderedImage},
+	 * such that the image of a huge map needs not fit into the memory.
+	 *
+	 * @return false, if there is no view or no writer for the type.
+	 */
+	public boolean writeImage(String pType, OutputStream pOut)
+			throws IOException {
+		view = getController().getView();
+		if (view == null)
+			return false;
+		// call prepare printing to lay out for printing before getting the
+		// inner bounds
+		view.preparePrinting();
+		try {
+			StripRenderedImage image = new StripRenderedImage(view,
+					view.getInnerBounds(),
+					StripRenderedImage.DEFAULT_STRIP_HEIGHT);
+			return ImageIO.write(image.getImage(), pType, pOut);
+		} finally {
+			view.endPrinting();
+		}
+	}
+
 	public BufferedImage createBufferedImage() {
 		view = getController().getView();
 		if (view == null)
@@ -122,7 +122,8 @@ public class HookDescriptorBase {
 		return loader;
 	}
 
-	private static HashMap classLoaderCache = new HashMap();
+	/** Hooks are created in parallel, when maps are loaded in parallel. */
+	private static final HashMap classLoaderCache = new HashMap();
 
 	/**
 	 * This string is used to identify known classloaders as they are cached.
@@ -141,38 +142,40 @@ public class HookDescriptorBase {
 	 * @throws MalformedURLException
 	 */
 	private ClassLoader getClassLoader(List pluginClasspathList) {
-		String key = createPluginClasspathString(pluginClasspathList);
-		if (classLoaderCache.containsKey(key))
-			return (ClassLoader) classLoaderCache.get(key);
-		try {
-			URL[] urls = new URL[pluginClasspathList.size()];
-			int j = 0;
-			for (Iterator i = pluginClasspathList.iterator(); i.hasNext();) {
-				PluginClasspath classPath = (PluginClasspath) i.next();
-				String jarString = classPath.getJar();
-				// if(jarString.startsWith(FREEMIND_BASE_DIR_STRING)){
-				// jarString = frame.getFreemindBaseDir() +
-				// jarString.substring(FREEMIND_BASE_DIR_STRING.length());
-				// }
-				// new version of classpath resolution suggested by ewl under
-				// patch [ 1154510 ] Be able to give absolute classpath entries
-				// in plugin.xml
-				File file = new File(jarString);
-				if (!file.isAbsolute()) {
-					file = new File(getPluginDirectory(), jarString);
+		synchronized (classLoaderCache) {
+			String key = createPluginClasspathString(pluginClasspathList);
+			if (classLoaderCache.containsKey(key))
+				return (ClassLoader) classLoaderCache.get(key);
+			try {
+				URL[] urls = new URL[pluginClasspathList.size()];
+				int j = 0;
+				for (Iterator i = pluginClasspathList.iterator(); i.hasNext();) {
+					PluginClasspath classPath = (PluginClasspath) i.next();
+					String jarString = classPath.getJar();
+					// if(jarString.startsWith(FREEMIND_BASE_DIR_STRING)){
+					// jarString = frame.getFreemindBaseDir() +
+					// jarString.substring(FREEMIND_BASE_DIR_STRING.length());
+					// }
+					// new version of classpath resolution suggested by ewl under
+					// patch [ 1154510 ] Be able to give absolute classpath entries
+					// in plugin.xml
+					File file = new File(jarString);
+					if (!file.isAbsolute()) {
+						file = new File(getPluginDirectory(), jarString);
+					}
+					// end new version by ewl.
+					logger.info("file " + Tools.fileToUrl(file) + " exists = "
+							+ file.exists());
+					urls[j++] = Tools.fileToUrl(file);
 				}
-				// end new version by ewl.
-				logger.info("file " + Tools.fileToUrl(file) + " exists = "
-						+ file.exists());
-				urls[j++] = Tools.fileToUrl(file);
+				ClassLoader loader = new URLClassLoader(urls,
+						frame.getFreeMindClassLoader());
+				classLoaderCache.put(key, loader);
+				return loader;
+			} catch (MalformedURLException e) {
+				freemind.main.Resources.getInstance().logException(e);
+				return this.getClass().getClassLoader();
 			}
-			ClassLoader loader = new URLClassLoader(urls,
-					frame.getFreeMindClassLoader());
-			classLoaderCache.put(key, loader);
-			return loader;
-		} catch (MalformedURLException e) {
-			freemind.main.Resources.getInstance().logException(e);
-			return this.getClass().getClassLoader();
 		}
 	}
 }
@@ -72,11 +72,25 @@ public class ImportWizard {
 	// }
 
 	public void buildClassList() {
+		buildClassList(null);
+	}
+
+	/**
+	 * @param pIndex
+	 *            if not null, only the class path entries that changed since
+	 *            the index was written are scanned.
+	 */
+	public void buildClassList(PluginIndex pIndex) {
 		String classPath = System.getProperty("java.class.path");
 		String classPathSeparator = File.pathSeparator;
 		// add the current dir to find more plugins
 		classPath = mFrame.getFreemindBaseDir() + classPathSeparator
 				+ classPath;
+		buildClassList(classPath, pIndex);
+	}
+
+	public void buildClassList(String classPath, PluginIndex pIndex) {
+		String classPathSeparator = File.pathSeparator;
 		logger.info("Classpath for plugins:" + classPath);
 		// to remove duplicates
 		HashSet foundPlugins = new HashSet();
@@ -84,8 +98,9 @@ public class ImportWizard {
 		while (st.hasMoreTokens()) {
 			String classPathEntry = st.nextToken();
 			File classPathFile = new File(classPathEntry);
+			String key = classPathEntry;
 			try {
-				String key = classPathFile.getCanonicalPath();
+				key = classPathFile.getCanonicalPath();
 				if (foundPlugins.contains(key))
 					continue;
 				logger.info("looking for plugins in " + key);
@@ -96,20 +111,39 @@ public class ImportWizard {
 			}
 			if (classPathFile.exists()) {
 				String lowerCaseFileName = classPathEntry.toLowerCase();
-				if (lowerCaseFileName.endsWith(".jar")) {
-					logger.info("searching for plugins in: " + classPathEntry);
-					addClassesFromZip(CLASS_LIST, classPathFile);
-				} else if (lowerCaseFileName.endsWith(".zip")) {
-					logger.info("searching for plugins in: " + classPathEntry);
-					addClassesFromZip(CLASS_LIST, classPathFile);
-				} else if (classPathFile.isDirectory()) {
-					logger.info("searching for plugins in: " + classPathEntry);
-					addClassesFromDir(CLASS_LIST, classPathFile, classPathFile,
-							0);
+				boolean isZip = lowerCaseFileName.endsWith(".jar")
+						|| lowerCaseFileName.endsWith(".zip");
+				if (!isZip && !classPathFile.isDirectory()) {
+					continue;
+				}
+				if (pIndex != null) {
+					Vector indexed = pIndex.getDescriptors(key);
+					if (indexed != null) {
+						logger.info("plugins of " + classPathEntry
+								+ " taken from the index.");
+						CLASS_LIST.addAll(indexed);
+						continue;
+					}
+				}
+				logger.info("searching for plugins in: " + classPathEntry);
+				Vector found = new Vector();
+				Vector scannedFiles = new Vector();
+				if (isZip) {
+					addClassesFromZip(found, classPathFile);
+					scannedFiles.add(classPathFile.getPath());
+				} else {
+					addClassesFromDir(found, classPathFile, classPathFile, 0,
+							scannedFiles);
+				}
+				CLASS_LIST.addAll(found);
+				if (pIndex != null) {
+					pIndex.putDescriptors(key, scannedFiles, found);
 				}
 			}
 		}
-
+		if (pIndex != null) {
+			pIndex.save();
+		}
 	}
 
 	/**
@@ -165,10 +199,23 @@ public class ImportWizard {
 	 */
 	public void addClassesFromDir(Vector classList, File rootDir,
 			File currentDir, int recursionLevel) {
+		addClassesFromDir(classList, rootDir, currentDir, recursionLevel, null);
+	}
+
+	/**
+	 * @param scannedDirs
+	 *            if not null, the paths of the scanned directories and of the
+	 *            found descriptors are added.
+	 */
+	private void addClassesFromDir(Vector classList, File rootDir,
+			File currentDir, int recursionLevel, Vector scannedDirs) {
 		if (recursionLevel >= 6) {
 			// search only the first levels
 			return;
 		}
+		if (scannedDirs != null) {
+			scannedDirs.add(currentDir.getPath());
+		}
 		String[] files = currentDir.list();
 		if (files != null) {
 			for (int i = 0; i < files.length; i++) {
@@ -199,13 +246,18 @@ public class ImportWizard {
 						}
 						classList.addElement(fileName);
 						logger.info("Found: " + fileName);
+						if (scannedDirs != null) {
+							// the index caches their content:
+							scannedDirs.add(new File(currentDir, files[i])
+									.getPath());
+						}
 					}
 				} else {
 					// Check if it's a directory to recurse into
 					File currentFile = new File(currentDir, current);
 					if (currentFile.isDirectory()) {
 						addClassesFromDir(classList, rootDir, currentFile,
-								recursionLevel + 1);
+								recursionLevel + 1, scannedDirs);
 					}
 				}
 			}
@@ -0,0 +1,477 @@
+/*FreeMind - A Program for creating and viewing Mindmaps
+ *Copyright (C) 2000-2012 Joerg Mueller, Daniel Polansky, Christian Foltin, Dimitri Polivaev and others.
+ *
+ *See COPYING for Details
+ *
+ *This program is free software; you can redistribute it and/or
+ *modify it under the terms of the GNU General Public License
+ *as published by the Free Software Foundation; either version 2
+ *of the License, or (at your option) any later version.
+ *
+ *This program is distributed in the hope that it will be useful,
+ *but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *GNU General Public License for more details.
+ *
+ *You should have received a copy of the GNU General Public License
+ *along with this program; if not, write to the Free Software
+ *Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package freemind.extensions;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Properties;
+import java.util.StringTokenizer;
+import java.util.Vector;
+
+import freemind.controller.actions.generated.instance.Plugin;
+import freemind.controller.actions.generated.instance.PluginAction;
+import freemind.controller.actions.generated.instance.PluginClasspath;
+import freemind.controller.actions.generated.instance.PluginMenu;
+import freemind.controller.actions.generated.instance.PluginMode;
+import freemind.controller.actions.generated.instance.PluginProperty;
+import freemind.controller.actions.generated.instance.PluginRegistration;
+
+/**
+ * Remembers the plugin descriptors (the xml files) found in each entry of the
+ * class path, such that the {@link ImportWizard} scans only the entries that
+ * changed since the last start.
+ *
+ * An entry is unchanged, if the length and the modification time of its jar
+ * are unchanged. For a directory, the modification times of all scanned sub
+ * directories are compared, as they change when files are added or removed,
+ * and those of the found descriptors.
+ *
+ * The content of the descriptors is cached, too, such that the unchanged ones
+ * needn't be unmarshalled again. The plugin strings are not cached, as they
+ * aren't used.
+ *
+ * The index is stored as a properties file, usually in the freemind directory
+ * of the user.
+ */
+public class PluginIndex {
+
+	private static final String FORMAT_VERSION = "2";
+
+	private static final String VERSION_KEY = "version";
+
+	/** The files whose modification time is compared. */
+	private static final String FILES_SUFFIX = ".files";
+
+	private static final String STAMP_SUFFIX = ".stamp";
+
+	private static final String DESCRIPTORS_SUFFIX = ".descriptors";
+
+	/** Not in file names. */
+	private static final String SEPARATOR = "\n";
+
+	/**
+	 * The cached content of a descriptor is stored under the key
+	 * PLUGIN_PREFIX + descriptor + SEPARATOR + field.
+	 */
+	private static final String PLUGIN_PREFIX = "plugin:";
+
+	private static final String LABEL = "label";
+
+	/** The number of the elements, that are stored in their order. */
+	private static final String CHOICES = "choices";
+
+	private static final String TYPE = "type";
+
+	private static final String CLASSPATH = "classpath";
+
+	private static final String ACTION = "action";
+
+	private static final String REGISTRATION = "registration";
+
+	private static final String MENU = "menu";
+
+	private static final String MODE = "mode";
+
+	private static final String PROPERTY = "property";
+
+	private static final String MODES = "modes";
+
+	private static java.util.logging.Logger logger = null;
+
+	private final File mIndexFile;
+
+	private final Properties mIndex = new Properties();
+
+	/** Entries, that were used since the index was read. */
+	private final HashSet mUsedEntries = new HashSet();
+
+	private boolean mChanged = false;
+
+	private int mScannedEntries = 0;
+
+	public PluginIndex(File pIndexFile) {
+		if (logger == null) {
+			logger = freemind.main.Resources.getInstance().getLogger(
+					this.getClass().getName());
+		}
+		mIndexFile = pIndexFile;
+		if (mIndexFile.exists()) {
+			try {
+				InputStream in = new FileInputStream(mIndexFile);
+				try {
+					mIndex.load(in);
+				} finally {
+					in.close();
+				}
+			} catch (IOException e) {
+				freemind.main.Resources.getInstance().logException(e,
+						"Can't read the plugin index " + mIndexFile);
+				mIndex.clear();
+			}
+		}
+		if (!FORMAT_VERSION.equals(mIndex.getProperty(VERSION_KEY))) {
+			mIndex.clear();
+			mIndex.setProperty(VERSION_KEY, FORMAT_VERSION);
+			mChanged = true;
+		}
+	}
+
+	/**
+	 * @param pKey
+	 *            the canonical path of the class path entry.
+	 * @return the descriptors found in the entry, if it didn't change, or
+	 *         null, if it must be scanned.
+	 */
+	public Vector getDescriptors(String pKey) {
+		mUsedEntries.add(pKey);
+		String files = mIndex.getProperty(pKey + FILES_SUFFIX);
+		String stamp = mIndex.getProperty(pKey + STAMP_SUFFIX);
+		String descriptors = mIndex.getProperty(pKey + DESCRIPTORS_SUFFIX);
+		if (files == null || stamp == null || descriptors == null
+				|| !stamp.equals(getStamp(split(files)))) {
+			return null;
+		}
+		return split(descriptors);
+	}
+
+	/**
+	 * Stores the result of a scan.
+	 *
+	 * @param pFiles
+	 *            the scanned jar or the scanned directories.
+	 */
+	public void putDescriptors(String pKey, Vector pFiles, Vector pDescriptors) {
+		mUsedEntries.add(pKey);
+		String oldDescriptors = mIndex.getProperty(pKey + DESCRIPTORS_SUFFIX);
+		if (oldDescriptors != null) {
+			removePlugins(split(oldDescriptors));
+		}
+		removePlugins(pDescriptors);
+		mIndex.setProperty(pKey + FILES_SUFFIX, join(pFiles));
+		mIndex.setProperty(pKey + STAMP_SUFFIX, getStamp(pFiles));
+		mIndex.setProperty(pKey + DESCRIPTORS_SUFFIX, join(pDescriptors));
+		mChanged = true;
+		++mScannedEntries;
+	}
+
+	/**
+	 * Removes the entries that are no longer on the class path and writes the
+	 * index, if it changed.
+	 */
+	public void save() {
+		for (Iterator it = new Vector(mIndex.keySet()).iterator(); it.hasNext();) {
+			String key = (String) it.next();
+			if (!key.endsWith(FILES_SUFFIX)) {
+				continue;
+			}
+			String entry = key.substring(0, key.length() - FILES_SUFFIX.length());
+			if (!mUsedEntries.contains(entry)) {
+				String descriptors = mIndex.getProperty(entry
+						+ DESCRIPTORS_SUFFIX);
+				if (descriptors != null) {
+					removePlugins(split(descriptors));
+				}
+				mIndex.remove(entry + FILES_SUFFIX);
+				mIndex.remove(entry + STAMP_SUFFIX);
+				mIndex.remove(entry + DESCRIPTORS_SUFFIX);
+				mChanged = true;
+			}
+		}
+		if (!mChanged) {
+			return;
+		}
+		try {
+			OutputStream out = new FileOutputStream(mIndexFile);
+			try {
+				mIndex.store(out, "FreeMind plugin index, may be deleted.");
+			} finally {
+				out.close();
+			}
+			mChanged = false;
+		} catch (IOException e) {
+			logger.warning("Can't write the plugin index " + mIndexFile + ": "
+					+ e);
+		}
+	}
+
+	/**
+	 * @return how many class path entries were scanned since the index was
+	 *         read.
+	 */
+	public int getScannedEntries() {
+		return mScannedEntries;
+	}
+
+	/**
+	 * @param pDescriptor
+	 *            a descriptor as in the class list.
+	 * @return the cached content of the descriptor, or null, if it must be
+	 *         unmarshalled.
+	 */
+	public Plugin getPlugin(String pDescriptor) {
+		String label = getPluginProperty(pDescriptor, LABEL);
+		if (label == null) {
+			return null;
+		}
+		Plugin plugin = new Plugin();
+		plugin.setLabel(label);
+		int choices = getPluginCount(pDescriptor, CHOICES);
+		for (int i = 0; i < choices; i++) {
+			String prefix = CHOICES + "." + i + ".";
+			String type = getPluginProperty(pDescriptor, prefix + TYPE);
+			if (CLASSPATH.equals(type)) {
+				PluginClasspath classpath = new PluginClasspath();
+				classpath.setJar(getPluginProperty(pDescriptor, prefix + "jar"));
+				plugin.addChoice(classpath);
+			} else if (ACTION.equals(type)) {
+				plugin.addChoice(getAction(pDescriptor, prefix));
+			} else if (REGISTRATION.equals(type)) {
+				PluginRegistration registration = new PluginRegistration();
+				registration.setClassName(getPluginProperty(pDescriptor, prefix
+						+ "className"));
+				registration.setIsPluginBase(Boolean.valueOf(
+						getPluginProperty(pDescriptor, prefix + "isPluginBase"))
+						.booleanValue());
+				for (Iterator it = getPluginList(pDescriptor, prefix + MODES)
+						.iterator(); it.hasNext();) {
+					PluginMode mode = new PluginMode();
+					mode.setClassName((String) it.next());
+					registration.addPluginMode(mode);
+				}
+				plugin.addChoice(registration);
+			}
+		}
+		return plugin;
+	}
+
+	private PluginAction getAction(String pDescriptor, String pPrefix) {
+		PluginAction action = new PluginAction();
+		action.setLabel(getPluginProperty(pDescriptor, pPrefix + "label"));
+		action.setName(getPluginProperty(pDescriptor, pPrefix + "name"));
+		action.setBase(getPluginProperty(pDescriptor, pPrefix + "base"));
+		action.setClassName(getPluginProperty(pDescriptor, pPrefix
+				+ "className"));
+		action.setDocumentation(getPluginProperty(pDescriptor, pPrefix
+				+ "documentation"));
+		action.setIconPath(getPluginProperty(pDescriptor, pPrefix
+				+ "iconPath"));
+		action.setKeyStroke(getPluginProperty(pDescriptor, pPrefix
+				+ "keyStroke"));
+		action.setInstanciation(getPluginProperty(pDescriptor, pPrefix
+				+ "instanciation"));
+		action.setIsSelectable(Boolean.valueOf(
+				getPluginProperty(pDescriptor, pPrefix + "isSelectable"))
+				.booleanValue());
+		int choices = getPluginCount(pDescriptor, pPrefix + CHOICES);
+		for (int i = 0; i < choices; i++) {
+			String prefix = pPrefix + CHOICES + "." + i + ".";
+			String type = getPluginProperty(pDescriptor, prefix + TYPE);
+			if (MENU.equals(type)) {
+				PluginMenu menu = new PluginMenu();
+				menu.setLocation(getPluginProperty(pDescriptor, prefix
+						+ "location"));
+				action.addChoice(menu);
+			} else if (MODE.equals(type)) {
+				PluginMode mode = new PluginMode();
+				mode.setClassName(getPluginProperty(pDescriptor, prefix
+						+ "className"));
+				action.addChoice(mode);
+			} else if (PROPERTY.equals(type)) {
+				PluginProperty property = new PluginProperty();
+				property.setName(getPluginProperty(pDescriptor, prefix + "name"));
+				property.setValue(getPluginProperty(pDescriptor, prefix
+						+ "value"));
+				action.addChoice(property);
+			}
+		}
+		return action;
+	}
+
+	/**
+	 * Caches the content of an unmarshalled descriptor. It is dropped, when
+	 * the class path entry of the descriptor changes.
+	 */
+	public void putPlugin(String pDescriptor, Plugin pPlugin) {
+		removePlugin(pDescriptor);
+		setPluginProperty(pDescriptor, LABEL, pPlugin.getLabel());
+		int choices = 0;
+		for (Iterator it = pPlugin.getListChoiceList().iterator(); it.hasNext();) {
+			Object obj = it.next();
+			String prefix = CHOICES + "." + choices + ".";
+			if (obj instanceof PluginClasspath) {
+				setPluginProperty(pDescriptor, prefix + TYPE, CLASSPATH);
+				setPluginProperty(pDescriptor, prefix + "jar",
+						((PluginClasspath) obj).getJar());
+			} else if (obj instanceof PluginAction) {
+				setPluginProperty(pDescriptor, prefix + TYPE, ACTION);
+				putAction(pDescriptor, prefix, (PluginAction) obj);
+			} else if (obj instanceof PluginRegistration) {
+				PluginRegistration registration = (PluginRegistration) obj;
+				setPluginProperty(pDescriptor, prefix + TYPE, REGISTRATION);
+				setPluginProperty(pDescriptor, prefix + "className",
+						registration.getClassName());
+				setPluginProperty(pDescriptor, prefix + "isPluginBase",
+						String.valueOf(registration.getIsPluginBase()));
+				Vector modes = new Vector();
+				for (Iterator j = registration.getListPluginModeList()
+						.iterator(); j.hasNext();) {
+					modes.add(((PluginMode) j.next()).getClassName());
+				}
+				setPluginProperty(pDescriptor, prefix + MODES, join(modes));
+			} else {
+				// the plugin strings aren't used.
+				continue;
+			}
+			++choices;
+		}
+		setPluginProperty(pDescriptor, CHOICES, String.valueOf(choices));
+		mChanged = true;
+	}
+
+	private void putAction(String pDescriptor, String pPrefix,
+			PluginAction pAction) {
+		setPluginProperty(pDescriptor, pPrefix + "label", pAction.getLabel());
+		setPluginProperty(pDescriptor, pPrefix + "name", pAction.getName());
+		setPluginProperty(pDescriptor, pPrefix + "base", pAction.getBase());
+		setPluginProperty(pDescriptor, pPrefix + "className",
+				pAction.getClassName());
+		setPluginProperty(pDescriptor, pPrefix + "documentation",
+				pAction.getDocumentation());
+		setPluginProperty(pDescriptor, pPrefix + "iconPath",
+				pAction.getIconPath());
+		setPluginProperty(pDescriptor, pPrefix + "keyStroke",
+				pAction.getKeyStroke());
+		setPluginProperty(pDescriptor, pPrefix + "instanciation",
+				pAction.getInstanciation());
+		setPluginProperty(pDescriptor, pPrefix + "isSelectable",
+				String.valueOf(pAction.getIsSelectable()));
+		int choices = 0;
+		for (Iterator it = pAction.getListChoiceList().iterator(); it.hasNext();) {
+			Object obj = it.next();
+			String prefix = pPrefix + CHOICES + "." + choices + ".";
+			if (obj instanceof PluginMenu) {
+				setPluginProperty(pDescriptor, prefix + TYPE, MENU);
+				setPluginProperty(pDescriptor, prefix + "location",
+						((PluginMenu) obj).getLocation());
+			} else if (obj instanceof PluginMode) {
+				setPluginProperty(pDescriptor, prefix + TYPE, MODE);
+				setPluginProperty(pDescriptor, prefix + "className",
+						((PluginMode) obj).getClassName());
+			} else if (obj instanceof PluginProperty) {
+				PluginProperty property = (PluginProperty) obj;
+				setPluginProperty(pDescriptor, prefix + TYPE, PROPERTY);
+				setPluginProperty(pDescriptor, prefix + "name",
+						property.getName());
+				setPluginProperty(pDescriptor, prefix + "value",
+						property.getValue());
+			} else {
+				continue;
+			}
+			++choices;
+		}
+		setPluginProperty(pDescriptor, pPrefix + CHOICES,
+				String.valueOf(choices));
+	}
+
+	private String getPluginProperty(String pDescriptor, String pField) {
+		return mIndex.getProperty(PLUGIN_PREFIX + pDescriptor + SEPARATOR
+				+ pField);
+	}
+
+	private void setPluginProperty(String pDescriptor, String pField,
+			String pValue) {
+		// null values (optional attributes) are left out:
+		if (pValue != null) {
+			mIndex.setProperty(PLUGIN_PREFIX + pDescriptor + SEPARATOR + pField,
+					pValue);
+		}
+	}
+
+	private Vector getPluginList(String pDescriptor, String pField) {
+		String list = getPluginProperty(pDescriptor, pField);
+		return list == null ? new Vector() : split(list);
+	}
+
+	private int getPluginCount(String pDescriptor, String pField) {
+		try {
+			return Integer.parseInt(getPluginProperty(pDescriptor, pField));
+		} catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+
+	private void removePlugins(Vector pDescriptors) {
+		for (Iterator it = pDescriptors.iterator(); it.hasNext();) {
+			removePlugin((String) it.next());
+		}
+	}
+
+	private void removePlugin(String pDescriptor) {
+		String prefix = PLUGIN_PREFIX + pDescriptor + SEPARATOR;
+		for (Iterator it = new Vector(mIndex.keySet()).iterator(); it.hasNext();) {
+			String key = (String) it.next();
+			if (key.startsWith(prefix)) {
+				mIndex.remove(key);
+				mChanged = true;
+			}
+		}
+	}
+
+	private String getStamp(Vector pFiles) {
+		StringBuffer stamp = new StringBuffer();
+		for (Iterator it = pFiles.iterator(); it.hasNext();) {
+			File file = new File((String) it.next());
+			stamp.append(file.lastModified());
+			if (file.isFile()) {
+				stamp.append('/').append(file.length());
+			}
+			stamp.append(SEPARATOR);
+		}
+		return stamp.toString();
+	}
+
+	private static String join(Vector pStrings) {
+		StringBuffer result = new StringBuffer();
+		for (Iterator it = pStrings.iterator(); it.hasNext();) {
+			result.append((String) it.next());
+			if (it.hasNext()) {
+				result.append(SEPARATOR);
+			}
+		}
+		return result.toString();
+	}
+
+	private static Vector split(String pString) {
+		Vector result = new Vector();
+		for (StringTokenizer tokenizer = new StringTokenizer(pString,
+				SEPARATOR); tokenizer.hasMoreTokens();) {
+			result.add(tokenizer.nextToken());
+		}
+		return result;
+	}
+
+}
@@ -0,0 +1,392 @@
+/*FreeMind - A Program for creating and viewing Mindmaps
+ *Copyright (C) 2000-2012 Joerg Mueller, Daniel Polansky, Christian Foltin, Dimitri Polivaev and others.
+ *
+ *See COPYING for Details
+ *
+ *This program is free software; you can redistribute it and/or
+ *modify it under the terms of the GNU General Public License
+ *as published by the Free Software Foundation; either version 2
+ *of the License, or (at your option) any later version.
+ *
+ *This program is distributed in the hope that it will be useful,
+ *but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *GNU General Public License for more details.
+ *
+ *You should have received a copy of the GNU General Public License
+ *along with this program; if not, write to the Free Software
+ *Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package freemind.main;
+
+import java.awt.EventQueue;
+import java.awt.Rectangle;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+import java.util.StringTokenizer;
+import java.util.Vector;
+
+import javax.swing.JPanel;
+
+import freemind.controller.Controller;
+import freemind.extensions.ExportHook;
+import freemind.modes.ControllerAdapter;
+import freemind.modes.ModeController;
+import freemind.modes.mindmapmode.MindMapController;
+import freemind.modes.mindmapmode.MindMapMapModel;
+import freemind.modes.mindmapmode.MindMapMode;
+import freemind.modes.mindmapmode.MindMapNodeModel;
+import freemind.modes.mindmapmode.hooks.MindMapHookFactory;
+import freemind.modes.mindmapmode.MindMapMapModel.FileReaderCreator;
+import freemind.view.mindmapview.IndependantMapViewCreator;
+
+/**
+ * Exports all maps of a directory tree without user interface, e.g.
+ *
+ * <pre>
+ * java -Djava.awt.headless=true -cp lib/freemind.jar:... freemind.main.BatchExport
+ *      -threads 4 -formats html,odt,png maps/ exported/
+ * </pre>
+ *
+ * The maps are exported in parallel by a fixed number of worker threads. They
+ * are loaded without view. The image exports (and only these) need a view,
+ * which is created and painted in the event dispatch thread. The exports are
+ * done by the export plugins, see {@link ExportHook#exportToFile(File)}.
+ */
+public class BatchExport {
+
+	private static class Format {
+		private final String mName;
+
+		/** null for the html export of the mind map mode. */
+		private final String mHookName;
+
+		private final String mExtension;
+
+		private final boolean mNeedsView;
+
+		private Format(String pName, String pHookName, String pExtension,
+				boolean pNeedsView) {
+			mName = pName;
+			mHookName = pHookName;
+			mExtension = pExtension;
+			mNeedsView = pNeedsView;
+		}
+	}
+
+	private static final Format[] FORMATS = new Format[] {
+			new Format("html", null, "html", false),
+			new Format("xhtml",
+					"accessories/plugins/ExportWithXSLT_HTML.properties",
+					"xhtml", false),
+			new Format("odt",
+					"accessories/plugins/ExportToOoWriter.properties", "odt",
+					false),
+			new Format("png",
+					"accessories/plugins/ExportToImage_PNG.properties", "png",
+					true),
+			new Format("jpeg",
+					"accessories/plugins/ExportToImage_JPEG.properties",
+					"jpg", true) };
+
+	private static final String USAGE = "Exports all maps of a directory tree.\n"
+			+ "Usage:\n java -Djava.awt.headless=true -cp ... freemind.main.BatchExport"
+			+ " [-threads <count>] [-formats <format>,...] <map directory> <target directory>\n"
+			+ "Formats: html, xhtml, odt, png, jpeg (default: html).";
+
+	private final FreeMindMain mFrame;
+
+	private final Controller mController;
+
+	private final MindMapMode mMode;
+
+	private final File mSourceDirectory;
+
+	private final File mTargetDirectory;
+
+	private final Vector mFormats;
+
+	private final Vector mMaps = new Vector();
+
+	private int mNextMap = 0;
+
+	private int mFailures = 0;
+
+	public static void main(String[] args) {
+		System.setProperty("java.awt.headless", "true");
+		int threadCount = Runtime.getRuntime().availableProcessors();
+		String formats = "html";
+		Vector directories = new Vector();
+		try {
+			for (int i = 0; i < args.length; i++) {
+				if ("-threads".equals(args[i]) && i + 1 < args.length) {
+					threadCount = Integer.parseInt(args[++i]);
+				} else if ("-formats".equals(args[i]) && i + 1 < args.length) {
+					formats = args[++i];
+				} else {
+					directories.add(new File(args[i]));
+				}
+			}
+		} catch (NumberFormatException e) {
+			directories.clear();
+		}
+		if (directories.size() != 2 || threadCount < 1
+				|| !((File) directories.get(0)).isDirectory()) {
+			System.out.println(USAGE);
+			System.exit(1);
+		}
+		try {
+			BatchExport export = new BatchExport(new HeadlessFreeMindMain(),
+					(File) directories.get(0), (File) directories.get(1),
+					formats);
+			boolean successful = export.run(threadCount);
+			System.exit(successful ? 0 : 1);
+		} catch (IllegalArgumentException e) {
+			System.out.println(e.getMessage());
+			System.out.println(USAGE);
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * @param pFormats
+	 *            comma separated format names.
+	 * @throws IllegalArgumentException
+	 *             for unknown formats or if an export plugin is missing.
+	 */
+	public BatchExport(FreeMindMain pFrame, File pSourceDirectory,
+			File pTargetDirectory, String pFormats) {
+		mFrame = pFrame;
+		mSourceDirectory = pSourceDirectory;
+		mTargetDirectory = pTargetDirectory;
+		mFormats = new Vector();
+		for (StringTokenizer tokenizer = new StringTokenizer(pFormats, ","); tokenizer
+				.hasMoreTokens();) {
+			mFormats.add(getFormat(tokenizer.nextToken().trim()));
+		}
+		mController = new Controller(mFrame);
+		mController.initialization();
+		mMode = new MindMapMode() {
+			public ModeController createModeController() {
+				// without actions and menus:
+				return new MindMapController(this) {
+					protected void init() {
+					}
+				};
+			}
+		};
+		mMode.init(mController);
+		// the plugins are searched once here, not by the workers:
+		MindMapController modeController = (MindMapController) ControllerAdapter
+				.createModeController(mMode);
+		((MindMapHookFactory) modeController.getHookFactory())
+				.getPossibleModeControllerHooks();
+		for (int i = 0; i < mFormats.size(); i++) {
+			Format format = (Format) mFormats.get(i);
+			if (format.mHookName != null
+					&& createHook(modeController, format) == null) {
+				throw new IllegalArgumentException("Export " + format.mName
+						+ " not available.");
+			}
+		}
+	}
+
+	private static Format getFormat(String pName) {
+		for (int i = 0; i < FORMATS.length; i++) {
+			if (FORMATS[i].mName.equals(pName)) {
+				return FORMATS[i];
+			}
+		}
+		throw new IllegalArgumentException("Unknown format " + pName);
+	}
+
+	/**
+	 * @return true, if all maps were exported.
+	 */
+	public boolean run(int pThreadCount) {
+		long start = System.currentTimeMillis();
+		collectMaps(mSourceDirectory);
+		Thread[] workers = new Thread[Math.min(pThreadCount, Math.max(1,
+				mMaps.size()))];
+		for (int i = 0; i < workers.length; i++) {
+			workers[i] = new Thread(new Runnable() {
+				public void run() {
+					for (int index = nextMap(); index >= 0; index = nextMap()) {
+						exportMap(index);
+					}
+				}
+			}, "BatchExport-" + i);
+			workers[i].start();
+		}
+		for (int i = 0; i < workers.length; i++) {
+			try {
+				workers[i].join();
+			} catch (InterruptedException e) {
+				Resources.getInstance().logException(e);
+			}
+		}
+		synchronized (this) {
+			print("Exported " + (mMaps.size() - mFailures) + " of "
+					+ mMaps.size() + " maps in "
+					+ (System.currentTimeMillis() - start) + " ms with "
+					+ workers.length + " threads.");
+			return mFailures == 0;
+		}
+	}
+
+	private void collectMaps(File pDirectory) {
+		File[] files = pDirectory.listFiles();
+		if (files == null) {
+			return;
+		}
+		Arrays.sort(files);
+		for (int i = 0; i < files.length; i++) {
+			if (files[i].isDirectory()) {
+				collectMaps(files[i]);
+			} else if (files[i].getName().endsWith(
+					FreeMindCommon.FREEMIND_FILE_EXTENSION)) {
+				mMaps.add(files[i]);
+			}
+		}
+	}
+
+	private synchronized int nextMap() {
+		if (mNextMap >= mMaps.size()) {
+			return -1;
+		}
+		return mNextMap++;
+	}
+
+	private void exportMap(int pIndex) {
+		File map = (File) mMaps.get(pIndex);
+		String name = getRelativePath(map);
+		StringBuffer timings = new StringBuffer();
+		boolean successful = true;
+		long start = System.currentTimeMillis();
+		MindMapController modeController = (MindMapController) ControllerAdapter
+				.createModeController(mMode);
+		final MindMapMapModel model = new MindMapMapModel(mFrame,
+				modeController);
+		modeController.setModel(model);
+		try {
+			MindMapNodeModel root = model.loadTree(new FileReaderCreator(map),
+					false);
+			model.setRoot(root);
+			timings.append("load " + (System.currentTimeMillis() - start)
+					+ " ms");
+			File target = new File(mTargetDirectory, name);
+			target.getParentFile().mkdirs();
+			String baseName = target.getPath().substring(0,
+					target.getPath().length()
+							- FreeMindCommon.FREEMIND_FILE_EXTENSION.length());
+			for (int i = 0; i < mFormats.size(); i++) {
+				Format format = (Format) mFormats.get(i);
+				long formatStart = System.currentTimeMillis();
+				boolean exported = export(modeController, format, new File(
+						baseName + "." + format.mExtension));
+				timings.append(", " + format.mName + " "
+						+ (exported ? "" : "failed after ")
+						+ (System.currentTimeMillis() - formatStart) + " ms");
+				successful &= exported;
+			}
+		} catch (Exception e) {
+			Resources.getInstance().logException(e);
+			timings.append(", failed: " + e);
+			successful = false;
+		} finally {
+			// after the start of the automatic save timer, that is stopped
+			// here:
+			EventQueue.invokeLater(new Runnable() {
+				public void run() {
+					model.destroy();
+				}
+			});
+		}
+		synchronized (this) {
+			if (!successful) {
+				++mFailures;
+			}
+			print("[" + (pIndex + 1) + "/" + mMaps.size() + "] " + name
+					+ ": " + timings + " (total "
+					+ (System.currentTimeMillis() - start) + " ms)");
+		}
+	}
+
+	private String getRelativePath(File pMap) {
+		String directory = mSourceDirectory.getPath();
+		String path = pMap.getPath();
+		if (path.startsWith(directory)) {
+			path = path.substring(directory.length());
+		}
+		while (path.startsWith(File.separator)) {
+			path = path.substring(1);
+		}
+		return path;
+	}
+
+	private boolean export(final MindMapController pModeController,
+			Format pFormat, final File pTarget) throws IOException,
+			InterruptedException {
+		if (pFormat.mHookName == null) {
+			MindMapController.saveHTML((MindMapNodeModel) pModeController
+					.getMap().getRootNode(), pTarget);
+			return true;
+		}
+		final ExportHook hook = createHook(pModeController, pFormat);
+		if (!pFormat.mNeedsView) {
+			return hook.exportToFile(pTarget);
+		}
+		// painting is only possible in the event dispatch thread:
+		final boolean[] result = new boolean[] { false };
+		final IOException[] error = new IOException[] { null };
+		try {
+			EventQueue.invokeAndWait(new Runnable() {
+				public void run() {
+					if (pModeController.getView() == null) {
+						createView(pModeController);
+					}
+					try {
+						result[0] = hook.exportToFile(pTarget);
+					} catch (IOException e) {
+						error[0] = e;
+					}
+				}
+			});
+		} catch (InvocationTargetException e) {
+			IOException exception = new IOException(e.getCause().toString());
+			exception.initCause(e.getCause());
+			throw exception;
+		}
+		if (error[0] != null) {
+			throw error[0];
+		}
+		return result[0];
+	}
+
+	private ExportHook createHook(MindMapController pModeController,
+			Format pFormat) {
+		ExportHook hook = (ExportHook) pModeController.getHookFactory()
+				.createModeControllerHook(pFormat.mHookName);
+		if (hook != null) {
+			hook.setController(pModeController);
+		}
+		return hook;
+	}
+
+	private void createView(MindMapController pModeController) {
+		JPanel parent = new JPanel();
+		parent.setBounds(new Rectangle(0, 0, 400, 600));
+		new IndependantMapViewCreator().createMapViewForModel(mController,
+				pModeController, parent).addNotify();
+		parent.doLayout();
+		parent.validate();
+	}
+
+	private void print(String pMessage) {
+		System.out.println(pMessage);
+	}
+
+}
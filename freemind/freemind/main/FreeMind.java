@@ -74,6 +74,7 @@ import javax.swing.UIManager;
 
 import freemind.controller.Controller;
 import freemind.controller.LastStateStorageManagement;
+import freemind.controller.MapRestorer;
 import freemind.controller.MenuBar;
 //import freemind.controller.actions.generated.instance.MindmapLastStateStorage;
 import freemind.controller.actions.generated.instance.MindmapLastStateStorage;
@@ -169,6 +170,28 @@ public class FreeMind extends JFrame implements FreeMindMain {
 
 	public static final String RESOURCES_DON_T_OPEN_PORT = "resources_don_t_open_port";
 
+	public static final String RESOURCES_USE_STREAMING_MAP_LOADER = "resources_use_streaming_map_loader";
+
+	public static final String RESOURCES_AUTOMATIC_SAVE_IN_BACKGROUND = "resources_automatic_save_in_background";
+
+	public static final String RESOURCES_USE_SAVE_JOURNAL = "resources_use_save_journal";
+
+	public static final String RESOURCES_USE_PARALLEL_MAP_SERIALIZER = "resources_use_parallel_map_serializer";
+
+	public static final String RESOURCES_LAZY_LOAD_FOLDED_SUBTREES = "resources_lazy_load_folded_subtrees";
+
+	public static final String RESOURCES_VIRTUALIZED_NODE_VIEWS = "resources_virtualized_node_views";
+
+	public static final String RESOURCES_FILTER_ON_CHANGE = "resources_filter_on_change";
+
+	public static final String RESOURCES_EVALUATE_FORMULAS_ON_CHANGE = "resources_evaluate_formulas_on_change";
+
+	public static final String RESOURCES_WATCH_MAP_FILES = "resources_watch_map_files";
+
+	public static final String RESOURCES_RESTORE_MAPS_IN_PARALLEL = "resources_restore_maps_in_parallel";
+
+	public static final String RESOURCES_PLUGIN_INDEX = "resources_plugin_index";
+
 	// public static final String defaultPropsURL = "freemind.properties";
 	// public static Properties defaultProps;
 	public static Properties props;
@@ -1055,30 +1078,45 @@ public class FreeMind extends JFrame implements FreeMindMain {
 		}
 		if (!fileLoaded
 				&& Tools.isPreferenceTrue(getProperty(FreeMindCommon.LOAD_LAST_MAPS_AND_LAYOUT))) {
-			int index = 0;
-			MapModule mapToFocus = null;
 			LastStateStorageManagement management = getLastStateStorageManagement();
+			Vector restorables = new Vector();
 			for (Iterator it = management.getLastOpenList().iterator(); it
 					.hasNext();) {
-				MindmapLastStateStorage store = (MindmapLastStateStorage) it
-						.next();
-				String restorable = store.getRestorableName();
-				try {
-					if (controller.getLastOpenedList().open(restorable)) {
-						if (index == management.getLastFocussedTab()) {
-							mapToFocus = controller.getMapModule();
+				restorables.add(((MindmapLastStateStorage) it.next())
+						.getRestorableName());
+			}
+			if (Resources.getInstance().getBoolProperty(
+					RESOURCES_RESTORE_MAPS_IN_PARALLEL)
+					&& MapRestorer.canRestore(restorables)) {
+				// only waits for the focused map, the others are added later:
+				fileLoaded = new MapRestorer(controller, restorables,
+						management.getLastFocussedTab()).restore(Runtime
+						.getRuntime().availableProcessors());
+				for (int i = 0; i < restorables.size(); i++) {
+					pFeedBack.increase(FREE_MIND_PROGRESS_LOAD_MAPS);
+				}
+			} else {
+				int index = 0;
+				MapModule mapToFocus = null;
+				for (Iterator it = restorables.iterator(); it.hasNext();) {
+					String restorable = (String) it.next();
+					try {
+						if (controller.getLastOpenedList().open(restorable)) {
+							if (index == management.getLastFocussedTab()) {
+								mapToFocus = controller.getMapModule();
+							}
 						}
+						fileLoaded = true;
+					} catch (Exception e) {
+						freemind.main.Resources.getInstance().logException(e);
 					}
-					fileLoaded = true;
-				} catch (Exception e) {
-					freemind.main.Resources.getInstance().logException(e);
+					index++;
+					pFeedBack.increase(FREE_MIND_PROGRESS_LOAD_MAPS);
+				}
+				if (mapToFocus != null) {
+					controller.getMapModuleManager().changeToMapModule(
+							mapToFocus.getDisplayName());
 				}
-				index++;
-				pFeedBack.increase(FREE_MIND_PROGRESS_LOAD_MAPS);
-			}
-			if (mapToFocus != null) {
-				controller.getMapModuleManager().changeToMapModule(
-						mapToFocus.getDisplayName());
 			}
 		}
 		if (!fileLoaded) {
@@ -0,0 +1,217 @@
+/*FreeMind - A Program for creating and viewing Mindmaps
+ *Copyright (C) 2000-2012 Joerg Mueller, Daniel Polansky, Christian Foltin, Dimitri Polivaev and others.
+ *
+ *See COPYING for Details
+ *
+ *This program is free software; you can redistribute it and/or
+ *modify it under the terms of the GNU General Public License
+ *as published by the Free Software Foundation; either version 2
+ *of the License, or (at your option) any later version.
+ *
+ *This program is distributed in the hope that it will be useful,
+ *but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *GNU General Public License for more details.
+ *
+ *You should have received a copy of the GNU General Public License
+ *along with this program; if not, write to the Free Software
+ *Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package freemind.main;
+
+import java.awt.Container;
+import java.io.File;
+import java.net.URL;
+import java.util.Properties;
+import java.util.ResourceBundle;
+import java.util.logging.Logger;
+
+import javax.swing.JComponent;
+import javax.swing.JFrame;
+import javax.swing.JLayeredPane;
+import javax.swing.JScrollPane;
+import javax.swing.JSplitPane;
+
+import freemind.controller.Controller;
+import freemind.controller.MenuBar;
+import freemind.view.mindmapview.MapView;
+
+/**
+ * FreeMind without a window, for the batch export. It uses the default
+ * properties and doesn't save them.
+ */
+class HeadlessFreeMindMain implements FreeMindMain {
+
+	private final Properties mProperties;
+
+	private final FreeMindCommon mFreeMindCommon;
+
+	HeadlessFreeMindMain() {
+		mProperties = new FreeMindStarter().readDefaultPreferences();
+		mFreeMindCommon = new FreeMindCommon(this);
+		Resources.createInstance(this);
+	}
+
+	public JFrame getJFrame() {
+		return null;
+	}
+
+	public boolean isApplet() {
+		return false;
+	}
+
+	public MapView getView() {
+		return null;
+	}
+
+	public void setView(MapView view) {
+	}
+
+	public Controller getController() {
+		return null;
+	}
+
+	public void setWaitingCursor(boolean waiting) {
+	}
+
+	public File getPatternsFile() {
+		return null;
+	}
+
+	public MenuBar getFreeMindMenuBar() {
+		return null;
+	}
+
+	public VersionInformation getFreemindVersion() {
+		return FreeMind.VERSION;
+	}
+
+	public ResourceBundle getResources() {
+		return mFreeMindCommon.getResources();
+	}
+
+	public String getResourceString(String key) {
+		return mFreeMindCommon.getResourceString(key);
+	}
+
+	public String getResourceString(String key, String resource) {
+		return mFreeMindCommon.getResourceString(key, resource);
+	}
+
+	public Container getContentPane() {
+		return null;
+	}
+
+	public void out(String msg) {
+		System.out.println(msg);
+	}
+
+	public void err(String msg) {
+		System.err.println(msg);
+	}
+
+	public void openDocument(URL location) throws Exception {
+	}
+
+	public void repaint() {
+	}
+
+	public URL getResource(String name) {
+		return this.getClass().getClassLoader().getResource(name);
+	}
+
+	public int getIntProperty(String key, int defaultValue) {
+		try {
+			return Integer.parseInt(getProperty(key));
+		} catch (NumberFormatException nfe) {
+			return defaultValue;
+		}
+	}
+
+	public Properties getProperties() {
+		return mProperties;
+	}
+
+	public String getProperty(String key) {
+		return mProperties.getProperty(key);
+	}
+
+	public void setProperty(String key, String value) {
+		mProperties.setProperty(key, value);
+	}
+
+	public void setDefaultProperty(String key, String value) {
+		mProperties.setProperty(key, value);
+	}
+
+	public void saveProperties(boolean pIsShutdown) {
+	}
+
+	public String getFreemindDirectory() {
+		return System.getProperty("java.io.tmpdir");
+	}
+
+	public JLayeredPane getLayeredPane() {
+		return null;
+	}
+
+	public void setTitle(String title) {
+	}
+
+	public int getWinHeight() {
+		return 0;
+	}
+
+	public int getWinWidth() {
+		return 0;
+	}
+
+	public int getWinState() {
+		return 0;
+	}
+
+	public int getWinX() {
+		return 0;
+	}
+
+	public int getWinY() {
+		return 0;
+	}
+
+	public Logger getLogger(String forClass) {
+		return java.util.logging.Logger.getLogger(forClass);
+	}
+
+	public ClassLoader getFreeMindClassLoader() {
+		return mFreeMindCommon.getFreeMindClassLoader();
+	}
+
+	public String getFreemindBaseDir() {
+		return mFreeMindCommon.getFreemindBaseDir();
+	}
+
+	public String getAdjustableProperty(String label) {
+		return mFreeMindCommon.getAdjustableProperty(label);
+	}
+
+	public JSplitPane insertComponentIntoSplitPane(JComponent pMindMapComponent) {
+		return null;
+	}
+
+	public void removeSplitPane() {
+	}
+
+	public JComponent getContentComponent() {
+		return null;
+	}
+
+	public JScrollPane getScrollPane() {
+		return null;
+	}
+
+	public void registerStartupDoneListener(
+			StartupDoneListener pStartupDoneListener) {
+	}
+
+}
@@ -582,6 +582,12 @@ public class HtmlTools {
 
 	/** \0 is not allowed: */
 	public static String makeValidXml(String pXmlNoteText) {
+		// this is called for every node text, thus avoid the regular
+		// expressions if there is nothing to replace:
+		if (pXmlNoteText.indexOf('\0') < 0
+				&& pXmlNoteText.indexOf("&#0;") < 0) {
+			return pXmlNoteText;
+		}
 		return pXmlNoteText.replaceAll("\0", "").replaceAll("&#0;", "");
 	}
 
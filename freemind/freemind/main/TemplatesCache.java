@@ -0,0 +1,134 @@
+/*FreeMind - A Program for creating and viewing Mindmaps
+ *Copyright (C) 2000-2012 Joerg Mueller, Daniel Polansky, Christian Foltin, Dimitri Polivaev and others.
+ *
+ *See COPYING for Details
+ *
+ *This program is free software; you can redistribute it and/or
+ *modify it under the terms of the GNU General Public License
+ *as published by the Free Software Foundation; either version 2
+ *of the License, or (at your option) any later version.
+ *
+ *This program is distributed in the hope that it will be useful,
+ *but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *GNU General Public License for more details.
+ *
+ *You should have received a copy of the GNU General Public License
+ *along with this program; if not, write to the Free Software
+ *Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package freemind.main;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.HashMap;
+
+import javax.xml.transform.Source;
+import javax.xml.transform.Templates;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.stream.StreamSource;
+
+/**
+ * Keeps the compiled XSLT stylesheets, such that each stylesheet is compiled
+ * once and not on every export. A stylesheet in a file is compiled again after
+ * the file was changed. The compiled stylesheets are thread safe, the
+ * transformers created from them are not.
+ */
+public class TemplatesCache {
+
+	private static class Entry {
+		private final Templates mTemplates;
+
+		private final long mLastModified;
+
+		private Entry(Templates pTemplates, long pLastModified) {
+			mTemplates = pTemplates;
+			mLastModified = pLastModified;
+		}
+	}
+
+	private static TemplatesCache sInstance = null;
+
+	private final TransformerFactory mFactory = TransformerFactory
+			.newInstance();
+
+	/** url -> Entry */
+	private final HashMap mTemplates = new HashMap();
+
+	private int mCompilations = 0;
+
+	public static synchronized TemplatesCache getInstance() {
+		if (sInstance == null) {
+			sInstance = new TemplatesCache();
+		}
+		return sInstance;
+	}
+
+	/**
+	 * @return the compiled stylesheet, compiled now if it was not in the cache
+	 *         or if its file was changed.
+	 */
+	public synchronized Templates getTemplates(URL pStylesheet)
+			throws IOException, TransformerConfigurationException {
+		String key = pStylesheet.toExternalForm();
+		long lastModified = getLastModified(pStylesheet);
+		Entry entry = (Entry) mTemplates.get(key);
+		if (entry == null || entry.mLastModified != lastModified) {
+			InputStream in = pStylesheet.openStream();
+			try {
+				// the system id resolves the relative includes:
+				entry = new Entry(mFactory.newTemplates(new StreamSource(in,
+						key)), lastModified);
+			} finally {
+				in.close();
+			}
+			mTemplates.put(key, entry);
+			++mCompilations;
+		}
+		return entry.mTemplates;
+	}
+
+	public Transformer newTransformer(URL pStylesheet) throws IOException,
+			TransformerConfigurationException {
+		return getTemplates(pStylesheet).newTransformer();
+	}
+
+	/**
+	 * For stylesheets without url, that can't be cached. Only the factory is
+	 * shared.
+	 */
+	public synchronized Transformer newTransformer(Source pStylesheet)
+			throws TransformerConfigurationException {
+		return mFactory.newTransformer(pStylesheet);
+	}
+
+	/**
+	 * @return 0 for stylesheets not in files, e.g. inside of jars, as these
+	 *         don't change while running.
+	 */
+	private long getLastModified(URL pStylesheet) {
+		if (!"file".equals(pStylesheet.getProtocol())) {
+			return 0;
+		}
+		try {
+			File file = Tools.urlToFile(pStylesheet);
+			return file.lastModified();
+		} catch (URISyntaxException e) {
+			return 0;
+		}
+	}
+
+	/**
+	 * @return how many stylesheets were compiled so far.
+	 */
+	public synchronized int getCompilations() {
+		return mCompilations;
+	}
+
+}
@@ -40,18 +40,22 @@ import java.awt.datatransfer.DataFlavor;
 import java.awt.datatransfer.Transferable;
 import java.awt.event.ActionEvent;
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.PrintStream;
 import java.io.Reader;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
+import java.io.Writer;
 import java.lang.reflect.Field;
 import java.net.InetAddress;
 import java.net.MalformedURLException;
@@ -88,9 +92,7 @@ import javax.swing.JDialog;
 import javax.swing.KeyStroke;
 import javax.swing.SwingUtilities;
 import javax.xml.transform.Result;
-import javax.xml.transform.Source;
 import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
 
@@ -763,6 +765,10 @@ public class Tools {
 	}
 
 	public static String compress(String message) {
+		return toBase64(compressToBytes(message));
+	}
+
+	public static byte[] compressToBytes(String message) {
 		byte[] input = uTF8StringToByteArray(message);
 		// Create the compressor with highest level of compression
 		Deflater compressor = new Deflater();
@@ -784,18 +790,21 @@ public class Tools {
 			int count = compressor.deflate(buf);
 			bos.write(buf, 0, count);
 		}
+		compressor.end();
 		try {
 			bos.close();
 		} catch (IOException e) {
 		}
 
 		// Get the compressed data
-		byte[] compressedData = bos.toByteArray();
-		return toBase64(compressedData);
+		return bos.toByteArray();
 	}
 
 	public static String decompress(String compressedMessage) {
-		byte[] compressedData = fromBase64(compressedMessage);
+		return decompressFromBytes(fromBase64(compressedMessage));
+	}
+
+	public static String decompressFromBytes(byte[] compressedData) {
 		// Create the decompressor and give it the data to compress
 		Inflater decompressor = new Inflater();
 		decompressor.setInput(compressedData);
@@ -813,6 +822,7 @@ public class Tools {
 			} catch (DataFormatException e) {
 			}
 		}
+		decompressor.end();
 		try {
 			bos.close();
 		} catch (IOException e) {
@@ -961,7 +971,6 @@ public class Tools {
 	public static Reader getUpdateReader(Reader pReader, String xsltScript,
 			FreeMindMain frame) throws IOException {
 		StringWriter writer = null;
-		InputStream inputStream = null;
 		java.util.logging.Logger logger = frame
 				.getLogger(Tools.class.getName());
 		logger.info("Updating the reader " + pReader
@@ -975,8 +984,6 @@ public class Tools {
 			if (updaterUrl == null) {
 				throw new IllegalArgumentException(xsltScript + " not found.");
 			}
-			inputStream = updaterUrl.openStream();
-			final Source xsltSource = new StreamSource(inputStream);
 			// get output:
 			writer = new StringWriter();
 			final Result result = new StreamResult(writer);
@@ -993,52 +1000,25 @@ public class Tools {
 			}
 			final StreamSource sr = new StreamSource(new StringReader(
 					fileContents));
-			// Dimitry: to avoid a memory leak and properly release resources
-			// after the XSLT transformation
-			// everything should run in own thread. Only after the thread dies
-			// the resources are released.
-			class TransformerRunnable implements Runnable {
-				private boolean successful = false;
-				private String errorMessage;
-
-				public void run() {
-					// create an instance of TransformerFactory
-					TransformerFactory transFact = TransformerFactory
-							.newInstance();
-					Transformer trans;
-					try {
-						trans = transFact.newTransformer(xsltSource);
-
-						trans.transform(sr, result);
-						successful = true;
-					} catch (Exception ex) {
-						freemind.main.Resources.getInstance().logException(ex);
-						errorMessage = ex.toString();
-					}
-				}
-
-				public boolean isSuccessful() {
-					return successful;
-				}
-
-				public String getErrorMessage() {
-					return errorMessage;
-				}
+			/*
+			 * The compiled stylesheet is shared, see TemplatesCache. A
+			 * transformer is used once only, thus its resources are released
+			 * after the transformation without a thread of its own.
+			 */
+			try {
+				Transformer trans = TemplatesCache.getInstance()
+						.newTransformer(updaterUrl);
+				trans.transform(sr, result);
+				successful = true;
+			} catch (Exception ex) {
+				freemind.main.Resources.getInstance().logException(ex);
+				errorMessage = ex.toString();
 			}
-			final TransformerRunnable transformer = new TransformerRunnable();
-			Thread transformerThread = new Thread(transformer, "XSLT");
-			transformerThread.start();
-			transformerThread.join();
 			logger.info("Updating the reader " + pReader
 					+ " to the current version. Done."); // +
 															// writer.getBuffer().toString());
-			successful = transformer.isSuccessful();
-			errorMessage = transformer.getErrorMessage();
 		} catch (Exception ex) {
 		} finally {
-			if (inputStream != null) {
-				inputStream.close();
-			}
 			if (writer != null) {
 				writer.close();
 			}
@@ -1117,6 +1097,41 @@ public class Tools {
 		return lines.toString();
 	}
 
+	/**
+	 * Writes the content into a temporary file beside pFile, forces it to disk
+	 * and renames it to pFile afterwards. Thus, a half written file never
+	 * replaces the previous version. The default encoding is used, like for
+	 * normal map saving.
+	 *
+	 * @return the number of bytes written.
+	 */
+	public static long writeFileAtomically(File pFile, String pContent)
+			throws IOException {
+		File partFile = new File(pFile.getAbsoluteFile().getParentFile(),
+				pFile.getName() + ".part");
+		FileOutputStream out = new FileOutputStream(partFile);
+		long bytes;
+		try {
+			Writer writer = new BufferedWriter(new OutputStreamWriter(out));
+			writer.write(pContent);
+			writer.flush();
+			out.getFD().sync();
+			bytes = out.getChannel().size();
+		} finally {
+			out.close();
+		}
+		if (!partFile.renameTo(pFile)) {
+			// some platforms (Windows) don't rename onto existing files.
+			pFile.delete();
+			if (!partFile.renameTo(pFile)) {
+				partFile.delete();
+				throw new IOException("Can't rename " + partFile + " to "
+						+ pFile);
+			}
+		}
+		return bytes;
+	}
+
 	public static void logTransferable(Transferable t) {
 		System.err.println();
 		System.err.println("BEGIN OF Transferable:\t" + t);
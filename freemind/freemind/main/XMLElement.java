@@ -147,7 +147,8 @@ public class XMLElement {
 	public static final String XML_NODE_XHTML_CONTENT_END_TAG_REGEXP = "<\\s*/\\s*"
 			+ XML_NODE_XHTML_CONTENT_TAG + "\\s*>";
 
-	private static Pattern sContentEndTagPattern = null;
+	private static final Pattern sContentEndTagPattern = Pattern
+			.compile(XML_NODE_XHTML_CONTENT_END_TAG_REGEXP);
 
 	/**
 	 * Serialization serial version ID.
@@ -2244,6 +2245,14 @@ public class XMLElement {
 		this.dontEncodeContents = true;
 	}
 
+	/**
+	 * Returns true, if the content string is written as it is, see
+	 * {@link #setEncodedContent(String)}.
+	 */
+	public boolean isEncodedContent() {
+		return this.dontEncodeContents;
+	}
+
 	/**
 	 * Changes the name of the element.
 	 * 
@@ -2897,10 +2906,6 @@ public class XMLElement {
 				}
 				if (ch == '>' && lastOpeningBreak >= 0) {
 					String content = waitingBuf.toString();
-					if (sContentEndTagPattern == null) {
-						sContentEndTagPattern = Pattern
-								.compile(XML_NODE_XHTML_CONTENT_END_TAG_REGEXP);
-					}
 					String substring = content.substring(lastOpeningBreak);
 					Matcher matcher = sContentEndTagPattern.matcher(substring);
 					if (matcher.matches()) {
@@ -0,0 +1,614 @@
+/*FreeMind - A Program for creating and viewing Mindmaps
+ *Copyright (C) 2000-2012 Joerg Mueller, Daniel Polansky, Christian Foltin, Dimitri Polivaev and others.
+ *
+ *See COPYING for Details
+ *
+ *This program is free software; you can redistribute it and/or
+ *modify it under the terms of the GNU General Public License
+ *as published by the Free Software Foundation; either version 2
+ *of the License, or (at your option) any later version.
+ *
+ *This program is distributed in the hope that it will be useful,
+ *but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *GNU General Public License for more details.
+ *
+ *You should have received a copy of the GNU General Public License
+ *along with this program; if not, write to the Free Software
+ *Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package freemind.main;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.regex.Pattern;
+
+/**
+ * A small pull parser for the XML dialect understood by {@link XMLElement}.
+ * In contrast to {@link XMLElement#parseFromReader(Reader)}, no object is
+ * created per tag: the parser reports one token after the other and reuses
+ * its attribute arrays. Element and attribute names are shared via a small
+ * cache, so that only attribute values and texts cause new strings.
+ *
+ * The special handling of the {@link XMLElement#XML_NODE_XHTML_CONTENT_TAG}
+ * (its content is delivered unparsed and trimmed) and the fact that parsing
+ * stops after the first (root) element are the same as in XMLElement.
+ *
+ * The xpp3 parser bundled for JiBX can't replace this one: it rejects rich
+ * content that isn't well formed XML (e.g. HTML entities like &amp;nbsp;),
+ * and it can't return the unparsed text of an element, which is needed for
+ * the rich content and for deferred subtrees (see {@link #startRecording()}).
+ */
+public class XMLPullParser {
+
+	public static final int START_TAG = 1;
+	public static final int END_TAG = 2;
+	public static final int TEXT = 3;
+	public static final int END_DOCUMENT = 4;
+
+	private static final int BUFFER_SIZE = 8192;
+	private static final int NAME_CACHE_SIZE = 256;
+	private static final int NO_CHAR = -2;
+
+	private static Pattern sContentEndTagPattern = null;
+
+	private final Reader mReader;
+	private final char[] mBuffer = new char[BUFFER_SIZE];
+	private int mPosition = 0;
+	private int mLimit = 0;
+	private int mLineNr = 1;
+	/** A character that was read but belongs to the next token. */
+	private int mUnreadChar = NO_CHAR;
+
+	private String mName;
+	private String[] mAttributeNames = new String[8];
+	private String[] mAttributeValues = new String[8];
+	private int mAttributeCount = 0;
+	private String mText;
+
+	private final StringBuffer mTextBuffer = new StringBuffer();
+	private final StringBuffer mValueBuffer = new StringBuffer();
+	private char[] mNameChars = new char[32];
+	private final String[] mNameCache = new String[NAME_CACHE_SIZE];
+
+	private String[] mOpenElements = new String[32];
+	private int mDepth = 0;
+	private boolean mRootClosed = false;
+	private boolean mEndTagPending = false;
+	private boolean mRawContentPending = false;
+	/** Set, if a '&lt;' was read while collecting text that is reported. */
+	private boolean mMarkupPending = false;
+
+	/** The characters read since {@link #startRecording()} or null. */
+	private StringBuffer mRecord = null;
+	/** Offset of the '&lt;' of the current tag in the record. */
+	private int mTagStart = -1;
+
+	public XMLPullParser(Reader pReader) {
+		mReader = pReader;
+	}
+
+	/**
+	 * Reads the next token.
+	 *
+	 * @return one of {@link #START_TAG}, {@link #END_TAG}, {@link #TEXT} or
+	 *         {@link #END_DOCUMENT}. Texts consisting of whitespace only are
+	 *         not reported.
+	 */
+	public int next() throws IOException, XMLParseException {
+		mText = null;
+		if (mEndTagPending) {
+			mEndTagPending = false;
+			return closeElement();
+		}
+		if (mRawContentPending) {
+			mRawContentPending = false;
+			mText = scanRawContent();
+			mEndTagPending = true;
+			mAttributeCount = 0;
+			return TEXT;
+		}
+		mAttributeCount = 0;
+		if (mRootClosed) {
+			return END_DOCUMENT;
+		}
+		if (!mMarkupPending) {
+			if (scanText()) {
+				return TEXT;
+			}
+		}
+		mMarkupPending = false;
+		int ch = readChar();
+		if (ch == '/') {
+			return scanEndTag();
+		}
+		unreadChar(ch);
+		return scanStartTag();
+	}
+
+	public String getName() {
+		return mName;
+	}
+
+	public int getAttributeCount() {
+		return mAttributeCount;
+	}
+
+	public String getAttributeName(int pIndex) {
+		return mAttributeNames[pIndex];
+	}
+
+	public String getAttributeValue(int pIndex) {
+		return mAttributeValues[pIndex];
+	}
+
+	/**
+	 * @return the value of the attribute of the current start tag or null, if
+	 *         not present.
+	 */
+	public String getAttributeValue(String pName) {
+		for (int i = 0; i < mAttributeCount; i++) {
+			if (mAttributeNames[i].equals(pName)) {
+				return mAttributeValues[i];
+			}
+		}
+		return null;
+	}
+
+	public String getText() {
+		return mText;
+	}
+
+	public int getLineNr() {
+		return mLineNr;
+	}
+
+	/**
+	 * @return the number of open elements. After a start tag, the new element
+	 *         is counted, after an end tag, it isn't anymore.
+	 */
+	public int getDepth() {
+		return mDepth;
+	}
+
+	/**
+	 * From now on, the characters read are recorded, so that elements can be
+	 * kept as unparsed text.
+	 */
+	public void startRecording() {
+		mRecord = new StringBuffer();
+		mTagStart = -1;
+	}
+
+	public void stopRecording() {
+		mRecord = null;
+	}
+
+	/**
+	 * @return the offset of the current tag in the recorded text, i.e. the
+	 *         start of its element.
+	 */
+	public int getTagStart() {
+		return mTagStart;
+	}
+
+	/**
+	 * @return the text recorded from pStart on. The recorded text is cleared,
+	 *         thus offsets returned by {@link #getTagStart()} before refer to
+	 *         nothing afterwards.
+	 */
+	public String takeRecordedText(int pStart) {
+		String text = mRecord.substring(pStart);
+		mRecord.setLength(0);
+		return text;
+	}
+
+	/**
+	 * Collects character data up to the next tag. Comments, processing
+	 * instructions and doctype declarations are skipped, CDATA sections and
+	 * entities are resolved.
+	 *
+	 * @return true, if non-whitespace text was found. Then, the '&lt;' of the
+	 *         following tag has already been consumed.
+	 */
+	private boolean scanText() throws IOException {
+		mTextBuffer.setLength(0);
+		boolean onlyWhitespace = true;
+		for (;;) {
+			int ch = readChar();
+			if (ch == '<') {
+				if (mRecord != null) {
+					mTagStart = mRecord.length() - 1;
+				}
+				ch = readChar();
+				if (ch == '!') {
+					if (checkCDATA(mTextBuffer)) {
+						onlyWhitespace = false;
+					}
+					continue;
+				}
+				if (ch == '?') {
+					skipSpecialTag(0);
+					continue;
+				}
+				unreadChar(ch);
+				if (!onlyWhitespace && mDepth > 0) {
+					mText = mTextBuffer.toString();
+					mMarkupPending = true;
+					return true;
+				}
+				return false;
+			}
+			if (ch == '&') {
+				resolveEntity(mTextBuffer);
+				onlyWhitespace = false;
+			} else if (onlyWhitespace && isWhitespace((char) ch)) {
+				// like XMLElement: carriage returns in leading whitespace are
+				// dropped.
+				if (ch != '\r') {
+					mTextBuffer.append((char) ch);
+				}
+			} else {
+				onlyWhitespace = false;
+				mTextBuffer.append((char) ch);
+			}
+		}
+	}
+
+	private int scanStartTag() throws IOException {
+		mName = scanName();
+		int ch = scanWhitespace();
+		while (ch != '>' && ch != '/') {
+			unreadChar(ch);
+			String key = scanName();
+			if (scanWhitespace() != '=') {
+				throw expectedInput("=");
+			}
+			int delimiter = scanWhitespace();
+			if (delimiter != '\'' && delimiter != '"') {
+				throw expectedInput("' or \"");
+			}
+			mValueBuffer.setLength(0);
+			for (;;) {
+				ch = readChar();
+				if (ch == delimiter) {
+					break;
+				} else if (ch == '&') {
+					resolveEntity(mValueBuffer);
+				} else {
+					mValueBuffer.append((char) ch);
+				}
+			}
+			addAttribute(key, mValueBuffer.toString());
+			ch = scanWhitespace();
+		}
+		if (mDepth == mOpenElements.length) {
+			String[] newOpenElements = new String[mDepth * 2];
+			System.arraycopy(mOpenElements, 0, newOpenElements, 0, mDepth);
+			mOpenElements = newOpenElements;
+		}
+		mOpenElements[mDepth++] = mName;
+		if (ch == '/') {
+			if (readChar() != '>') {
+				throw expectedInput(">");
+			}
+			mEndTagPending = true;
+		} else if (XMLElement.XML_NODE_XHTML_CONTENT_TAG.equals(mName)) {
+			mRawContentPending = true;
+		}
+		return START_TAG;
+	}
+
+	private int scanEndTag() throws IOException {
+		unreadChar(scanWhitespace());
+		String name = scanName();
+		if (mDepth == 0 || !name.equals(mOpenElements[mDepth - 1])) {
+			throw expectedInput(mDepth == 0 ? "<" : mOpenElements[mDepth - 1]);
+		}
+		if (scanWhitespace() != '>') {
+			throw expectedInput(">");
+		}
+		return closeElement();
+	}
+
+	private int closeElement() {
+		mName = mOpenElements[--mDepth];
+		mOpenElements[mDepth] = null;
+		if (mDepth == 0) {
+			mRootClosed = true;
+		}
+		return END_TAG;
+	}
+
+	/**
+	 * Collects all characters up to the closing tag of the rich content
+	 * element. The closing tag is consumed, but reported separately.
+	 */
+	private String scanRawContent() throws IOException {
+		if (sContentEndTagPattern == null) {
+			sContentEndTagPattern = Pattern
+					.compile(XMLElement.XML_NODE_XHTML_CONTENT_END_TAG_REGEXP);
+		}
+		mTextBuffer.setLength(0);
+		int lastOpeningBreak = -1;
+		for (;;) {
+			char ch = (char) readChar();
+			mTextBuffer.append(ch);
+			if (ch == '<') {
+				lastOpeningBreak = mTextBuffer.length() - 1;
+			} else if (ch == '>' && lastOpeningBreak >= 0) {
+				// only the candidate end tag is matched, not the whole
+				// content:
+				String candidate = mTextBuffer.substring(lastOpeningBreak);
+				if (sContentEndTagPattern.matcher(candidate).matches()) {
+					mTextBuffer.setLength(lastOpeningBreak);
+					return mTextBuffer.toString().trim();
+				}
+			}
+		}
+	}
+
+	private void addAttribute(String pName, String pValue) {
+		if (mAttributeCount == mAttributeNames.length) {
+			String[] names = new String[mAttributeCount * 2];
+			String[] values = new String[mAttributeCount * 2];
+			System.arraycopy(mAttributeNames, 0, names, 0, mAttributeCount);
+			System.arraycopy(mAttributeValues, 0, values, 0, mAttributeCount);
+			mAttributeNames = names;
+			mAttributeValues = values;
+		}
+		mAttributeNames[mAttributeCount] = pName;
+		mAttributeValues[mAttributeCount] = pValue;
+		mAttributeCount++;
+	}
+
+	/**
+	 * Scans an identifier with the same rules as XMLElement. The result is
+	 * taken from the name cache, if possible.
+	 */
+	private String scanName() throws IOException {
+		int length = 0;
+		int hash = 0;
+		for (;;) {
+			int ch = readChar();
+			if (((ch < 'A') || (ch > 'Z')) && ((ch < 'a') || (ch > 'z'))
+					&& ((ch < '0') || (ch > '9')) && (ch != '_') && (ch != '.')
+					&& (ch != ':') && (ch != '-') && (ch <= '~')) {
+				unreadChar(ch);
+				break;
+			}
+			if (length == mNameChars.length) {
+				char[] newChars = new char[length * 2];
+				System.arraycopy(mNameChars, 0, newChars, 0, length);
+				mNameChars = newChars;
+			}
+			mNameChars[length++] = (char) ch;
+			hash = 31 * hash + ch;
+		}
+		int slot = hash & (NAME_CACHE_SIZE - 1);
+		String cached = mNameCache[slot];
+		if (cached != null && cached.length() == length) {
+			boolean equal = true;
+			for (int i = 0; i < length; i++) {
+				if (cached.charAt(i) != mNameChars[i]) {
+					equal = false;
+					break;
+				}
+			}
+			if (equal) {
+				return cached;
+			}
+		}
+		String name = new String(mNameChars, 0, length);
+		mNameCache[slot] = name;
+		return name;
+	}
+
+	private int scanWhitespace() throws IOException {
+		for (;;) {
+			int ch = readChar();
+			if (!isWhitespace((char) ch)) {
+				return ch;
+			}
+		}
+	}
+
+	private static boolean isWhitespace(char ch) {
+		return ch == ' ' || ch == '\t' || ch == '\n' || ch == '\r';
+	}
+
+	/**
+	 * Handles the part after "&lt;!". Comments and doctypes are skipped, the
+	 * content of CDATA sections is appended to pBuffer.
+	 *
+	 * @return true, if it was a CDATA section.
+	 */
+	private boolean checkCDATA(StringBuffer pBuffer) throws IOException {
+		int ch = readChar();
+		if (ch != '[') {
+			unreadChar(ch);
+			skipSpecialTag(0);
+			return false;
+		}
+		String literal = "CDATA[";
+		for (int i = 0; i < literal.length(); i++) {
+			if (readChar() != literal.charAt(i)) {
+				skipSpecialTag(1);
+				return false;
+			}
+		}
+		int delimiterCharsSkipped = 0;
+		while (delimiterCharsSkipped < 3) {
+			ch = readChar();
+			switch (ch) {
+			case ']':
+				if (delimiterCharsSkipped < 2) {
+					delimiterCharsSkipped += 1;
+				} else {
+					pBuffer.append(']');
+					pBuffer.append(']');
+					delimiterCharsSkipped = 0;
+				}
+				break;
+			case '>':
+				if (delimiterCharsSkipped < 2) {
+					for (int i = 0; i < delimiterCharsSkipped; i++) {
+						pBuffer.append(']');
+					}
+					delimiterCharsSkipped = 0;
+					pBuffer.append('>');
+				} else {
+					delimiterCharsSkipped = 3;
+				}
+				break;
+			default:
+				for (int i = 0; i < delimiterCharsSkipped; i += 1) {
+					pBuffer.append(']');
+				}
+				pBuffer.append((char) ch);
+				delimiterCharsSkipped = 0;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Skips comments, processing instructions and doctype declarations, see
+	 * XMLElement.skipSpecialTag.
+	 */
+	private void skipSpecialTag(int pBracketLevel) throws IOException {
+		int tagLevel = 1;
+		int bracketLevel = pBracketLevel;
+		char stringDelimiter = '\0';
+		if (bracketLevel == 0) {
+			int ch = readChar();
+			if (ch == '[') {
+				bracketLevel += 1;
+			} else if (ch == '-') {
+				ch = readChar();
+				if (ch == '[') {
+					bracketLevel += 1;
+				} else if (ch == ']') {
+					bracketLevel -= 1;
+				} else if (ch == '-') {
+					skipComment();
+					return;
+				}
+			}
+		}
+		while (tagLevel > 0) {
+			char ch = (char) readChar();
+			if (stringDelimiter == '\0') {
+				if ((ch == '"') || (ch == '\'')) {
+					stringDelimiter = ch;
+				} else if (bracketLevel <= 0) {
+					if (ch == '<') {
+						tagLevel += 1;
+					} else if (ch == '>') {
+						tagLevel -= 1;
+					}
+				}
+				if (ch == '[') {
+					bracketLevel += 1;
+				} else if (ch == ']') {
+					bracketLevel -= 1;
+				}
+			} else if (ch == stringDelimiter) {
+				stringDelimiter = '\0';
+			}
+		}
+	}
+
+	private void skipComment() throws IOException {
+		int dashesToRead = 2;
+		while (dashesToRead > 0) {
+			if (readChar() == '-') {
+				dashesToRead -= 1;
+			} else {
+				dashesToRead = 2;
+			}
+		}
+		if (readChar() != '>') {
+			throw expectedInput(">");
+		}
+	}
+
+	private void resolveEntity(StringBuffer pBuffer) throws IOException {
+		int start = pBuffer.length();
+		for (;;) {
+			int ch = readChar();
+			if (ch == ';') {
+				break;
+			}
+			pBuffer.append((char) ch);
+		}
+		String key = pBuffer.substring(start);
+		pBuffer.setLength(start);
+		if (key.length() > 1 && key.charAt(0) == '#') {
+			try {
+				if (key.charAt(1) == 'x') {
+					pBuffer.append((char) Integer.parseInt(key.substring(2), 16));
+				} else {
+					pBuffer.append((char) Integer.parseInt(key.substring(1), 10));
+				}
+			} catch (NumberFormatException e) {
+				throw unknownEntity(key);
+			}
+		} else if ("amp".equals(key)) {
+			pBuffer.append('&');
+		} else if ("lt".equals(key)) {
+			pBuffer.append('<');
+		} else if ("gt".equals(key)) {
+			pBuffer.append('>');
+		} else if ("quot".equals(key)) {
+			pBuffer.append('"');
+		} else if ("apos".equals(key)) {
+			pBuffer.append('\'');
+		} else {
+			throw unknownEntity(key);
+		}
+	}
+
+	private int readChar() throws IOException {
+		if (mUnreadChar != NO_CHAR) {
+			int ch = mUnreadChar;
+			mUnreadChar = NO_CHAR;
+			return ch;
+		}
+		if (mPosition == mLimit) {
+			mLimit = mReader.read(mBuffer, 0, mBuffer.length);
+			mPosition = 0;
+			if (mLimit <= 0) {
+				mLimit = 0;
+				throw unexpectedEndOfData();
+			}
+		}
+		char ch = mBuffer[mPosition++];
+		if (ch == '\n') {
+			mLineNr++;
+		}
+		if (mRecord != null) {
+			mRecord.append(ch);
+		}
+		return ch;
+	}
+
+	private void unreadChar(int pChar) {
+		mUnreadChar = pChar;
+	}
+
+	private XMLParseException unexpectedEndOfData() {
+		return new XMLParseException(mName, mLineNr,
+				"Unexpected end of data reached");
+	}
+
+	private XMLParseException expectedInput(String pCharSet) {
+		return new XMLParseException(mName, mLineNr, "Expected: " + pCharSet);
+	}
+
+	private XMLParseException unknownEntity(String pName) {
+		return new XMLParseException(mName, mLineNr,
+				"Unknown or invalid entity: &" + pName + ";");
+	}
+}
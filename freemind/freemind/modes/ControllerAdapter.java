@@ -81,6 +81,7 @@ import freemind.controller.StructuredMenuHolder;
 import freemind.controller.actions.generated.instance.MindmapLastStateStorage;
 import freemind.controller.actions.generated.instance.NodeListMember;
 import freemind.extensions.PermanentNodeHook;
+import freemind.main.FreeMind;
 import freemind.main.FreeMindCommon;
 import freemind.main.FreeMindMain;
 import freemind.main.Resources;
@@ -117,6 +118,7 @@ public abstract class ControllerAdapter implements ModeController {
 	private HashSet mNodeSelectionListeners = new HashSet();
 	private HashSet mNodeLifetimeListeners = new HashSet();
 	private static File lastCurrentDir = null;
+	private static final Object sModeControllerCreationLock = new Object();
 
 	/**
 	 * Instantiation order: first me and then the model.
@@ -379,7 +381,7 @@ public abstract class ControllerAdapter implements ModeController {
 	}
 
 	public MindMap newMap() {
-		ModeController newModeController = getMode().createModeController();
+		ModeController newModeController = createModeController(getMode());
 		MapAdapter newModel = newModel(newModeController);
 		newMap(newModel);
 		newModeController.getView().moveToRoot();
@@ -405,18 +407,51 @@ public abstract class ControllerAdapter implements ModeController {
 					mapDisplayName);
 			return getController().getModeController();
 		} else {
-			final ModeController newModeController = getMode()
-
-			.createModeController();
-			final MapAdapter model = newModel(newModeController);
-			model.load(file);
+			final MapAdapter model = loadModel(file);
 			newMap(model);
 			model.setSaved(true);
-			restoreMapsLastState(newModeController, model);
-			return newModeController;
+			restoreMapsLastState(model.getModeController(), model);
+			return model.getModeController();
+		}
+	}
+
+	/**
+	 * Reads the map into a new model with its own mode controller, but
+	 * without view. May be called outside of the event dispatch thread and for
+	 * several maps in parallel, see {@link freemind.controller.MapRestorer}.
+	 */
+	public MapAdapter loadModel(URL file) throws FileNotFoundException,
+			IOException, XMLParseException, URISyntaxException {
+		ModeController newModeController = createModeController(getMode());
+		MapAdapter model = newModel(newModeController);
+		model.load(file);
+		return model;
+	}
+
+	/**
+	 * Creates a mode controller in any thread. The mode controllers create
+	 * actions and menus, that use static registries. Thus, they are created
+	 * one after the other.
+	 */
+	public static ModeController createModeController(Mode pMode) {
+		synchronized (sModeControllerCreationLock) {
+			return pMode.createModeController();
 		}
 	}
 
+	/**
+	 * Adds a map read by {@link #loadModel(URL)} at the given position of the
+	 * open maps without changing to it. Must be called in the event dispatch
+	 * thread.
+	 */
+	public MapModule addLoadedMap(MapAdapter pModel, int pIndex) {
+		MapModule mapModule = getController().getMapModuleManager()
+				.addMapModule(pModel, pModel.getModeController(), pIndex);
+		pModel.setSaved(true);
+		restoreMapsLastState(pModel.getModeController(), pModel);
+		return mapModule;
+	}
+
 	/**
 	 * You may decide to overload this or take the default and implement the
 	 * functionality in your MapModel (implements MindMap)
@@ -589,11 +624,25 @@ public abstract class ControllerAdapter implements ModeController {
 
 	public MindMapNode createNodeTreeFromXml(Reader pReader, HashMap pIDToTarget)
 			throws XMLParseException, IOException {
+		return createNodeTreeFromXml(pReader, pIDToTarget, false);
+	}
+
+	public MindMapNode createNodeTreeFromXml(Reader pReader,
+			HashMap pIDToTarget, boolean pDeferFoldedChildren)
+			throws XMLParseException, IOException {
 		XMLElementAdapter element = (XMLElementAdapter) createXMLElement();
 		element.setIDToTarget(pIDToTarget);
-		element.parseFromReader(pReader);
+		MindMapNode node;
+		if (Resources.getInstance().getBoolProperty(
+				FreeMind.RESOURCES_USE_STREAMING_MAP_LOADER)) {
+			NodeTreeStreamLoader loader = new NodeTreeStreamLoader(element);
+			loader.setDeferFoldedChildren(pDeferFoldedChildren);
+			node = loader.load(pReader);
+		} else {
+			element.parseFromReader(pReader);
+			node = element.getMapChild();
+		}
 		element.processUnfinishedLinks(getModel().getLinkRegistry());
-		MindMapNode node = element.getMapChild();
 		return node;
 	}
 
@@ -601,9 +650,12 @@ public abstract class ControllerAdapter implements ModeController {
      *
      */
 	public void invokeHooksRecursively(NodeAdapter node, MindMap map) {
-		for (Iterator i = node.childrenUnfolded(); i.hasNext();) {
-			NodeAdapter child = (NodeAdapter) i.next();
-			invokeHooksRecursively(child, map);
+		// children that are not loaded yet don't have hooks.
+		if (!node.hasPendingChildren()) {
+			for (Iterator i = node.childrenUnfolded(); i.hasNext();) {
+				NodeAdapter child = (NodeAdapter) i.next();
+				invokeHooksRecursively(child, map);
+			}
 		}
 		for (Iterator i = node.getHooks().iterator(); i.hasNext();) {
 			PermanentNodeHook hook = (PermanentNodeHook) i.next();
@@ -1514,13 +1566,13 @@ public abstract class ControllerAdapter implements ModeController {
 	public void centerNode(MindMapNode node) {
 		NodeView view = null;
 		if (node != null) {
-			view = getController().getView().getNodeView(node);
+			view = getView().getNodeView(node);
 		} else {
 			return;
 		}
 		if (view == null) {
 			displayNode(node);
-			view = getController().getView().getNodeView(node);
+			view = getView().getNodeView(node);
 		}
 		centerNode(view);
 	}
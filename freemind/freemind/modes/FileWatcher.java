@@ -0,0 +1,164 @@
+/*FreeMind - A Program for creating and viewing Mindmaps
+ *Copyright (C) 2000-2012 Joerg Mueller, Daniel Polansky, Christian Foltin, Dimitri Polivaev and others.
+ *
+ *See COPYING for Details
+ *
+ *This program is free software; you can redistribute it and/or
+ *modify it under the terms of the GNU General Public License
+ *as published by the Free Software Foundation; either version 2
+ *of the License, or (at your option) any later version.
+ *
+ *This program is distributed in the hope that it will be useful,
+ *but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *GNU General Public License for more details.
+ *
+ *You should have received a copy of the GNU General Public License
+ *along with this program; if not, write to the Free Software
+ *Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package freemind.modes;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.Vector;
+
+import freemind.main.FreeMind;
+import freemind.main.Resources;
+
+/**
+ * Watches the files of all open maps. If the java runtime supports it (1.7 and
+ * later), the file system notifies about changes, see {@link NioFileWatcher}.
+ * Otherwise, and if {@link FreeMind#RESOURCES_WATCH_MAP_FILES} is false, the
+ * files are checked periodically. Both use a single thread for all maps.
+ * 
+ * The timer of the watcher is shared with other periodic file tasks.
+ */
+public class FileWatcher {
+
+	/**
+	 * The file system notifications, if available.
+	 */
+	interface NativeWatcher {
+		/**
+		 * @return false, if the file can't be watched.
+		 */
+		boolean watch(File pFile);
+
+		void unwatch(File pFile);
+	}
+
+	public static final int POLL_INTERVAL = 5000;
+
+	private static FileWatcher sInstance = null;
+
+	private final Timer mTimer = new Timer(true);
+
+	/** check (Runnable) -> absolute File */
+	private final HashMap mChecks = new HashMap();
+
+	/** The checks that are executed periodically. */
+	private final Vector mPolledChecks = new Vector();
+
+	private NativeWatcher mNativeWatcher = null;
+
+	private boolean mIsPolling = false;
+
+	public static synchronized FileWatcher getInstance() {
+		if (sInstance == null) {
+			sInstance = new FileWatcher();
+		}
+		return sInstance;
+	}
+
+	private FileWatcher() {
+		if (Resources.getInstance().getBoolProperty(
+				FreeMind.RESOURCES_WATCH_MAP_FILES)) {
+			try {
+				Class.forName("java.nio.file.WatchService");
+				// not referenced directly, as it can't be loaded by older
+				// runtimes:
+				mNativeWatcher = (NativeWatcher) Class.forName(
+						"freemind.modes.NioFileWatcher").getConstructor(
+						new Class[] { FileWatcher.class }).newInstance(
+						new Object[] { this });
+			} catch (ClassNotFoundException e) {
+				// older runtime, the files are polled.
+			} catch (Exception e) {
+				Resources.getInstance().logException(e);
+			}
+		}
+	}
+
+	/**
+	 * Executes the check, whenever the file may have been changed. The check
+	 * is executed in the thread of the watcher.
+	 */
+	public synchronized void watch(File pFile, Runnable pCheck) {
+		unwatch(pCheck);
+		File file = pFile.getAbsoluteFile();
+		mChecks.put(pCheck, file);
+		if (mNativeWatcher == null || !mNativeWatcher.watch(file)) {
+			mPolledChecks.add(pCheck);
+			if (!mIsPolling) {
+				mIsPolling = true;
+				mTimer.schedule(new TimerTask() {
+					public void run() {
+						Vector checks;
+						synchronized (FileWatcher.this) {
+							checks = new Vector(mPolledChecks);
+						}
+						runChecks(checks);
+					}
+				}, POLL_INTERVAL, POLL_INTERVAL);
+			}
+		}
+	}
+
+	public synchronized void unwatch(Runnable pCheck) {
+		File file = (File) mChecks.remove(pCheck);
+		if (file != null && !mPolledChecks.remove(pCheck)) {
+			mNativeWatcher.unwatch(file);
+		}
+	}
+
+	/**
+	 * Called by the native watcher, if the file has been changed.
+	 */
+	void fileChanged(File pFile) {
+		Vector checks = new Vector();
+		synchronized (this) {
+			for (Iterator it = mChecks.entrySet().iterator(); it.hasNext();) {
+				Map.Entry entry = (Map.Entry) it.next();
+				if (pFile.equals(entry.getValue())) {
+					checks.add(entry.getKey());
+				}
+			}
+		}
+		runChecks(checks);
+	}
+
+	private void runChecks(Vector pChecks) {
+		for (Iterator it = pChecks.iterator(); it.hasNext();) {
+			try {
+				((Runnable) it.next()).run();
+			} catch (Exception e) {
+				Resources.getInstance().logException(e);
+			}
+		}
+	}
+
+	/**
+	 * Schedules a periodic task on the timer of the watcher. The task must be
+	 * short, as it delays the other tasks.
+	 */
+	public void schedule(TimerTask pTask, long pDelay, long pPeriod) {
+		mTimer.schedule(pTask, pDelay, pPeriod);
+	}
+
+}
@@ -20,9 +20,10 @@
 
 package freemind.modes;
 
-import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.ListIterator;
 import java.util.Random;
 import java.util.Vector;
@@ -33,53 +34,6 @@ import java.util.Vector;
  * maps have a different registry.
  */
 public class LinkRegistryAdapter implements MindMapLinkRegistry {
-	/**
-	 * All elements put into this sort of vectors are put into the SourceToLinks, too.
-	 * This structure is kept synchronous to the IDToLinks structure, but reversed.
-	 * @author foltin
-	 * @date 23.01.2012
-	 */
-	private class SynchronousVector extends Vector {
-		/*
-		 * (non-Javadoc)
-		 * 
-		 * @see java.util.Vector#add(java.lang.Object)
-		 */
-		public synchronized boolean add(Object pE) {
-			boolean add = super.add(pE);
-			if (pE instanceof MindMapLink) {
-				MindMapLink link = (MindMapLink) pE;
-				MindMapNode source = link.getSource();
-				if (!SourceToLinks.containsKey(source)) {
-					SourceToLinks.put(source, new Vector());
-				}
-				((Vector) SourceToLinks.get(source)).add(pE);
-			}
-			return add;
-		}
-
-		/*
-		 * (non-Javadoc)
-		 * 
-		 * @see java.util.Vector#removeElementAt(int)
-		 */
-		public synchronized void removeElementAt(int pIndex) {
-			MindMapLink link = (MindMapLink) get(pIndex);
-			MindMapNode source = link.getSource();
-			Vector vector = (Vector) SourceToLinks.get(source);
-			if (vector != null) {
-				vector.remove(link);
-				if (vector.isEmpty()) {
-					SourceToLinks.remove(source);
-				}
-			}
-			super.removeElementAt(pIndex);
-		}
-
-	}
-
-	protected HashMap /* source -> vector of links with same source */SourceToLinks = new HashMap();
-
 	/** State parent interface. */
 	public interface ID_BasicState {
 		/** Returns null for many states. */
@@ -183,15 +137,24 @@ public class LinkRegistryAdapter implements MindMapLinkRegistry {
 	// // Attributes /////
 	// //////////////////////////////////////////////////////////////////////////////////////
 
-	protected HashMap /* MindMapNode = Target -> ID_BasicState. */TargetToID;
-	protected HashMap /* MindMapNode = ID_BasicState -> ID. */IDToTarget;
-	protected HashMap /* id -> vector of links whose TargetToID.get(target) == id. */IDToLinks;
+	/*
+	 * Every node with an id is contained in TargetToID and IDToTarget. Only
+	 * the (few) nodes with links have a vector in IDToLinks and SourceToLinks,
+	 * thus registering an id doesn't allocate more than the map entries and
+	 * the state holding the id.
+	 */
+	protected HashMap /* MindMapNode = Target -> ID_RegisteredAdapter. */TargetToID;
+	protected HashMap /* ID -> MindMapNode = Target. */IDToTarget;
+	protected HashMap /* id -> vector of links whose getLabel(target) == id. Only present, if there are links. */IDToLinks;
+	protected HashMap /* source -> vector of links with same source. Only present, if there are links. */SourceToLinks;
 	protected HashMap /*
-					 * id -> vector of links whose TargetToID.get(target) == id
+					 * id -> vector of links whose getLabel(target) == id
 					 * and who are cut recently.
 					 */IDToCutLinks;
 	protected HashMap /* id -> link */IDToLink;
 	protected HashSet /* id */mLocallyLinkedIDs;
+	/** The state of all nodes without id. */
+	private final ID_BlankAdapter mBlankState = new ID_BlankAdapter();
 	/** The map the registry belongs to. */
 	// protected MindMap map;
 
@@ -210,6 +173,7 @@ public class LinkRegistryAdapter implements MindMapLinkRegistry {
 		TargetToID = new HashMap();
 		IDToTarget = new HashMap();
 		IDToLinks = new HashMap();
+		SourceToLinks = new HashMap();
 		IDToCutLinks = new HashMap();
 		IDToLink = new HashMap();
 		mLocallyLinkedIDs = new HashSet();
@@ -217,7 +181,7 @@ public class LinkRegistryAdapter implements MindMapLinkRegistry {
 	};
 
 	public String generateUniqueID(String proposedID) {
-		return generateID(proposedID, IDToLinks, "ID_");
+		return generateID(proposedID, IDToTarget, "ID_");
 	}
 
 	public String generateUniqueLinkID(String proposedID) {
@@ -265,31 +229,23 @@ public class LinkRegistryAdapter implements MindMapLinkRegistry {
 	public ID_Registered _registerLinkTarget(MindMapNode target,
 			String proposedID) {
 		// id already exists?
-		if (TargetToID.containsKey(target)) {
-			ID_BasicState state = (ID_BasicState) TargetToID.get(target);
-			if (state instanceof ID_Registered)
-				return (ID_Registered) state;
-			// blank state.
-			// is equal to no state.
+		ID_Registered state = (ID_Registered) TargetToID.get(target);
+		if (state == null) {
+			// generate new id:
+			String id = generateUniqueID(proposedID);
+			state = new ID_RegisteredAdapter(target, id);
+			TargetToID.put(target, state);
+			IDToTarget.put(id, target);
+			// logger.fine("Register target node:"+target+", with ID="+newID);
 		}
-		// generate new id:
-		String newID = generateUniqueID(proposedID);
-		ID_Registered state = new ID_RegisteredAdapter(target, newID);
-		TargetToID.put(target, state);
-		IDToTarget.put(newID, target);
-
-		// logger.fine("Register target node:"+target+", with ID="+newID);
-		getAssignedLinksVector(state);/*
-									 * This is to allocate the link target in
-									 * the IDToLinks map!.
-									 */
 		return state;
 	};
 
 	public ID_BasicState getState(MindMapNode node) {
-		if (TargetToID.containsKey(node))
-			return (ID_BasicState) TargetToID.get(node);
-		return new ID_BlankAdapter();
+		ID_Registered state = (ID_Registered) TargetToID.get(node);
+		if (state != null)
+			return state;
+		return mBlankState;
 	};
 
 	public MindMapNode getTargetForID(String ID) {
@@ -297,39 +253,57 @@ public class LinkRegistryAdapter implements MindMapLinkRegistry {
 		return (MindMapNode) target;
 	}
 
-	private Vector /* of MindMapLink s */getAssignedLinksVector(
-			ID_Registered state) {
-		String id = state.getID();
-		// look, if target is already present:
-		Vector vec;
-		if (IDToLinks.containsKey(id)) {
-			vec = (Vector) IDToLinks.get(id);
-		} else {
-			vec = new SynchronousVector();
-			IDToLinks.put(id, vec);
+	/**
+	 * @return the vector of links in the map, or null, if there are no links.
+	 *         It is created, if pCreate is true.
+	 */
+	private Vector /* of MindMapLink s */getLinksVector(HashMap pMap,
+			Object pKey, boolean pCreate) {
+		Vector vec = (Vector) pMap.get(pKey);
+		if (vec == null && pCreate) {
+			vec = new Vector(1);
+			pMap.put(pKey, vec);
 		}
-
-		// Dimitry : logger is a performance killer here
-		// //logger.fine("getAssignedLinksVector "+vec);
 		return vec;
 	}
 
+	/**
+	 * Removes the link from the vector in the map. The vector is removed, if
+	 * it becomes empty.
+	 */
+	private void removeLink(HashMap pMap, Object pKey, MindMapLink pLink) {
+		Vector vec = getLinksVector(pMap, pKey, false);
+		if (vec == null) {
+			return;
+		}
+		for (int i = vec.size() - 1; i >= 0; --i) {
+			if (vec.get(i) == pLink) {
+				vec.removeElementAt(i);
+			}
+		}
+		if (vec.isEmpty()) {
+			pMap.remove(pKey);
+		}
+	}
+
 	/** If there are still targets registered, they are removed, too. */
 	public void deregisterLinkTarget(MindMapNode target)
 			throws java.lang.IllegalArgumentException {
-		ID_BasicState state = getState(target);
-		if (state instanceof ID_Registered) {
-			Vector vec = getAssignedLinksVector((ID_Registered) state);
-			for (int i = vec.size() - 1; i >= 0; --i) {
-				deregisterLink((MindMapLink) vec.get(i));
+		String id = getLabel(target);
+		if (id != null) {
+			Vector vec = getLinksVector(IDToLinks, id, false);
+			if (vec != null) {
+				for (int i = vec.size() - 1; i >= 0; --i) {
+					deregisterLink((MindMapLink) vec.get(i));
+				}
 			}
 			// if(vec.size() != 0)
 			// throw new
 			// java.lang.IllegalArgumentException("Cannot remove a link target, if there are sources pointing to.");
 			// logger.fine("Deregister target node:"+target);
 			TargetToID.remove(target);
-			IDToTarget.remove(state.getID());
-			IDToLinks.remove(state.getID());
+			IDToTarget.remove(id);
+			IDToLinks.remove(id);
 		}
 	}
 
@@ -349,13 +323,14 @@ public class LinkRegistryAdapter implements MindMapLinkRegistry {
 		logger.info("Register link (" + link + ") from source node:" + source
 				+ " to target " + target);
 		ID_Registered state = _registerLinkTarget(target);
-		Vector vec = getAssignedLinksVector(state);
+		Vector vec = getLinksVector(IDToLinks, state.getID(), true);
 		// already present?
 		for (int i = 0; i < vec.size(); ++i) {
 			if (vec.get(i) == link)
 				return;
 		}
 		vec.add(link);
+		getLinksVector(SourceToLinks, source, true).add(link);
 		String uniqueID = link.getUniqueID();
 		if (uniqueID == null) {
 			((LinkAdapter) link).setUniqueID(generateUniqueLinkID(uniqueID));
@@ -375,17 +350,13 @@ public class LinkRegistryAdapter implements MindMapLinkRegistry {
 	public void deregisterLink(MindMapLink link) {
 		MindMapNode source = link.getSource();
 		MindMapNode target = link.getTarget();
-		ID_Registered state = _registerLinkTarget(target);
-		Vector vec = getAssignedLinksVector(state);
-		for (int i = vec.size() - 1; i >= 0; --i) {
-			// logger.fine("Test for equal node:"+source+" to vector(i) " +
-			// vec.get(i));
-			if (vec.get(i) == link) {
-				vec.removeElementAt(i);
-				// logger.fine("Deregister link  ("+link+") from source node:"+source+" to target "
-				// + target);
-			}
+		String id = getLabel(target);
+		if (id != null) {
+			removeLink(IDToLinks, id, link);
+			// logger.fine("Deregister link  ("+link+") from source node:"+source+" to target "
+			// + target);
 		}
+		removeLink(SourceToLinks, source, link);
 		IDToLink.remove(link.getUniqueID());
 	};
 
@@ -400,61 +371,58 @@ public class LinkRegistryAdapter implements MindMapLinkRegistry {
 	public Vector /* of MindMapNode s */getAllSources(MindMapNode target) {
 		Vector returnValue;
 		returnValue = new Vector();
-		ID_BasicState state = getState(target);
-		if (state instanceof ID_Registered) {
-			Vector vec = getAssignedLinksVector((ID_Registered) state);
-			for (int i = 0; i < vec.size(); ++i) {
-				returnValue.add(((MindMapLink) vec.get(i)).getSource());
-			}
+		List vec = getAllLinksIntoMe(target);
+		for (int i = 0; i < vec.size(); ++i) {
+			returnValue.add(((MindMapLink) vec.get(i)).getSource());
 		}
 		return returnValue;
 	};
 
-	public Vector /* of MindMapLink s */getAllLinks(MindMapNode node) {
-		Vector returnValue = new Vector();
-		returnValue.addAll(getAllLinksIntoMe(node));
-		returnValue.addAll(getAllLinksFromMe(node));
+	/**
+	 * @return returns all links from or to this node (read only). Only, if
+	 *         there are links in both directions, a new list is created.
+	 */
+	public List /* of MindMapLink s */getAllLinks(MindMapNode node) {
+		List linksIntoMe = getAllLinksIntoMe(node);
+		List linksFromMe = getAllLinksFromMe(node);
+		if (linksFromMe.isEmpty()) {
+			return linksIntoMe;
+		}
+		if (linksIntoMe.isEmpty()) {
+			return linksFromMe;
+		}
+		Vector returnValue = new Vector(linksIntoMe);
+		returnValue.addAll(linksFromMe);
 		// Dimitry : logger is a performance killer here
 		// //logger.fine("All links  ("+returnValue+") from  node:"+node);
-		return returnValue;
+		return Collections.unmodifiableList(returnValue);
 	};
 
-	/** @return returns all links to this node. */
-	public Vector /* of MindMapLink s */getAllLinksIntoMe(MindMapNode target) {
-		Vector returnValue = new Vector();
-		ID_BasicState state = getState(target);
-		if (getState(target) instanceof ID_Registered) {
-			Vector vec = getAssignedLinksVector((ID_Registered) state);
-			/* "clone" */
-			returnValue.addAll(vec);
-		}
-		return returnValue;
+	/** @return returns all links to this node (a read only view). */
+	public List /* of MindMapLink s */getAllLinksIntoMe(MindMapNode target) {
+		String id = getLabel(target);
+		Vector vec = (id == null) ? null : getLinksVector(IDToLinks, id, false);
+		return (vec == null) ? Collections.EMPTY_LIST : Collections
+				.unmodifiableList(vec);
 	}
 
-	/** @return returns all links from this node. */
-	public Vector /* of MindMapLink s */getAllLinksFromMe(MindMapNode source) {
-		Vector returnValue = new Vector();
-		Collection vec = (Collection) SourceToLinks.get(source);
-		if (vec != null) {
-			returnValue.addAll(vec);
-		}
-		return returnValue;
+	/** @return returns all links from this node (a read only view). */
+	public List /* of MindMapLink s */getAllLinksFromMe(MindMapNode source) {
+		Vector vec = getLinksVector(SourceToLinks, source, false);
+		return (vec == null) ? Collections.EMPTY_LIST : Collections
+				.unmodifiableList(vec);
 	}
 
 	public String getLabel(MindMapNode target) {
-		ID_BasicState state = getState(target);
-		if (getState(target) instanceof ID_Registered) {
-			return ((ID_Registered) state).getID();
-		}
-		return null;
+		ID_Registered state = (ID_Registered) TargetToID.get(target);
+		return (state == null) ? null : state.getID();
 	}
 
 	public void cutNode(MindMapNode target) {
 		// logger.entering("LinkRegistryAdapter", "cutNode", target);
-		ID_BasicState state = getState(target);
-		if (state instanceof ID_Registered) {
+		String id = getLabel(target);
+		if (id != null) {
 			// there is a registered target id.
-			String id = getLabel(target);
 			// create new vector to the links:
 			Vector vec;
 			if (IDToCutLinks.containsKey(id)) {
@@ -466,7 +434,8 @@ public class LinkRegistryAdapter implements MindMapLinkRegistry {
 				IDToCutLinks.put(id, vec);
 			}
 			// deregister all links to me:
-			Vector links = getAllLinksIntoMe(target);
+			// (copied, as deregisterLink changes the vector)
+			Vector links = new Vector(getAllLinksIntoMe(target));
 			for (int i = links.size() - 1; i >= 0; --i) {
 				MindMapLink link = (MindMapLink) links.get(i);
 				vec.add(link);
@@ -478,7 +447,11 @@ public class LinkRegistryAdapter implements MindMapLinkRegistry {
 			deregisterLinkTarget(target);
 		}
 		// deregister all links from me:
-		Vector links = getAllLinksFromMe(target);
+		// (copied, as deregisterLink changes the vector)
+		List links = getAllLinksFromMe(target);
+		if (!links.isEmpty()) {
+			links = new Vector(links);
+		}
 		for (int i = links.size() - 1; i >= 0; --i) {
 			MindMapLink link = (MindMapLink) links.get(i);
 			deregisterLink(link);
@@ -30,8 +30,6 @@ import java.util.Date;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Timer;
-import java.util.TimerTask;
 import java.util.Vector;
 import java.util.logging.Logger;
 
@@ -50,12 +48,16 @@ import freemind.main.XMLParseException;
 
 public abstract class MapAdapter extends DefaultTreeModel implements MindMap {
 
-	private static final int INTERVAL_BETWEEN_FILE_MODIFICATION_TIME_CHECKS = 5000;
 	/**
 	 * denotes the amount of changes since the last save. The initial value is
 	 * zero, such that new models are not to be saved.
 	 */
 	protected int changesPerformedSinceLastSave = 0;
+	/**
+	 * Counts all changes. Unlike changesPerformedSinceLastSave, it isn't reset
+	 * by saving.
+	 */
+	private int changesPerformed = 0;
 	protected boolean readOnly = true;
 	private File file;
 	private long mFileTime = 0;
@@ -65,7 +67,8 @@ public abstract class MapAdapter extends DefaultTreeModel implements MindMap {
 	private Filter filter = null;
 	protected final ModeController mModeController;
 	private HashSet mMapSourceChangedObserverSet = new HashSet();
-	private Timer mTimerForFileChangeObservation;
+	private final FileChangeInspector mFileChangeInspector = new FileChangeInspector();
+	private boolean mObserveFileChanges = true;
 
 	public MapAdapter(FreeMindMain frame, ModeController modeController) {
 		super(null);
@@ -78,18 +81,17 @@ public abstract class MapAdapter extends DefaultTreeModel implements MindMap {
 		registry = new MapRegistry(this, modeController);
 		filter = new DefaultFilter(NoFilteringCondition.createCondition(),
 				true, false);
-		mTimerForFileChangeObservation = new Timer();
-		mTimerForFileChangeObservation.schedule(
-				new FileChangeInspectorTimerTask(),
-				INTERVAL_BETWEEN_FILE_MODIFICATION_TIME_CHECKS,
-				INTERVAL_BETWEEN_FILE_MODIFICATION_TIME_CHECKS);
 	}
 
 	public ModeController getModeController() {
 		return mModeController;
 	}
 
-	protected class FileChangeInspectorTimerTask extends TimerTask {
+	/**
+	 * Executed by the {@link FileWatcher}, whenever the file may have been
+	 * changed.
+	 */
+	protected class FileChangeInspector implements Runnable {
 
 		public void run() {
 			boolean shouldFire = false;
@@ -174,7 +176,8 @@ public abstract class MapAdapter extends DefaultTreeModel implements MindMap {
 	}
 
 	protected void cancelFileChangeObservationTimer() {
-		mTimerForFileChangeObservation.cancel();
+		mObserveFileChanges = false;
+		FileWatcher.getInstance().unwatch(mFileChangeInspector);
 	}
 
 	// (PN)
@@ -225,6 +228,7 @@ public abstract class MapAdapter extends DefaultTreeModel implements MindMap {
 				setTitle = true;
 			}
 			++changesPerformedSinceLastSave;
+			++changesPerformed;
 		}
 		if (setTitle) {
 			getModeController().getController().setTitle();
@@ -235,6 +239,10 @@ public abstract class MapAdapter extends DefaultTreeModel implements MindMap {
 		return changesPerformedSinceLastSave;
 	}
 
+	protected int getNumberOfChanges() {
+		return changesPerformed;
+	}
+
 	public MindMapNode getRootNode() {
 		return (MindMapNode) getRoot();
 	}
@@ -299,6 +307,13 @@ public abstract class MapAdapter extends DefaultTreeModel implements MindMap {
 
 	protected void setFile(File file) {
 		this.file = file;
+		if (mObserveFileChanges) {
+			if (file != null) {
+				FileWatcher.getInstance().watch(file, mFileChangeInspector);
+			} else {
+				FileWatcher.getInstance().unwatch(mFileChangeInspector);
+			}
+		}
 	}
 
 	protected String getText(String textId) {
@@ -41,6 +41,7 @@ public class MapRegistry {
 	private AttributeRegistry attributes;
 	private MindMap map;
 	private ModeController modeController;
+	private PlainTextIndex textIndex;
 
 	public MapRegistry(MindMap map, ModeController modeController) {
 		super();
@@ -64,6 +65,26 @@ public class MapRegistry {
 		return attributes;
 	}
 
+	/**
+	 * @return the index of the node texts, it is created on first use.
+	 */
+	public PlainTextIndex getTextIndex() {
+		if (textIndex == null) {
+			textIndex = new PlainTextIndex(map);
+		}
+		return textIndex;
+	}
+
+	/**
+	 * Called, when the children of the node, kept as xml text till now, are
+	 * created.
+	 */
+	public void pendingChildrenLoaded(MindMapNode pNode) {
+		if (textIndex != null) {
+			textIndex.childrenLoaded(pNode);
+		}
+	}
+
 	public void registrySubtree(MindMapNode root, boolean registerMyself) {
 		if (registerMyself) {
 			registryNodeIcons(root);
@@ -190,7 +190,7 @@ public class MindIcon implements Comparable, IconInformation {
 		return mAllIconNames;
 	}
 
-	public static MindIcon factory(String iconName) {
+	public static synchronized MindIcon factory(String iconName) {
 		if (createdIcons.containsKey(iconName)) {
 			return (MindIcon) createdIcons.get(iconName);
 		}
@@ -201,7 +201,8 @@ public class MindIcon implements Comparable, IconInformation {
 
 	/**
      */
-	public static MindIcon factory(String iconName, ImageIcon icon) {
+	public static synchronized MindIcon factory(String iconName,
+			ImageIcon icon) {
 		if (createdIcons.containsKey(iconName)) {
 			return (MindIcon) createdIcons.get(iconName);
 		}
@@ -20,6 +20,7 @@
 
 package freemind.modes;
 
+import java.util.List;
 import java.util.Vector;
 
 /**
@@ -79,14 +80,14 @@ public interface MindMapLinkRegistry {
 	// fc, 9.8.: apparently not used.
 	// /** Returns a Vector of Nodes that point to the given node.*/
 	// public Vector /* of MindMapNode s */ getAllSources(MindMapNode target);
-	/** @return returns all links from or to this node. */
-	public Vector /* of MindMapLink s */getAllLinks(MindMapNode node);
+	/** @return returns all links from or to this node (read only). */
+	public List /* of MindMapLink s */getAllLinks(MindMapNode node);
 
-	/** @return returns all links to this node. */
-	public Vector /* of MindMapLink s */getAllLinksIntoMe(MindMapNode target);
+	/** @return returns all links to this node (read only). */
+	public List /* of MindMapLink s */getAllLinksIntoMe(MindMapNode target);
 
-	/** @return returns all links from this node. */
-	public Vector /* of MindMapLink s */getAllLinksFromMe(MindMapNode source);
+	/** @return returns all links from this node (read only). */
+	public List /* of MindMapLink s */getAllLinksFromMe(MindMapNode source);
 
 	public void registerLocalHyperlinkId(String pTargetId);
 
@@ -100,6 +100,14 @@ public interface ModeController extends TextTranslator {
 	MindMapNode createNodeTreeFromXml(Reader pReader, HashMap pIDToTarget)
 			throws XMLParseException, IOException;
 
+	/**
+	 * Like {@link #createNodeTreeFromXml(Reader, HashMap)}, but the children
+	 * of folded nodes may be kept as xml text until they are accessed, see
+	 * {@link NodeAdapter#loadPendingChildren()}.
+	 */
+	MindMapNode createNodeTreeFromXml(Reader pReader, HashMap pIDToTarget,
+			boolean pDeferFoldedChildren) throws XMLParseException, IOException;
+
 	// activation methods:
 	void startupController();
 
@@ -0,0 +1,149 @@
+/*FreeMind - A Program for creating and viewing Mindmaps
+ *Copyright (C) 2000-2012 Joerg Mueller, Daniel Polansky, Christian Foltin, Dimitri Polivaev and others.
+ *
+ *See COPYING for Details
+ *
+ *This program is free software; you can redistribute it and/or
+ *modify it under the terms of the GNU General Public License
+ *as published by the Free Software Foundation; either version 2
+ *of the License, or (at your option) any later version.
+ *
+ *This program is distributed in the hope that it will be useful,
+ *but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *GNU General Public License for more details.
+ *
+ *You should have received a copy of the GNU General Public License
+ *along with this program; if not, write to the Free Software
+ *Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package freemind.modes;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystem;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.Iterator;
+
+import freemind.main.Resources;
+
+/**
+ * Lets the file systems notify about changes of the watched files. There is a
+ * thread per file system, which watches the directories of the files. Needs
+ * java 1.7, it is only loaded by {@link FileWatcher} if available.
+ */
+class NioFileWatcher implements FileWatcher.NativeWatcher {
+
+	private final FileWatcher mFileWatcher;
+
+	/** FileSystem -> WatchService */
+	private final HashMap mServices = new HashMap();
+
+	/** directory Path -> WatchKey */
+	private final HashMap mKeys = new HashMap();
+
+	/** directory Path -> Integer, the number of watched files */
+	private final HashMap mFileCounts = new HashMap();
+
+	public NioFileWatcher(FileWatcher pFileWatcher) {
+		mFileWatcher = pFileWatcher;
+	}
+
+	public synchronized boolean watch(File pFile) {
+		File parent = pFile.getParentFile();
+		if (parent == null) {
+			return false;
+		}
+		try {
+			Path directory = parent.toPath();
+			if (!mKeys.containsKey(directory)) {
+				WatchKey key = directory.register(
+						getService(directory.getFileSystem()),
+						new WatchEvent.Kind[] {
+								StandardWatchEventKinds.ENTRY_CREATE,
+								StandardWatchEventKinds.ENTRY_MODIFY });
+				mKeys.put(directory, key);
+				mFileCounts.put(directory, new Integer(0));
+			}
+			int count = ((Integer) mFileCounts.get(directory)).intValue();
+			mFileCounts.put(directory, new Integer(count + 1));
+			return true;
+		} catch (IOException e) {
+			Resources.getInstance().logException(e,
+					"Can't watch " + pFile + ", it is polled instead.");
+		} catch (UnsupportedOperationException e) {
+			// the file system doesn't support it.
+		}
+		return false;
+	}
+
+	public synchronized void unwatch(File pFile) {
+		Path directory = pFile.getParentFile().toPath();
+		Integer count = (Integer) mFileCounts.get(directory);
+		if (count == null) {
+			return;
+		}
+		if (count.intValue() > 1) {
+			mFileCounts.put(directory, new Integer(count.intValue() - 1));
+			return;
+		}
+		mFileCounts.remove(directory);
+		((WatchKey) mKeys.remove(directory)).cancel();
+	}
+
+	private WatchService getService(FileSystem pFileSystem) throws IOException {
+		WatchService service = (WatchService) mServices.get(pFileSystem);
+		if (service == null) {
+			service = pFileSystem.newWatchService();
+			mServices.put(pFileSystem, service);
+			final WatchService watchService = service;
+			Thread thread = new Thread(new Runnable() {
+				public void run() {
+					watch(watchService);
+				}
+			}, "FileWatcher " + pFileSystem);
+			thread.setDaemon(true);
+			thread.start();
+		}
+		return service;
+	}
+
+	private void watch(WatchService pService) {
+		try {
+			while (true) {
+				WatchKey key = pService.take();
+				Path directory = (Path) key.watchable();
+				boolean overflow = false;
+				for (Iterator it = key.pollEvents().iterator(); it.hasNext();) {
+					WatchEvent event = (WatchEvent) it.next();
+					if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+						overflow = true;
+					} else {
+						mFileWatcher.fileChanged(directory.resolve(
+								(Path) event.context()).toFile()
+								.getAbsoluteFile());
+					}
+				}
+				key.reset();
+				if (overflow) {
+					// events were lost, all files of the directory are
+					// checked:
+					File[] files = directory.toFile().listFiles();
+					for (int i = 0; files != null && i < files.length; i++) {
+						mFileWatcher.fileChanged(files[i].getAbsoluteFile());
+					}
+				}
+			}
+		} catch (InterruptedException e) {
+		} catch (ClosedWatchServiceException e) {
+		}
+	}
+
+}
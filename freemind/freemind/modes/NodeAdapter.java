@@ -117,6 +117,16 @@ public abstract class NodeAdapter implements MindMapNode {
 
 	protected List children;
 	private MindMapNode preferredChild;
+	/**
+	 * The xml text of the children of a node that was folded on loading, as
+	 * long as they are not accessed. See {@link NodeTreeStreamLoader}.
+	 */
+	private String mPendingChildren = null;
+	/**
+	 * The hook elements saved in advance by {@link #saveHooksInAdvance()}, as
+	 * long as the node isn't saved.
+	 */
+	private Vector mHookElementsSavedInAdvance = null;
 
 	protected Font font;
 	protected boolean underlined = false;
@@ -166,6 +176,16 @@ public abstract class NodeAdapter implements MindMapNode {
 		setHistoryInformation(new HistoryInformation());
 		this.map = map;
 		this.attributes = EMTPY_ATTRIBUTES;
+		if (sSaveIdPropertyChangeListener == null) {
+			registerSaveIdPropertyChangeListener();
+		}
+
+	}
+
+	/**
+	 * Nodes are created in parallel, when maps are loaded in parallel.
+	 */
+	private static synchronized void registerSaveIdPropertyChangeListener() {
 		if (sSaveIdPropertyChangeListener == null) {
 			sSaveIdPropertyChangeListener = new FreemindPropertyListener() {
 
@@ -181,7 +201,6 @@ public abstract class NodeAdapter implements MindMapNode {
 			Controller
 					.addPropertyChangeListenerAndPropagate(sSaveIdPropertyChangeListener);
 		}
-
 	}
 
 	/**
@@ -652,10 +671,68 @@ public abstract class NodeAdapter implements MindMapNode {
 	}
 
 	public boolean hasChildren() {
-		return children != null && !children.isEmpty();
+		return mPendingChildren != null
+				|| (children != null && !children.isEmpty());
+	}
+
+	/**
+	 * @return true, if the children are still kept as xml text.
+	 */
+	public boolean hasPendingChildren() {
+		return mPendingChildren != null;
+	}
+
+	public String getPendingChildren() {
+		return mPendingChildren;
+	}
+
+	public void setPendingChildren(String pPendingChildren) {
+		mPendingChildren = pPendingChildren;
+	}
+
+	/**
+	 * Creates the children kept as xml text, if any. This is done on the
+	 * first access to the children, thus find, filter and export see them
+	 * as usual.
+	 */
+	public void loadPendingChildren() {
+		if (mPendingChildren == null) {
+			return;
+		}
+		String xml = mPendingChildren;
+		mPendingChildren = null;
+		try {
+			NodeAdapter container = (NodeAdapter) getModeController()
+					.createNodeTreeFromXml(
+							new StringReader(NodeTreeStreamLoader
+									.wrapChildren(xml)), new HashMap(), true);
+			adoptChildren(container);
+		} catch (Exception e) {
+			freemind.main.Resources.getInstance().logException(e);
+			// they are saved as they were:
+			mPendingChildren = xml;
+			return;
+		}
+		if (getMap() != null && getMap().getRegistry() != null) {
+			getMap().getRegistry().pendingChildrenLoaded(this);
+		}
+	}
+
+	/**
+	 * Moves the children of the given (not yet attached) node to this one.
+	 * Like on loading, the hooks are not informed.
+	 */
+	public void adoptChildren(NodeAdapter pNode) {
+		for (ListIterator i = pNode.childrenUnfolded(); i.hasNext();) {
+			NodeAdapter child = (NodeAdapter) i.next();
+			i.remove();
+			child.setParent(this);
+			children.add(child);
+		}
 	}
 
 	public int getChildPosition(MindMapNode childNode) {
+		loadPendingChildren();
 		int position = 0;
 		for (ListIterator i = children.listIterator(); i.hasNext(); ++position) {
 			if (((MindMapNode) i.next()) == childNode) {
@@ -666,6 +743,7 @@ public abstract class NodeAdapter implements MindMapNode {
 	}
 
 	public ListIterator childrenUnfolded() {
+		loadPendingChildren();
 		return children != null ? children.listIterator()
 				: Collections.EMPTY_LIST.listIterator();
 	}
@@ -678,6 +756,7 @@ public abstract class NodeAdapter implements MindMapNode {
 	}
 
 	public List getChildren() {
+		loadPendingChildren();
 		return Collections.unmodifiableList((children != null) ? children
 				: Collections.EMPTY_LIST);
 	}
@@ -706,10 +785,12 @@ public abstract class NodeAdapter implements MindMapNode {
 		// if (isFolded()) {
 		// return null;
 		// }
+		loadPendingChildren();
 		return (TreeNode) children.get(childIndex);
 	}
 
 	public int getChildCount() {
+		loadPendingChildren();
 		return children == null ? 0 : children.size();
 	}
 
@@ -724,6 +805,7 @@ public abstract class NodeAdapter implements MindMapNode {
 	// // the meaning, at least not to me.
 
 	public int getIndex(TreeNode node) {
+		loadPendingChildren();
 		return children.indexOf((MindMapNode) node); // uses equals()
 	}
 
@@ -732,6 +814,9 @@ public abstract class NodeAdapter implements MindMapNode {
 	}
 
 	public boolean isLeaf() {
+		if (mPendingChildren != null) {
+			return false;
+		}
 		return getChildCount() == 0;
 	}
 
@@ -782,6 +867,7 @@ public abstract class NodeAdapter implements MindMapNode {
 	public void insert(MutableTreeNode child, int index) {
 		logger.finest("Insert at " + index + " the node " + child);
 		final MindMapNode childNode = (MindMapNode) child;
+		loadPendingChildren();
 		if (index < 0) { // add to the end (used in xml load) (PN)
 			index = getChildCount();
 			children.add(index, child);
@@ -794,6 +880,7 @@ public abstract class NodeAdapter implements MindMapNode {
 	}
 
 	public void remove(int index) {
+		loadPendingChildren();
 		MutableTreeNode node = (MutableTreeNode) children.get(index);
 		remove(node);
 	}
@@ -1049,8 +1136,45 @@ public abstract class NodeAdapter implements MindMapNode {
 
 	public XMLElement save(Writer writer, MindMapLinkRegistry registry,
 			boolean saveInvisible, boolean saveChildren) throws IOException {
-		// pre save event to save all contents of the node:
-		getModeController().firePreSaveEvent(this);
+		return save(writer, registry, saveInvisible, saveChildren, true);
+	}
+
+	/**
+	 * @param pFirePreSaveEvent
+	 *            is false, if the pre save events were already fired for all
+	 *            nodes to be saved. Then, this method doesn't need the event
+	 *            dispatch thread.
+	 */
+	public XMLElement save(Writer writer, MindMapLinkRegistry registry,
+			boolean saveInvisible, boolean saveChildren,
+			boolean pFirePreSaveEvent) throws IOException {
+		if (pFirePreSaveEvent) {
+			// pre save event to save all contents of the node:
+			getModeController().firePreSaveEvent(this);
+		}
+		XMLElement node = createXmlElement(registry);
+		if (saveChildren && saveInvisible && mPendingChildren != null) {
+			// never accessed, thus unchanged:
+			node.writeWithoutClosingTag(writer);
+			writer.write(mPendingChildren);
+			node.writeClosingTag(writer);
+		} else if (saveChildren && childrenUnfolded().hasNext()) {
+			node.writeWithoutClosingTag(writer);
+			// recursive
+			saveChildren(writer, registry, this, saveInvisible,
+					pFirePreSaveEvent);
+			node.writeClosingTag(writer);
+		} else {
+			node.write(writer);
+		}
+		return node;
+	}
+
+	/**
+	 * @return the element of this node with its contents, but without its
+	 *         children.
+	 */
+	public XMLElement createXmlElement(MindMapLinkRegistry registry) {
 		XMLElement node = new XMLElement();
 
 		// if (!isNodeClassToBeSaved()) {
@@ -1099,7 +1223,7 @@ public abstract class NodeAdapter implements MindMapNode {
 			node.addChild(cloud);
 		}
 
-		Vector linkVector = registry.getAllLinksFromMe(this); /* Puh... */
+		List linkVector = registry.getAllLinksFromMe(this); /* Puh... */
 		for (int i = 0; i < linkVector.size(); ++i) {
 			if (linkVector.get(i) instanceof ArrowLinkAdapter) {
 				XMLElement arrowLinkElement = ((ArrowLinkAdapter) linkVector
@@ -1201,6 +1325,22 @@ public abstract class NodeAdapter implements MindMapNode {
 			node.addChild(iconElement);
 		}
 
+		Vector hookElements = mHookElementsSavedInAdvance;
+		if (hookElements != null) {
+			mHookElementsSavedInAdvance = null;
+		} else {
+			hookElements = saveHooks();
+		}
+		for (int i = 0; i < hookElements.size(); ++i) {
+			node.addChild((XMLElement) hookElements.get(i));
+		}
+
+		attributes.save(node);
+		return node;
+	}
+
+	private Vector saveHooks() {
+		Vector hookElements = new Vector();
 		for (Iterator i = getActivatedHooks().iterator(); i.hasNext();) {
 			PermanentNodeHook permHook = (PermanentNodeHook) i.next();
 			if (permHook instanceof DontSaveMarker) {
@@ -1209,19 +1349,25 @@ public abstract class NodeAdapter implements MindMapNode {
 			XMLElement hookElement = new XMLElement();
 			hookElement.setName("hook");
 			permHook.save(hookElement);
-			node.addChild(hookElement);
+			hookElements.add(hookElement);
 		}
+		return hookElements;
+	}
 
-		attributes.save(node);
-		if (saveChildren && childrenUnfolded().hasNext()) {
-			node.writeWithoutClosingTag(writer);
-			// recursive
-			saveChildren(writer, registry, this, saveInvisible);
-			node.writeClosingTag(writer);
-		} else {
-			node.write(writer);
-		}
-		return node;
+	/**
+	 * The hooks are saved now, so that the next
+	 * {@link #createXmlElement(MindMapLinkRegistry)} of this node doesn't call
+	 * them and can run in a different thread.
+	 */
+	public void saveHooksInAdvance() {
+		mHookElementsSavedInAdvance = saveHooks();
+	}
+
+	/**
+	 * Drops the hook elements saved in advance, if the node wasn't saved.
+	 */
+	public void discardHooksSavedInAdvance() {
+		mHookElementsSavedInAdvance = null;
 	}
 
 	public static String convertToEncodedContent(String xmlText2) {
@@ -1234,16 +1380,27 @@ public abstract class NodeAdapter implements MindMapNode {
 	}
 
 	private void saveChildren(Writer writer, MindMapLinkRegistry registry,
-			NodeAdapter node, boolean saveHidden) throws IOException {
+			NodeAdapter node, boolean saveHidden, boolean pFirePreSaveEvent)
+			throws IOException {
 		for (ListIterator e = node.childrenUnfolded(); e.hasNext();) {
 			NodeAdapter child = (NodeAdapter) e.next();
-			if (saveHidden || child.isVisible())
-				child.save(writer, registry, saveHidden, true);
-			else
-				saveChildren(writer, registry, child, saveHidden);
+			child.saveAsChild(writer, registry, saveHidden, pFirePreSaveEvent);
 		}
 	}
 
+	/**
+	 * Saves this node as a child of its parent. If hidden nodes are not saved
+	 * and this one is hidden, only its visible descendants are saved.
+	 */
+	public void saveAsChild(Writer writer, MindMapLinkRegistry registry,
+			boolean saveHidden, boolean pFirePreSaveEvent) throws IOException {
+		if (saveHidden || isVisible())
+			save(writer, registry, saveHidden, true, pFirePreSaveEvent);
+		else
+			saveChildren(writer, registry, this, saveHidden,
+					pFirePreSaveEvent);
+	}
+
 	public int getShiftY() {
 		return shiftY;
 	}
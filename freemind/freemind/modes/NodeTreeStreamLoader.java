@@ -0,0 +1,530 @@
+/*FreeMind - A Program for creating and viewing Mindmaps
+ *Copyright (C) 2000-2012 Joerg Mueller, Daniel Polansky, Christian Foltin, Dimitri Polivaev and others.
+ *
+ *See COPYING for Details
+ *
+ *This program is free software; you can redistribute it and/or
+ *modify it under the terms of the GNU General Public License
+ *as published by the Free Software Foundation; either version 2
+ *of the License, or (at your option) any later version.
+ *
+ *This program is distributed in the hope that it will be useful,
+ *but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *GNU General Public License for more details.
+ *
+ *You should have received a copy of the GNU General Public License
+ *along with this program; if not, write to the Free Software
+ *Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package freemind.modes;
+
+import java.awt.Font;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Vector;
+
+import freemind.main.XMLElement;
+import freemind.main.XMLParseException;
+import freemind.main.XMLPullParser;
+import freemind.modes.attributes.Attribute;
+import freemind.modes.attributes.AttributeRegistry;
+import freemind.modes.attributes.AttributeTableLayoutModel;
+
+/**
+ * Builds the node tree of a map (or of a pasted branch) in a single pass
+ * directly from the tokens of an {@link XMLPullParser}. Only hook elements
+ * are still collected as {@link XMLElement}s, as the hooks expect them.
+ *
+ * The given {@link XMLElementAdapter} is used as the factory for the mode
+ * specific node, edge, cloud and arrow link classes and collects the ids and
+ * arrow links, exactly as if it had parsed the text itself. Thus,
+ * {@link XMLElementAdapter#processUnfinishedLinks(MindMapLinkRegistry)} must
+ * be called afterwards as usual.
+ *
+ * Optionally, the children of folded nodes are not created, but kept as their
+ * xml text in the folded node until they are accessed (see
+ * {@link NodeAdapter#loadPendingChildren()}). Subtrees containing hooks,
+ * arrow links, local hyperlinks or encrypted nodes as well as subtrees
+ * containing the target of a link from outside are always created, as these
+ * have to be known to the map from the beginning.
+ */
+public class NodeTreeStreamLoader {
+
+	private final XMLElementAdapter mFactory;
+
+	private XMLPullParser mParser;
+
+	private boolean mDeferFoldedChildren = false;
+
+	/** The number of ancestors of the node being read. */
+	private int mNodeDepth = 0;
+
+	/** Folded nodes, whose children are kept as text. */
+	private Vector mDeferredNodes = new Vector();
+
+	/** Ids that are targets of local hyperlinks. */
+	private HashSet mLinkTargets = new HashSet();
+
+	/**
+	 * Subtrees containing one of these are loaded completely.
+	 */
+	private static final String[] NOT_DEFERRABLE = new String[] { "<hook",
+			"<arrowlink", XMLElementAdapter.XML_NODE_ENCRYPTED_CONTENT,
+			"LINK=\"#" };
+
+	public NodeTreeStreamLoader(XMLElementAdapter pFactory) {
+		mFactory = pFactory;
+	}
+
+	public void setDeferFoldedChildren(boolean pDeferFoldedChildren) {
+		mDeferFoldedChildren = pDeferFoldedChildren;
+	}
+
+	/**
+	 * @return the children xml text kept by a folded node wrapped into a node
+	 *         element, so that it can be loaded by {@link #load(Reader)}. The
+	 *         node loaded is a container for the children.
+	 */
+	public static String wrapChildren(String pChildrenXml) {
+		return "<" + XMLElementAdapter.XML_NODE + ">" + pChildrenXml + "</"
+				+ XMLElementAdapter.XML_NODE + ">";
+	}
+
+	/**
+	 * @return the (first) node of the map or the node element that is the
+	 *         root of the text, or null, if there is none.
+	 */
+	public NodeAdapter load(Reader pReader) throws IOException,
+			XMLParseException {
+		mParser = new XMLPullParser(pReader);
+		NodeAdapter mapChild = null;
+		if (nextTag() != XMLPullParser.START_TAG) {
+			return null;
+		}
+		String name = mParser.getName();
+		if (name.equals("map")) {
+			while (nextTag() == XMLPullParser.START_TAG) {
+				String childName = mParser.getName();
+				if (childName.equals(XMLElementAdapter.XML_NODE)) {
+					mapChild = readNode();
+				} else if (childName
+						.equals(XMLElementAdapter.XML_NODE_ATTRIBUTE_REGISTRY)) {
+					readAttributeRegistry();
+				} else {
+					skipElement();
+				}
+			}
+		} else if (name.equals(XMLElementAdapter.XML_NODE)) {
+			mapChild = readNode();
+		} else {
+			skipElement();
+		}
+		mParser = null;
+		loadDeferredLinkTargets();
+		return mapChild;
+	}
+
+	/**
+	 * Loads the children of the deferred nodes that contain the target of an
+	 * arrow link or a local hyperlink.
+	 */
+	private void loadDeferredLinkTargets() throws IOException {
+		HashMap idToTarget = mFactory.getIDToTarget();
+		boolean loaded = true;
+		// the loaded children may contain further links:
+		while (loaded && !mDeferredNodes.isEmpty()) {
+			loaded = false;
+			HashSet targets = new HashSet(mLinkTargets);
+			for (Iterator it = mFactory.mArrowLinkAdapters.iterator(); it
+					.hasNext();) {
+				targets.add(((ArrowLinkAdapter) it.next())
+						.getDestinationLabel());
+			}
+			for (Iterator it = targets.iterator(); it.hasNext();) {
+				String id = (String) it.next();
+				if (idToTarget != null && idToTarget.containsKey(id)) {
+					continue;
+				}
+				for (Iterator nodes = mDeferredNodes.iterator(); nodes
+						.hasNext();) {
+					NodeAdapter node = (NodeAdapter) nodes.next();
+					String xml = node.getPendingChildren();
+					if (xml.indexOf(" ID=\"" + id + "\"") >= 0) {
+						node.setPendingChildren(null);
+						nodes.remove();
+						loadChildren(node, xml);
+						loaded = true;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Creates all children from their xml text.
+	 */
+	private void loadChildren(NodeAdapter pNode, String pChildrenXml)
+			throws IOException {
+		XMLPullParser parser = mParser;
+		boolean deferFoldedChildren = mDeferFoldedChildren;
+		mParser = new XMLPullParser(new StringReader(
+				wrapChildren(pChildrenXml)));
+		mDeferFoldedChildren = false;
+		try {
+			nextTag();
+			pNode.adoptChildren(readNode());
+		} finally {
+			mParser = parser;
+			mDeferFoldedChildren = deferFoldedChildren;
+		}
+	}
+
+	/**
+	 * @return the next start or end tag. Texts are skipped.
+	 */
+	private int nextTag() throws IOException {
+		int token;
+		do {
+			token = mParser.next();
+		} while (token == XMLPullParser.TEXT);
+		return token;
+	}
+
+	private void skipElement() throws IOException {
+		int depth = mParser.getDepth();
+		while (mParser.getDepth() >= depth) {
+			if (mParser.next() == XMLPullParser.END_DOCUMENT) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Skips a node, whose creation is deferred. The names and values of its
+	 * attributes are registered nevertheless, as the attribute dialogs and
+	 * filters offer them before the node is created.
+	 */
+	private void skipDeferredElement() throws IOException {
+		AttributeRegistry registry = mFactory.getMap().getRegistry()
+				.getAttributes();
+		int depth = mParser.getDepth();
+		while (mParser.getDepth() >= depth) {
+			int token = mParser.next();
+			if (token == XMLPullParser.END_DOCUMENT) {
+				return;
+			}
+			if (token == XMLPullParser.START_TAG
+					&& mParser.getName().equals(
+							XMLElementAdapter.XML_NODE_ATTRIBUTE)) {
+				String attributeName = null;
+				String attributeValue = null;
+				for (int i = 0; i < mParser.getAttributeCount(); i++) {
+					String key = getAttributeName(i);
+					if (key.equals("NAME")) {
+						attributeName = mParser.getAttributeValue(i);
+					} else if (key.equals("VALUE")) {
+						attributeValue = mParser.getAttributeValue(i);
+					}
+				}
+				if (attributeName != null) {
+					registry.registry(new Attribute(attributeName,
+							attributeValue));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Like XMLElement, attribute names are case insensitive and are
+	 * compared in upper case.
+	 */
+	private String getAttributeName(int pIndex) {
+		return mParser.getAttributeName(pIndex).toUpperCase(Locale.ENGLISH);
+	}
+
+	/**
+	 * Precondition: the parser is at the start tag of the node. Postcondition:
+	 * the end tag of the node is consumed.
+	 */
+	private NodeAdapter readNode() throws IOException {
+		NodeAdapter node = null;
+		int count = mParser.getAttributeCount();
+		for (int i = 0; i < count; i++) {
+			if (getAttributeName(i).equals(
+					XMLElementAdapter.XML_NODE_ENCRYPTED_CONTENT)) {
+				node = mFactory.createEncryptedNode(mParser
+						.getAttributeValue(i));
+				break;
+			}
+		}
+		boolean encrypted = node != null;
+		if (node == null) {
+			node = mFactory.createNodeAdapter(mFactory.getFrame(), null);
+		}
+		for (int i = 0; i < count; i++) {
+			String name = getAttributeName(i);
+			if (!name.equals(XMLElementAdapter.XML_NODE_ENCRYPTED_CONTENT)) {
+				String value = mParser.getAttributeValue(i);
+				mFactory.setNodeAttribute(name, value, node);
+				if (name.equals("LINK") && value.startsWith("#")) {
+					mLinkTargets.add(value.substring(1));
+				}
+			}
+		}
+		// the children of the top node are always needed.
+		StringBuffer deferredChildren = null;
+		if (mDeferFoldedChildren && node.isFolded() && !encrypted
+				&& mNodeDepth > 0) {
+			deferredChildren = new StringBuffer();
+			mParser.startRecording();
+		}
+		while (nextTag() == XMLPullParser.START_TAG) {
+			String name = mParser.getName();
+			if (name.equals(XMLElementAdapter.XML_NODE)) {
+				if (deferredChildren != null) {
+					int start = mParser.getTagStart();
+					skipDeferredElement();
+					deferredChildren.append(mParser.takeRecordedText(start));
+					deferredChildren.append('\n');
+				} else {
+					mNodeDepth++;
+					NodeAdapter child = readNode();
+					mNodeDepth--;
+					node.insert(child, -1);
+				}
+			} else if (name.equals("edge")) {
+				EdgeAdapter edge = mFactory.createEdgeAdapter(null,
+						mFactory.getFrame());
+				for (int i = 0; i < mParser.getAttributeCount(); i++) {
+					mFactory.setEdgeAttribute(edge, getAttributeName(i),
+							mParser.getAttributeValue(i));
+				}
+				skipElement();
+				edge.setTarget(node);
+				node.setEdge(edge);
+			} else if (name.equals("cloud")) {
+				CloudAdapter cloud = mFactory.createCloudAdapter(null,
+						mFactory.getFrame());
+				for (int i = 0; i < mParser.getAttributeCount(); i++) {
+					mFactory.setCloudAttribute(cloud, getAttributeName(i),
+							mParser.getAttributeValue(i));
+				}
+				skipElement();
+				cloud.setTarget(node);
+				node.setCloud(cloud);
+			} else if (name.equals("arrowlink")) {
+				ArrowLinkAdapter arrowLink = mFactory.createArrowLinkAdapter(
+						null, null, mFactory.getFrame());
+				for (int i = 0; i < mParser.getAttributeCount(); i++) {
+					mFactory.setArrowLinkAttribute(arrowLink,
+							getAttributeName(i), mParser.getAttributeValue(i));
+				}
+				skipElement();
+				arrowLink.setSource(node);
+				// annotate this link: (later processed by caller.).
+				mFactory.mArrowLinkAdapters.add(arrowLink);
+			} else if (name.equals("font")) {
+				node.setFont(readFont());
+			} else if (name.equals("icon")) {
+				String iconName = null;
+				for (int i = 0; i < mParser.getAttributeCount(); i++) {
+					if (getAttributeName(i).equals("BUILTIN")) {
+						iconName = mParser.getAttributeValue(i);
+					}
+				}
+				skipElement();
+				node.addIcon(MindIcon.factory(iconName), MindIcon.LAST);
+			} else if (name.equals(XMLElementAdapter.XML_NODE_ATTRIBUTE)) {
+				String attributeName = null;
+				String attributeValue = null;
+				for (int i = 0; i < mParser.getAttributeCount(); i++) {
+					String key = getAttributeName(i);
+					if (key.equals("NAME")) {
+						attributeName = mParser.getAttributeValue(i);
+					} else if (key.equals("VALUE")) {
+						attributeValue = mParser.getAttributeValue(i);
+					}
+				}
+				skipElement();
+				node.createAttributeTableModel();
+				node.getAttributes().addRowNoUndo(
+						new Attribute(attributeName, attributeValue));
+			} else if (name
+					.equals(XMLElementAdapter.XML_NODE_ATTRIBUTE_LAYOUT)) {
+				int nameWidth = AttributeTableLayoutModel.DEFAULT_COLUMN_WIDTH;
+				int valueWidth = AttributeTableLayoutModel.DEFAULT_COLUMN_WIDTH;
+				for (int i = 0; i < mParser.getAttributeCount(); i++) {
+					String key = getAttributeName(i);
+					if (key.equals("NAME_WIDTH")) {
+						nameWidth = Integer.parseInt(mParser
+								.getAttributeValue(i));
+					} else if (key.equals("VALUE_WIDTH")) {
+						valueWidth = Integer.parseInt(mParser
+								.getAttributeValue(i));
+					}
+				}
+				skipElement();
+				node.createAttributeTableModel();
+				AttributeTableLayoutModel layout = node.getAttributes()
+						.getLayout();
+				layout.setColumnWidth(0, nameWidth);
+				layout.setColumnWidth(1, valueWidth);
+			} else if (name.equals(XMLElement.XML_NODE_XHTML_CONTENT_TAG)) {
+				String type = mParser
+						.getAttributeValue(XMLElementAdapter.XML_NODE_XHTML_TYPE_TAG);
+				String xmlText = "";
+				while (mParser.next() == XMLPullParser.TEXT) {
+					xmlText = mParser.getText();
+				}
+				mFactory.setRichContent(node, type, xmlText);
+			} else if (name.equals("hook")) {
+				mFactory.addHook(node, readGenericElement());
+			} else {
+				skipElement();
+			}
+		}
+		if (deferredChildren != null) {
+			mParser.stopRecording();
+			deferChildren(node, deferredChildren.toString());
+		}
+		return node;
+	}
+
+	private void deferChildren(NodeAdapter pNode, String pChildrenXml)
+			throws IOException {
+		if (pChildrenXml.length() == 0) {
+			return;
+		}
+		for (int i = 0; i < NOT_DEFERRABLE.length; i++) {
+			if (pChildrenXml.indexOf(NOT_DEFERRABLE[i]) >= 0) {
+				loadChildren(pNode, pChildrenXml);
+				return;
+			}
+		}
+		pNode.setPendingChildren(pChildrenXml);
+		mDeferredNodes.add(pNode);
+	}
+
+	private Font readFont() throws IOException {
+		String fontName = null;
+		int fontStyle = 0;
+		int fontSize = 0;
+		for (int i = 0; i < mParser.getAttributeCount(); i++) {
+			String key = getAttributeName(i);
+			String value = mParser.getAttributeValue(i);
+			if (key.equals("SIZE")) {
+				fontSize = Integer.parseInt(value);
+			} else if (key.equals("NAME")) {
+				fontName = value;
+			} else if (value.equals("true")) {
+				if (key.equals("BOLD")) {
+					fontStyle += Font.BOLD;
+				} else if (key.equals("ITALIC")) {
+					fontStyle += Font.ITALIC;
+				}
+			}
+		}
+		skipElement();
+		return mFactory.mModeController.getController().getFontThroughMap(
+				new Font(fontName, fontStyle, fontSize));
+	}
+
+	/**
+	 * Reads the element the parser is positioned at (and all its children)
+	 * into a plain {@link XMLElement}.
+	 */
+	private XMLElement readGenericElement() throws IOException {
+		XMLElement element = new XMLElement();
+		element.setName(mParser.getName());
+		for (int i = 0; i < mParser.getAttributeCount(); i++) {
+			element.setAttribute(mParser.getAttributeName(i),
+					mParser.getAttributeValue(i));
+		}
+		for (;;) {
+			int token = mParser.next();
+			if (token == XMLPullParser.START_TAG) {
+				element.addChild(readGenericElement());
+			} else if (token == XMLPullParser.TEXT) {
+				element.setContent(mParser.getText());
+			} else {
+				return element;
+			}
+		}
+	}
+
+	private void readAttributeRegistry() throws IOException {
+		AttributeRegistry registry = mFactory.getMap().getRegistry()
+				.getAttributes();
+		for (int i = 0; i < mParser.getAttributeCount(); i++) {
+			String key = getAttributeName(i);
+			String value = mParser.getAttributeValue(i);
+			if (key.equals("RESTRICTED")) {
+				registry.setRestricted(true);
+			}
+			if (key.equals("SHOW_ATTRIBUTES")) {
+				mFactory.mModeController.getController().setAttributeViewType(
+						mFactory.getMap(), value);
+			}
+			if (key.equals("FONT_SIZE")) {
+				try {
+					registry.setFontSize(Integer.parseInt(value));
+				} catch (NumberFormatException ex) {
+				}
+			}
+		}
+		while (nextTag() == XMLPullParser.START_TAG) {
+			if (mParser.getName().equals(
+					XMLElementAdapter.XML_NODE_REGISTERED_ATTRIBUTE_NAME)) {
+				readRegisteredAttributeName(registry);
+			} else {
+				skipElement();
+			}
+		}
+	}
+
+	private void readRegisteredAttributeName(AttributeRegistry registry)
+			throws IOException {
+		String attributeName = null;
+		boolean visible = false;
+		boolean restricted = false;
+		for (int i = 0; i < mParser.getAttributeCount(); i++) {
+			String key = getAttributeName(i);
+			if (key.equals("NAME")) {
+				attributeName = mParser.getAttributeValue(i);
+				registry.registry(attributeName);
+			} else if (key.equals("VISIBLE")) {
+				visible = true;
+			} else if (key.equals("RESTRICTED")) {
+				restricted = true;
+			}
+		}
+		while (nextTag() == XMLPullParser.START_TAG) {
+			if (mParser.getName().equals(
+					XMLElementAdapter.XML_NODE_REGISTERED_ATTRIBUTE_VALUE)) {
+				String value = null;
+				for (int i = 0; i < mParser.getAttributeCount(); i++) {
+					if (getAttributeName(i).equals("VALUE")) {
+						value = mParser.getAttributeValue(i);
+					}
+				}
+				skipElement();
+				registry.registry(new Attribute(attributeName, value));
+			} else {
+				skipElement();
+			}
+		}
+		if (visible) {
+			registry.getElement(attributeName).setVisibility(true);
+		}
+		if (restricted) {
+			registry.getElement(attributeName).setRestriction(true);
+		}
+	}
+}
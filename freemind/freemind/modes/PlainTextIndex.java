@@ -0,0 +1,716 @@
+/*FreeMind - A Program for creating and viewing Mindmaps
+ *Copyright (C) 2000-2012 Joerg Mueller, Daniel Polansky, Christian Foltin, Dimitri Polivaev and others.
+ *
+ *See COPYING for Details
+ *
+ *This program is free software; you can redistribute it and/or
+ *modify it under the terms of the GNU General Public License
+ *as published by the Free Software Foundation; either version 2
+ *of the License, or (at your option) any later version.
+ *
+ *This program is distributed in the hope that it will be useful,
+ *but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *GNU General Public License for more details.
+ *
+ *You should have received a copy of the GNU General Public License
+ *along with this program; if not, write to the Free Software
+ *Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package freemind.modes;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
+
+import freemind.main.HtmlTools;
+import freemind.main.Tools;
+
+/**
+ * Index of the plain text (without html) of the nodes and notes of a map. It
+ * is used to search the map.
+ *
+ * For each node, the plain texts are cached. Moreover, the (lower case) words
+ * of the texts are indexed. A node can only contain a search term, if each of
+ * the words of the term is contained in one of its words. Thus, the candidates
+ * for a term are found by looking at the (distinct) words instead of at the
+ * texts of all nodes. The words containing a part of a term are found by the
+ * short substrings (n-grams) of the words.
+ *
+ * The index listens to the changes of the map. The changed nodes are indexed
+ * again, when the index is used next time. Children still kept as xml text
+ * (see {@link NodeAdapter#hasPendingChildren()}) aren't loaded by the index,
+ * they are indexed when they are loaded.
+ */
+public class PlainTextIndex implements TreeModelListener {
+
+	private static class Entry {
+		/** The texts of the node the entry was created from. */
+		String rawText;
+
+		String rawNoteText;
+
+		String text;
+
+		String lowerCaseText;
+
+		String noteText;
+
+		String lowerCaseNoteText;
+
+		/** The distinct words of text and note. */
+		HashSet words;
+
+		/** The text as number, null if it isn't a number. */
+		Double number;
+
+		boolean isNumberParsed = false;
+
+		/** The number of children, -1 if they are kept as xml text. */
+		int childCount;
+	}
+
+	private final MindMap mMap;
+
+	/** MindMapNode -> Entry. Null, if the index has to be built. */
+	private HashMap mEntries = null;
+
+	/** word (String) -> HashSet of MindMapNode */
+	private final HashMap mWords = new HashMap();
+
+	/**
+	 * n-gram (String, up to {@link #GRAM_LENGTH} characters) -> HashSet of
+	 * the words (String) containing it.
+	 */
+	private final HashMap mGrams = new HashMap();
+
+	private static final int GRAM_LENGTH = 3;
+
+	/** Indexed nodes, whose children are still kept as xml text. */
+	private final HashSet mPendingNodes = new HashSet();
+
+	/** Nodes, that changed since the last use. */
+	private final HashSet mChangedNodes = new HashSet();
+
+	/** Incremented on each change of the map. */
+	private int mModificationCount = 0;
+
+	/** Incremented, when nodes are inserted, removed or moved. */
+	private int mStructureModificationCount = 0;
+
+	/**
+	 * term -> candidates. The candidates are updated, when a node is indexed
+	 * again. Several terms are cached as one key separated by
+	 * {@link #TERM_SEPARATOR}.
+	 */
+	private final HashMap mCandidateCache = new HashMap();
+
+	private static final int MAXIMAL_CACHED_TERMS = 100;
+
+	private static final char TERM_SEPARATOR = '\n';
+
+	private static final Pattern ATTRIBUTE_VALUE_PATTERN = Pattern
+			.compile("=\"([^\"]*)\"");
+
+	public PlainTextIndex(MindMap pMap) {
+		mMap = pMap;
+		mMap.addTreeModelListener(this);
+	}
+
+	/**
+	 * @return the number of changes of the map since the creation of the
+	 *         index.
+	 */
+	public int getModificationCount() {
+		return mModificationCount;
+	}
+
+	/**
+	 * @return the number of insertions, removals and moves of nodes since the
+	 *         creation of the index. The positions of the nodes only change,
+	 *         if it changes.
+	 */
+	public int getStructureModificationCount() {
+		return mStructureModificationCount;
+	}
+
+	/**
+	 * @return the text of the node without html.
+	 */
+	public String getText(MindMapNode pNode, boolean pCaseSensitive) {
+		Entry entry = getEntry(pNode);
+		return pCaseSensitive ? entry.text : entry.lowerCaseText;
+	}
+
+	/**
+	 * @return the note of the node without html (or "").
+	 */
+	public String getNoteText(MindMapNode pNode, boolean pCaseSensitive) {
+		Entry entry = getEntry(pNode);
+		return pCaseSensitive ? entry.noteText : entry.lowerCaseNoteText;
+	}
+
+	/**
+	 * @return the plain text of the node as a number, or null, if it isn't a
+	 *         number.
+	 */
+	public Double getNumber(MindMapNode pNode) {
+		Entry entry = getEntry(pNode);
+		if (!entry.isNumberParsed) {
+			try {
+				entry.number = new Double(Double.parseDouble(entry.text));
+			} catch (NumberFormatException e) {
+				entry.number = null;
+			}
+			entry.isNumberParsed = true;
+		}
+		return entry.number;
+	}
+
+	/**
+	 * @param pTerm
+	 *            in lower case, if the search isn't case sensitive.
+	 * @return true, if the plain node text contains the term.
+	 */
+	public boolean containsText(MindMapNode pNode, String pTerm,
+			boolean pCaseSensitive) {
+		// first, as it updates the entry of the node:
+		String text = getText(pNode, pCaseSensitive);
+		if (mEntries.containsKey(pNode)) {
+			// (the insertion of the node may not be reported yet)
+			if (!getCandidates(pTerm.toLowerCase()).contains(pNode)) {
+				return false;
+			}
+		}
+		return text.indexOf(pTerm) >= 0;
+	}
+
+	/**
+	 * @param pTerms
+	 *            collection of String, all in lower case.
+	 * @return the nodes, whose text or note may contain all terms. As long as
+	 *         no node is indexed again, the same set is returned for the same
+	 *         terms. Don't change the result.
+	 */
+	public Set getCandidates(Collection pTerms) {
+		StringBuffer key = new StringBuffer();
+		for (Iterator it = pTerms.iterator(); it.hasNext();) {
+			key.append((String) it.next());
+			if (it.hasNext()) {
+				key.append(TERM_SEPARATOR);
+			}
+		}
+		return getCandidates(key.toString());
+	}
+
+	/**
+	 * @param pTerm
+	 *            in lower case.
+	 * @return the nodes, whose text or note may contain the term. Don't
+	 *         change the result.
+	 */
+	public Set getCandidates(String pTerm) {
+		validate();
+		if (mCandidateCache.size() > MAXIMAL_CACHED_TERMS) {
+			mCandidateCache.clear();
+		}
+		if (mCandidateCache.containsKey(pTerm)) {
+			return (Set) mCandidateCache.get(pTerm);
+		}
+		Set result = null;
+		int separator = pTerm.indexOf(TERM_SEPARATOR);
+		if (separator >= 0) {
+			result = new HashSet(getCandidates(pTerm.substring(0, separator)));
+			result.retainAll(getCandidates(pTerm.substring(separator + 1)));
+		} else if (getWords(pTerm).isEmpty()) {
+			// rare, thus the texts are searched:
+			result = new HashSet();
+			for (Iterator it = mEntries.entrySet().iterator(); it.hasNext();) {
+				Map.Entry indexed = (Map.Entry) it.next();
+				if (isCandidate((Entry) indexed.getValue(), pTerm)) {
+					result.add(indexed.getKey());
+				}
+			}
+		} else {
+			for (Iterator it = getWords(pTerm).iterator(); it.hasNext();) {
+				String fragment = (String) it.next();
+				HashSet nodes = new HashSet();
+				for (Iterator words = getWordsContaining(fragment).iterator(); words
+						.hasNext();) {
+					nodes.addAll((Collection) mWords.get(words.next()));
+				}
+				if (result == null) {
+					result = nodes;
+				} else {
+					result.retainAll(nodes);
+				}
+			}
+		}
+		mCandidateCache.put(pTerm, result);
+		return result;
+	}
+
+	/**
+	 * @return the indexed words containing the fragment.
+	 */
+	private Collection getWordsContaining(String pFragment) {
+		if (pFragment.length() <= GRAM_LENGTH) {
+			Collection words = (Collection) mGrams.get(pFragment);
+			return words == null ? Collections.EMPTY_SET : words;
+		}
+		// the words containing the rarest n-gram of the fragment:
+		Collection rarestGramWords = null;
+		for (int i = 0; i + GRAM_LENGTH <= pFragment.length(); i++) {
+			Collection words = (Collection) mGrams.get(pFragment.substring(i,
+					i + GRAM_LENGTH));
+			if (words == null) {
+				return Collections.EMPTY_SET;
+			}
+			if (rarestGramWords == null
+					|| words.size() < rarestGramWords.size()) {
+				rarestGramWords = words;
+			}
+		}
+		ArrayList result = new ArrayList();
+		for (Iterator it = rarestGramWords.iterator(); it.hasNext();) {
+			String word = (String) it.next();
+			if (word.indexOf(pFragment) >= 0) {
+				result.add(word);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return true, if each word of the term is contained in one of the words
+	 *         of the entry. A term without words must be contained in the
+	 *         text or note.
+	 */
+	private boolean isCandidate(Entry pEntry, String pTerm) {
+		int separator = pTerm.indexOf(TERM_SEPARATOR);
+		if (separator >= 0) {
+			return isCandidate(pEntry, pTerm.substring(0, separator))
+					&& isCandidate(pEntry, pTerm.substring(separator + 1));
+		}
+		Collection termWords = getWords(pTerm);
+		if (termWords.isEmpty()) {
+			return pEntry.lowerCaseText.indexOf(pTerm) >= 0
+					|| pEntry.lowerCaseNoteText.indexOf(pTerm) >= 0;
+		}
+		for (Iterator it = termWords.iterator(); it.hasNext();) {
+			String fragment = (String) it.next();
+			boolean contained = false;
+			for (Iterator words = pEntry.words.iterator(); words.hasNext()
+					&& !contained;) {
+				contained = ((String) words.next()).indexOf(fragment) >= 0;
+			}
+			if (!contained) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Adds the node to or removes it from the cached candidates. The sets
+	 * are copied, as they may be used by the callers.
+	 */
+	private void updateCandidateCache(MindMapNode pNode, Entry pEntry) {
+		for (Iterator it = mCandidateCache.entrySet().iterator(); it.hasNext();) {
+			Map.Entry cached = (Map.Entry) it.next();
+			Set candidates = (Set) cached.getValue();
+			boolean isCandidate = pEntry != null
+					&& isCandidate(pEntry, (String) cached.getKey());
+			if (isCandidate != candidates.contains(pNode)) {
+				candidates = new HashSet(candidates);
+				if (isCandidate) {
+					candidates.add(pNode);
+				} else {
+					candidates.remove(pNode);
+				}
+				cached.setValue(candidates);
+			}
+		}
+	}
+
+	/**
+	 * @return the words (letters and digits) of the text in the order of
+	 *         occurrence.
+	 */
+	public static Collection getWords(String pText) {
+		ArrayList words = new ArrayList();
+		int start = -1;
+		for (int i = 0; i <= pText.length(); i++) {
+			boolean isWordChar = i < pText.length()
+					&& Character.isLetterOrDigit(pText.charAt(i));
+			if (isWordChar && start < 0) {
+				start = i;
+			} else if (!isWordChar && start >= 0) {
+				words.add(pText.substring(start, i));
+				start = -1;
+			}
+		}
+		return words;
+	}
+
+	private Entry getEntry(MindMapNode pNode) {
+		validate();
+		Entry entry = (Entry) mEntries.get(pNode);
+		if (entry == null) {
+			// not (yet) part of the map:
+			entry = createEntry(pNode);
+		} else if (!Tools.safeEquals(entry.rawText, pNode.toString())
+				|| !Tools.safeEquals(entry.rawNoteText, pNode.getNoteText())) {
+			// changed, but the change wasn't reported yet (other listeners
+			// of the map may be notified before this index). Some nodes
+			// create their text on each call, thus it is compared by value.
+			addNode(pNode);
+			mChangedNodes.remove(pNode);
+			mModificationCount++;
+			entry = (Entry) mEntries.get(pNode);
+		}
+		return entry;
+	}
+
+	/**
+	 * Builds the index or indexes the changed nodes again.
+	 */
+	private void validate() {
+		if (mEntries == null) {
+			mEntries = new HashMap();
+			mWords.clear();
+			mGrams.clear();
+			mChangedNodes.clear();
+			mCandidateCache.clear();
+			mPendingNodes.clear();
+			addBranch((MindMapNode) mMap.getRoot());
+		}
+		if (mChangedNodes.isEmpty()) {
+			return;
+		}
+		for (Iterator it = mChangedNodes.iterator(); it.hasNext();) {
+			addNode((MindMapNode) it.next());
+		}
+		mChangedNodes.clear();
+	}
+
+	private void addBranch(MindMapNode pNode) {
+		addNode(pNode);
+		if (hasPendingChildren(pNode)) {
+			// indexed, when they are loaded (see childrenLoaded).
+			mPendingNodes.add(pNode);
+			return;
+		}
+		for (ListIterator it = pNode.childrenUnfolded(); it.hasNext();) {
+			addBranch((MindMapNode) it.next());
+		}
+	}
+
+	private void addNode(MindMapNode pNode) {
+		// a moved node may still be indexed:
+		removeWords(pNode);
+		Entry entry = createEntry(pNode);
+		mEntries.put(pNode, entry);
+		for (Iterator it = entry.words.iterator(); it.hasNext();) {
+			Object word = it.next();
+			HashSet nodes = (HashSet) mWords.get(word);
+			if (nodes == null) {
+				nodes = new HashSet();
+				mWords.put(word, nodes);
+				addGrams((String) word);
+			}
+			nodes.add(pNode);
+		}
+		updateCandidateCache(pNode, entry);
+	}
+
+	private void addGrams(String pWord) {
+		for (int i = 0; i < pWord.length(); i++) {
+			for (int end = i + 1; end <= Math.min(i + GRAM_LENGTH, pWord
+					.length()); end++) {
+				String gram = pWord.substring(i, end);
+				HashSet words = (HashSet) mGrams.get(gram);
+				if (words == null) {
+					words = new HashSet();
+					mGrams.put(gram, words);
+				}
+				words.add(pWord);
+			}
+		}
+	}
+
+	private void removeGrams(String pWord) {
+		for (int i = 0; i < pWord.length(); i++) {
+			for (int end = i + 1; end <= Math.min(i + GRAM_LENGTH, pWord
+					.length()); end++) {
+				String gram = pWord.substring(i, end);
+				HashSet words = (HashSet) mGrams.get(gram);
+				if (words != null) {
+					words.remove(pWord);
+					if (words.isEmpty()) {
+						mGrams.remove(gram);
+					}
+				}
+			}
+		}
+	}
+
+	private Entry createEntry(MindMapNode pNode) {
+		Entry entry = new Entry();
+		entry.rawText = pNode.toString();
+		entry.rawNoteText = pNode.getNoteText();
+		entry.text = getPlainText(entry.rawText);
+		entry.lowerCaseText = entry.text.toLowerCase();
+		entry.noteText = getPlainText(entry.rawNoteText);
+		entry.lowerCaseNoteText = entry.noteText.toLowerCase();
+		entry.words = new HashSet(getWords(entry.lowerCaseText));
+		entry.words.addAll(getWords(entry.lowerCaseNoteText));
+		entry.childCount = hasPendingChildren(pNode) ? -1 : pNode
+				.getChildCount();
+		return entry;
+	}
+
+	private void removeBranch(MindMapNode pNode) {
+		removeNode(pNode);
+		mChangedNodes.remove(pNode);
+		if (mPendingNodes.remove(pNode) || hasPendingChildren(pNode)) {
+			// these were never indexed.
+			return;
+		}
+		for (ListIterator it = pNode.childrenUnfolded(); it.hasNext();) {
+			removeBranch((MindMapNode) it.next());
+		}
+	}
+
+	private void removeNode(MindMapNode pNode) {
+		if (removeWords(pNode)) {
+			updateCandidateCache(pNode, null);
+		}
+	}
+
+	/**
+	 * @return false, if the node wasn't indexed.
+	 */
+	private boolean removeWords(MindMapNode pNode) {
+		Entry entry = (Entry) mEntries.remove(pNode);
+		if (entry == null) {
+			return false;
+		}
+		for (Iterator it = entry.words.iterator(); it.hasNext();) {
+			Object word = it.next();
+			HashSet nodes = (HashSet) mWords.get(word);
+			nodes.remove(pNode);
+			if (nodes.isEmpty()) {
+				mWords.remove(word);
+				removeGrams((String) word);
+			}
+		}
+		return true;
+	}
+
+	private static boolean hasPendingChildren(MindMapNode pNode) {
+		return pNode instanceof NodeAdapter
+				&& ((NodeAdapter) pNode).hasPendingChildren();
+	}
+
+	/**
+	 * Indexes the children of the node, that were kept as xml text till now.
+	 */
+	public void childrenLoaded(MindMapNode pNode) {
+		if (mEntries == null || !mPendingNodes.remove(pNode)) {
+			return;
+		}
+		Entry entry = (Entry) mEntries.get(pNode);
+		entry.childCount = pNode.getChildCount();
+		for (ListIterator it = pNode.childrenUnfolded(); it.hasNext();) {
+			addBranch((MindMapNode) it.next());
+		}
+	}
+
+	/**
+	 * Loads the children kept as xml text in the branch, whose xml may contain
+	 * all terms. Thus, the candidates of the terms are complete without
+	 * loading every subtree.
+	 *
+	 * @param pTerms
+	 *            collection of String, all in lower case.
+	 */
+	public void loadPendingChildren(Collection pTerms, MindMapNode pBranch) {
+		validate();
+		HashSet checked = new HashSet();
+		boolean loaded;
+		do {
+			loaded = false;
+			// loading changes the pending nodes:
+			for (Iterator it = new ArrayList(mPendingNodes).iterator(); it
+					.hasNext();) {
+				NodeAdapter node = (NodeAdapter) it.next();
+				if (checked.add(node) && node.isChildOfOrEqual(pBranch)
+						&& mayContain(node.getPendingChildren(), pTerms)) {
+					node.loadPendingChildren();
+					loaded = true;
+				}
+			}
+		} while (loaded);
+	}
+
+	/**
+	 * @return true, if the nodes of the xml may contain all terms. The
+	 *         attribute values and the texts between the tags are compared,
+	 *         not the names of the tags.
+	 */
+	private static boolean mayContain(String pXml, Collection pTerms) {
+		StringBuffer buffer = new StringBuffer(HtmlTools
+				.removeAllTagsFromString(pXml));
+		for (Matcher values = ATTRIBUTE_VALUE_PATTERN.matcher(pXml); values
+				.find();) {
+			buffer.append(TERM_SEPARATOR).append(values.group(1));
+		}
+		String text = HtmlTools.unescapeHTMLUnicodeEntity(
+				HtmlTools.toXMLUnescapedText(buffer.toString())).toLowerCase();
+		for (Iterator it = pTerms.iterator(); it.hasNext();) {
+			String term = (String) it.next();
+			Collection parts = getWords(term);
+			if (parts.isEmpty()) {
+				parts = Collections.singleton(term);
+			}
+			for (Iterator part = parts.iterator(); part.hasNext();) {
+				if (text.indexOf((String) part.next()) < 0) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * The same conversion as in the find action.
+	 */
+	public static String getPlainText(String pText) {
+		if (pText == null) {
+			return "";
+		}
+		if (HtmlTools.isHtmlNode(pText)) {
+			pText = HtmlTools.removeHtmlTagsFromString(pText);
+			pText = HtmlTools.unescapeHTMLUnicodeEntity(pText);
+		}
+		return pText;
+	}
+
+	/*
+	 * The changes of the map.
+	 */
+
+	public void treeNodesChanged(TreeModelEvent pEvent) {
+		mModificationCount++;
+		if (mEntries == null) {
+			return;
+		}
+		Object[] children = pEvent.getChildren();
+		if (children == null) {
+			Object[] path = pEvent.getPath();
+			mChangedNodes.add(path[path.length - 1]);
+		} else {
+			for (int i = 0; i < children.length; i++) {
+				mChangedNodes.add(children[i]);
+			}
+		}
+	}
+
+	public void treeNodesInserted(TreeModelEvent pEvent) {
+		mModificationCount++;
+		if (mEntries == null) {
+			return;
+		}
+		Object[] children = pEvent.getChildren();
+		if (children == null) {
+			mEntries = null;
+			return;
+		}
+		mStructureModificationCount++;
+		for (int i = 0; i < children.length; i++) {
+			addBranch((MindMapNode) children[i]);
+		}
+		updateChildCount(pEvent);
+	}
+
+	public void treeNodesRemoved(TreeModelEvent pEvent) {
+		mModificationCount++;
+		if (mEntries == null) {
+			return;
+		}
+		Object[] children = pEvent.getChildren();
+		if (children == null) {
+			mEntries = null;
+			return;
+		}
+		mStructureModificationCount++;
+		for (int i = 0; i < children.length; i++) {
+			removeBranch((MindMapNode) children[i]);
+		}
+		updateChildCount(pEvent);
+	}
+
+	private void updateChildCount(TreeModelEvent pEvent) {
+		Object[] path = pEvent.getPath();
+		MindMapNode parent = (MindMapNode) path[path.length - 1];
+		Entry entry = (Entry) mEntries.get(parent);
+		if (entry != null && !hasPendingChildren(parent)) {
+			entry.childCount = parent.getChildCount();
+		}
+	}
+
+	public void treeStructureChanged(TreeModelEvent pEvent) {
+		mModificationCount++;
+		if (mEntries == null) {
+			return;
+		}
+		Object[] path = pEvent.getPath();
+		MindMapNode node = (MindMapNode) path[path.length - 1];
+		if (hasSameChildren(node)) {
+			// eg. folded, the node itself may have changed:
+			mChangedNodes.add(node);
+			return;
+		}
+		mStructureModificationCount++;
+		// built again on the next use.
+		mEntries = null;
+	}
+
+	/**
+	 * @return true, if the node has the indexed children, as after folding
+	 *         it.
+	 */
+	private boolean hasSameChildren(MindMapNode pNode) {
+		Entry entry = (Entry) mEntries.get(pNode);
+		if (entry == null) {
+			return false;
+		}
+		if (hasPendingChildren(pNode)) {
+			return mPendingNodes.contains(pNode);
+		}
+		if (mPendingNodes.contains(pNode)
+				|| entry.childCount != pNode.getChildCount()) {
+			return false;
+		}
+		for (ListIterator it = pNode.childrenUnfolded(); it.hasNext();) {
+			if (!mEntries.containsKey(it.next())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+}
@@ -222,39 +222,11 @@ public abstract class XMLElementAdapter extends XMLElement {
 			} else if (child.getName().equals("icon")) {
 				node.addIcon((MindIcon) child.getUserObject(), MindIcon.LAST);
 			} else if (child.getName().equals(XML_NODE_XHTML_CONTENT_TAG)) {
-				String xmlText = ((XMLElement) child).getContent();
-				Object typeAttribute = child
-						.getAttribute(XML_NODE_XHTML_TYPE_TAG);
-				if (typeAttribute == null
-						|| XML_NODE_XHTML_TYPE_NODE.equals(typeAttribute)) {
-					// output:
-					logger.finest("Setting node html content to:" + xmlText);
-					node.setXmlText(xmlText);
-				} else {
-					logger.finest("Setting note html content to:" + xmlText);
-					node.setXmlNoteText(xmlText);
-				}
+				setRichContent(node, (String) child
+						.getAttribute(XML_NODE_XHTML_TYPE_TAG),
+						((XMLElement) child).getContent());
 			} else if (child.getName().equals("hook")) {
-				XMLElement xml = (XMLElement) child/* .getUserObject() */;
-				String loadName = (String) xml.getAttribute("NAME");
-				PermanentNodeHook hook = null;
-				try {
-					// loadName=loadName.replace('/', File.separatorChar);
-					/*
-					 * The next code snippet is an exception. Normally, hooks
-					 * have to be created via the ModeController. DO NOT COPY.
-					 */
-					hook = (PermanentNodeHook) mModeController.getHookFactory()
-							.createNodeHook(loadName);
-					// this is a bad hack. Don't make use of this data unless
-					// you know exactly what you are doing.
-					hook.setNode(node);
-				} catch (Exception e) {
-					freemind.main.Resources.getInstance().logException(e);
-					hook = new PermanentNodeHookSubstituteUnknown(loadName);
-				}
-				hook.loadFrom(xml);
-				node.addHook(hook);
+				addHook(node, (XMLElement) child/* .getUserObject() */);
 			}
 			return;
 		}
@@ -290,56 +262,17 @@ public abstract class XMLElementAdapter extends XMLElement {
 		}
 
 		if (userObject instanceof EdgeAdapter) {
-			EdgeAdapter edge = (EdgeAdapter) userObject;
-			if (name.equals("STYLE")) {
-				edge.setStyle(sValue);
-			} else if (name.equals("COLOR")) {
-				edge.setColor(Tools.xmlToColor(sValue));
-			} else if (name.equals("WIDTH")) {
-				if (sValue.equals(EdgeAdapter.EDGE_WIDTH_THIN_STRING)) {
-					edge.setWidth(EdgeAdapter.WIDTH_THIN);
-				} else {
-					edge.setWidth(Integer.parseInt(sValue));
-				}
-			}
+			setEdgeAttribute((EdgeAdapter) userObject, name, sValue);
 			return;
 		}
 
 		if (userObject instanceof CloudAdapter) {
-			CloudAdapter cloud = (CloudAdapter) userObject;
-			if (name.equals("STYLE")) {
-				cloud.setStyle(sValue);
-			} else if (name.equals("COLOR")) {
-				cloud.setColor(Tools.xmlToColor(sValue));
-			} else if (name.equals("WIDTH")) {
-				cloud.setWidth(Integer.parseInt(sValue));
-			}
+			setCloudAttribute((CloudAdapter) userObject, name, sValue);
 			return;
 		}
 
 		if (userObject instanceof ArrowLinkAdapter) {
-			ArrowLinkAdapter arrowLink = (ArrowLinkAdapter) userObject;
-			if (name.equals("STYLE")) {
-				arrowLink.setStyle(sValue);
-			} else if (name.equals("ID")) {
-				arrowLink.setUniqueID(sValue);
-			} else if (name.equals("COLOR")) {
-				arrowLink.setColor(Tools.xmlToColor(sValue));
-			} else if (name.equals("DESTINATION")) {
-				arrowLink.setDestinationLabel(sValue);
-			} else if (name.equals("REFERENCETEXT")) {
-				arrowLink.setReferenceText((sValue));
-			} else if (name.equals("STARTINCLINATION")) {
-				arrowLink.setStartInclination(Tools.xmlToPoint(sValue));
-			} else if (name.equals("ENDINCLINATION")) {
-				arrowLink.setEndInclination(Tools.xmlToPoint(sValue));
-			} else if (name.equals("STARTARROW")) {
-				arrowLink.setStartArrow(sValue);
-			} else if (name.equals("ENDARROW")) {
-				arrowLink.setEndArrow(sValue);
-			} else if (name.equals("WIDTH")) {
-				arrowLink.setWidth(Integer.parseInt(sValue));
-			}
+			setArrowLinkAttribute((ArrowLinkAdapter) userObject, name, sValue);
 			return;
 		}
 
@@ -407,7 +340,100 @@ public abstract class XMLElementAdapter extends XMLElement {
 		}
 	}
 
-	private NodeAdapter setNodeAttribute(String name, String sValue,
+	protected void setEdgeAttribute(EdgeAdapter edge, String name,
+			String sValue) {
+		if (name.equals("STYLE")) {
+			edge.setStyle(sValue);
+		} else if (name.equals("COLOR")) {
+			edge.setColor(Tools.xmlToColor(sValue));
+		} else if (name.equals("WIDTH")) {
+			if (sValue.equals(EdgeAdapter.EDGE_WIDTH_THIN_STRING)) {
+				edge.setWidth(EdgeAdapter.WIDTH_THIN);
+			} else {
+				edge.setWidth(Integer.parseInt(sValue));
+			}
+		}
+	}
+
+	protected void setCloudAttribute(CloudAdapter cloud, String name,
+			String sValue) {
+		if (name.equals("STYLE")) {
+			cloud.setStyle(sValue);
+		} else if (name.equals("COLOR")) {
+			cloud.setColor(Tools.xmlToColor(sValue));
+		} else if (name.equals("WIDTH")) {
+			cloud.setWidth(Integer.parseInt(sValue));
+		}
+	}
+
+	protected void setArrowLinkAttribute(ArrowLinkAdapter arrowLink,
+			String name, String sValue) {
+		if (name.equals("STYLE")) {
+			arrowLink.setStyle(sValue);
+		} else if (name.equals("ID")) {
+			arrowLink.setUniqueID(sValue);
+		} else if (name.equals("COLOR")) {
+			arrowLink.setColor(Tools.xmlToColor(sValue));
+		} else if (name.equals("DESTINATION")) {
+			arrowLink.setDestinationLabel(sValue);
+		} else if (name.equals("REFERENCETEXT")) {
+			arrowLink.setReferenceText((sValue));
+		} else if (name.equals("STARTINCLINATION")) {
+			arrowLink.setStartInclination(Tools.xmlToPoint(sValue));
+		} else if (name.equals("ENDINCLINATION")) {
+			arrowLink.setEndInclination(Tools.xmlToPoint(sValue));
+		} else if (name.equals("STARTARROW")) {
+			arrowLink.setStartArrow(sValue);
+		} else if (name.equals("ENDARROW")) {
+			arrowLink.setEndArrow(sValue);
+		} else if (name.equals("WIDTH")) {
+			arrowLink.setWidth(Integer.parseInt(sValue));
+		}
+	}
+
+	/**
+	 * Sets the content of a richcontent element either as node text or as
+	 * note, depending on its TYPE attribute.
+	 */
+	protected void setRichContent(NodeAdapter node, String typeAttribute,
+			String xmlText) {
+		if (typeAttribute == null
+				|| XML_NODE_XHTML_TYPE_NODE.equals(typeAttribute)) {
+			// output:
+			logger.finest("Setting node html content to:" + xmlText);
+			node.setXmlText(xmlText);
+		} else {
+			logger.finest("Setting note html content to:" + xmlText);
+			node.setXmlNoteText(xmlText);
+		}
+	}
+
+	/**
+	 * Creates the hook described by the xml element and adds it to the node.
+	 */
+	protected void addHook(NodeAdapter node, XMLElement xml) {
+		String loadName = (String) xml.getAttribute("NAME");
+		PermanentNodeHook hook = null;
+		try {
+			// loadName=loadName.replace('/', File.separatorChar);
+			/*
+			 * The next code snippet is an exception. Normally, hooks have to
+			 * be created via the ModeController. DO NOT COPY.
+			 */
+			hook = (PermanentNodeHook) mModeController.getHookFactory()
+					.createNodeHook(loadName);
+			// this is a bad hack. Don't make use of this data unless
+			// you know exactly what you are doing.
+			hook.setNode(node);
+		} catch (Exception e) {
+			freemind.main.Resources.getInstance().logException(e);
+			hook = new PermanentNodeHookSubstituteUnknown(loadName);
+		}
+		hook.loadFrom(xml);
+		node.addHook(hook);
+	}
+
+	protected NodeAdapter setNodeAttribute(String name, String sValue,
 			NodeAdapter node) {
 		if (name.equals(XML_NODE_TEXT)) {
 			logger.finest("Setting node text content to:" + sValue);
@@ -29,6 +29,9 @@ package freemind.modes.attributes;
 public class Attribute {
 	private String name;
 	private String value;
+	/** The value as number, null if it isn't a number. */
+	private Double number;
+	private boolean isNumberParsed = false;
 
 	/**
      */
@@ -65,6 +68,24 @@ public class Attribute {
 
 	public void setValue(String value) {
 		this.value = value;
+		isNumberParsed = false;
+	}
+
+	/**
+	 * @return the value as number, or null, if it isn't a number. It is
+	 *         parsed once, as filters compare it for each node.
+	 */
+	public Double getNumber() {
+		if (!isNumberParsed) {
+			try {
+				number = new Double(Double.parseDouble(value));
+			} catch (RuntimeException e) {
+				// not a number (or null):
+				number = null;
+			}
+			isNumberParsed = true;
+		}
+		return number;
 	}
 
 	public String toString() {
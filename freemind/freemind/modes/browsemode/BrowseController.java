@@ -174,8 +174,8 @@ public class BrowseController extends ViewControllerAdapter {
 			HashSet NodeAlreadyVisited = new HashSet();
 			NodeAlreadyVisited.add(link.getSource());
 			NodeAlreadyVisited.add(link.getTarget());
-			Vector links = getModel().getLinkRegistry().getAllLinks(
-					link.getSource());
+			Vector links = new Vector(getModel().getLinkRegistry()
+					.getAllLinks(link.getSource()));
 			links.addAll(getModel().getLinkRegistry().getAllLinks(
 					link.getTarget()));
 			for (int i = 0; i < links.size(); ++i) {
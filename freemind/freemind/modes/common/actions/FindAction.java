@@ -29,9 +29,12 @@ import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.ListIterator;
+import java.util.Set;
 
 import javax.swing.AbstractAction;
 import javax.swing.ImageIcon;
@@ -48,6 +51,7 @@ import freemind.main.Resources;
 import freemind.main.Tools;
 import freemind.modes.ControllerAdapter;
 import freemind.modes.MindMapNode;
+import freemind.modes.PlainTextIndex;
 
 public class FindAction extends AbstractAction {
 	private final ControllerAdapter controller;
@@ -80,7 +84,31 @@ public class FindAction extends AbstractAction {
 
 	private boolean findCaseSensitive;
 
-	private LinkedList findNodeQueue;
+	/** The last found node, find next continues after it. */
+	private MindMapNode lastFoundNode;
+
+	/**
+	 * The position of the last found node in its branch, see
+	 * {@link #getBranchPosition(MindMapNode, HashMap)}. Used, if the node was
+	 * removed in the meantime.
+	 */
+	private int[] lastFoundPosition;
+
+	/**
+	 * The candidates of the last search in width-first order and their
+	 * positions. Find next uses them again, as long as the candidates and the
+	 * structure of the map are unchanged.
+	 */
+	private ArrayList sortedCandidates;
+
+	private HashMap sortedPositions;
+
+	/** The candidate set of the text index, that was sorted. */
+	private Set sortedCandidateSet;
+
+	private MindMapNode sortedFromNode;
+
+	private int sortedStructureModificationCount;
 
 	private JDialog mDialog;
 
@@ -257,8 +285,6 @@ public class FindAction extends AbstractAction {
 	public boolean find(MindMapNode node, Collection subterms,
 			boolean caseSensitive) {
 		findNodesUnfoldedByLastFind = new ArrayList();
-		LinkedList nodes = new LinkedList();
-		nodes.addFirst(node);
 		findFromNode = node;
 		Collection finalizedSubterms;
 		if (!caseSensitive) {
@@ -269,11 +295,20 @@ public class FindAction extends AbstractAction {
 		} else {
 			finalizedSubterms = subterms;
 		}
-		return find(nodes, finalizedSubterms, caseSensitive);
+		return find(finalizedSubterms, caseSensitive, null, null);
 	}
 
-	private boolean find(LinkedList /* queue of MindMapNode */nodes,
-			Collection subterms, boolean caseSensitive) {
+	/**
+	 * Searches the branch of {@link #findFromNode} width-first. Only the
+	 * candidates of the text index are looked at, in the order of their
+	 * positions in the branch.
+	 * 
+	 * @param after
+	 *            the search starts after this node or, if it isn't in the
+	 *            branch any more, at its former position afterPosition.
+	 */
+	private boolean find(Collection subterms, boolean caseSensitive,
+			MindMapNode after, int[] afterPosition) {
 		// Precondition: if !caseSensitive then >>what<< is in lowercase.
 		boolean searchInNotesToo = Resources.getInstance().getBoolProperty(
 				FreeMind.RESOURCES_SEARCH_IN_NOTES_TOO);
@@ -295,25 +330,62 @@ public class FindAction extends AbstractAction {
 			}
 			findNodesUnfoldedByLastFind = new ArrayList();
 		}
+		if (!isInMap(findFromNode)) {
+			return false;
+		}
+
+		PlainTextIndex index = controller.getMap().getRegistry()
+				.getTextIndex();
+		Collection lowerCaseSubterms = toLowerCase(subterms);
+		if (after == null) {
+			// a new search, the subtrees not loaded yet are loaded, if they
+			// may contain the subterms:
+			index.loadPendingChildren(lowerCaseSubterms, findFromNode);
+		}
+		// only these nodes can contain the subterms:
+		Set candidates = index.getCandidates(lowerCaseSubterms);
+		if (candidates != sortedCandidateSet
+				|| findFromNode != sortedFromNode
+				|| index.getStructureModificationCount() != sortedStructureModificationCount) {
+			sortCandidates(candidates, index);
+		}
 
 		// We implement width-first search.
-		while (!nodes.isEmpty()) {
-			MindMapNode node = (MindMapNode) nodes.removeFirst();
-			// Add children to the queue
-			for (ListIterator i = node.childrenUnfolded(); i.hasNext();) {
-				nodes.addLast(i.next());
+		HashMap positions = sortedPositions;
+		// the found node must be behind the last one:
+		int minimalComparison = 0;
+		if (after != null) {
+			if (isInMap(after)
+					&& getBranchPosition(after, positions) != null) {
+				afterPosition = getBranchPosition(after, positions);
+			} else {
+				// removed or moved, the next node may be at its position now:
+				minimalComparison = -1;
 			}
-
+		}
+		// the first candidate behind the last one:
+		int start = 0;
+		if (afterPosition != null) {
+			int end = sortedCandidates.size();
+			while (start < end) {
+				int middle = (start + end) / 2;
+				if (compareBranchPositions((int[]) positions
+						.get(sortedCandidates.get(middle)), afterPosition) > minimalComparison) {
+					end = middle;
+				} else {
+					start = middle + 1;
+				}
+			}
+		}
+		for (Iterator it = sortedCandidates.listIterator(start); it.hasNext();) {
+			MindMapNode node = (MindMapNode) it.next();
 			if (!node.isVisible())
 				continue;
 
 			// Bug fix for
 			// http://sourceforge.net/tracker/?func=detail&aid=3035387&group_id=7118&atid=107118
-			String nodeText = node.toString();
-			nodeText = prepareTextContent(caseSensitive, nodeText);
+			String nodeText = index.getText(node, caseSensitive);
 			// End bug fix.
-			String noteText = node.getNoteText();
-			noteText = prepareTextContent(caseSensitive, noteText);
 
 			boolean found = true;
 			boolean foundInNotes = false;
@@ -327,6 +399,7 @@ public class FindAction extends AbstractAction {
 
 			if ((!found) && searchInNotesToo) {
 				/* now, search the notes. */
+				String noteText = index.getNoteText(node, caseSensitive);
 				found = true;
 				for (Iterator i = subterms.iterator(); i.hasNext();) {
 					if (noteText.indexOf((String) i.next()) < 0) {
@@ -346,7 +419,8 @@ public class FindAction extends AbstractAction {
 				// Save the state for find next
 				this.subterms = subterms;
 				findCaseSensitive = caseSensitive;
-				findNodeQueue = nodes;
+				lastFoundNode = node;
+				lastFoundPosition = (int[]) positions.get(node);
 				return true;
 			}
 		}
@@ -355,14 +429,95 @@ public class FindAction extends AbstractAction {
 		return false;
 	}
 
-	public String prepareTextContent(boolean caseSensitive, String nodeText) {
-		if (nodeText == null) {
-			nodeText = "";
+	/**
+	 * Sorts the candidates in the branch of {@link #findFromNode} width-first.
+	 */
+	private void sortCandidates(Set candidates, PlainTextIndex index) {
+		final HashMap positions = new HashMap();
+		ArrayList nodes = new ArrayList();
+		for (Iterator i = candidates.iterator(); i.hasNext();) {
+			MindMapNode node = (MindMapNode) i.next();
+			if (getBranchPosition(node, positions) != null) {
+				nodes.add(node);
+			}
 		}
-		if (HtmlTools.isHtmlNode(nodeText)) {
-			nodeText = HtmlTools.removeHtmlTagsFromString(nodeText);
-			nodeText = HtmlTools.unescapeHTMLUnicodeEntity(nodeText);
+		Collections.sort(nodes, new Comparator() {
+			public int compare(Object o1, Object o2) {
+				return compareBranchPositions((int[]) positions.get(o1),
+						(int[]) positions.get(o2));
+			}
+		});
+		sortedCandidates = nodes;
+		sortedPositions = positions;
+		sortedCandidateSet = candidates;
+		sortedFromNode = findFromNode;
+		sortedStructureModificationCount = index
+				.getStructureModificationCount();
+	}
+
+	/**
+	 * @param positions
+	 *            MindMapNode -> int[], the positions computed so far.
+	 * @return the child positions on the path from {@link #findFromNode} to
+	 *         the node or null, if the node isn't in its branch.
+	 */
+	private int[] getBranchPosition(MindMapNode node, HashMap positions) {
+		if (positions.containsKey(node)) {
+			return (int[]) positions.get(node);
 		}
+		int[] position = null;
+		if (node == findFromNode) {
+			position = new int[0];
+		} else if (node.getParentNode() != null) {
+			MindMapNode parent = node.getParentNode();
+			int[] parentPosition = getBranchPosition(parent, positions);
+			if (parentPosition != null) {
+				position = new int[parentPosition.length + 1];
+				System.arraycopy(parentPosition, 0, position, 0,
+						parentPosition.length);
+				position[parentPosition.length] = parent
+						.getChildPosition(node);
+			}
+		}
+		positions.put(node, position);
+		return position;
+	}
+
+	/**
+	 * Compares the positions in the width-first order: The nodes nearer to
+	 * {@link #findFromNode} come first, the nodes at the same depth are
+	 * ordered by the positions of their ancestors.
+	 */
+	private static int compareBranchPositions(int[] position1,
+			int[] position2) {
+		if (position1.length != position2.length) {
+			return position1.length - position2.length;
+		}
+		for (int i = 0; i < position1.length; i++) {
+			if (position1[i] != position2[i]) {
+				return position1[i] - position2[i];
+			}
+		}
+		return 0;
+	}
+
+	private boolean isInMap(MindMapNode node) {
+		return node.isRoot() ? node == controller.getMap().getRootNode()
+				: node.getParentNode() != null
+						&& node.getParentNode().getChildPosition(node) >= 0
+						&& isInMap(node.getParentNode());
+	}
+
+	private Collection toLowerCase(Collection subterms) {
+		ArrayList lowerCaseSubterms = new ArrayList();
+		for (Iterator i = subterms.iterator(); i.hasNext();) {
+			lowerCaseSubterms.add(((String) i.next()).toLowerCase());
+		}
+		return lowerCaseSubterms;
+	}
+
+	public String prepareTextContent(boolean caseSensitive, String nodeText) {
+		nodeText = PlainTextIndex.getPlainText(nodeText);
 		if (!caseSensitive) {
 			nodeText = nodeText.toLowerCase();
 		}
@@ -425,19 +580,14 @@ public class FindAction extends AbstractAction {
 		// Precodition: subterms != null. We check the precodition but give no
 		// message.
 
-		// The logic of find next is vulnerable. find next relies on the queue
-		// of nodes from previous find / find next. However, between previous
-		// find / find next and this find next, nodes could have been deleted
-		// or moved. The logic expects that no changes happened, even that no
-		// node has been folded / unfolded.
-
-		// You may want to come with more correct solution, but this one
-		// works for most uses, and does not cause any big trouble except
-		// perhaps for some uncaught exceptions. As a result, it is not very
-		// nice, but far from critical and working quite fine.
+		// find next looks at the candidates again and continues after the
+		// last found node. Thus, the changes since the previous find / find
+		// next are taken into account. If the last found node was removed,
+		// the search continues at its former position.
 
 		if (subterms != null) {
-			return find(findNodeQueue, subterms, findCaseSensitive);
+			return find(subterms, findCaseSensitive, lastFoundNode,
+					lastFoundPosition);
 		}
 		return false;
 	}
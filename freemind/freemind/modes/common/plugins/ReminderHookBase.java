@@ -25,7 +25,6 @@ package freemind.modes.common.plugins;
 import java.text.MessageFormat;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.Timer;
 import java.util.TimerTask;
 
 import javax.swing.ImageIcon;
@@ -55,8 +54,6 @@ public abstract class ReminderHookBase extends PermanentNodeHookAdapter {
 
 	private long remindUserAt = 0;
 
-	private Timer timer;
-
 	private static ImageIcon clockIcon = null;
 
 	private static ImageIcon bellIcon;
@@ -91,9 +88,7 @@ public abstract class ReminderHookBase extends PermanentNodeHookAdapter {
 
 	public void shutdownMapHook() {
 		setToolTip(getNode(), getName(), null);
-		if (timer != null) {
-			timer.cancel();
-		}
+		ReminderScheduler.getInstance().unschedule(this);
 		displayState(REMOVE_CLOCK, getNode(), true);
 		super.shutdownMapHook();
 	}
@@ -103,23 +98,19 @@ public abstract class ReminderHookBase extends PermanentNodeHookAdapter {
 		if (remindUserAt == 0) {
 			return;
 		}
-		if (timer == null) {
+		if (!ReminderScheduler.getInstance().isScheduled(this)) {
 			scheduleTimer(node);
 		}
 		logger.info("Invoke for node: " + node.getObjectId(getController()));
 	}
 
 	/**
+	 * All reminders share the timer of the {@link ReminderScheduler}, which
+	 * lets the node blink, when the reminder is due.
 	 */
 	private void scheduleTimer(MindMapNode node) {
-		scheduleTimer(node, new TimerBlinkTask(false));
-		// scheduleTimer(node, new CheckReminder(false));
-	}
-
-	private void scheduleTimer(MindMapNode node, TimerTask task) {
-		timer = new Timer();
+		ReminderScheduler.getInstance().schedule(this);
 		Date date = new Date(remindUserAt);
-		timer.schedule(task, date);
 		Object[] messageArguments = { date };
 		MessageFormat formatter = new MessageFormat(
 				getResourceString("plugins/TimeManagement.xml_reminderNode_tooltip"));
@@ -188,35 +179,17 @@ public abstract class ReminderHookBase extends PermanentNodeHookAdapter {
 		}
 	}
 
-	public class TimerBlinkTask extends TimerTask {
-
-		/**
-		 */
-		public TimerBlinkTask(boolean stateAdded) {
-			super();
-			this.stateAdded = stateAdded;
-		}
-
-		private boolean stateAdded = false;
-
-		public void run() {
-			SwingUtilities.invokeLater(new Runnable() {
-				public void run() {
-					// time is over, we add the new icon until
-					// the user removes the reminder.
-					//
-					stateAdded = !stateAdded;
-					setRemindUserAt(System.currentTimeMillis() + 3000); // 3
-					// secs
-					scheduleTimer(getNode(), new TimerBlinkTask(stateAdded));
-					displayState(
-							(stateAdded) ? CLOCK_VISIBLE : CLOCK_INVISIBLE,
-							getNode(), true);
-
-				}
-			});
-		}
+	/**
+	 * Called by the {@link ReminderScheduler} in the event thread, when the
+	 * reminder is due and then for each blink.
+	 */
+	public void blink(boolean pClockVisible) {
+		displayState(pClockVisible ? CLOCK_VISIBLE : CLOCK_INVISIBLE,
+				getNode(), true);
+	}
 
+	MindMapNode getRemindedNode() {
+		return getNode();
 	}
 
 	public void displayState(int stateAdded, MindMapNode pNode, boolean recurse) {
@@ -250,7 +223,7 @@ public abstract class ReminderHookBase extends PermanentNodeHookAdapter {
 		this.remindUserAt = remindUserAt;
 	}
 
-	private final String STATE_TOOLTIP = TimerBlinkTask.class.getName()
+	private final String STATE_TOOLTIP = ReminderHookBase.class.getName()
 			+ "_STATE_";
 
 	private String mStateTooltipName = null;
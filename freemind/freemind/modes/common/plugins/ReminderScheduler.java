@@ -0,0 +1,221 @@
+/*FreeMind - A Program for creating and viewing Mindmaps
+ *Copyright (C) 2000-2012 Joerg Mueller, Daniel Polansky, Christian Foltin, Dimitri Polivaev and others.
+ *
+ *See COPYING for Details
+ *
+ *This program is free software; you can redistribute it and/or
+ *modify it under the terms of the GNU General Public License
+ *as published by the Free Software Foundation; either version 2
+ *of the License, or (at your option) any later version.
+ *
+ *This program is distributed in the hope that it will be useful,
+ *but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *GNU General Public License for more details.
+ *
+ *You should have received a copy of the GNU General Public License
+ *along with this program; if not, write to the Free Software
+ *Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package freemind.modes.common.plugins;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.TreeSet;
+import java.util.Vector;
+
+import javax.swing.SwingUtilities;
+
+import freemind.modes.MindMap;
+import freemind.modes.MindMapNode;
+
+/**
+ * Schedules the reminders of all maps with a single timer thread. The nodes
+ * whose reminders are due blink together, driven by a single swing timer.
+ * The reminders are indexed by their time.
+ */
+public class ReminderScheduler {
+
+	public static final int BLINK_INTERVAL = 3000;
+
+	private static ReminderScheduler sInstance = null;
+
+	private class Reminder extends java.util.TimerTask {
+		private final ReminderHookBase mHook;
+
+		private final long mTime;
+
+		private final long mSequence;
+
+		private Reminder(ReminderHookBase pHook, long pSequence) {
+			mHook = pHook;
+			mTime = pHook.getRemindUserAt();
+			mSequence = pSequence;
+		}
+
+		public void run() {
+			SwingUtilities.invokeLater(new Runnable() {
+				public void run() {
+					becameDue(Reminder.this);
+				}
+			});
+		}
+	}
+
+	private static final Comparator TIME_ORDER = new Comparator() {
+		public int compare(Object pO1, Object pO2) {
+			Reminder r1 = (Reminder) pO1;
+			Reminder r2 = (Reminder) pO2;
+			if (r1.mTime != r2.mTime) {
+				return r1.mTime < r2.mTime ? -1 : 1;
+			}
+			return r1.mSequence < r2.mSequence ? -1
+					: (r1.mSequence == r2.mSequence ? 0 : 1);
+		}
+	};
+
+	private final java.util.Timer mTimer = new java.util.Timer(true);
+
+	/** ReminderHookBase -> Reminder */
+	private final HashMap mReminders = new HashMap();
+
+	/** All reminders, sorted by their time. */
+	private final TreeSet mIndex = new TreeSet(TIME_ORDER);
+
+	private long mSequence = 0;
+
+	/** The hooks whose reminders are due. Only used in the event thread. */
+	private final LinkedHashSet mDue = new LinkedHashSet();
+
+	private final javax.swing.Timer mBlinkTimer;
+
+	private boolean mBlinkState = true;
+
+	public static synchronized ReminderScheduler getInstance() {
+		if (sInstance == null) {
+			sInstance = new ReminderScheduler();
+		}
+		return sInstance;
+	}
+
+	ReminderScheduler() {
+		mBlinkTimer = new javax.swing.Timer(BLINK_INTERVAL,
+				new ActionListener() {
+					public void actionPerformed(ActionEvent pE) {
+						blink();
+					}
+				});
+	}
+
+	/**
+	 * Schedules the reminder at {@link ReminderHookBase#getRemindUserAt()}.
+	 * A previous reminder of the hook is replaced.
+	 */
+	public synchronized void schedule(ReminderHookBase pHook) {
+		unschedule(pHook);
+		Reminder reminder = new Reminder(pHook, mSequence++);
+		mReminders.put(pHook, reminder);
+		mIndex.add(reminder);
+		mTimer.schedule(reminder, new Date(reminder.mTime));
+	}
+
+	public synchronized void unschedule(ReminderHookBase pHook) {
+		Reminder reminder = (Reminder) mReminders.remove(pHook);
+		if (reminder != null) {
+			reminder.cancel();
+			mIndex.remove(reminder);
+		}
+		if (SwingUtilities.isEventDispatchThread()) {
+			removeDue(pHook);
+		} else {
+			final ReminderHookBase hook = pHook;
+			SwingUtilities.invokeLater(new Runnable() {
+				public void run() {
+					removeDue(hook);
+				}
+			});
+		}
+	}
+
+	public synchronized boolean isScheduled(ReminderHookBase pHook) {
+		return mReminders.containsKey(pHook);
+	}
+
+	/**
+	 * @return the nodes of the map with reminders (also the due ones), sorted
+	 *         by the time of their reminders.
+	 */
+	public synchronized Vector getReminderNodes(MindMap pMap) {
+		Vector nodes = new Vector();
+		for (Iterator it = mIndex.iterator(); it.hasNext();) {
+			MindMapNode node = ((Reminder) it.next()).mHook.getRemindedNode();
+			if (node != null && node.getMap() == pMap) {
+				nodes.add(node);
+			}
+		}
+		return nodes;
+	}
+
+	/**
+	 * @return the hooks with reminders between the given times (inclusive
+	 *         from, exclusive to), sorted by the time of their reminders.
+	 */
+	public synchronized Vector getReminders(long pFrom, long pTo) {
+		Vector hooks = new Vector();
+		for (Iterator it = mIndex.iterator(); it.hasNext();) {
+			Reminder reminder = (Reminder) it.next();
+			if (reminder.mTime >= pTo) {
+				break;
+			}
+			if (reminder.mTime >= pFrom) {
+				hooks.add(reminder.mHook);
+			}
+		}
+		return hooks;
+	}
+
+	private void becameDue(Reminder pReminder) {
+		synchronized (this) {
+			if (mReminders.get(pReminder.mHook) != pReminder) {
+				// unscheduled in between.
+				return;
+			}
+		}
+		if (mDue.add(pReminder.mHook)) {
+			pReminder.mHook.blink(true);
+		}
+		if (!mBlinkTimer.isRunning()) {
+			mBlinkTimer.start();
+		}
+	}
+
+	private void removeDue(ReminderHookBase pHook) {
+		mDue.remove(pHook);
+		if (mDue.isEmpty()) {
+			mBlinkTimer.stop();
+		}
+	}
+
+	private void blink() {
+		mBlinkState = !mBlinkState;
+		// the hooks may remove themselves:
+		Vector due = new Vector(mDue);
+		for (Iterator it = due.iterator(); it.hasNext();) {
+			((ReminderHookBase) it.next()).blink(mBlinkState);
+		}
+	}
+
+	/**
+	 * @return the number of blinking reminders. Only for the event thread.
+	 */
+	public int getDueCount() {
+		return mDue.size();
+	}
+
+}
@@ -296,9 +296,11 @@ public class EncryptedMindMapNode extends MindMapNodeModel {
      */
 
 	public XMLElement save(Writer writer, MindMapLinkRegistry registry,
-			boolean saveHidden, boolean saveChildren) throws IOException {
+			boolean saveHidden, boolean saveChildren, boolean pFirePreSaveEvent)
+			throws IOException {
 		if (isStoringEncryptedContent()) {
-			return super.save(writer, registry, saveHidden, saveChildren);
+			return super.save(writer, registry, saveHidden, saveChildren,
+					pFirePreSaveEvent);
 		}
 		if (isDecrypted) {
 			if (!isAccessible()) {
@@ -318,7 +320,8 @@ public class EncryptedMindMapNode extends MindMapNodeModel {
 		setAccessible(false);
 		XMLElement ret = null;
 		try {
-			ret = super.save(writer, registry, saveHidden, saveChildren);
+			ret = super.save(writer, registry, saveHidden, saveChildren,
+					pFirePreSaveEvent);
 		} finally {
 			setAccessible(oldIsVisible);
 		}
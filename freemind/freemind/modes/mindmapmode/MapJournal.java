@@ -0,0 +1,416 @@
+/*FreeMind - A Program for creating and viewing Mindmaps
+ *Copyright (C) 2000-2012 Joerg Mueller, Daniel Polansky, Christian Foltin, Dimitri Polivaev and others.
+ *
+ *See COPYING for Details
+ *
+ *This program is free software; you can redistribute it and/or
+ *modify it under the terms of the GNU General Public License
+ *as published by the Free Software Foundation; either version 2
+ *of the License, or (at your option) any later version.
+ *
+ *This program is distributed in the hope that it will be useful,
+ *but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *GNU General Public License for more details.
+ *
+ *You should have received a copy of the GNU General Public License
+ *along with this program; if not, write to the Free Software
+ *Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package freemind.modes.mindmapmode;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.StringTokenizer;
+import java.util.Vector;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+
+import freemind.controller.actions.generated.instance.UndoXmlAction;
+import freemind.controller.actions.generated.instance.XmlAction;
+import freemind.main.FreeMindCommon;
+import freemind.main.Resources;
+import freemind.modes.MindMapLinkRegistry;
+import freemind.modes.MindMapNode;
+import freemind.modes.mindmapmode.actions.xml.ActionHandler;
+
+/**
+ * Append-only journal of the actions that were performed on a map since its
+ * file was written completely. Saving appends the marshalled actions to
+ * "&lt;map file&gt;.journal" instead of rewriting the map. If the journal
+ * grows too large or the map is closed, the map is written completely and the
+ * journal is removed. Loading replays the journal on top of the map file.
+ *
+ * Actions reference nodes by their ids. Ids that are created after the map was
+ * written are recorded with the path of their node, so that the replay gives
+ * the nodes the same ids.
+ */
+public class MapJournal implements ActionHandler {
+
+	private static final String HEADER = "FreeMind journal 1 ";
+
+	private static final String ACTION_RECORD = "A ";
+
+	private static final String ID_RECORD = "I ";
+
+	/** The map is written completely, if the journal is larger than this part of it. */
+	private static final int COMPACTION_DIVISOR = 4;
+
+	private static final long MINIMAL_COMPACTION_SIZE = 64 * 1024;
+
+	private static java.util.logging.Logger logger = null;
+
+	private final MindMapMapModel mModel;
+
+	private final MindMapController mController;
+
+	/** The map file the journal belongs to. Null, if it wasn't written yet. */
+	private File mBaseFile = null;
+
+	private long mBaseLength;
+
+	private long mBaseChecksum;
+
+	/** Records not yet appended to the journal file. */
+	private Vector mPendingRecords = new Vector();
+
+	/** Nodes that got an id since the last action. */
+	private Vector mRegisteredNodes = new Vector();
+
+	private boolean mRecording = true;
+
+	public MapJournal(MindMapMapModel pModel, MindMapController pController) {
+		if (logger == null) {
+			logger = Resources.getInstance().getLogger(
+					this.getClass().getName());
+		}
+		mModel = pModel;
+		mController = pController;
+	}
+
+	public static File getJournalFile(File pMapFile) {
+		return new File(pMapFile.getAbsoluteFile().getParentFile(),
+				pMapFile.getName() + ".journal");
+	}
+
+	public void executeAction(XmlAction pAction) {
+		// undo actions execute their contained action, which is recorded then.
+		if (!mRecording || pAction instanceof UndoXmlAction) {
+			return;
+		}
+		flushRegisteredNodes();
+		String xml = mController.marshall(pAction);
+		mPendingRecords.add(ACTION_RECORD + xml.length() + "\n" + xml + "\n");
+	}
+
+	public void startTransaction(String pName) {
+	}
+
+	public void endTransaction(String pName) {
+	}
+
+	/**
+	 * Called by the link registry of the map, if a node got an id.
+	 */
+	public void nodeRegistered(MindMapNode pNode) {
+		if (mRecording) {
+			mRegisteredNodes.add(pNode);
+		}
+	}
+
+	/**
+	 * The map is going to be loaded. The ids of the loaded nodes are not
+	 * recorded.
+	 */
+	public void stopRecording() {
+		mRecording = false;
+	}
+
+	/**
+	 * @return false, if the map has to be written completely to the given
+	 *         file instead of appending to its journal.
+	 */
+	public boolean canAppend(File pFile) {
+		if (mBaseFile == null || !mBaseFile.equals(pFile)
+				|| !isApplicable() || pFile.length() != mBaseLength) {
+			return false;
+		}
+		File journalFile = getJournalFile(pFile);
+		if (journalFile.length() > Math.max(MINIMAL_COMPACTION_SIZE,
+				mBaseLength / COMPACTION_DIVISOR)) {
+			logger.info("Journal " + journalFile + " is compacted.");
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Appends the pending actions to the journal of the given map file. Must
+	 * only be called, if {@link #canAppend(File)} is true.
+	 *
+	 * @return false, if the map has to be written completely instead.
+	 */
+	public boolean save(File pFile) {
+		File journalFile = getJournalFile(pFile);
+		long journalLength = journalFile.length();
+		flushRegisteredNodes();
+		try {
+			FileOutputStream out = new FileOutputStream(journalFile, true);
+			try {
+				Writer writer = new BufferedWriter(new OutputStreamWriter(out,
+						"UTF-8"));
+				if (journalLength == 0) {
+					writer.write(HEADER + mBaseLength + " " + mBaseChecksum
+							+ "\n");
+				}
+				for (Iterator it = mPendingRecords.iterator(); it.hasNext();) {
+					writer.write((String) it.next());
+				}
+				writer.flush();
+				out.getFD().sync();
+			} finally {
+				out.close();
+			}
+		} catch (IOException e) {
+			freemind.main.Resources.getInstance().logException(e);
+			return false;
+		}
+		mPendingRecords.clear();
+		return true;
+	}
+
+	/**
+	 * The map was written completely to pFile, thus the journal is started
+	 * again.
+	 */
+	public void baseWritten(File pFile) {
+		getJournalFile(pFile).delete();
+		mPendingRecords.clear();
+		mRegisteredNodes.clear();
+		setBase(pFile);
+		mRecording = true;
+	}
+
+	/**
+	 * @return true, if the map has a journal that should be written into the
+	 *         map file.
+	 */
+	public boolean needsCompaction() {
+		return mBaseFile != null
+				&& (getJournalFile(mBaseFile).exists() || !mPendingRecords
+						.isEmpty());
+	}
+
+	/**
+	 * Replays the journal of the just loaded map file, if present.
+	 *
+	 * @return false, if the journal couldn't be replayed completely.
+	 */
+	public boolean replay(File pFile) {
+		mPendingRecords.clear();
+		mRegisteredNodes.clear();
+		setBase(pFile);
+		File journalFile = getJournalFile(pFile);
+		boolean complete = true;
+		if (journalFile.exists()) {
+			try {
+				if (mBaseFile == null) {
+					throw new IOException("Map of the journal " + journalFile
+							+ " can't be read.");
+				}
+				complete = replayJournal(journalFile);
+			} catch (IOException e) {
+				freemind.main.Resources.getInstance().logException(e);
+				// nothing is appended, the journal is removed by the next
+				// complete save.
+				mBaseFile = null;
+				complete = false;
+			}
+		}
+		mRecording = true;
+		return complete;
+	}
+
+	/**
+	 * @return false, if actions of the journal failed.
+	 */
+	private boolean replayJournal(File pJournalFile) throws IOException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(
+				new FileInputStream(pJournalFile), "UTF-8"));
+		try {
+			String header = reader.readLine();
+			if (header == null
+					|| !header.equals(HEADER + mBaseLength + " "
+							+ mBaseChecksum)) {
+				throw new IOException("Journal " + pJournalFile
+						+ " doesn't belong to the map.");
+			}
+			int actions = 0;
+			int failures = 0;
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.startsWith(ACTION_RECORD)) {
+					char[] xml = new char[Integer.parseInt(line
+							.substring(ACTION_RECORD.length()))];
+					int read = 0;
+					while (read < xml.length) {
+						int count = reader.read(xml, read, xml.length - read);
+						if (count < 0) {
+							break;
+						}
+						read += count;
+					}
+					if (read < xml.length || reader.readLine() == null) {
+						throw new IOException("Journal " + pJournalFile
+								+ " is truncated after " + actions
+								+ " actions.");
+					}
+					actions++;
+					if (!act(new String(xml))) {
+						failures++;
+					}
+				} else if (line.startsWith(ID_RECORD)) {
+					setId(line.substring(ID_RECORD.length()));
+				} else {
+					throw new IOException("Unknown journal record " + line);
+				}
+			}
+			logger.info("Replayed " + actions + " actions from " + pJournalFile
+					+ ", " + failures + " failed.");
+			return failures == 0;
+		} finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * The actors are invoked directly. Thus, neither the undo list nor the
+	 * other action handlers notice the replay.
+	 */
+	private boolean act(String pXml) {
+		try {
+			XmlAction action = mController.unMarshall(pXml);
+			mController.getActionFactory().getActor(action).act(action);
+			return true;
+		} catch (Exception e) {
+			// the action failed when it was performed, too.
+			freemind.main.Resources.getInstance().logException(e);
+			return false;
+		}
+	}
+
+	private void setId(String pRecord) {
+		int separator = pRecord.lastIndexOf(' ');
+		String id = pRecord.substring(separator + 1);
+		MindMapNode node = getNode(pRecord.substring(0, separator));
+		if (node == null) {
+			logger.warning("Node for id " + id + " not found.");
+			return;
+		}
+		MindMapLinkRegistry registry = mModel.getLinkRegistry();
+		String label = registry.getLabel(node);
+		if (id.equals(label)) {
+			return;
+		}
+		if (label != null) {
+			registry.deregisterLinkTarget(node);
+		}
+		registry.registerLinkTarget(node, id);
+	}
+
+	private void flushRegisteredNodes() {
+		MindMapLinkRegistry registry = mModel.getLinkRegistry();
+		for (Iterator it = mRegisteredNodes.iterator(); it.hasNext();) {
+			MindMapNode node = (MindMapNode) it.next();
+			String label = registry.getLabel(node);
+			String path = getPath(node);
+			if (label != null && path != null) {
+				mPendingRecords.add(ID_RECORD + path + " " + label + "\n");
+			}
+		}
+		mRegisteredNodes.clear();
+	}
+
+	/**
+	 * @return the child indices from the root to the node separated by '/' or
+	 *         null, if the node isn't part of the map.
+	 */
+	private String getPath(MindMapNode pNode) {
+		StringBuffer path = new StringBuffer();
+		MindMapNode node = pNode;
+		while (node.getParentNode() != null) {
+			MindMapNode parent = node.getParentNode();
+			int position = parent.getChildPosition(node);
+			if (position < 0) {
+				return null;
+			}
+			path.insert(0, position);
+			if (parent.getParentNode() != null) {
+				path.insert(0, '/');
+			}
+			node = parent;
+		}
+		if (node != mModel.getRootNode()) {
+			return null;
+		}
+		return path.toString();
+	}
+
+	private MindMapNode getNode(String pPath) {
+		MindMapNode node = mModel.getRootNode();
+		StringTokenizer tokens = new StringTokenizer(pPath, "/");
+		while (tokens.hasMoreTokens()) {
+			int position = Integer.parseInt(tokens.nextToken());
+			if (position >= node.getChildCount()) {
+				return null;
+			}
+			node = (MindMapNode) node.getChildAt(position);
+		}
+		return node;
+	}
+
+	/**
+	 * The journal relies on saved ids.
+	 */
+	private boolean isApplicable() {
+		return !Resources.getInstance().getBoolProperty(
+				FreeMindCommon.SAVE_ONLY_INTRISICALLY_NEEDED_IDS);
+	}
+
+	private void setBase(File pFile) {
+		try {
+			mBaseChecksum = getChecksum(pFile);
+			mBaseLength = pFile.length();
+			mBaseFile = pFile;
+		} catch (IOException e) {
+			freemind.main.Resources.getInstance().logException(e);
+			mBaseFile = null;
+		}
+	}
+
+	private static long getChecksum(File pFile) throws IOException {
+		CRC32 crc = new CRC32();
+		InputStream in = new CheckedInputStream(new BufferedInputStream(
+				new FileInputStream(pFile)), crc);
+		try {
+			byte[] buffer = new byte[8192];
+			while (in.read(buffer) >= 0) {
+			}
+		} finally {
+			in.close();
+		}
+		return crc.getValue();
+	}
+
+}
@@ -0,0 +1,433 @@
+/*FreeMind - A Program for creating and viewing Mindmaps
+ *Copyright (C) 2000-2012 Joerg Mueller, Daniel Polansky, Christian Foltin, Dimitri Polivaev and others.
+ *
+ *See COPYING for Details
+ *
+ *This program is free software; you can redistribute it and/or
+ *modify it under the terms of the GNU General Public License
+ *as published by the Free Software Foundation; either version 2
+ *of the License, or (at your option) any later version.
+ *
+ *This program is distributed in the hope that it will be useful,
+ *but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *GNU General Public License for more details.
+ *
+ *You should have received a copy of the GNU General Public License
+ *along with this program; if not, write to the Free Software
+ *Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package freemind.modes.mindmapmode;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.ListIterator;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.transform.Source;
+import javax.xml.transform.sax.SAXSource;
+import javax.xml.transform.stream.StreamSource;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.DTDHandler;
+import org.xml.sax.EntityResolver;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXNotRecognizedException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.ext.LexicalHandler;
+import org.xml.sax.helpers.AttributesImpl;
+
+import freemind.main.FreeMind;
+import freemind.main.XMLElement;
+import freemind.modes.MindMap;
+import freemind.modes.MindMapLinkRegistry;
+import freemind.modes.NodeAdapter;
+
+/**
+ * Delivers a map as SAX events, directly from its nodes, such that a map can
+ * be transformed with XSLT without writing it into a string first. The events
+ * are the same as the ones of parsing the saved map (see
+ * {@link MindMapMapModel#getXml(java.io.Writer, boolean)}). The parts of the
+ * map that are kept as xml text (rich contents, attribute registry, children
+ * not yet loaded) are parsed on their own.
+ */
+public class MapXmlReader implements XMLReader {
+
+	private static final String NAMESPACES = "http://xml.org/sax/features/namespaces";
+
+	private static final String NAMESPACE_PREFIXES = "http://xml.org/sax/features/namespace-prefixes";
+
+	private static final String LEXICAL_HANDLER = "http://xml.org/sax/properties/lexical-handler";
+
+	private static final String FRAGMENT = "fragment";
+
+	private static final char[] NEWLINE = new char[] { '\n' };
+
+	private static final String MAP_COMMENT = " To view this file, download free mind mapping software FreeMind from http://freemind.sourceforge.net ";
+
+	/**
+	 * Forwards the events of a parsed xml text, without the document and the
+	 * element around the text.
+	 */
+	private class FragmentHandler implements ContentHandler, LexicalHandler {
+		private int mDepth = 0;
+
+		public void setDocumentLocator(Locator pLocator) {
+		}
+
+		public void startDocument() {
+			mDepth = 0;
+		}
+
+		public void endDocument() {
+		}
+
+		public void startPrefixMapping(String pPrefix, String pUri)
+				throws SAXException {
+			mContentHandler.startPrefixMapping(pPrefix, pUri);
+		}
+
+		public void endPrefixMapping(String pPrefix) throws SAXException {
+			mContentHandler.endPrefixMapping(pPrefix);
+		}
+
+		public void startElement(String pUri, String pLocalName,
+				String pQName, Attributes pAttributes) throws SAXException {
+			if (mDepth++ > 0) {
+				mContentHandler.startElement(pUri, pLocalName, pQName,
+						pAttributes);
+			}
+		}
+
+		public void endElement(String pUri, String pLocalName, String pQName)
+				throws SAXException {
+			if (--mDepth > 0) {
+				mContentHandler.endElement(pUri, pLocalName, pQName);
+			}
+		}
+
+		public void characters(char[] pCh, int pStart, int pLength)
+				throws SAXException {
+			mContentHandler.characters(pCh, pStart, pLength);
+		}
+
+		public void ignorableWhitespace(char[] pCh, int pStart, int pLength)
+				throws SAXException {
+			mContentHandler.ignorableWhitespace(pCh, pStart, pLength);
+		}
+
+		public void processingInstruction(String pTarget, String pData)
+				throws SAXException {
+			mContentHandler.processingInstruction(pTarget, pData);
+		}
+
+		public void skippedEntity(String pName) throws SAXException {
+			mContentHandler.skippedEntity(pName);
+		}
+
+		public void comment(char[] pCh, int pStart, int pLength)
+				throws SAXException {
+			if (mLexicalHandler != null) {
+				mLexicalHandler.comment(pCh, pStart, pLength);
+			}
+		}
+
+		public void startCDATA() throws SAXException {
+			if (mLexicalHandler != null) {
+				mLexicalHandler.startCDATA();
+			}
+		}
+
+		public void endCDATA() throws SAXException {
+			if (mLexicalHandler != null) {
+				mLexicalHandler.endCDATA();
+			}
+		}
+
+		public void startDTD(String pName, String pPublicId, String pSystemId) {
+		}
+
+		public void endDTD() {
+		}
+
+		public void startEntity(String pName) {
+		}
+
+		public void endEntity(String pName) {
+		}
+	}
+
+	private final MindMapMapModel mMap;
+
+	private final boolean mSaveInvisible;
+
+	private ContentHandler mContentHandler = null;
+
+	private LexicalHandler mLexicalHandler = null;
+
+	private DTDHandler mDTDHandler = null;
+
+	private EntityResolver mEntityResolver = null;
+
+	private ErrorHandler mErrorHandler = null;
+
+	private boolean mNamespacePrefixes = false;
+
+	private XMLReader mFragmentReader = null;
+
+	private MindMapLinkRegistry mRegistry;
+
+	/**
+	 * @param pSaveInvisible
+	 *            false for the nodes visible with the current filter only.
+	 */
+	public MapXmlReader(MindMapMapModel pMap, boolean pSaveInvisible) {
+		mMap = pMap;
+		mSaveInvisible = pSaveInvisible;
+	}
+
+	/**
+	 * @return the map as a source of a transformation. The maps of other
+	 *         modes are written into a string.
+	 */
+	public static Source createSource(MindMap pMap, boolean pSaveInvisible)
+			throws IOException {
+		if (pMap instanceof MindMapMapModel) {
+			return new SAXSource(new MapXmlReader((MindMapMapModel) pMap,
+					pSaveInvisible), new InputSource());
+		}
+		StringWriter writer = new StringWriter();
+		if (pSaveInvisible) {
+			pMap.getXml(writer);
+		} else {
+			pMap.getFilteredXml(writer);
+		}
+		return new StreamSource(new StringReader(writer.toString()));
+	}
+
+	public boolean getFeature(String pName) throws SAXNotRecognizedException {
+		if (NAMESPACES.equals(pName)) {
+			return true;
+		}
+		if (NAMESPACE_PREFIXES.equals(pName)) {
+			return mNamespacePrefixes;
+		}
+		throw new SAXNotRecognizedException(pName);
+	}
+
+	public void setFeature(String pName, boolean pValue)
+			throws SAXNotRecognizedException {
+		if (NAMESPACE_PREFIXES.equals(pName)) {
+			mNamespacePrefixes = pValue;
+		} else if (!NAMESPACES.equals(pName) || !pValue) {
+			throw new SAXNotRecognizedException(pName);
+		}
+	}
+
+	public Object getProperty(String pName) throws SAXNotRecognizedException {
+		if (LEXICAL_HANDLER.equals(pName)) {
+			return mLexicalHandler;
+		}
+		throw new SAXNotRecognizedException(pName);
+	}
+
+	public void setProperty(String pName, Object pValue)
+			throws SAXNotRecognizedException {
+		if (!LEXICAL_HANDLER.equals(pName)) {
+			throw new SAXNotRecognizedException(pName);
+		}
+		mLexicalHandler = (LexicalHandler) pValue;
+	}
+
+	public void setEntityResolver(EntityResolver pResolver) {
+		mEntityResolver = pResolver;
+	}
+
+	public EntityResolver getEntityResolver() {
+		return mEntityResolver;
+	}
+
+	public void setDTDHandler(DTDHandler pHandler) {
+		mDTDHandler = pHandler;
+	}
+
+	public DTDHandler getDTDHandler() {
+		return mDTDHandler;
+	}
+
+	public void setContentHandler(ContentHandler pHandler) {
+		mContentHandler = pHandler;
+	}
+
+	public ContentHandler getContentHandler() {
+		return mContentHandler;
+	}
+
+	public void setErrorHandler(ErrorHandler pHandler) {
+		mErrorHandler = pHandler;
+	}
+
+	public ErrorHandler getErrorHandler() {
+		return mErrorHandler;
+	}
+
+	public void parse(String pSystemId) throws IOException, SAXException {
+		parse(new InputSource(pSystemId));
+	}
+
+	/**
+	 * The input source is ignored, the events are always the ones of the map.
+	 */
+	public void parse(InputSource pInput) throws IOException, SAXException {
+		if (mContentHandler == null) {
+			throw new SAXException("No content handler set.");
+		}
+		mRegistry = mMap.getLinkRegistry();
+		mContentHandler.startDocument();
+		AttributesImpl mapAttributes = new AttributesImpl();
+		mapAttributes.addAttribute("", "version", "version", "CDATA",
+				FreeMind.XML_VERSION);
+		mContentHandler.startElement("", "map", "map", mapAttributes);
+		newline();
+		if (mLexicalHandler != null) {
+			mLexicalHandler.comment(MAP_COMMENT.toCharArray(), 0,
+					MAP_COMMENT.length());
+		}
+		newline();
+		StringWriter registry = new StringWriter();
+		mMap.getRegistry().save(registry);
+		parseFragment(registry.toString());
+		saveNode((NodeAdapter) mMap.getRootNode());
+		mContentHandler.endElement("", "map", "map");
+		mContentHandler.endDocument();
+	}
+
+	/**
+	 * As {@link NodeAdapter#save(java.io.Writer, MindMapLinkRegistry, boolean, boolean)}.
+	 */
+	private void saveNode(NodeAdapter pNode) throws IOException, SAXException {
+		pNode.getModeController().firePreSaveEvent(pNode);
+		XMLElement element = pNode.createXmlElement(mRegistry);
+		if (mSaveInvisible && pNode.hasPendingChildren()) {
+			// never accessed, thus unchanged:
+			writeElement(element, false);
+			parseFragment(pNode.getPendingChildren());
+			writeClosingTag(element);
+		} else if (pNode.childrenUnfolded().hasNext()) {
+			writeElement(element, false);
+			saveChildren(pNode);
+			writeClosingTag(element);
+		} else {
+			writeElement(element, true);
+		}
+	}
+
+	/**
+	 * As {@link NodeAdapter#saveAsChild(java.io.Writer, MindMapLinkRegistry, boolean, boolean)}.
+	 */
+	private void saveChildren(NodeAdapter pNode) throws IOException,
+			SAXException {
+		for (ListIterator it = pNode.childrenUnfolded(); it.hasNext();) {
+			NodeAdapter child = (NodeAdapter) it.next();
+			if (mSaveInvisible || child.isVisible()) {
+				saveNode(child);
+			} else {
+				saveChildren(child);
+			}
+		}
+	}
+
+	/**
+	 * As {@link XMLElement#write(java.io.Writer, boolean)}.
+	 */
+	private void writeElement(XMLElement pElement, boolean pWithClosingTag)
+			throws IOException, SAXException {
+		String content = pElement.getContent();
+		if (pElement.getName() == null) {
+			writeContent(pElement, content);
+			return;
+		}
+		AttributesImpl attributes = new AttributesImpl();
+		for (Iterator it = pElement.enumerateAttributeNames(); it.hasNext();) {
+			String name = (String) it.next();
+			attributes.addAttribute("", name, name, "CDATA", pElement
+					.getStringAttribute(name));
+		}
+		mContentHandler.startElement("", pElement.getName(), pElement
+				.getName(), attributes);
+		if (content != null && content.length() > 0) {
+			writeContent(pElement, content);
+			if (pWithClosingTag) {
+				writeClosingTag(pElement);
+			}
+		} else if (pElement.countChildren() == 0) {
+			if (pWithClosingTag) {
+				mContentHandler.endElement("", pElement.getName(), pElement
+						.getName());
+			}
+			newline();
+		} else {
+			newline();
+			for (Enumeration e = pElement.enumerateChildren(); e
+					.hasMoreElements();) {
+				writeElement((XMLElement) e.nextElement(), true);
+			}
+			if (pWithClosingTag) {
+				writeClosingTag(pElement);
+			}
+		}
+	}
+
+	private void writeContent(XMLElement pElement, String pContent)
+			throws IOException, SAXException {
+		if (pElement.isEncodedContent()) {
+			parseFragment(pContent);
+		} else {
+			mContentHandler.characters(pContent.toCharArray(), 0, pContent
+					.length());
+		}
+	}
+
+	private void writeClosingTag(XMLElement pElement) throws SAXException {
+		mContentHandler.endElement("", pElement.getName(), pElement.getName());
+		newline();
+	}
+
+	private void newline() throws SAXException {
+		mContentHandler.characters(NEWLINE, 0, NEWLINE.length);
+	}
+
+	private void parseFragment(String pXml) throws IOException, SAXException {
+		if (pXml == null || pXml.length() == 0) {
+			return;
+		}
+		if (mFragmentReader == null) {
+			SAXParserFactory factory = SAXParserFactory.newInstance();
+			factory.setNamespaceAware(true);
+			try {
+				mFragmentReader = factory.newSAXParser().getXMLReader();
+			} catch (ParserConfigurationException e) {
+				throw new SAXException(e);
+			}
+			FragmentHandler handler = new FragmentHandler();
+			mFragmentReader.setFeature(NAMESPACE_PREFIXES, mNamespacePrefixes);
+			mFragmentReader.setContentHandler(handler);
+			mFragmentReader.setProperty(LEXICAL_HANDLER, handler);
+			if (mErrorHandler != null) {
+				mFragmentReader.setErrorHandler(mErrorHandler);
+			}
+		}
+		mFragmentReader.parse(new InputSource(new StringReader("<" + FRAGMENT
+				+ ">" + pXml + "</" + FRAGMENT + ">")));
+	}
+
+}
@@ -1068,8 +1068,8 @@ public class MindMapController extends ControllerAdapter implements
 			HashSet NodeAlreadyVisited = new HashSet();
 			NodeAlreadyVisited.add(link.getSource());
 			NodeAlreadyVisited.add(link.getTarget());
-			Vector links = getMindMapMapModel().getLinkRegistry().getAllLinks(
-					link.getSource());
+			Vector links = new Vector(getMindMapMapModel().getLinkRegistry()
+					.getAllLinks(link.getSource()));
 			links.addAll(getMindMapMapModel().getLinkRegistry().getAllLinks(
 					link.getTarget()));
 			for (int i = 0; i < links.size(); ++i) {
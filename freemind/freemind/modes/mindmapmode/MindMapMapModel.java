@@ -59,6 +59,7 @@ import freemind.main.HtmlTools;
 import freemind.main.Resources;
 import freemind.main.Tools;
 import freemind.main.XMLParseException;
+import freemind.modes.FileWatcher;
 import freemind.modes.LinkRegistryAdapter;
 import freemind.modes.MapAdapter;
 import freemind.modes.MindMapLinkRegistry;
@@ -74,6 +75,9 @@ public class MindMapMapModel extends MapAdapter {
 	LockManager lockManager;
 	private MindMapLinkRegistry linkRegistry;
 	private Timer timerForAutomaticSaving;
+	private long lastAutomaticSavePause = 0;
+	private long lastAutomaticSaveBytes = 0;
+	private MapJournal mJournal = null;
 	/**
 	 * The current version and all other version that don't need XML update for
 	 * sure.
@@ -98,7 +102,25 @@ public class MindMapMapModel extends MapAdapter {
 				: new DummyLockManager();
 
 		// register new LinkRegistryAdapter
-		linkRegistry = new LinkRegistryAdapter();
+		linkRegistry = new LinkRegistryAdapter() {
+			public ID_Registered _registerLinkTarget(MindMapNode pTarget,
+					String pProposedID) {
+				boolean isNew = mJournal != null && getLabel(pTarget) == null;
+				ID_Registered state = super._registerLinkTarget(pTarget,
+						pProposedID);
+				if (isNew) {
+					mJournal.nodeRegistered(pTarget);
+				}
+				return state;
+			}
+		};
+		if (Resources.getInstance().getBoolProperty(
+				FreeMind.RESOURCES_USE_SAVE_JOURNAL)
+				&& modeController instanceof MindMapController) {
+			MindMapController mindMapController = (MindMapController) modeController;
+			mJournal = new MapJournal(this, mindMapController);
+			mindMapController.getActionFactory().registerHandler(mJournal);
+		}
 
 		if (root == null)
 			root = new MindMapNodeModel(frame.getResourceString("new_mindmap"),
@@ -260,7 +282,25 @@ public class MindMapMapModel extends MapAdapter {
 	public boolean save(File file) {
 		boolean result;
 		synchronized (this) {
-			result = saveInternal(file, false);
+			boolean appended = false;
+			if (mJournal != null && !readOnly && mJournal.canAppend(file)) {
+				// like saveInternal, to commit pending changes of the nodes:
+				firePreSaveEvents(getRootNode());
+				appended = mJournal.save(file);
+			}
+			if (appended) {
+				// only the changes were appended to the journal.
+				setSaved(true);
+				result = true;
+			} else {
+				result = saveInternal(file, false);
+				if (result && mJournal != null) {
+					mJournal.baseWritten(file);
+				} else if (result) {
+					// a journal left from before it was switched off:
+					MapJournal.getJournalFile(file).delete();
+				}
+			}
 			// TODO: Set only, when ok?
 			if (result) {
 				setFileTime();
@@ -269,6 +309,21 @@ public class MindMapMapModel extends MapAdapter {
 		return result;
 	}
 
+	/**
+	 * Fires the pre save events for all nodes, that are saved, as
+	 * {@link NodeAdapter#save} does.
+	 */
+	private void firePreSaveEvents(MindMapNode pNode) {
+		getModeController().firePreSaveEvent(pNode);
+		if (((NodeAdapter) pNode).hasPendingChildren()) {
+			// never accessed, thus unchanged.
+			return;
+		}
+		for (ListIterator it = pNode.childrenUnfolded(); it.hasNext();) {
+			firePreSaveEvents((MindMapNode) it.next());
+		}
+	}
+
 	/**
 	 * This method is intended to provide both normal save routines and saving
 	 * of temporary (internal) files.
@@ -331,7 +386,15 @@ public class MindMapMapModel extends MapAdapter {
 		fileout.write(">\n");
 		fileout.write("<!-- To view this file, download free mind mapping software FreeMind from http://freemind.sourceforge.net -->\n");
 		getRegistry().save(fileout);
-		pRootNode.save(fileout, this.getLinkRegistry(), saveInvisible, true);
+		if (pRootNode == getRootNode()
+				&& Resources.getInstance().getBoolProperty(
+						FreeMind.RESOURCES_USE_PARALLEL_MAP_SERIALIZER)) {
+			new ParallelMapSerializer((NodeAdapter) pRootNode,
+					this.getLinkRegistry(), saveInvisible).save(fileout);
+		} else {
+			pRootNode.save(fileout, this.getLinkRegistry(), saveInvisible,
+					true);
+		}
 		fileout.write("</map>\n");
 		fileout.close();
 	}
@@ -406,17 +469,54 @@ public class MindMapMapModel extends MapAdapter {
 		}
 
 		synchronized (this) {
-			MindMapNodeModel root = loadTree(file);
+			MapJournal journal = mJournal;
+			boolean compact = false;
+			if (journal == null && MapJournal.getJournalFile(file).exists()
+					&& getModeController() instanceof MindMapController) {
+				// the journal was switched off, but its changes must not get
+				// lost:
+				journal = new MapJournal(this,
+						(MindMapController) getModeController());
+				compact = true;
+			}
+			if (journal != null) {
+				journal.stopRecording();
+			}
+			MindMapNodeModel root = loadTree(new FileReaderCreator(file),
+					true, Resources.getInstance().getBoolProperty(
+							FreeMind.RESOURCES_LAZY_LOAD_FOLDED_SUBTREES));
 			if (root != null) {
 				setRoot(root);
 			}
 			setFile(file);
 			setFileTime();
+			if (journal != null && !journal.replay(file)) {
+				// the journal is kept, until the map is saved.
+				compact = false;
+				getModeController().getController().errorMessage(
+						Tools.expandPlaceholders(
+								getText("journal_replay_incomplete"),
+								MapJournal.getJournalFile(file).getPath(),
+								file.getName()));
+			}
+			if (compact && !readOnly && saveInternal(file, false)) {
+				MapJournal.getJournalFile(file).delete();
+			}
 		}
 	}
 
 	/** When a map is closed, this method is called. */
 	public void destroy() {
+		if (mJournal != null) {
+			// write the journal into the map, if there are no unsaved changes.
+			if (isSaved() && !readOnly && getFile() != null
+					&& mJournal.needsCompaction()
+					&& saveInternal(getFile(), false)) {
+				mJournal.baseWritten(getFile());
+			}
+			((MindMapController) getModeController()).getActionFactory()
+					.deregisterHandler(mJournal);
+		}
 		super.destroy();
 		lockManager.releaseLock();
 		lockManager.releaseTimer();
@@ -448,7 +548,7 @@ public class MindMapMapModel extends MapAdapter {
 		}
 	}
 
-	private static class FileReaderCreator implements ReaderCreator {
+	public static class FileReaderCreator implements ReaderCreator {
 		private final File mFile;
 
 		public FileReaderCreator(File pFile) {
@@ -475,6 +575,18 @@ public class MindMapMapModel extends MapAdapter {
 
 	public MindMapNodeModel loadTree(ReaderCreator pReaderCreator,
 			boolean pAskUserBeforeUpdate) throws XMLParseException, IOException {
+		return loadTree(pReaderCreator, pAskUserBeforeUpdate, false);
+	}
+
+	/**
+	 * @param pDeferFoldedChildren
+	 *            if true, the children of folded nodes are created when they
+	 *            are accessed the first time. Only for maps that are opened,
+	 *            as the kept xml text contains the original ids.
+	 */
+	public MindMapNodeModel loadTree(ReaderCreator pReaderCreator,
+			boolean pAskUserBeforeUpdate, boolean pDeferFoldedChildren)
+			throws XMLParseException, IOException {
 		int versionInfoLength;
 		versionInfoLength = EXPECTED_START_STRINGS[0].length();
 		// reading the start of the file:
@@ -526,7 +638,7 @@ public class MindMapMapModel extends MapAdapter {
 		try {
 			HashMap IDToTarget = new HashMap();
 			return (MindMapNodeModel) mModeController.createNodeTreeFromXml(
-					reader, IDToTarget);
+					reader, IDToTarget, pDeferFoldedChildren);
 			// MindMapXMLElement mapElement = new
 			// MindMapXMLElement(mModeController);
 			// mapElement.parseFromReader(reader);
@@ -609,9 +721,39 @@ public class MindMapMapModel extends MapAdapter {
 				filesShouldBeDeletedAfterShutdown, dirToStore), delay, delay);
 	}
 
+	/**
+	 * Records the figures of a background automatic save.
+	 * 
+	 * @param pPause
+	 *            milliseconds the event dispatch thread was blocked.
+	 * @param pBytes
+	 *            size of the written file.
+	 */
+	private synchronized void automaticSavePerformed(long pPause, long pBytes) {
+		lastAutomaticSavePause = pPause;
+		lastAutomaticSaveBytes = pBytes;
+		logger.info("Automatic save: " + pBytes + " bytes written, UI paused "
+				+ pPause + " ms.");
+	}
+
+	/**
+	 * @return milliseconds the last background automatic save blocked the user
+	 *         interface.
+	 */
+	public synchronized long getLastAutomaticSavePause() {
+		return lastAutomaticSavePause;
+	}
+
+	/**
+	 * @return bytes written by the last background automatic save.
+	 */
+	public synchronized long getLastAutomaticSaveBytes() {
+		return lastAutomaticSaveBytes;
+	}
+
 	private class LockManager extends TimerTask {
 		File lockedSemaphoreFile = null;
-		Timer lockTimer = null;
+		boolean isScheduled = false;
 		final long lockUpdatePeriod = 4 * 60 * 1000; // four minutes
 		final long lockSafetyPeriod = 5 * 60 * 1000; // five minutes
 		String lockingUserOfOldLock = null;
@@ -689,9 +831,11 @@ public class MindMapMapModel extends MapAdapter {
 
 			writeSemaphoreFile(semaphoreFile);
 
-			if (lockTimer == null) {
-				lockTimer = new Timer();
-				lockTimer.schedule(this, lockUpdatePeriod, lockUpdatePeriod);
+			if (!isScheduled) {
+				// the timer is shared with the watcher of the map files:
+				FileWatcher.getInstance().schedule(this, lockUpdatePeriod,
+						lockUpdatePeriod);
+				isScheduled = true;
 			}
 			releaseLock();
 			lockedSemaphoreFile = semaphoreFile;
@@ -706,10 +850,7 @@ public class MindMapMapModel extends MapAdapter {
 		} // this may fail, TODO: ensure real deletion
 
 		public synchronized void releaseTimer() {
-			if (lockTimer != null) {
-				lockTimer.cancel();
-				lockTimer = null;
-			}
+			cancel();
 		}
 
 		public synchronized void run() { // update semaphore file
@@ -785,32 +926,19 @@ public class MindMapMapModel extends MapAdapter {
 				/* map was recently saved. */
 				return;
 			}
+			if (Resources.getInstance().getBoolProperty(
+					FreeMind.RESOURCES_AUTOMATIC_SAVE_IN_BACKGROUND)) {
+				saveInBackground();
+				return;
+			}
 			try {
 				cancel();
 				EventQueue.invokeAndWait(new Runnable() {
 					public void run() {
 						/* Now, it is dirty, we save it. */
-						File tempFile;
-						if (tempFileStack.size() >= numberOfFiles)
-							tempFile = (File) tempFileStack.remove(0); // pop
-						else {
-							try {
-								tempFile = File.createTempFile(
-										"FM_"
-												+ ((model.toString() == null) ? "unnamed"
-														: model.toString()),
-										freemind.main.FreeMindCommon.FREEMIND_FILE_EXTENSION,
-										pathToStore);
-								if (filesShouldBeDeletedAfterShutdown)
-									tempFile.deleteOnExit();
-							} catch (Exception e) {
-								System.err
-										.println("Error in automatic MindMapMapModel.save(): "
-												+ e.getMessage());
-								freemind.main.Resources.getInstance()
-										.logException(e);
-								return;
-							}
+						File tempFile = getNextTempFile();
+						if (tempFile == null) {
+							return;
 						}
 						try {
 							model.saveInternal(tempFile, true /* =internal call */);
@@ -836,5 +964,127 @@ public class MindMapMapModel extends MapAdapter {
 				freemind.main.Resources.getInstance().logException(e);
 			}
 		}
+
+		/**
+		 * The map is serialized in this timer thread, while the user may go on
+		 * editing. The number of changes is read on the event dispatch thread
+		 * before and after, so that no change is under way at either point. If
+		 * they differ, or the serialization fails because of a concurrent
+		 * change, the snapshot may be inconsistent and the map is serialized
+		 * once more on the event dispatch thread, as before. The snapshot is
+		 * written, forced to disk and renamed to the temp file in this timer
+		 * thread. The timer is kept, as saveInternal isn't involved.
+		 */
+		private void saveInBackground() {
+			final long[] pause = new long[1];
+			final int[] changes = new int[1];
+			if (!invokeAndWait(new Runnable() {
+				public void run() {
+					long start = System.currentTimeMillis();
+					changes[0] = model.getNumberOfChanges();
+					pause[0] += System.currentTimeMillis() - start;
+				}
+			})) {
+				return;
+			}
+			StringWriter backgroundSnapshot = new StringWriter();
+			boolean consistent = true;
+			try {
+				model.getXml(backgroundSnapshot);
+			} catch (Exception e) {
+				// changed meanwhile or really broken, see below.
+				logger.fine("Automatic save in background failed: " + e);
+				consistent = false;
+			}
+			final boolean[] unchanged = new boolean[] { consistent };
+			// a partial snapshot must not replace a good temp file:
+			final boolean[] failed = new boolean[1];
+			final StringWriter snapshot = new StringWriter();
+			if (!invokeAndWait(new Runnable() {
+				public void run() {
+					long start = System.currentTimeMillis();
+					if (unchanged[0]) {
+						unchanged[0] = (changes[0] == model.getNumberOfChanges());
+					}
+					if (!unchanged[0]) {
+						try {
+							model.getXml(snapshot);
+						} catch (IOException e) {
+							freemind.main.Resources.getInstance().logException(
+									e);
+							failed[0] = true;
+						}
+					}
+					pause[0] += System.currentTimeMillis() - start;
+				}
+			}) || failed[0]) {
+				return;
+			}
+			final File tempFile = getNextTempFile();
+			if (tempFile == null) {
+				return;
+			}
+			try {
+				final long bytes = Tools.writeFileAtomically(tempFile,
+						(unchanged[0] ? backgroundSnapshot : snapshot)
+								.toString());
+				model.automaticSavePerformed(pause[0], bytes);
+				EventQueue.invokeLater(new Runnable() {
+					public void run() {
+						model.getFrame().out(
+								Resources.getInstance().format(
+										"automatically_save_message_in_background",
+										new Object[] { tempFile.toString(),
+												new Long(bytes),
+												new Long(pause[0]) }));
+					}
+				});
+			} catch (Exception e) {
+				System.err.println("Error in automatic MindMapMapModel.save(): "
+						+ e.getMessage());
+				freemind.main.Resources.getInstance().logException(e);
+			}
+			tempFileStack.add(tempFile); // add at the back.
+		}
+
+		/**
+		 * @return false, if the runnable couldn't be run.
+		 */
+		private boolean invokeAndWait(Runnable pRunnable) {
+			try {
+				EventQueue.invokeAndWait(pRunnable);
+				return true;
+			} catch (InterruptedException e) {
+				freemind.main.Resources.getInstance().logException(e);
+			} catch (InvocationTargetException e) {
+				freemind.main.Resources.getInstance().logException(e);
+			}
+			return false;
+		}
+
+		/**
+		 * @return the oldest temp file, if there are already enough of them, or
+		 *         a new one. Null, if no file could be created.
+		 */
+		private File getNextTempFile() {
+			if (tempFileStack.size() >= numberOfFiles)
+				return (File) tempFileStack.remove(0); // pop
+			try {
+				File tempFile = File.createTempFile(
+						"FM_"
+								+ ((model.toString() == null) ? "unnamed"
+										: model.toString()),
+						freemind.main.FreeMindCommon.FREEMIND_FILE_EXTENSION,
+						pathToStore);
+				if (filesShouldBeDeletedAfterShutdown)
+					tempFile.deleteOnExit();
+				return tempFile;
+			} catch (Exception e) {
+				System.err.println("Error in automatic MindMapMapModel.save(): "
+						+ e.getMessage());
+				freemind.main.Resources.getInstance().logException(e);
+				return null;
+			}
+		}
 	}
 }
@@ -0,0 +1,320 @@
+/*FreeMind - A Program for creating and viewing Mindmaps
+ *Copyright (C) 2000-2012 Joerg Mueller, Daniel Polansky, Christian Foltin, Dimitri Polivaev and others.
+ *
+ *See COPYING for Details
+ *
+ *This program is free software; you can redistribute it and/or
+ *modify it under the terms of the GNU General Public License
+ *as published by the Free Software Foundation; either version 2
+ *of the License, or (at your option) any later version.
+ *
+ *This program is distributed in the hope that it will be useful,
+ *but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *GNU General Public License for more details.
+ *
+ *You should have received a copy of the GNU General Public License
+ *along with this program; if not, write to the Free Software
+ *Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package freemind.modes.mindmapmode;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ListIterator;
+import java.util.Vector;
+
+import freemind.main.XMLElement;
+import freemind.modes.MindMapLinkRegistry;
+import freemind.modes.NodeAdapter;
+
+/**
+ * Saves the top level branches of a map in parallel. Each branch is rendered
+ * into its own buffer by a worker thread and the buffers are written in the
+ * order of the branches. Thus, the output is the same as the one of
+ * {@link NodeAdapter#save(Writer, MindMapLinkRegistry, boolean, boolean)}.
+ *
+ * The pre save events are fired and the hooks are saved for all nodes in
+ * advance by the calling thread, thus the hooks are called in the event
+ * dispatch thread, if the map is saved there. Maps containing encrypted nodes,
+ * small maps and single processor machines are saved by the calling thread
+ * only.
+ * 
+ * The worker threads are started once and reused by all serializers.
+ */
+public class ParallelMapSerializer {
+
+	public static final int MINIMAL_NODE_COUNT = 2000;
+
+	private final NodeAdapter mRoot;
+
+	private final MindMapLinkRegistry mRegistry;
+
+	private final boolean mSaveInvisible;
+
+	private final int mMinimalNodeCount;
+
+	private final int mThreadCount;
+
+	/** The top level branches. */
+	private NodeAdapter[] mBranches;
+
+	/** Rendered branches that are not written yet. Guarded by this. */
+	private String[] mResults;
+
+	private int mNextBranch = 0;
+
+	private int mWrittenBranches = 0;
+
+	/** Set, if a worker failed or the writing is finished. */
+	private Throwable mError = null;
+
+	private boolean mFinished = false;
+
+	/** The nodes whose hooks were saved in advance. */
+	private Vector mNodesWithSavedHooks = new Vector();
+
+	/** Tasks for the worker threads. Guarded by itself. */
+	private static final Vector sTasks = new Vector();
+
+	private static int sWorkerCount = 0;
+
+	private static int sIdleWorkerCount = 0;
+
+	public ParallelMapSerializer(NodeAdapter pRoot,
+			MindMapLinkRegistry pRegistry, boolean pSaveInvisible) {
+		this(pRoot, pRegistry, pSaveInvisible, MINIMAL_NODE_COUNT, Runtime
+				.getRuntime().availableProcessors());
+	}
+
+	public ParallelMapSerializer(NodeAdapter pRoot,
+			MindMapLinkRegistry pRegistry, boolean pSaveInvisible,
+			int pMinimalNodeCount, int pThreadCount) {
+		mRoot = pRoot;
+		mRegistry = pRegistry;
+		mSaveInvisible = pSaveInvisible;
+		mMinimalNodeCount = pMinimalNodeCount;
+		mThreadCount = pThreadCount;
+	}
+
+	public void save(Writer pWriter) throws IOException {
+		Vector branches = new Vector();
+		for (ListIterator it = mRoot.childrenUnfolded(); it.hasNext();) {
+			branches.add(it.next());
+		}
+		int nodeCount = countNodes(mRoot);
+		if (nodeCount < 0 || nodeCount < mMinimalNodeCount
+				|| branches.size() < 2 || mThreadCount < 2) {
+			mRoot.save(pWriter, mRegistry, mSaveInvisible, true);
+			return;
+		}
+		mBranches = (NodeAdapter[]) branches.toArray(new NodeAdapter[branches
+				.size()]);
+		mResults = new String[mBranches.length];
+		mRoot.getModeController().firePreSaveEvent(mRoot);
+		XMLElement rootElement = mRoot.createXmlElement(mRegistry);
+		try {
+			firePreSaveEvents(mRoot);
+			int workerCount = Math.min(mThreadCount, mBranches.length);
+			for (int i = 0; i < workerCount; i++) {
+				execute(new Worker(), mThreadCount);
+			}
+			rootElement.writeWithoutClosingTag(pWriter);
+			for (int i = 0; i < mBranches.length; i++) {
+				pWriter.write(getResult(i));
+			}
+			rootElement.writeClosingTag(pWriter);
+		} finally {
+			synchronized (this) {
+				// stops the workers, if writing failed.
+				mFinished = true;
+				notifyAll();
+			}
+			for (int i = 0; i < mNodesWithSavedHooks.size(); i++) {
+				((NodeAdapter) mNodesWithSavedHooks.get(i))
+						.discardHooksSavedInAdvance();
+			}
+		}
+	}
+
+	/**
+	 * Runs the task in a worker thread. New workers are started, as long as
+	 * less than pMaximalWorkerCount exist and none of them is idle.
+	 */
+	private static void execute(Runnable pTask, int pMaximalWorkerCount) {
+		synchronized (sTasks) {
+			sTasks.add(pTask);
+			if (sIdleWorkerCount < sTasks.size()
+					&& sWorkerCount < pMaximalWorkerCount) {
+				Thread worker = new Thread(new Runnable() {
+					public void run() {
+						runTasks();
+					}
+				}, "MapSerializer-" + sWorkerCount);
+				worker.setDaemon(true);
+				worker.start();
+				++sWorkerCount;
+				++sIdleWorkerCount;
+			}
+			sTasks.notify();
+		}
+	}
+
+	private static void runTasks() {
+		while (true) {
+			Runnable task;
+			synchronized (sTasks) {
+				while (sTasks.isEmpty()) {
+					try {
+						sTasks.wait();
+					} catch (InterruptedException e) {
+						// workers are never interrupted.
+					}
+				}
+				task = (Runnable) sTasks.remove(0);
+				--sIdleWorkerCount;
+			}
+			try {
+				task.run();
+			} catch (Throwable e) {
+				freemind.main.Resources.getInstance().logException(e);
+			}
+			synchronized (sTasks) {
+				++sIdleWorkerCount;
+			}
+		}
+	}
+
+	private synchronized String getResult(int pBranch) throws IOException {
+		while (mResults[pBranch] == null && mError == null) {
+			try {
+				wait();
+			} catch (InterruptedException e) {
+				throw new InterruptedIOException(e.getMessage());
+			}
+		}
+		if (mError != null) {
+			if (mError instanceof IOException) {
+				throw (IOException) mError;
+			}
+			if (mError instanceof RuntimeException) {
+				throw (RuntimeException) mError;
+			}
+			if (mError instanceof Error) {
+				throw (Error) mError;
+			}
+			IOException exception = new IOException(mError.getMessage());
+			exception.initCause(mError);
+			throw exception;
+		}
+		String result = mResults[pBranch];
+		mResults[pBranch] = null;
+		mWrittenBranches = pBranch + 1;
+		notifyAll();
+		return result;
+	}
+
+	/**
+	 * @return the next branch to render or -1, if there is nothing left to do.
+	 *         Not more than two branches per worker are kept in memory.
+	 */
+	private synchronized int nextBranch() throws InterruptedException {
+		while (!mFinished && mError == null
+				&& mNextBranch < mBranches.length
+				&& mNextBranch >= mWrittenBranches + 2 * mThreadCount) {
+			wait();
+		}
+		if (mFinished || mError != null || mNextBranch >= mBranches.length) {
+			return -1;
+		}
+		return mNextBranch++;
+	}
+
+	private synchronized void branchRendered(int pBranch, String pResult,
+			Throwable pError) {
+		if (pError != null) {
+			if (mError == null) {
+				mError = pError;
+			}
+		} else {
+			mResults[pBranch] = pResult;
+		}
+		notifyAll();
+	}
+
+	private class Worker implements Runnable {
+		public void run() {
+			try {
+				int branch;
+				while ((branch = nextBranch()) >= 0) {
+					StringWriter buffer = new StringWriter();
+					try {
+						mBranches[branch].saveAsChild(buffer, mRegistry,
+								mSaveInvisible, false);
+					} catch (Throwable e) {
+						branchRendered(branch, null, e);
+						return;
+					}
+					branchRendered(branch, buffer.toString(), null);
+				}
+			} catch (InterruptedException e) {
+				branchRendered(-1, null, e);
+			}
+		}
+	}
+
+	/**
+	 * @return the number of nodes in the branch or -1, if it contains an
+	 *         encrypted node. Those save their children themselves.
+	 */
+	private int countNodes(NodeAdapter pNode) {
+		if (pNode instanceof EncryptedMindMapNode) {
+			return -1;
+		}
+		int count = 1;
+		if (isSavedAsText(pNode)) {
+			return count;
+		}
+		for (ListIterator it = pNode.childrenUnfolded(); it.hasNext();) {
+			int childCount = countNodes((NodeAdapter) it.next());
+			if (childCount < 0) {
+				return -1;
+			}
+			count += childCount;
+		}
+		return count;
+	}
+
+	/**
+	 * Children that were never loaded are saved as they are. Otherwise, they
+	 * are loaded here by the calling thread, not by the workers.
+	 */
+	private boolean isSavedAsText(NodeAdapter pNode) {
+		return mSaveInvisible && pNode.hasPendingChildren();
+	}
+
+	/**
+	 * Fires the events and saves the hooks for the children that are saved,
+	 * in the order of saving.
+	 */
+	private void firePreSaveEvents(NodeAdapter pNode) {
+		if (isSavedAsText(pNode)) {
+			return;
+		}
+		for (ListIterator it = pNode.childrenUnfolded(); it.hasNext();) {
+			NodeAdapter child = (NodeAdapter) it.next();
+			if (mSaveInvisible || child.isVisible()) {
+				mRoot.getModeController().firePreSaveEvent(child);
+				if (!child.getActivatedHooks().isEmpty()) {
+					child.saveHooksInAdvance();
+					mNodesWithSavedHooks.add(child);
+				}
+			}
+			firePreSaveEvents(child);
+		}
+	}
+
+}
@@ -31,6 +31,7 @@ import javax.swing.JOptionPane;
 
 import freemind.main.Resources;
 import freemind.main.Tools;
+import freemind.modes.ControllerAdapter;
 import freemind.modes.MindMapNode;
 import freemind.modes.ModeController;
 import freemind.modes.mindmapmode.MindMapController;
@@ -133,8 +134,8 @@ public class ExportBranchAction extends AbstractAction {
 			// unfold node
 			node.setFolded(false);
 			// construct new controller:
-			ModeController newModeController = mMindMapController.getMode()
-					.createModeController();
+			ModeController newModeController = ControllerAdapter
+					.createModeController(mMindMapController.getMode());
 			MindMapMapModel map = new MindMapMapModel(node,
 					mMindMapController.getFrame(), newModeController);
 			map.save(chosenFile);
@@ -35,10 +35,13 @@ import javax.swing.ImageIcon;
 import freemind.controller.actions.generated.instance.CompoundAction;
 import freemind.controller.actions.generated.instance.UndoXmlAction;
 import freemind.controller.actions.generated.instance.XmlAction;
+import freemind.main.Resources;
+import freemind.main.Tools;
 import freemind.modes.mindmapmode.MindMapController;
 import freemind.modes.mindmapmode.actions.xml.AbstractXmlAction;
 import freemind.modes.mindmapmode.actions.xml.ActionPair;
 import freemind.modes.mindmapmode.actions.xml.ActorXml;
+import freemind.modes.mindmapmode.actions.xml.CompressedActionPair;
 
 public class UndoAction extends AbstractXmlAction implements ActorXml {
 
@@ -47,6 +50,24 @@ public class UndoAction extends AbstractXmlAction implements ActorXml {
 	protected Vector actionPairList = new Vector();
 	private long timeOfLastAdd = 0;
 	private boolean actionFrameStarted = false;
+	/**
+	 * Bytes used by the compressed pairs in the list. The first pair isn't
+	 * compressed, as following actions may be added to it.
+	 */
+	private long memoryUsage = 0;
+	/** Keeps memoryUsage up to date, when a pair in the list is changed. */
+	private final CompressedActionPair.SizeListener sizeListener = new CompressedActionPair.SizeListener() {
+		public void sizeChanged(int pDelta) {
+			memoryUsage += pDelta;
+			updateDescription();
+		}
+	};
+	/** The limits are parsed again only when their properties change. */
+	private String maxEntriesProperty = null;
+	private int maxEntries = 100;
+	private String maxMemoryProperty = null;
+	private long maxMemory = 16384 * 1024L;
+	private String text;
 	private static final long TIME_TO_BEGIN_NEW_ACTION = 100;
 	protected static Logger logger;
 
@@ -63,6 +84,7 @@ public class UndoAction extends AbstractXmlAction implements ActorXml {
 	protected UndoAction(MindMapController adapter, String text, Icon icon,
 			MindMapController mode) {
 		super(text, icon, mode);
+		this.text = Tools.removeMnemonic(text);
 		this.controller = adapter;
 		addActor(this);
 		setEnabled(false);
@@ -86,7 +108,7 @@ public class UndoAction extends AbstractXmlAction implements ActorXml {
 		if (actionPairList.size() > 0) {
 			ActionPair pair = (ActionPair) actionPairList.get(0);
 			informUndoPartner(pair);
-			actionPairList.remove(0);
+			remove(0);
 
 			undoDoAction(pair);
 
@@ -107,9 +129,16 @@ public class UndoAction extends AbstractXmlAction implements ActorXml {
 	}
 
 	protected void undoDoAction(ActionPair pair) {
-		String doActionString = this.controller.marshall(pair.getDoAction());
-		String redoActionString = this.controller
-				.marshall(pair.getUndoAction());
+		String doActionString;
+		String redoActionString;
+		if (pair instanceof CompressedActionPair) {
+			CompressedActionPair compressedPair = (CompressedActionPair) pair;
+			doActionString = compressedPair.getDoActionXml();
+			redoActionString = compressedPair.getUndoActionXml();
+		} else {
+			doActionString = this.controller.marshall(pair.getDoAction());
+			redoActionString = this.controller.marshall(pair.getUndoAction());
+		}
 		// logger.info("doActionString: "+ doActionString );
 		// logger.info("\nredoActionString: "+ redoActionString);
 
@@ -166,6 +195,13 @@ public class UndoAction extends AbstractXmlAction implements ActorXml {
 		if ((actionPairList.size() > 0)
 				&& (actionFrameStarted || currentTime - timeOfLastAdd < TIME_TO_BEGIN_NEW_ACTION)) {
 			ActionPair firstPair = (ActionPair) actionPairList.get(0);
+			if (firstPair instanceof CompressedActionPair) {
+				// unpack it to add the new actions:
+				remove(0);
+				firstPair = new ActionPair(firstPair.getDoAction(),
+						firstPair.getUndoAction());
+				actionPairList.add(0, firstPair);
+			}
 			CompoundAction action;
 			CompoundAction remedia;
 			if (!(firstPair.getDoAction() instanceof CompoundAction)
@@ -184,22 +220,59 @@ public class UndoAction extends AbstractXmlAction implements ActorXml {
 			action.addChoice(pair.getDoAction());
 			remedia.addAtChoice(0, pair.getUndoAction());
 		} else {
+			if (actionPairList.size() > 0) {
+				compress(0);
+			}
 			actionPairList.add(0, pair);
+			if (pair instanceof CompressedActionPair) {
+				addToMemoryUsage((CompressedActionPair) pair);
+			}
 			// and cut vector, if bigger than given size:
-			int maxEntries = 100;
+			updateLimits();
+			while (actionPairList.size() > maxEntries
+					|| (actionPairList.size() > 1 && memoryUsage > maxMemory)) {
+				remove(actionPairList.size() - 1); // remove last elt
+			}
+			updateDescription();
+		}
+		startActionFrame();
+		timeOfLastAdd = currentTime;
+	}
+
+	private void updateLimits() {
+		String property = controller.getFrame().getProperty("undo_levels");
+		if (property != null && !property.equals(maxEntriesProperty)) {
+			maxEntriesProperty = property;
 			try {
-				maxEntries = new Integer(controller.getFrame().getProperty(
-						"undo_levels")).intValue();
+				maxEntries = Integer.parseInt(property);
 			} catch (NumberFormatException e) {
 				freemind.main.Resources.getInstance().logException(e);
 			}
-			while (actionPairList.size() > maxEntries) {
-				actionPairList.remove(actionPairList.size() - 1); // remove
-																	// last elt
+		}
+		property = controller.getFrame().getProperty("undo_memory_limit");
+		if (property != null && !property.equals(maxMemoryProperty)) {
+			maxMemoryProperty = property;
+			try {
+				maxMemory = Long.parseLong(property) * 1024L;
+			} catch (NumberFormatException e) {
+				freemind.main.Resources.getInstance().logException(e);
 			}
 		}
-		startActionFrame();
-		timeOfLastAdd = currentTime;
+	}
+
+	/**
+	 * Shows the number of steps and the memory they use in the tool tip.
+	 */
+	private void updateDescription() {
+		putValue(SHORT_DESCRIPTION, Resources.getInstance().format(
+				"undo_list_description",
+				new Object[] { text, Integer.toString(actionPairList.size()),
+						Long.toString((memoryUsage + 1023) / 1024) }));
+	}
+
+	private void addToMemoryUsage(CompressedActionPair pair) {
+		memoryUsage += pair.getSize();
+		pair.setSizeListener(sizeListener);
 	}
 
 	private void startActionFrame() {
@@ -213,8 +286,58 @@ public class UndoAction extends AbstractXmlAction implements ActorXml {
 		}
 	}
 
+	/**
+	 * Replaces the pair by its compressed form. If it can't be marshalled, it
+	 * is kept as it is.
+	 */
+	private void compress(int index) {
+		ActionPair pair = (ActionPair) actionPairList.get(index);
+		if (pair instanceof CompressedActionPair) {
+			return;
+		}
+		try {
+			CompressedActionPair compressedPair = new CompressedActionPair(pair);
+			actionPairList.set(index, compressedPair);
+			addToMemoryUsage(compressedPair);
+		} catch (Exception e) {
+			freemind.main.Resources.getInstance().logException(e);
+		}
+	}
+
+	private void remove(int index) {
+		ActionPair pair = (ActionPair) actionPairList.remove(index);
+		if (pair instanceof CompressedActionPair) {
+			memoryUsage -= ((CompressedActionPair) pair).getSize();
+			((CompressedActionPair) pair).setSizeListener(null);
+		}
+		updateDescription();
+	}
+
 	public void clear() {
+		for (Iterator i = actionPairList.iterator(); i.hasNext();) {
+			ActionPair pair = (ActionPair) i.next();
+			if (pair instanceof CompressedActionPair) {
+				((CompressedActionPair) pair).setSizeListener(null);
+			}
+		}
 		actionPairList.clear();
+		memoryUsage = 0;
+		updateDescription();
+	}
+
+	/**
+	 * @return the number of actions (or groups of actions) in the list.
+	 */
+	public int getSize() {
+		return actionPairList.size();
+	}
+
+	/**
+	 * @return the bytes used by the compressed actions in the list. The last
+	 *         added actions aren't compressed and not counted.
+	 */
+	public long getMemoryUsage() {
+		return memoryUsage;
 	}
 
 	public void print() {
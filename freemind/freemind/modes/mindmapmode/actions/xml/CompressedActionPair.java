@@ -0,0 +1,114 @@
+/*FreeMind - A Program for creating and viewing Mindmaps
+ *Copyright (C) 2000-2012 Joerg Mueller, Daniel Polansky, Christian Foltin, Dimitri Polivaev and others.
+ *
+ *See COPYING for Details
+ *
+ *This program is free software; you can redistribute it and/or
+ *modify it under the terms of the GNU General Public License
+ *as published by the Free Software Foundation; either version 2
+ *of the License, or (at your option) any later version.
+ *
+ *This program is distributed in the hope that it will be useful,
+ *but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *GNU General Public License for more details.
+ *
+ *You should have received a copy of the GNU General Public License
+ *along with this program; if not, write to the Free Software
+ *Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package freemind.modes.mindmapmode.actions.xml;
+
+import freemind.controller.actions.generated.instance.XmlAction;
+import freemind.main.Tools;
+
+/**
+ * An action pair kept in the undo and redo lists. The actions are stored as
+ * compressed xml and are only unmarshalled, when they are requested (ie. when
+ * the pair is undone).
+ */
+public class CompressedActionPair extends ActionPair {
+
+	private byte[] mDoAction;
+
+	private byte[] mUndoAction;
+
+	/**
+	 * Is told, when the compressed actions are replaced, to keep the memory
+	 * usage of a list of pairs up to date.
+	 */
+	public interface SizeListener {
+		void sizeChanged(int pDelta);
+	}
+
+	private SizeListener mSizeListener = null;
+
+	public CompressedActionPair(ActionPair pair) {
+		this(Tools.compressToBytes(Tools.marshall(pair.getDoAction())), Tools
+				.compressToBytes(Tools.marshall(pair.getUndoAction())));
+	}
+
+	private CompressedActionPair(byte[] doAction, byte[] undoAction) {
+		super(null, null);
+		mDoAction = doAction;
+		mUndoAction = undoAction;
+	}
+
+	public XmlAction getDoAction() {
+		return Tools.unMarshall(getDoActionXml());
+	}
+
+	public XmlAction getUndoAction() {
+		return Tools.unMarshall(getUndoActionXml());
+	}
+
+	public String getDoActionXml() {
+		return Tools.decompressFromBytes(mDoAction);
+	}
+
+	public String getUndoActionXml() {
+		return Tools.decompressFromBytes(mUndoAction);
+	}
+
+	public void setDoAction(XmlAction doAction) {
+		int oldSize = getSize();
+		mDoAction = Tools.compressToBytes(Tools.marshall(doAction));
+		fireSizeChanged(oldSize);
+	}
+
+	public void setUndoAction(XmlAction undoAction) {
+		int oldSize = getSize();
+		mUndoAction = Tools.compressToBytes(Tools.marshall(undoAction));
+		fireSizeChanged(oldSize);
+	}
+
+	private void fireSizeChanged(int pOldSize) {
+		if (mSizeListener != null) {
+			mSizeListener.sizeChanged(getSize() - pOldSize);
+		}
+	}
+
+	/**
+	 * @param pListener
+	 *            the listener or null. The reversed pair has none.
+	 */
+	public void setSizeListener(SizeListener pListener) {
+		mSizeListener = pListener;
+	}
+
+	/**
+	 * @return the reversed pair, without unpacking the actions.
+	 */
+	public ActionPair reverse() {
+		return new CompressedActionPair(mUndoAction, mDoAction);
+	}
+
+	/**
+	 * @return the number of bytes needed for the actions.
+	 */
+	public int getSize() {
+		return mDoAction.length + mUndoAction.length;
+	}
+
+}
@@ -19,6 +19,7 @@
 /* $Id: MindMapHookFactory.java,v 1.1.2.2.2.11 2008/01/13 20:55:35 christianfoltin Exp $ */
 package freemind.modes.mindmapmode.hooks;
 
+import java.io.File;
 import java.io.InputStream;
 import java.net.URL;
 import java.util.HashMap;
@@ -50,7 +51,10 @@ import freemind.extensions.MindMapHook;
 import freemind.extensions.MindMapHook.PluginBaseClassSearcher;
 import freemind.extensions.ModeControllerHook;
 import freemind.extensions.NodeHook;
+import freemind.extensions.PluginIndex;
+import freemind.main.FreeMind;
 import freemind.main.FreeMindMain;
+import freemind.main.Resources;
 import freemind.modes.mindmapmode.MindMapController;
 
 /**
@@ -75,12 +79,20 @@ public class MindMapHookFactory extends HookFactoryAdapter {
 	// Logging:
 	private java.util.logging.Logger logger;
 
+	/**
+	 * Guards the plugin registries below, as the hooks of maps loaded in
+	 * parallel are created in parallel.
+	 */
+	private static final Object sPluginLock = new Object();
+
 	private static HashMap pluginInfo = null;
 
 	private static Vector allPlugins = null;
 
 	private static ImportWizard importWizard = null;
 
+	private static final String PLUGIN_INDEX_FILE = "plugins.index";
+
 	/** Contains PluginRegistrationType -> PluginType relations. */
 	protected static HashSet allRegistrations;
 
@@ -142,68 +154,105 @@ public class MindMapHookFactory extends HookFactoryAdapter {
 		return returnValue;
 	}
 
+	/**
+	 * @return the index of the plugin descriptors in the user directory, or
+	 *         null, if it is switched off or there is no user directory.
+	 */
+	private PluginIndex getPluginIndex() {
+		String freemindDirectory = frame.getFreemindDirectory();
+		if (freemindDirectory == null
+				|| !Resources.getInstance().getBoolProperty(
+						FreeMind.RESOURCES_PLUGIN_INDEX)) {
+			return null;
+		}
+		File directory = new File(freemindDirectory);
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			return null;
+		}
+		return new PluginIndex(new File(directory, PLUGIN_INDEX_FILE));
+	}
+
 	/**
 	 *
 	 */
 	private void actualizePlugins() {
-		if (importWizard == null) {
-			importWizard = new ImportWizard(frame);
-			importWizard.CLASS_LIST.clear();
-			importWizard.buildClassList();
-			pluginInfo = new HashMap();
-			allPlugins = new Vector();
-			allRegistrations = new HashSet();
-			// the unmarshaller:
-			IUnmarshallingContext unmarshaller = XmlBindingTools.getInstance()
-					.createUnmarshaller();
-			// the loop
-			for (Iterator i = importWizard.CLASS_LIST.iterator(); i.hasNext();) {
-				String xmlPluginFile = (String) i.next();
-				if (xmlPluginFile.matches(pluginPrefixRegEx)) {
-					// make file name:
-					/*
-					 * Here, this is not the File.separatorChar!!!
-					 */
-					xmlPluginFile = xmlPluginFile.replace('\\', '/')
-							+ importWizard.lookFor;
-					// this is one of our plugins:
-					URL pluginURL = frame.getFreeMindClassLoader().getResource(
-							xmlPluginFile);
-					// unmarshal xml:
-					Plugin plugin = null;
-					try {
-						logger.finest("Reading: " + xmlPluginFile + " from "
-								+ pluginURL);
-						InputStream in = pluginURL.openStream();
-						plugin = (Plugin) unmarshaller.unmarshalDocument(in,
-								null);
-					} catch (Exception e) {
-						// error case
-						freemind.main.Resources.getInstance().logException(e);
-						continue;
-					}
-					// plugin is loaded.
-					for (Iterator j = plugin.getListChoiceList().iterator(); j
-							.hasNext();) {
-						Object obj = j.next();
-						if (obj instanceof PluginAction) {
-							PluginAction action = (PluginAction) obj;
-							pluginInfo.put(action.getLabel(),
-									new HookDescriptorPluginAction(frame,
-											xmlPluginFile, plugin, action));
-							allPlugins.add(action.getLabel());
-
-						} else if (obj instanceof PluginRegistration) {
-							PluginRegistration registration = (PluginRegistration) obj;
-							allRegistrations
-									.add(new HookDescriptorRegistration(frame,
-											xmlPluginFile, plugin, registration));
-							// logger.info("Added registration " +
-							// registration.getClassName() +
-							// " to allRegistrations=" + allRegistrations);
+		synchronized (sPluginLock) {
+			if (importWizard == null) {
+				importWizard = new ImportWizard(frame);
+				importWizard.CLASS_LIST.clear();
+				PluginIndex index = getPluginIndex();
+				importWizard.buildClassList(index);
+				pluginInfo = new HashMap();
+				allPlugins = new Vector();
+				allRegistrations = new HashSet();
+				// the unmarshaller, only if a descriptor isn't in the index:
+				IUnmarshallingContext unmarshaller = null;
+				// the loop
+				for (Iterator i = importWizard.CLASS_LIST.iterator(); i.hasNext();) {
+					String descriptor = (String) i.next();
+					if (descriptor.matches(pluginPrefixRegEx)) {
+						// make file name:
+						/*
+						 * Here, this is not the File.separatorChar!!!
+						 */
+						String xmlPluginFile = descriptor.replace('\\', '/')
+								+ importWizard.lookFor;
+						Plugin plugin = null;
+						if (index != null) {
+							plugin = index.getPlugin(descriptor);
+						}
+						if (plugin == null) {
+							// this is one of our plugins:
+							URL pluginURL = frame.getFreeMindClassLoader()
+									.getResource(xmlPluginFile);
+							// unmarshal xml:
+							try {
+								logger.finest("Reading: " + xmlPluginFile
+										+ " from " + pluginURL);
+								if (unmarshaller == null) {
+									unmarshaller = XmlBindingTools.getInstance()
+											.createUnmarshaller();
+								}
+								InputStream in = pluginURL.openStream();
+								plugin = (Plugin) unmarshaller.unmarshalDocument(
+										in, null);
+							} catch (Exception e) {
+								// error case
+								freemind.main.Resources.getInstance()
+										.logException(e);
+								continue;
+							}
+							if (index != null) {
+								index.putPlugin(descriptor, plugin);
+							}
+						}
+						// plugin is loaded.
+						for (Iterator j = plugin.getListChoiceList().iterator(); j
+								.hasNext();) {
+							Object obj = j.next();
+							if (obj instanceof PluginAction) {
+								PluginAction action = (PluginAction) obj;
+								pluginInfo.put(action.getLabel(),
+										new HookDescriptorPluginAction(frame,
+												xmlPluginFile, plugin, action));
+								allPlugins.add(action.getLabel());
+
+							} else if (obj instanceof PluginRegistration) {
+								PluginRegistration registration = (PluginRegistration) obj;
+								allRegistrations
+										.add(new HookDescriptorRegistration(frame,
+												xmlPluginFile, plugin, registration));
+								// logger.info("Added registration " +
+								// registration.getClassName() +
+								// " to allRegistrations=" + allRegistrations);
+							}
 						}
 					}
 				}
+				if (index != null) {
+					// the unmarshalled descriptors:
+					index.save();
+				}
 			}
 		}
 	}
@@ -381,8 +430,10 @@ public class MindMapHookFactory extends HookFactoryAdapter {
 	/**
 	 */
 	private HookDescriptorPluginAction getHookDescriptor(String hookName) {
-		HookDescriptorPluginAction descriptor = (HookDescriptorPluginAction) pluginInfo
-				.get(hookName);
+		HookDescriptorPluginAction descriptor;
+		synchronized (sPluginLock) {
+			descriptor = (HookDescriptorPluginAction) pluginInfo.get(hookName);
+		}
 		if (hookName == null || descriptor == null)
 			throw new IllegalArgumentException("Unknown hook name " + hookName);
 		return descriptor;
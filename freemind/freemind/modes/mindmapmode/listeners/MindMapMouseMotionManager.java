@@ -67,6 +67,7 @@ public class MindMapMouseMotionManager implements MapMouseMotionReceiver {
 						deltaX, deltaY);
 				originX = e.getX();
 				originY = e.getY();
+				mController.getView().invalidateArrowLinks();
 				mController.getView().repaint();
 			} else {
 				mapView.scrollBy(originX - e.getX(), originY - e.getY());
@@ -106,6 +107,7 @@ public class MindMapMouseMotionManager implements MapMouseMotionReceiver {
 			// and change to the new again.
 			mController.setArrowLinkEndPoints(draggedLink,
 					draggedLinkNewStartPoint, draggedLinkNewEndPoint);
+			mController.getView().invalidateArrowLinks();
 			mController.getView().repaint();
 			draggedLink = null;
 		}
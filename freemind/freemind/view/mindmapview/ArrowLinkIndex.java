@@ -0,0 +1,250 @@
+/*FreeMind - A Program for creating and viewing Mindmaps
+ *Copyright (C) 2000-2012 Joerg Mueller, Daniel Polansky, Christian Foltin, Dimitri Polivaev and others.
+ *
+ *See COPYING for Details
+ *
+ *This program is free software; you can redistribute it and/or
+ *modify it under the terms of the GNU General Public License
+ *as published by the Free Software Foundation; either version 2
+ *of the License, or (at your option) any later version.
+ *
+ *This program is distributed in the hope that it will be useful,
+ *but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *GNU General Public License for more details.
+ *
+ *You should have received a copy of the GNU General Public License
+ *along with this program; if not, write to the Free Software
+ *Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package freemind.view.mindmapview;
+
+import java.awt.Rectangle;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.Vector;
+
+import freemind.modes.MindMapArrowLink;
+
+/**
+ * Spatial index of the arrow link views of a map. The map area is divided
+ * into square cells and each view is registered in the cells its bounds
+ * intersect. Thus, the views in a (small) rectangle are found without looking
+ * at all views.
+ *
+ * The views are kept per link model, so that they can be reused. Each view has
+ * an order (the order of painting), that is kept by the queries.
+ */
+public class ArrowLinkIndex {
+
+	public static final int DEFAULT_CELL_SIZE = 256;
+
+	private static class Entry {
+		ArrowLinkView view;
+
+		Rectangle bounds;
+
+		int order;
+
+		/** Number of the last query that found this entry. */
+		int query;
+	}
+
+	private final int mCellSize;
+
+	/** MindMapArrowLink -> Entry */
+	private final HashMap mEntries = new HashMap();
+
+	/** Long (cell) -> Vector of Entry */
+	private final HashMap mCells = new HashMap();
+
+	private int mQuery = 0;
+
+	/** Order of the next new link. */
+	private int mNextOrder = 0;
+
+	private static final Comparator sOrderComparator = new Comparator() {
+		public int compare(Object pO1, Object pO2) {
+			return ((Entry) pO1).order - ((Entry) pO2).order;
+		}
+	};
+
+	public ArrowLinkIndex() {
+		this(DEFAULT_CELL_SIZE);
+	}
+
+	public ArrowLinkIndex(int pCellSize) {
+		mCellSize = pCellSize;
+	}
+
+	/**
+	 * @return the view of the link or null, if it isn't indexed.
+	 */
+	public ArrowLinkView getView(MindMapArrowLink pLink) {
+		Entry entry = (Entry) mEntries.get(pLink);
+		return entry == null ? null : entry.view;
+	}
+
+	/**
+	 * @return the indexed links.
+	 */
+	public Set getLinks() {
+		return Collections.unmodifiableSet(mEntries.keySet());
+	}
+
+	public int size() {
+		return mEntries.size();
+	}
+
+	/**
+	 * Like {@link #update(ArrowLinkView, Rectangle, int)}, but keeps the order
+	 * of an indexed link. New links are painted after the others.
+	 */
+	public void update(ArrowLinkView pView, Rectangle pBounds) {
+		Entry entry = (Entry) mEntries.get(pView.getModel());
+		update(pView, pBounds, entry == null ? mNextOrder : entry.order);
+	}
+
+	/**
+	 * Adds the view (replacing the former view of its link) or moves it to its
+	 * new bounds. The cells are only changed, if the bounds have changed.
+	 */
+	public void update(ArrowLinkView pView, Rectangle pBounds, int pOrder) {
+		mNextOrder = Math.max(mNextOrder, pOrder + 1);
+		Entry entry = (Entry) mEntries.get(pView.getModel());
+		if (entry == null) {
+			entry = new Entry();
+			mEntries.put(pView.getModel(), entry);
+		} else if (!pBounds.equals(entry.bounds)) {
+			removeFromCells(entry);
+			entry.bounds = null;
+		}
+		entry.view = pView;
+		entry.order = pOrder;
+		if (entry.bounds == null) {
+			entry.bounds = new Rectangle(pBounds);
+			addToCells(entry);
+		}
+	}
+
+	public void remove(MindMapArrowLink pLink) {
+		Entry entry = (Entry) mEntries.remove(pLink);
+		if (entry != null) {
+			removeFromCells(entry);
+		}
+	}
+
+	/**
+	 * Removes all links that are not contained in the given set.
+	 */
+	public void retainAll(Set pLinks) {
+		Vector removed = new Vector();
+		for (Iterator it = mEntries.keySet().iterator(); it.hasNext();) {
+			Object link = it.next();
+			if (!pLinks.contains(link)) {
+				removed.add(link);
+			}
+		}
+		for (Iterator it = removed.iterator(); it.hasNext();) {
+			remove((MindMapArrowLink) it.next());
+		}
+	}
+
+	public void clear() {
+		mEntries.clear();
+		mCells.clear();
+		mNextOrder = 0;
+	}
+
+	/**
+	 * @param pArea
+	 *            if null, all views are returned.
+	 * @return the views whose bounds intersect the area in the order given by
+	 *         {@link #update(ArrowLinkView, Rectangle, int)}.
+	 */
+	public Vector getViews(Rectangle pArea) {
+		Vector entries = new Vector();
+		if (pArea == null) {
+			entries.addAll(mEntries.values());
+		} else {
+			mQuery++;
+			int minX = cell(pArea.x);
+			int maxX = cell(pArea.x + pArea.width);
+			int minY = cell(pArea.y);
+			int maxY = cell(pArea.y + pArea.height);
+			for (int x = minX; x <= maxX; x++) {
+				for (int y = minY; y <= maxY; y++) {
+					Vector cell = (Vector) mCells.get(key(x, y));
+					if (cell == null) {
+						continue;
+					}
+					for (Iterator it = cell.iterator(); it.hasNext();) {
+						Entry entry = (Entry) it.next();
+						if (entry.query != mQuery
+								&& entry.bounds.intersects(pArea)) {
+							entry.query = mQuery;
+							entries.add(entry);
+						}
+					}
+				}
+			}
+		}
+		Collections.sort(entries, sOrderComparator);
+		Vector views = new Vector(entries.size());
+		for (Iterator it = entries.iterator(); it.hasNext();) {
+			views.add(((Entry) it.next()).view);
+		}
+		return views;
+	}
+
+	private void addToCells(Entry pEntry) {
+		Rectangle bounds = pEntry.bounds;
+		if (bounds.isEmpty()) {
+			return;
+		}
+		for (int x = cell(bounds.x); x <= cell(bounds.x + bounds.width); x++) {
+			for (int y = cell(bounds.y); y <= cell(bounds.y + bounds.height); y++) {
+				Long key = key(x, y);
+				Vector cell = (Vector) mCells.get(key);
+				if (cell == null) {
+					cell = new Vector();
+					mCells.put(key, cell);
+				}
+				cell.add(pEntry);
+			}
+		}
+	}
+
+	private void removeFromCells(Entry pEntry) {
+		Rectangle bounds = pEntry.bounds;
+		if (bounds == null || bounds.isEmpty()) {
+			return;
+		}
+		for (int x = cell(bounds.x); x <= cell(bounds.x + bounds.width); x++) {
+			for (int y = cell(bounds.y); y <= cell(bounds.y + bounds.height); y++) {
+				Long key = key(x, y);
+				Vector cell = (Vector) mCells.get(key);
+				if (cell != null) {
+					cell.remove(pEntry);
+					if (cell.isEmpty()) {
+						mCells.remove(key);
+					}
+				}
+			}
+		}
+	}
+
+	private int cell(int pCoordinate) {
+		// rounds towards negative infinity for negative coordinates, too.
+		return (int) Math.floor((double) pCoordinate / mCellSize);
+	}
+
+	private static Long key(int pX, int pY) {
+		return new Long(((long) pX << 32) | (pY & 0xffffffffL));
+	}
+
+}
@@ -46,6 +46,12 @@ public class ArrowLinkView {
 	protected NodeView source, target;
 	protected int iterativeLevel;
 	protected CubicCurve2D arrowLinkCurve;
+	/**
+	 * Start and end point and the points indicating the direction at the
+	 * start and at the end, calculated by {@link #updateCurve()}. Null, if the
+	 * corresponding node isn't visible.
+	 */
+	protected Point p1, p2, p3, p4;
 	static final Stroke DEF_STROKE = new BasicStroke(1);
 
 	/* Note, that source and target are nodeviews and not nodemodels!. */
@@ -63,24 +69,34 @@ public class ArrowLinkView {
 	}
 
 	/**
-	 * \param iterativeLevel describes the n-th nested arrowLink that is to be
-	 * painted.
+	 * @return the area covered by the painted link including its arrows and
+	 *         control points.
 	 */
-	public void paint(Graphics graphics) {
-		if (!isSourceVisible() && !isTargetVisible())
+	public Rectangle getPaintBounds() {
+		if (arrowLinkCurve == null)
+			return new Rectangle();
+		Rectangle bounds = arrowLinkCurve.getBounds();
+		// the arrows are about 10 (zoomed) pixels long:
+		int margin = (int) Math.ceil(10 * getZoom()) + getRealWidth() + 1;
+		bounds.grow(margin, margin);
+		return bounds;
+	}
+
+	/**
+	 * Calculates the curve from the current location of the nodes. Has to be
+	 * called after the nodes were moved and before painting.
+	 */
+	public void updateCurve() {
+		p1 = null;
+		p2 = null;
+		p3 = null;
+		p4 = null;
+		if (!isSourceVisible() && !isTargetVisible()) {
+			arrowLinkCurve = null;
 			return;
-		Point p1 = null, p2 = null, p3 = null, p4 = null;
+		}
 		boolean targetIsLeft = false;
 		boolean sourceIsLeft = false;
-		Graphics2D g = (Graphics2D) graphics.create();
-		g.setColor(getColor());
-		/* set stroke. */
-		g.setStroke(getStroke());
-		// if one of the nodes is not present then draw a dashed line:
-		if (!isSourceVisible() || !isTargetVisible())
-			g.setStroke(new BasicStroke(getWidth(), BasicStroke.CAP_ROUND,
-					BasicStroke.JOIN_ROUND, 0, new float[] { 0, 3, 0, 3 }, 0));
-
 		// determine, whether destination exists:
 		if (isSourceVisible()) {
 			p1 = source.getLinkPoint(arrowLinkModel.getStartInclination());
@@ -135,19 +151,37 @@ public class ArrowLinkView {
 
 		if (p1 != null && p2 != null) {
 			arrowLinkCurve.setCurve(p1, p3, p4, p2);
+		}
+	}
+
+	/**
+	 * Paints the curve calculated by the last {@link #updateCurve()}.
+	 */
+	public void paint(Graphics graphics) {
+		if (arrowLinkCurve == null)
+			return;
+		Graphics2D g = (Graphics2D) graphics.create();
+		g.setColor(getColor());
+		/* set stroke. */
+		g.setStroke(getStroke());
+		// if one of the nodes is not present then draw a dashed line:
+		if (p1 == null || p2 == null)
+			g.setStroke(new BasicStroke(getWidth(), BasicStroke.CAP_ROUND,
+					BasicStroke.JOIN_ROUND, 0, new float[] { 0, 3, 0, 3 }, 0));
+		if (p1 != null && p2 != null) {
 			g.draw(arrowLinkCurve);
 			// arrow source:
 		}
-		if (isSourceVisible() && !arrowLinkModel.getStartArrow().equals("None")) {
+		if (p1 != null && !arrowLinkModel.getStartArrow().equals("None")) {
 			paintArrow(p1, p3, g);
 		}
 		// arrow target:
-		if (isTargetVisible() && !arrowLinkModel.getEndArrow().equals("None")) {
+		if (p2 != null && !arrowLinkModel.getEndArrow().equals("None")) {
 			paintArrow(p2, p4, g);
 		}
 		// Control Points
-		if (arrowLinkModel.getShowControlPointsFlag() || !isSourceVisible()
-				|| !isTargetVisible()) {
+		if (arrowLinkModel.getShowControlPointsFlag() || p1 == null
+				|| p2 == null) {
 			g.setStroke(new BasicStroke(getWidth(), BasicStroke.CAP_ROUND,
 					BasicStroke.JOIN_ROUND, 0, new float[] { 0, 3, 0, 3 }, 0));
 			if (p1 != null) {
@@ -214,7 +248,7 @@ public class ArrowLinkView {
 	}
 
 	/** MAXIMAL_RECTANGLE_SIZE_FOR_COLLISION_DETECTION describes itself. */
-	private final int MAXIMAL_RECTANGLE_SIZE_FOR_COLLISION_DETECTION = 16;
+	static final int MAXIMAL_RECTANGLE_SIZE_FOR_COLLISION_DETECTION = 16;
 
 	/**
 	 * Determines, whether or not a given point p is in an epsilon-neighbourhood
@@ -304,6 +338,20 @@ public class ArrowLinkView {
 		return arrowLinkModel;
 	}
 
+	/**
+	 * @return the view of the source node or null, if it has none.
+	 */
+	public NodeView getSource() {
+		return source;
+	}
+
+	/**
+	 * @return the view of the target node or null, if it has none.
+	 */
+	public NodeView getTarget() {
+		return target;
+	}
+
 	protected double getZoom() {
 		return getMap().getZoom();
 	}
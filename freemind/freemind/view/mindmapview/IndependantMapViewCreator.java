@@ -98,12 +98,23 @@ public class IndependantMapViewCreator {
 		MindMapMapModel model = new MindMapMapModel(pFreeMindMain, mc);
 		mc.setModel(model);
 		model.load(new File(inputFileName));
-		MapView mapView = createMapView(controller, model);
+		MapView mapView = createMapViewForModel(controller, mc, parent);
+		Tools.waitForEventQueue();
+		mapView.addNotify();
+		return mapView;
+	}
+
+	/**
+	 * Creates the view of the map of the mode controller inside of the parent,
+	 * without a frame. Must be called in the event dispatch thread.
+	 */
+	public MapView createMapViewForModel(Controller controller,
+			MindMapController mc, JPanel parent) {
+		MapView mapView = createMapView(controller,
+				(MindMapMapModel) mc.getMap());
 		parent.add(mapView, BorderLayout.CENTER);
 		mc.setView(mapView);
 		mapView.setBounds(parent.getBounds());
-		Tools.waitForEventQueue();
-		mapView.addNotify();
 		return mapView;
 	}
 
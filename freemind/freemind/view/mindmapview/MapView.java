@@ -22,8 +22,10 @@ package freemind.view.mindmapview;
 import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Component;
+import java.awt.Container;
 import java.awt.Cursor;
 import java.awt.Dimension;
+import java.awt.EventQueue;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.Insets;
@@ -45,10 +47,10 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.ListIterator;
 import java.util.Timer;
 import java.util.TimerTask;
@@ -70,7 +72,7 @@ import freemind.main.Tools;
 import freemind.main.Tools.Pair;
 import freemind.modes.MindMap;
 import freemind.modes.MindMapArrowLink;
-import freemind.modes.MindMapLink;
+import freemind.modes.MindMapLinkRegistry;
 import freemind.modes.MindMapNode;
 import freemind.preferences.FreemindPropertyListener;
 
@@ -266,8 +268,47 @@ public class MapView extends JPanel implements Printable, Autoscroll {
 	private Rectangle boundingRectangle = null;
 	private boolean fitToPage = true;
 
-	/** Used to identify a right click onto a link curve. */
-	private Vector/* of ArrowLinkViews */mArrowLinkViews = new Vector();
+	/**
+	 * The arrow link views by their area. Used to paint only the links in the
+	 * clip and to identify a right click onto a link curve.
+	 */
+	private ArrowLinkIndex mArrowLinkIndex = new ArrowLinkIndex();
+
+	/** False, if nodes or links may have moved since the last indexing. */
+	private boolean mArrowLinksValid = false;
+
+	/** True, if the curves of all links have to be calculated again. */
+	private boolean mAllArrowLinksMoved = false;
+
+	/** Node views whose links have to be indexed again. */
+	private HashSet mArrowLinkNodeViews = new HashSet();
+
+	/** The node views, that are the source or the target of an indexed link. */
+	private HashSet mArrowLinkEnds = new HashSet();
+
+	/** Ends of indexed links, that were moved by the layout. */
+	private HashSet mMovedArrowLinkEnds = new HashSet();
+
+	/**
+	 * If true, the drag and drop support and the motion listener views are
+	 * only created for the nodes near the visible area.
+	 */
+	private final boolean mVirtualized = Resources.getInstance()
+			.getBoolProperty(FreeMind.RESOURCES_VIRTUALIZED_NODE_VIEWS);
+
+	/** The decorated node views in the virtualized mode. */
+	private HashSet mDecoratedViews = new HashSet();
+
+	/** Motion listener views of nodes, that left the visible area. */
+	private Vector mMotionListenerViewPool = new Vector();
+
+	/** The area the decorations were made for. */
+	private Rectangle mDecoratedArea = null;
+
+	private boolean mDecorationUpdatePending = false;
+
+	/** Additional space around the visible area, that is decorated, too. */
+	private static final int DECORATION_MARGIN = 100;
 
 	private Point rootContentLocation;
 
@@ -1091,7 +1132,9 @@ public class MapView extends JPanel implements Printable, Autoscroll {
 	 */
 	protected void validateTree() {
 		validateSelecteds();
+		// the moved ends of arrow links are reported by the layout:
 		super.validateTree();
+		mDecoratedArea = null;
 		setViewPositionAfterValidate();
 	}
 
@@ -1160,6 +1203,9 @@ public class MapView extends JPanel implements Printable, Autoscroll {
 					newRenderingHintFM);
 		}
 		super.paint(g);
+		if (mVirtualized) {
+			scheduleDecorationUpdate();
+		}
 		if (oldRenderingHintFM != newRenderingHintFM
 				&& RenderingHints.KEY_FRACTIONALMETRICS
 						.isCompatibleValue(oldRenderingHintFM)) {
@@ -1192,14 +1238,11 @@ public class MapView extends JPanel implements Printable, Autoscroll {
 		// MindIcon.factory("ksmiletris").getIcon(controller.getFrame()).getImage();
 		// }
 		// graphics.drawImage(image, 0, 0, getHeight(), getWidth(), null);
-		HashMap labels = new HashMap();
-		mArrowLinkViews = new Vector();
-		collectLabels(rootView, labels);
 		super.paintChildren(graphics);
 		Graphics2D graphics2d = (Graphics2D) graphics;
 		Object renderingHint = getController()
 				.setEdgesRenderingHint(graphics2d);
-		paintLinks(rootView, graphics2d, labels, null);
+		paintLinks(graphics2d);
 		Tools.restoreAntialiasing(graphics2d, renderingHint);
 		paintSelecteds(graphics2d);
 	}
@@ -1236,71 +1279,261 @@ public class MapView extends JPanel implements Printable, Autoscroll {
 				content.getHeight() + 2 * arcWidth, 15, 15);
 	}
 
-	/** collect all existing labels in the current map. */
-	protected void collectLabels(NodeView source, HashMap labels) {
-		// check for existing registry:
-		if (getModel().getLinkRegistry() == null)
+	/**
+	 * Paints the arrow links intersecting the clip.
+	 */
+	protected void paintLinks(Graphics2D graphics) {
+		validateArrowLinks();
+		Vector views = mArrowLinkIndex.getViews(graphics.getClipBounds());
+		for (int i = 0; i < views.size(); ++i) {
+			((ArrowLinkView) views.get(i)).paint(graphics);
+		}
+	}
+
+	public boolean isVirtualized() {
+		return mVirtualized;
+	}
+
+	/**
+	 * Updates the decorations after the painting, if the map was scrolled or
+	 * layouted. The component hierarchy must not be changed while painting.
+	 */
+	private void scheduleDecorationUpdate() {
+		if (mDecorationUpdatePending
+				|| getVisibleRect().equals(mDecoratedArea)) {
 			return;
-		// apply own label:
-		String label = getModel().getLinkRegistry().getLabel(source.getModel());
-		if (label != null)
-			labels.put(label, source);
-		for (ListIterator e = source.getChildrenViews().listIterator(); e
-				.hasNext();) {
-			NodeView target = (NodeView) e.next();
-			collectLabels(target, labels);
+		}
+		mDecorationUpdatePending = true;
+		EventQueue.invokeLater(new Runnable() {
+			public void run() {
+				mDecorationUpdatePending = false;
+				updateDecorations();
+			}
+		});
+	}
+
+	/**
+	 * Decorates the node views in the visible area (see
+	 * {@link NodeView#decorate(NodeMotionListenerView)}) and removes the
+	 * decorations of the others. The motion listener views are reused.
+	 */
+	void updateDecorations() {
+		if (rootView == null) {
+			return;
+		}
+		mDecoratedArea = getVisibleRect();
+		final Rectangle area = new Rectangle(mDecoratedArea);
+		final int margin = getZoomed(DECORATION_MARGIN);
+		area.grow(margin, margin);
+		HashSet visibleViews = new HashSet();
+		collectViewsInArea(this, area, visibleViews);
+		boolean changed = false;
+		for (Iterator it = mDecoratedViews.iterator(); it.hasNext();) {
+			NodeView view = (NodeView) it.next();
+			if (!visibleViews.contains(view) || view.getMap() != this
+					|| view.getParent() == null) {
+				NodeMotionListenerView motionListenerView = view
+						.undecorate();
+				if (motionListenerView != null) {
+					mMotionListenerViewPool.add(motionListenerView);
+				}
+				it.remove();
+				changed = true;
+			}
+		}
+		for (Iterator it = visibleViews.iterator(); it.hasNext();) {
+			NodeView view = (NodeView) it.next();
+			if (!view.isDecorated()) {
+				NodeMotionListenerView recycled = null;
+				if (!mMotionListenerViewPool.isEmpty()) {
+					recycled = (NodeMotionListenerView) mMotionListenerViewPool
+							.remove(mMotionListenerViewPool.size() - 1);
+				}
+				view.decorate(recycled);
+				mDecoratedViews.add(view);
+				changed = true;
+			}
+		}
+		if (changed) {
+			revalidate();
+			repaint();
 		}
 	}
 
-	protected void paintLinks(NodeView source, Graphics2D graphics,
-			HashMap labels, HashSet /* MindMapLink s */LinkAlreadyVisited) {
+	/**
+	 * Collects the node views, whose content intersects the area. As a node
+	 * view contains the views of its children, invisible branches are
+	 * skipped.
+	 * 
+	 * @param pArea
+	 *            in the coordinates of the container.
+	 */
+	private void collectViewsInArea(Container pContainer, Rectangle pArea,
+			Collection pResult) {
+		final int count = pContainer.getComponentCount();
+		for (int i = 0; i < count; i++) {
+			final Component component = pContainer.getComponent(i);
+			if (!(component instanceof NodeView) || !component.isVisible()
+					|| !component.getBounds().intersects(pArea)) {
+				continue;
+			}
+			NodeView view = (NodeView) component;
+			final Rectangle area = new Rectangle(pArea);
+			area.translate(-view.getX(), -view.getY());
+			if (view.isContentVisible()
+					&& view.getContent().getBounds().intersects(area)) {
+				pResult.add(view);
+			}
+			collectViewsInArea(view, area, pResult);
+		}
+	}
+
+	/**
+	 * Has to be called, if arrow links are changed without a layout of the
+	 * map (eg. while dragging their end points).
+	 */
+	public void invalidateArrowLinks() {
+		mAllArrowLinksMoved = true;
+		mArrowLinksValid = false;
+	}
+
+	/**
+	 * The links from and to the node are indexed again, as the view was
+	 * created, changed or removed.
+	 */
+	void invalidateArrowLinks(NodeView pView) {
+		mArrowLinkNodeViews.add(pView);
+		mArrowLinksValid = false;
+	}
+
+	/**
+	 * Called by the layout for each node view, that was layouted or moved. The
+	 * curves of the links from and to the node are calculated again.
+	 */
+	void arrowLinkNodeViewMoved(NodeView pView) {
+		if (mArrowLinkEnds.contains(pView)) {
+			mMovedArrowLinkEnds.add(pView);
+			mArrowLinksValid = false;
+		}
+	}
+
+	/**
+	 * Brings the index of the arrow links up to date. Only the links of the
+	 * changed node views are looked up in the link registry, as the map may be
+	 * large. The curves are calculated again only for these links and for the
+	 * links whose source or target was moved by the layout. The views of
+	 * unchanged links are reused and only moved in the index, if their area
+	 * changed.
+	 */
+	private void validateArrowLinks() {
+		if (mArrowLinksValid) {
+			return;
+		}
+		mArrowLinksValid = true;
 		// check for existing registry:
-		if (getModel().getLinkRegistry() == null)
+		MindMapLinkRegistry registry = getModel().getLinkRegistry();
+		if (registry == null) {
+			mArrowLinkIndex.clear();
+			mArrowLinkNodeViews.clear();
+			mArrowLinkEnds.clear();
+			mMovedArrowLinkEnds.clear();
+			mAllArrowLinksMoved = false;
 			return;
-		if (LinkAlreadyVisited == null)
-			LinkAlreadyVisited = new HashSet();
-		// references first
-		// logger.fine("Searching for links of " +
-		// source.getModel().toString());
-		// paint own labels:
-		Vector vec = getModel().getLinkRegistry()
-				.getAllLinks(source.getModel());
-		for (int i = 0; i < vec.size(); ++i) {
-			MindMapLink ref = (MindMapLink) vec.get(i);
-			if (LinkAlreadyVisited.add(ref)) {
-				// determine type of link
-				if (ref instanceof MindMapArrowLink) {
-					ArrowLinkView arrowLink = new ArrowLinkView(
-							(MindMapArrowLink) ref,
-							getNodeView(ref.getSource()),
-							getNodeView(ref.getTarget()));
-					arrowLink.paint(graphics);
-					mArrowLinkViews.add(arrowLink);
-					// resize map?
-					// adjust container size
-					// Rectangle rec = arrowLink.getBounds();
-					// the following does not work correctly. fc, 23.10.2003:
-					// if (rec.x < 0) {
-					// getMindMapLayout().resizeMap(rec.x);
-					// } else if (rec.x+rec.width > getSize().width) {
-					// getMindMapLayout().resizeMap(rec.x+rec.width);
-					// }
+		}
+		HashSet changedLinks = new HashSet();
+		if (!mArrowLinkNodeViews.isEmpty()) {
+			updateArrowLinksOfChangedNodes(registry, changedLinks);
+		}
+		Vector views = mArrowLinkIndex.getViews(null);
+		for (int i = 0; i < views.size(); ++i) {
+			ArrowLinkView arrowLink = (ArrowLinkView) views.get(i);
+			if (mAllArrowLinksMoved
+					|| changedLinks.contains(arrowLink.getModel())
+					|| mMovedArrowLinkEnds.contains(arrowLink.getSource())
+					|| mMovedArrowLinkEnds.contains(arrowLink.getTarget())) {
+				arrowLink.updateCurve();
+				mArrowLinkIndex.update(arrowLink, arrowLink.getPaintBounds());
+			}
+		}
+		mMovedArrowLinkEnds.clear();
+		mAllArrowLinksMoved = false;
+	}
 
+	/**
+	 * @param pChangedLinks
+	 *            receives the links from and to the changed nodes.
+	 */
+	private void updateArrowLinksOfChangedNodes(MindMapLinkRegistry pRegistry,
+			HashSet pChangedLinks) {
+		HashSet changedNodes = new HashSet();
+		for (Iterator it = mArrowLinkNodeViews.iterator(); it.hasNext();) {
+			MindMapNode node = ((NodeView) it.next()).getModel();
+			changedNodes.add(node);
+			List nodeLinks = pRegistry.getAllLinks(node);
+			for (int i = 0; i < nodeLinks.size(); ++i) {
+				Object link = nodeLinks.get(i);
+				if (link instanceof MindMapArrowLink) {
+					pChangedLinks.add(link);
 				}
 			}
 		}
-		for (ListIterator e = source.getChildrenViews().listIterator(); e
-				.hasNext();) {
-			NodeView target = (NodeView) e.next();
-			paintLinks(target, graphics, labels, LinkAlreadyVisited);
+		mArrowLinkNodeViews.clear();
+		// links of the changed nodes, that don't exist any more:
+		Vector indexedLinks = new Vector(mArrowLinkIndex.getLinks());
+		for (Iterator it = indexedLinks.iterator(); it.hasNext();) {
+			MindMapArrowLink link = (MindMapArrowLink) it.next();
+			if (!pChangedLinks.contains(link)
+					&& (changedNodes.contains(link.getSource()) || changedNodes
+							.contains(link.getTarget()))) {
+				mArrowLinkIndex.remove(link);
+			}
+		}
+		for (Iterator it = pChangedLinks.iterator(); it.hasNext();) {
+			MindMapArrowLink link = (MindMapArrowLink) it.next();
+			NodeView source = getNodeView(link.getSource());
+			NodeView target = getNodeView(link.getTarget());
+			if (source == null && target == null) {
+				mArrowLinkIndex.remove(link);
+				continue;
+			}
+			ArrowLinkView arrowLink = mArrowLinkIndex.getView(link);
+			if (arrowLink == null || arrowLink.source != source
+					|| arrowLink.target != target) {
+				arrowLink = new ArrowLinkView(link, source, target);
+				// the curve is calculated by the caller:
+				mArrowLinkIndex.update(arrowLink, new Rectangle());
+			}
+		}
+		// the views of the links may have changed:
+		mArrowLinkEnds.clear();
+		Vector views = mArrowLinkIndex.getViews(null);
+		for (int i = 0; i < views.size(); ++i) {
+			ArrowLinkView arrowLink = (ArrowLinkView) views.get(i);
+			if (arrowLink.getSource() != null) {
+				mArrowLinkEnds.add(arrowLink.getSource());
+			}
+			if (arrowLink.getTarget() != null) {
+				mArrowLinkEnds.add(arrowLink.getTarget());
+			}
 		}
 	}
 
+	/**
+	 * @return the views of all arrow links in the order of painting.
+	 */
+	public Vector getArrowLinkViews() {
+		validateArrowLinks();
+		return mArrowLinkIndex.getViews(null);
+	}
+
 	public MindMapArrowLink detectCollision(Point p) {
-		if (mArrowLinkViews == null)
-			return null;
-		for (int i = 0; i < mArrowLinkViews.size(); ++i) {
-			ArrowLinkView arrowView = (ArrowLinkView) mArrowLinkViews.get(i);
+		validateArrowLinks();
+		Rectangle area = new Rectangle(p);
+		area.grow(ArrowLinkView.MAXIMAL_RECTANGLE_SIZE_FOR_COLLISION_DETECTION / 2,
+				ArrowLinkView.MAXIMAL_RECTANGLE_SIZE_FOR_COLLISION_DETECTION / 2);
+		Vector views = mArrowLinkIndex.getViews(area);
+		for (int i = 0; i < views.size(); ++i) {
+			ArrowLinkView arrowView = (ArrowLinkView) views.get(i);
 			if (arrowView.detectCollision(p))
 				return arrowView.getModel();
 		}
@@ -1465,8 +1698,9 @@ public class MapView extends JPanel implements Printable, Autoscroll {
 		innerBounds.x += getRoot().getX();
 		innerBounds.y += getRoot().getY();
 		final Rectangle maxBounds = new Rectangle(0, 0, getWidth(), getHeight());
-		for (int i = 0; i < mArrowLinkViews.size(); ++i) {
-			ArrowLinkView arrowView = (ArrowLinkView) mArrowLinkViews.get(i);
+		Vector arrowLinkViews = mArrowLinkIndex.getViews(null);
+		for (int i = 0; i < arrowLinkViews.size(); ++i) {
+			ArrowLinkView arrowView = (ArrowLinkView) arrowLinkViews.get(i);
 			final CubicCurve2D arrowLinkCurve = arrowView.arrowLinkCurve;
 			if (arrowLinkCurve == null) {
 				continue;
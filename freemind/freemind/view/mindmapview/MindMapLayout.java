@@ -52,17 +52,37 @@ public class MindMapLayout implements LayoutManager {
 		getRoot(mapView).setLocation(calcXBorderSize, calcYBorderSize);
 		mapView.setSize(calcXBorderSize * 2 + getRoot(mapView).getWidth(),
 				calcYBorderSize * 2 + getRoot(mapView).getHeight());
-		final int componentCount = mapView.getComponentCount();
+		layoutNodeMotionListenerViews(getRoot(mapView), 0, 0);
+	}
+
+	/**
+	 * Places the motion listener views of the node views, that were layouted
+	 * or moved since the last call, and reports them to the arrow links. Branches, that didn't change, are skipped:
+	 * if a node view was layouted, all its ancestors were layouted, too.
+	 * 
+	 * @param parentX
+	 *            ,parentY the location of the parent in the map view.
+	 */
+	private void layoutNodeMotionListenerViews(NodeView view, int parentX,
+			int parentY) {
+		final int x = parentX + view.getX();
+		final int y = parentY + view.getY();
+		if (!view.isLayoutChanged(x, y)) {
+			return;
+		}
+		view.setLayoutPlaced(x, y);
+		view.getMap().arrowLinkNodeViewMoved(view);
+		final NodeMotionListenerView motionListenerView = view
+				.getMotionListenerView();
+		if (motionListenerView != null) {
+			((NodeViewLayout) view.getLayout())
+					.layoutNodeMotionListenerView(motionListenerView);
+		}
+		final int componentCount = view.getComponentCount();
 		for (int i = 0; i < componentCount; i++) {
-			final Component component = mapView.getComponent(i);
-			if (!component.isValid()) {
-				component.validate();
-			}
-			if (component instanceof NodeMotionListenerView) {
-				final NodeMotionListenerView nodeMotionListenerView = (NodeMotionListenerView) component;
-				final NodeViewLayout layout = (NodeViewLayout) nodeMotionListenerView
-						.getMovedView().getLayout();
-				layout.layoutNodeMotionListenerView(nodeMotionListenerView);
+			final Component component = view.getComponent(i);
+			if (component instanceof NodeView) {
+				layoutNodeMotionListenerViews((NodeView) component, x, y);
 			}
 		}
 	}
@@ -55,6 +55,11 @@ public class NodeMotionListenerView extends JComponent {
 		return movedView;
 	}
 
+	/** Reuses this view for another node (see {@link NodeView#decorate}). */
+	void setMovedView(NodeView movedView) {
+		this.movedView = movedView;
+	}
+
 	public void paintComponent(Graphics g) {
 		super.paintComponent(g);
 		if (isMouseEntered()) {
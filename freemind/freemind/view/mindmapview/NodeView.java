@@ -29,6 +29,7 @@ import java.awt.Graphics2D;
 import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.dnd.DnDConstants;
+import java.awt.dnd.DragGestureRecognizer;
 import java.awt.dnd.DragGestureListener;
 import java.awt.dnd.DragSource;
 import java.awt.dnd.DropTarget;
@@ -105,6 +106,21 @@ public class NodeView extends JComponent implements TreeModelListener {
 	private NodeView preferredChild;
 	private JComponent contentPane;
 	protected NodeMotionListenerView motionListenerView;
+	/**
+	 * In the virtualized mode (see {@link MapView#isVirtualized()}), the drag
+	 * and drop support, the motion listener view and the tool tip only exist
+	 * while the node is in (or near) the visible part of the map.
+	 */
+	private boolean decorated;
+	private DragGestureRecognizer dragGestureRecognizer;
+	/**
+	 * True, if the view was layouted after its motion listener view was placed
+	 * (see {@link MindMapLayout}).
+	 */
+	private boolean layoutChanged = true;
+	/** The location in the map view, when the motion listener view was placed. */
+	private int placedX;
+	private int placedY;
 
 	static final int SPACE_AROUND = 50;
 
@@ -125,7 +141,7 @@ public class NodeView extends JComponent implements TreeModelListener {
 
 		parent.add(this, index);
 
-		if (!model.isRoot()) {
+		if (!model.isRoot() && !map.isVirtualized()) {
 			motionListenerView = new NodeMotionListenerView(this);
 			map.add(motionListenerView, map.getComponentCount() - 1);
 		}
@@ -152,9 +168,64 @@ public class NodeView extends JComponent implements TreeModelListener {
 		mainView.addMouseListener(this.map.getNodeMouseMotionListener());
 		mainView.addMouseMotionListener(this.map.getNodeMouseMotionListener());
 		mainView.addKeyListener(this.map.getNodeKeyListener());
+		if (!map.isVirtualized() || decorated) {
+			addDragListener(map.getNodeDragListener());
+			addDropListener(map.getNodeDropListener());
+		}
+
+	}
+
+	boolean isDecorated() {
+		return decorated;
+	}
+
+	/**
+	 * Installs the drag and drop support, the motion listener view and the
+	 * tool tip, when the node becomes visible in the virtualized mode.
+	 * 
+	 * @param recycled
+	 *            a motion listener view, that isn't used any more, or null.
+	 */
+	void decorate(NodeMotionListenerView recycled) {
+		decorated = true;
 		addDragListener(map.getNodeDragListener());
 		addDropListener(map.getNodeDropListener());
+		updateToolTip();
+		if (model.isRoot()) {
+			return;
+		}
+		if (recycled != null) {
+			motionListenerView = recycled;
+			motionListenerView.setMovedView(this);
+		} else {
+			motionListenerView = new NodeMotionListenerView(this);
+		}
+		motionListenerView.setVisible(isVisible());
+		map.add(motionListenerView, map.getComponentCount() - 1);
+		((NodeViewLayout) getLayout())
+				.layoutNodeMotionListenerView(motionListenerView);
+	}
 
+	/**
+	 * Removes what {@link #decorate(NodeMotionListenerView)} installed.
+	 * 
+	 * @return the motion listener view for reuse or null.
+	 */
+	NodeMotionListenerView undecorate() {
+		decorated = false;
+		if (dragGestureRecognizer != null) {
+			dragGestureRecognizer.setComponent(null);
+			dragGestureRecognizer = null;
+		}
+		getMainView().setDropTarget(null);
+		getMainView().setToolTipText(null);
+		final NodeMotionListenerView recycled = motionListenerView;
+		if (recycled != null) {
+			map.remove(recycled);
+			recycled.setMouseExited();
+			motionListenerView = null;
+		}
+		return recycled;
 	}
 
 	protected void removeFromMap() {
@@ -169,9 +240,10 @@ public class NodeView extends JComponent implements TreeModelListener {
 		if (dgl == null)
 			return;
 		DragSource dragSource = DragSource.getDefaultDragSource();
-		dragSource.createDefaultDragGestureRecognizer(getMainView(),
-				DnDConstants.ACTION_COPY | DnDConstants.ACTION_MOVE
-						| DnDConstants.ACTION_LINK, dgl);
+		dragGestureRecognizer = dragSource.createDefaultDragGestureRecognizer(
+				getMainView(), DnDConstants.ACTION_COPY
+						| DnDConstants.ACTION_MOVE | DnDConstants.ACTION_LINK,
+				dgl);
 	}
 
 	void addDropListener(DropTargetListener dtl) {
@@ -742,6 +814,7 @@ public class NodeView extends JComponent implements TreeModelListener {
 			getMap().deselect(this);
 		}
 		getMap().getModel().getModeController().onViewRemovedHook(this);
+		getMap().invalidateArrowLinks(this);
 		removeFromMap();
 		if (attributeView != null) {
 			attributeView.viewRemoved();
@@ -750,6 +823,8 @@ public class NodeView extends JComponent implements TreeModelListener {
 	}
 
 	void update() {
+		// the links may have changed, too:
+		map.invalidateArrowLinks(this);
 		updateStyle();
 		if (!isContentVisible()) {
 			mainView.setVisible(false);
@@ -976,6 +1051,10 @@ public class NodeView extends JComponent implements TreeModelListener {
 	 * Updates the tool tip of the node.
 	 */
 	public void updateToolTip() {
+		if (map.isVirtualized() && !decorated) {
+			// the note texts may be long, see decorate():
+			return;
+		}
 		Map tooltips = getModel().getToolTip();
 		/*
 		 * if(tooltips.size() == 1) { String toolTipText = (String)
@@ -1374,6 +1453,26 @@ public class NodeView extends JComponent implements TreeModelListener {
 		return contentPane;
 	}
 
+	void setLayoutChanged() {
+		layoutChanged = true;
+	}
+
+	/**
+	 * @param x
+	 *            ,y the current location in the map view.
+	 * @return true, if this view or a view in its branch was layouted or moved
+	 *         since {@link #setLayoutPlaced(int, int)}.
+	 */
+	boolean isLayoutChanged(int x, int y) {
+		return layoutChanged || x != placedX || y != placedY;
+	}
+
+	void setLayoutPlaced(int x, int y) {
+		layoutChanged = false;
+		placedX = x;
+		placedY = y;
+	}
+
 	public NodeMotionListenerView getMotionListenerView() {
 		return motionListenerView;
 	}
@@ -1392,7 +1491,11 @@ public class NodeView extends JComponent implements TreeModelListener {
 		}
 	}
 
-	private void paintCloudsAndEdges(Graphics2D g) {
+	/**
+	 * @param clip
+	 *            the edges outside are skipped. Null, if all edges are painted.
+	 */
+	private void paintCloudsAndEdges(Graphics2D g, Rectangle clip) {
 		Object renderingHint = map.getController().setEdgesRenderingHint(g);
 		for (int i = 0; i < getComponentCount(); i++) {
 			final Component component = getComponent(i);
@@ -1400,6 +1503,10 @@ public class NodeView extends JComponent implements TreeModelListener {
 				continue;
 			}
 			NodeView nodeView = (NodeView) component;
+			if (clip != null && !clip.intersects(getEdgeArea(nodeView))) {
+				// neither the edge nor the clouds below are visible.
+				continue;
+			}
 			if (nodeView.isContentVisible()) {
 				Point p = new Point();
 				Tools.convertPointToAncestor(nodeView, p, this);
@@ -1409,12 +1516,23 @@ public class NodeView extends JComponent implements TreeModelListener {
 				EdgeView edge = NodeViewFactory.getInstance().getEdge(nodeView);
 				edge.paint(nodeView, g);
 			} else {
-				nodeView.paintCloudsAndEdges(g);
+				// the graphics isn't translated to the child:
+				nodeView.paintCloudsAndEdges(g, null);
 			}
 		}
 		Tools.restoreAntialiasing(g, renderingHint);
 	}
 
+	/**
+	 * @return an area containing the child with its clouds and the edge to it
+	 *         (the edge starts at the content of this node).
+	 */
+	private Rectangle getEdgeArea(NodeView child) {
+		final Rectangle area = child.getBounds();
+		area.add(getContent().getBounds());
+		return area;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -1427,7 +1545,7 @@ public class NodeView extends JComponent implements TreeModelListener {
 		}
 		if (isContentVisible()) {
 			Graphics2D g2d = (Graphics2D) g;
-			paintCloudsAndEdges(g2d);
+			paintCloudsAndEdges(g2d, g2d.getClipBounds());
 			super.paint(g);
 			// return to std stroke
 			g2d.setStroke(BubbleMainView.DEF_STROKE);
@@ -76,6 +76,8 @@ abstract public class NodeViewLayoutAdapter implements NodeViewLayout {
 	public void layoutContainer(Container c) {
 		setUp(c);
 		layout();
+		// the motion listener views in this branch have to be placed again:
+		getView().setLayoutChanged();
 		shutDown();
 	}
 
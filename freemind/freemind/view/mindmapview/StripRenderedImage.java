@@ -0,0 +1,150 @@
+/*FreeMind - A Program for creating and viewing Mindmaps
+ *Copyright (C) 2000-2012 Joerg Mueller, Daniel Polansky, Christian Foltin, Dimitri Polivaev and others.
+ *
+ *See COPYING for Details
+ *
+ *This program is free software; you can redistribute it and/or
+ *modify it under the terms of the GNU General Public License
+ *as published by the Free Software Foundation; either version 2
+ *of the License, or (at your option) any later version.
+ *
+ *This program is distributed in the hope that it will be useful,
+ *but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *GNU General Public License for more details.
+ *
+ *You should have received a copy of the GNU General Public License
+ *along with this program; if not, write to the Free Software
+ *Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package freemind.view.mindmapview;
+
+import java.awt.Component;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+
+/**
+ * An image of a part of a component, that is painted in horizontal strips of
+ * fixed height only when its pixels are read. Only the last strip is kept, such
+ * that an image writer reading the rows from top to bottom (as the PNG and
+ * JPEG writers do) needs memory for one strip only, independent of the size of
+ * the image.
+ *
+ * The component is painted with {@link Component#print(java.awt.Graphics)}, so
+ * the pixels must be read in the event thread and for a {@link MapView}
+ * between {@link MapView#preparePrinting()} and {@link MapView#endPrinting()}.
+ * The image is read only.
+ */
+public class StripRenderedImage {
+
+	public static final int DEFAULT_STRIP_HEIGHT = 256;
+
+	private static final int RED_MASK = 0xff0000;
+
+	private static final int GREEN_MASK = 0xff00;
+
+	private static final int BLUE_MASK = 0xff;
+
+	private static class StripDataBuffer extends DataBuffer {
+		private final Component mComponent;
+
+		private final Rectangle mBounds;
+
+		private final int mStripHeight;
+
+		/** First row of the painted strip, -1 if there is none. */
+		private int mStripY = -1;
+
+		private int[] mStrip;
+
+		private int mPaintedStrips = 0;
+
+		private StripDataBuffer(Component pComponent, Rectangle pBounds,
+				int pStripHeight) {
+			super(TYPE_INT, pBounds.width * pBounds.height);
+			mComponent = pComponent;
+			mBounds = new Rectangle(pBounds);
+			mStripHeight = pStripHeight;
+		}
+
+		public int getElem(int pBank, int pIndex) {
+			int y = pIndex / mBounds.width;
+			if (y < mStripY || y >= mStripY + mStripHeight || mStripY < 0) {
+				paintStrip(y - y % mStripHeight);
+			}
+			return mStrip[pIndex - mStripY * mBounds.width];
+		}
+
+		public void setElem(int pBank, int pIndex, int pValue) {
+			throw new UnsupportedOperationException(
+					"The rendered image is read only.");
+		}
+
+		private void paintStrip(int pStripY) {
+			int height = Math.min(mStripHeight, mBounds.height - pStripY);
+			BufferedImage strip = new BufferedImage(mBounds.width, height,
+					BufferedImage.TYPE_INT_RGB);
+			Graphics2D g = strip.createGraphics();
+			try {
+				g.translate(-mBounds.x, -(mBounds.y + pStripY));
+				g.clipRect(mBounds.x, mBounds.y + pStripY, mBounds.width,
+						height);
+				mComponent.print(g);
+			} finally {
+				g.dispose();
+			}
+			mStrip = ((DataBufferInt) strip.getRaster().getDataBuffer())
+					.getData();
+			mStripY = pStripY;
+			++mPaintedStrips;
+		}
+	}
+
+	private final StripDataBuffer mDataBuffer;
+
+	private final BufferedImage mImage;
+
+	/**
+	 * @param pBounds
+	 *            the part of the component to be painted, in its coordinates.
+	 */
+	public StripRenderedImage(Component pComponent, Rectangle pBounds,
+			int pStripHeight) {
+		if (pStripHeight <= 0) {
+			throw new IllegalArgumentException("Strip height " + pStripHeight);
+		}
+		mDataBuffer = new StripDataBuffer(pComponent, pBounds, pStripHeight);
+		int[] masks = new int[] { RED_MASK, GREEN_MASK, BLUE_MASK };
+		SinglePixelPackedSampleModel sampleModel = new SinglePixelPackedSampleModel(
+				DataBuffer.TYPE_INT, pBounds.width, pBounds.height, masks);
+		// not Raster.createWritableRaster, as it needs a DataBufferInt here:
+		WritableRaster raster = new WritableRaster(sampleModel, mDataBuffer,
+				new Point(0, 0)) {
+		};
+		mImage = new BufferedImage(new DirectColorModel(24, RED_MASK,
+				GREEN_MASK, BLUE_MASK), raster, false, null);
+	}
+
+	/**
+	 * @return the image, to be given to an image writer.
+	 */
+	public BufferedImage getImage() {
+		return mImage;
+	}
+
+	/**
+	 * @return how often a strip was painted.
+	 */
+	public int getPaintedStrips() {
+		return mDataBuffer.mPaintedStrips;
+	}
+
+}
@@ -0,0 +1,171 @@
+/*FreeMind - A Program for creating and viewing Mindmaps
+ *Copyright (C) 2000-2012 Christian Foltin and others.
+ *
+ *See COPYING for Details
+ *
+ *This program is free software; you can redistribute it and/or
+ *modify it under the terms of the GNU General Public License
+ *as published by the Free Software Foundation; either version 2
+ *of the License, or (at your option) any later version.
+ *
+ *This program is distributed in the hope that it will be useful,
+ *but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *GNU General Public License for more details.
+ *
+ *You should have received a copy of the GNU General Public License
+ *along with this program; if not, write to the Free Software
+ *Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package plugins.collaboration.database;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Iterator;
+import java.util.Vector;
+
+/**
+ * Runs beside the database server of the master and tells all connected
+ * update threads, that new actions were written, so that they don't need to
+ * poll the database. Every byte received from one connection is passed to all
+ * others.
+ */
+public class ActionNotifier extends Thread {
+
+	/** The notifier listens on the port of the database plus this offset. */
+	public static final int PORT_OFFSET = 1;
+
+	private static java.util.logging.Logger logger = null;
+
+	private final ServerSocket mServerSocket;
+
+	/** The connected sockets. */
+	private final Vector mConnections = new Vector();
+
+	private boolean mShouldTerminate = false;
+
+	/**
+	 * @param pBindAddress
+	 *            the address the database server listens on, too.
+	 */
+	public ActionNotifier(int pPort, InetAddress pBindAddress)
+			throws IOException {
+		super("ActionNotifier");
+		if (logger == null) {
+			logger = freemind.main.Resources.getInstance().getLogger(
+					this.getClass().getName());
+		}
+		setDaemon(true);
+		mServerSocket = new ServerSocket(pPort, 0, pBindAddress);
+	}
+
+	public int getPort() {
+		return mServerSocket.getLocalPort();
+	}
+
+	public void run() {
+		while (!mShouldTerminate) {
+			try {
+				final Socket socket = mServerSocket.accept();
+				socket.setTcpNoDelay(true);
+				synchronized (this) {
+					mConnections.add(socket);
+					notifyAll();
+				}
+				logger.info("Notification connection from "
+						+ socket.getInetAddress());
+				Thread reader = new Thread("ActionNotifier reader") {
+					public void run() {
+						relay(socket);
+					}
+				};
+				reader.setDaemon(true);
+				reader.start();
+			} catch (IOException e) {
+				if (!mShouldTerminate) {
+					freemind.main.Resources.getInstance().logException(e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Waits until the given number of connections is accepted.
+	 * 
+	 * @return false, if the timeout (ms) elapsed before.
+	 */
+	public synchronized boolean waitForConnections(int pCount, long pTimeout)
+			throws InterruptedException {
+		long end = System.currentTimeMillis() + pTimeout;
+		while (mConnections.size() < pCount) {
+			long remaining = end - System.currentTimeMillis();
+			if (remaining <= 0) {
+				return false;
+			}
+			wait(remaining);
+		}
+		return true;
+	}
+
+	/**
+	 * Passes the signals of the socket to all others until it is closed.
+	 */
+	private void relay(Socket pSocket) {
+		try {
+			InputStream in = pSocket.getInputStream();
+			while (in.read() >= 0) {
+				// several signals are passed as one:
+				in.skip(in.available());
+				broadcast(pSocket);
+			}
+		} catch (IOException e) {
+			logger.fine("Notification connection closed: " + e);
+		}
+		close(pSocket);
+	}
+
+	private void broadcast(Socket pSender) {
+		// a copy, as closed connections are removed:
+		Vector connections = new Vector(mConnections);
+		for (Iterator it = connections.iterator(); it.hasNext();) {
+			Socket socket = (Socket) it.next();
+			if (socket == pSender) {
+				continue;
+			}
+			try {
+				socket.getOutputStream().write(1);
+				socket.getOutputStream().flush();
+			} catch (IOException e) {
+				close(socket);
+			}
+		}
+	}
+
+	private void close(Socket pSocket) {
+		mConnections.remove(pSocket);
+		try {
+			pSocket.close();
+		} catch (IOException e) {
+			freemind.main.Resources.getInstance().logException(e);
+		}
+	}
+
+	public void shutdown() {
+		mShouldTerminate = true;
+		try {
+			mServerSocket.close();
+		} catch (IOException e) {
+			freemind.main.Resources.getInstance().logException(e);
+		}
+		// a copy, as closed connections are removed:
+		Vector connections = new Vector(mConnections);
+		for (Iterator it = connections.iterator(); it.hasNext();) {
+			close((Socket) it.next());
+		}
+	}
+
+}
@@ -24,6 +24,8 @@
 package plugins.collaboration.database;
 
 import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.util.Vector;
@@ -45,8 +47,13 @@ import freemind.view.mindmapview.NodeView;
 public class DatabaseStarter extends DatabaseBasics implements
 		PermanentNodeHook, DontSaveMarker {
 
+	/** New participants replay at most about this number of actions. */
+	private static final int SNAPSHOT_INTERVAL = 500;
+
 	private File mTempDbFile;
 
+	private ActionNotifier mActionNotifier = null;
+
 	/**
      *
      */
@@ -86,25 +93,31 @@ public class DatabaseStarter extends DatabaseBasics implements
 							.getFreemindDirectory()));
 			// mTempDbFile.deleteOnExit();
 			logger.info("Start server in file " + mTempDbFile);
+			// the others connect to this host:
+			final String host = Tools.getHostName();
+			final InetAddress bindAddress = InetAddress.getByName(host);
 			Thread server = new Thread(new Runnable() {
 
 				public void run() {
 					org.hsqldb.Server.main(new String[] { "-database.0",
-							"file:" + mTempDbFile, "-dbname.0", "xdb", "-port",
+							"file:" + mTempDbFile, "-dbname.0", "xdb",
+							"-address", bindAddress.getHostAddress(), "-port",
 							portProperty.getValue(), "-no_system_exit", "true" });
 				}
 			});
 			server.start();
+			startActionNotifier(portProperty.getValue(), bindAddress);
 			Thread.sleep(1000);
 			logger.info("Connect...");
 			Class.forName("org.hsqldb.jdbcDriver");
-			String url = "jdbc:hsqldb:hsql://localhost:"
+			String url = "jdbc:hsqldb:hsql://" + host + ":"
 					+ portProperty.getValue() + "/xdb";
 			logger.info("Connecting to " + url);
 			Connection connection = DriverManager.getConnection(url, "sa", "");
 			mUpdateThread = new UpdateThread(connection, controller);
-			mUpdateThread.setHost(Tools.getHostName());
+			mUpdateThread.setHost(host);
 			mUpdateThread.setPort(portProperty.getValue());
+			mUpdateThread.setSnapshotInterval(SNAPSHOT_INTERVAL);
 			mUpdateThread.setupTables(password);
 			logger.info("Starting update thread...");
 			mUpdateThread.start();
@@ -115,10 +128,32 @@ public class DatabaseStarter extends DatabaseBasics implements
 			if (mUpdateThread != null) {
 				mUpdateThread.shutdown(true);
 			}
+			stopActionNotifier();
 			return;
 		}
 	}
 
+	/**
+	 * Without the notifier, the others poll the database for changes.
+	 */
+	private void startActionNotifier(String pPort, InetAddress pBindAddress) {
+		try {
+			mActionNotifier = new ActionNotifier(Integer.parseInt(pPort)
+					+ ActionNotifier.PORT_OFFSET, pBindAddress);
+			mActionNotifier.start();
+		} catch (IOException e) {
+			freemind.main.Resources.getInstance().logException(e);
+			mActionNotifier = null;
+		}
+	}
+
+	private void stopActionNotifier() {
+		if (mActionNotifier != null) {
+			mActionNotifier.shutdown();
+			mActionNotifier = null;
+		}
+	}
+
 	public void loadFrom(XMLElement pChild) {
 		// this plugin should not be saved.
 	}
@@ -134,6 +169,7 @@ public class DatabaseStarter extends DatabaseBasics implements
 			mUpdateThread.signalEndOfSession();
 			mUpdateThread.commitSuicide();
 			mUpdateThread.shutdown(true);
+			stopActionNotifier();
 			// remove temporary files:
 			logger.info("Remove temporary database files.");
 			mTempDbFile.delete();
@@ -24,18 +24,22 @@
 package plugins.collaboration.database;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.StringReader;
 import java.io.StringWriter;
-import java.lang.reflect.InvocationTargetException;
 import java.math.BigInteger;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Types;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.Vector;
 
 import javax.swing.SwingUtilities;
@@ -44,6 +48,7 @@ import plugins.collaboration.database.DatabaseBasics.ResultHandler;
 import freemind.controller.actions.generated.instance.XmlAction;
 import freemind.extensions.PermanentNodeHook;
 import freemind.main.Tools;
+import freemind.modes.ControllerAdapter;
 import freemind.modes.MapAdapter;
 import freemind.modes.NodeAdapter;
 import freemind.modes.mindmapmode.MindMapController;
@@ -59,6 +64,30 @@ public class UpdateThread extends Thread implements ResultHandler,
 	private static final String QUERY = "SELECT * FROM "
 			+ DatabaseBasics.TABLE_XML_ACTIONS + " WHERE "
 			+ DatabaseBasics.ROW_PK + " >= ?";
+	private static final String INSERT_ACTION = "INSERT INTO "
+			+ DatabaseBasics.TABLE_XML_ACTIONS + "(" + DatabaseBasics.ROW_PK
+			+ "," + DatabaseBasics.ROW_ACTION + ","
+			+ DatabaseBasics.ROW_UNDOACTION + "," + DatabaseBasics.ROW_MAP
+			+ ") VALUES(?, ?, ?, ?)";
+	/**
+	 * Without notifications, the database is asked for updates after this
+	 * time (ms).
+	 */
+	private static final int POLL_INTERVAL = 1000;
+	/**
+	 * The own actions are written at most this often, if the others write
+	 * the same keys.
+	 */
+	private static final int WRITE_ATTEMPTS = 3;
+	private static final String ACTIONS_NOT_WRITTEN = "plugins.collaboration.database.UpdateThread.actions_not_written";
+	private static final int TITLE_UPDATE_INTERVAL = 10000;
+	private static final String QUERY_LATEST_SNAPSHOT = "SELECT MAX("
+			+ DatabaseBasics.ROW_PK + ") FROM "
+			+ DatabaseBasics.TABLE_XML_ACTIONS + " WHERE "
+			+ DatabaseBasics.ROW_MAP + " IS NOT NULL";
+	private static final String DELETE_ACTIONS = "DELETE FROM "
+			+ DatabaseBasics.TABLE_XML_ACTIONS + " WHERE "
+			+ DatabaseBasics.ROW_PK + " < ?";
 	private boolean mShouldTerminate = false;
 	private boolean mIsTerminated = false;
 	protected Connection mConnection = null;
@@ -69,6 +98,20 @@ public class UpdateThread extends Thread implements ResultHandler,
 	private static java.util.logging.Logger logger = null;
 	private PreparedStatement mPrepareStatement;
 	private PreparedStatement mPrepareStatementUsers = null;
+	private PreparedStatement mInsertStatement = null;
+	/** Tells about the actions of the others, null if they must be polled. */
+	private Socket mNotificationSocket = null;
+	private ActionWriter mActionWriter;
+	/** False, until the map of the session is loaded (or stored). */
+	private boolean mIsMapLoaded = false;
+	/**
+	 * The master stores a snapshot of the map after this number of actions,
+	 * so that new participants don't need to replay all actions.
+	 */
+	private int mSnapshotInterval = 0;
+	private int mActionsSinceSnapshot = 0;
+	/** The actions before the last snapshot are deleted with the next one. */
+	private long mSnapshotPrimaryKey = 0;
 	protected String mPort;
 
 	public String getPort() {
@@ -98,31 +141,113 @@ public class UpdateThread extends Thread implements ResultHandler,
 		}
 		mConnection = pConnection;
 		mController = pController;
+		mActionWriter = new ActionWriter();
+		mActionWriter.start();
+	}
+
+	/**
+	 * Writes the actions of this user in batches, so that the editing doesn't
+	 * wait for the database.
+	 */
+	private class ActionWriter extends Thread {
+		/** The rows to write: do action, undo action and map. */
+		private final LinkedList mQueue = new LinkedList();
+		private boolean mIsWriting = false;
+		private boolean mShouldTerminate = false;
+
+		ActionWriter() {
+			super("ActionWriter");
+			setDaemon(true);
+		}
+
+		synchronized void add(String pDoAction, String pUndoAction) {
+			mQueue.add(new String[] { pDoAction, pUndoAction, null });
+			notifyAll();
+		}
+
+		/**
+		 * Waits until all actions are written.
+		 */
+		synchronized void flush() throws InterruptedException {
+			while ((!mQueue.isEmpty() || mIsWriting) && isAlive()) {
+				wait(POLL_INTERVAL);
+			}
+		}
+
+		synchronized boolean hasActions() {
+			return !mQueue.isEmpty() || mIsWriting;
+		}
+
+		synchronized void terminate() {
+			mShouldTerminate = true;
+			notifyAll();
+		}
+
+		public void run() {
+			while (true) {
+				Vector actions;
+				synchronized (this) {
+					while (mQueue.isEmpty() && !mShouldTerminate) {
+						try {
+							wait();
+						} catch (InterruptedException e) {
+							freemind.main.Resources.getInstance()
+									.logException(e);
+						}
+					}
+					if (mQueue.isEmpty()) {
+						return;
+					}
+					actions = new Vector(mQueue);
+					mQueue.clear();
+					mIsWriting = true;
+				}
+				try {
+					writeOwnActions(actions);
+				} catch (SQLException e) {
+					freemind.main.Resources.getInstance().logException(e);
+					resynchronize();
+				} finally {
+					synchronized (this) {
+						mIsWriting = false;
+						notifyAll();
+					}
+				}
+			}
+		}
 	}
 
 	public void run() {
 		try {
-			mPrepareStatement = mConnection.prepareStatement(QUERY);
+			synchronized (mPrimaryKeyMutex) {
+				if (mPrepareStatement == null) {
+					mPrepareStatement = mConnection.prepareStatement(QUERY);
+				}
+			}
 		} catch (SQLException e1) {
 			freemind.main.Resources.getInstance().logException(e1);
 			return;
 		}
-		int counter = 1;
+		if (!mIsMapLoaded) {
+			startAtLatestSnapshot();
+		}
+		connectNotifications();
+		long lastTitleUpdate = 0;
 		while (!mShouldTerminate) {
 			try {
 				logger.fine("Looking for updates...");
-				synchronized (mPrimaryKeyMutex) {
-					mPrepareStatement.setLong(1, mPrimaryKey);
-					logger.fine("Looking for updates... Query");
-					query(mPrepareStatement, this);
-				}
+				readNewActions();
 				logger.fine("Looking for updates... Done.");
-				Thread.sleep(1000);
-				counter--;
-				if (counter <= 0) {
-					counter = 10;
+				if (mSnapshotInterval > 0
+						&& mActionsSinceSnapshot >= mSnapshotInterval) {
+					storeSnapshot();
+				}
+				long now = System.currentTimeMillis();
+				if (now - lastTitleUpdate > TITLE_UPDATE_INTERVAL) {
+					lastTitleUpdate = now;
 					mController.getController().setTitle();
 				}
+				waitForUpdates();
 			} catch (Exception e) {
 				freemind.main.Resources.getInstance().logException(e);
 			}
@@ -130,7 +255,262 @@ public class UpdateThread extends Thread implements ResultHandler,
 		mIsTerminated = true;
 	}
 
+	/**
+	 * Reads and executes the actions of the others written since the last
+	 * query.
+	 */
+	private void readNewActions() throws SQLException {
+		synchronized (mPrimaryKeyMutex) {
+			if (mPrepareStatement == null) {
+				mPrepareStatement = mConnection.prepareStatement(QUERY);
+			}
+			mPrepareStatement.setLong(1, mPrimaryKey);
+			query(mPrepareStatement, this);
+		}
+	}
+
+	/**
+	 * Writes the own actions. If it fails, as another participant has
+	 * written the same keys in the meantime, its actions are read first and
+	 * the writing is retried.
+	 */
+	private void writeOwnActions(Vector pActions) throws SQLException {
+		for (int attempt = 1;; attempt++) {
+			try {
+				writeActions(pActions);
+				return;
+			} catch (SQLException e) {
+				if (attempt >= WRITE_ATTEMPTS) {
+					throw e;
+				}
+				logger.warning("Writing actions failed, reading the others' "
+						+ "actions first: " + e);
+				readNewActions();
+			}
+		}
+	}
+
+	/**
+	 * The own actions couldn't be written, thus the map differs from the one
+	 * of the others. It is loaded again from the latest snapshot and the user
+	 * is told about it.
+	 */
+	private void resynchronize() {
+		synchronized (mPrimaryKeyMutex) {
+			mIsMapLoaded = false;
+			startAtLatestSnapshot();
+		}
+		final MindMapController controller = mController;
+		SwingUtilities.invokeLater(new Runnable() {
+			public void run() {
+				controller.getController().errorMessage(
+						controller.getText(ACTIONS_NOT_WRITTEN));
+			}
+		});
+	}
+
+	/**
+	 * New participants load the latest snapshot and the actions after it.
+	 * 
+	 * @return false, if there is no snapshot.
+	 */
+	private boolean startAtLatestSnapshot() {
+		boolean found = false;
+		try {
+			Statement st = mConnection.createStatement();
+			ResultSet rs = st.executeQuery(QUERY_LATEST_SNAPSHOT);
+			if (rs.next() && rs.getLong(1) > 0) {
+				synchronized (mPrimaryKeyMutex) {
+					mPrimaryKey = rs.getLong(1);
+				}
+				logger.info("Starting at the snapshot " + mPrimaryKey);
+				found = true;
+			}
+			rs.close();
+			st.close();
+		} catch (SQLException e) {
+			freemind.main.Resources.getInstance().logException(e);
+		}
+		return found;
+	}
+
+	/**
+	 * Gets the map from the Swing thread, after all actions read before were
+	 * executed.
+	 */
+	private class SnapshotTask implements Runnable {
+		private String mMap = null;
+		private boolean mIsDone = false;
+
+		public void run() {
+			String map = null;
+			// own actions that aren't written yet must come after the
+			// snapshot:
+			if (!mActionWriter.hasActions()) {
+				try {
+					StringWriter writer = new StringWriter();
+					mController.getMap().getXml(writer);
+					map = writer.toString();
+				} catch (IOException e) {
+					freemind.main.Resources.getInstance().logException(e);
+				}
+			}
+			synchronized (this) {
+				mMap = map;
+				mIsDone = true;
+				notifyAll();
+			}
+		}
+
+		/**
+		 * @return the map or null, if there is no consistent state now.
+		 */
+		synchronized String getMap() throws InterruptedException {
+			while (!mIsDone && !mShouldTerminate) {
+				wait(POLL_INTERVAL);
+			}
+			return mMap;
+		}
+	}
+
+	/**
+	 * Stores the map as compressed snapshot and deletes the actions before
+	 * the previous snapshot. If actions arrive in the meantime, this is
+	 * retried later.
+	 */
+	private void storeSnapshot() throws InterruptedException {
+		mActionWriter.flush();
+		long primaryKey;
+		synchronized (mPrimaryKeyMutex) {
+			primaryKey = mPrimaryKey;
+		}
+		SnapshotTask task = new SnapshotTask();
+		SwingUtilities.invokeLater(task);
+		String map = task.getMap();
+		if (map == null) {
+			return;
+		}
+		synchronized (mPrimaryKeyMutex) {
+			if (primaryKey != mPrimaryKey) {
+				return;
+			}
+			try {
+				Vector rows = new Vector();
+				rows.add(new String[] { null, null, Tools.compress(map) });
+				writeActions(rows);
+				logger.info("Stored snapshot " + primaryKey);
+				if (mSnapshotPrimaryKey > 0) {
+					deleteActionsBefore(mSnapshotPrimaryKey);
+				}
+				mSnapshotPrimaryKey = primaryKey;
+				mActionsSinceSnapshot = 0;
+			} catch (SQLException e) {
+				// another participant has written this key:
+				logger.fine("Snapshot not stored: " + e);
+			}
+		}
+	}
+
+	/**
+	 * Participants that didn't read the actions before the previous snapshot
+	 * until now have to start again.
+	 */
+	private synchronized void deleteActionsBefore(long pPrimaryKey)
+			throws SQLException {
+		PreparedStatement statement = mConnection
+				.prepareStatement(DELETE_ACTIONS);
+		statement.setLong(1, pPrimaryKey);
+		int deleted = statement.executeUpdate();
+		statement.close();
+		logger.info("Deleted " + deleted + " actions before " + pPrimaryKey);
+	}
+
+	/**
+	 * @param pActions
+	 *            after this number of actions, the master stores a snapshot
+	 *            of the map. Zero to never store one.
+	 */
+	public void setSnapshotInterval(int pActions) {
+		mSnapshotInterval = pActions;
+	}
+
+	/**
+	 * Connects to the notifier of the master. If there is none, the database
+	 * is polled.
+	 */
+	private void connectNotifications() {
+		try {
+			int port = Integer.parseInt(mPort) + ActionNotifier.PORT_OFFSET;
+			mNotificationSocket = new Socket(mHost, port);
+			mNotificationSocket.setTcpNoDelay(true);
+			mNotificationSocket.setSoTimeout(POLL_INTERVAL);
+			logger.info("Connected to the notifier at " + mHost + ":" + port);
+		} catch (Exception e) {
+			logger.warning("No notifications, polling the database: " + e);
+			mNotificationSocket = null;
+		}
+	}
+
+	/**
+	 * Returns, when the others have written actions, but at least after the
+	 * poll interval.
+	 */
+	private void waitForUpdates() throws InterruptedException {
+		Socket socket = mNotificationSocket;
+		if (socket != null) {
+			try {
+				InputStream in = socket.getInputStream();
+				if (in.read() >= 0) {
+					// several signals give one query:
+					in.skip(in.available());
+					return;
+				}
+			} catch (SocketTimeoutException e) {
+				return;
+			} catch (IOException e) {
+				logger.fine("Notification connection closed: " + e);
+			}
+			closeNotifications();
+		}
+		Thread.sleep(POLL_INTERVAL);
+	}
+
+	/**
+	 * Tells the others about new actions.
+	 */
+	private void signalNewActions() {
+		Socket socket = mNotificationSocket;
+		if (socket == null) {
+			return;
+		}
+		try {
+			socket.getOutputStream().write(1);
+			socket.getOutputStream().flush();
+		} catch (IOException e) {
+			logger.warning("Can't notify, the others poll the database: " + e);
+			closeNotifications();
+		}
+	}
+
+	private void closeNotifications() {
+		Socket socket = mNotificationSocket;
+		mNotificationSocket = null;
+		if (socket != null) {
+			try {
+				socket.close();
+			} catch (IOException e) {
+				freemind.main.Resources.getInstance().logException(e);
+			}
+		}
+	}
+
 	public void commitSuicide() {
+		try {
+			mActionWriter.flush();
+		} catch (InterruptedException e) {
+			freemind.main.Resources.getInstance().logException(e);
+		}
+		mActionWriter.terminate();
 		mShouldTerminate = true;
 		int timeout = 100;
 		logger.info("Shutting down update thread.");
@@ -146,6 +526,7 @@ public class UpdateThread extends Thread implements ResultHandler,
 		} else {
 			logger.info("Shutting down update thread complete.");
 		}
+		closeNotifications();
 	}
 
 	public void shutdown(boolean pWithShutdown) {
@@ -162,9 +543,23 @@ public class UpdateThread extends Thread implements ResultHandler,
 	}
 
 	public void processResults(ResultSet rs) {
+		// the actions of one query are executed in one transaction:
+		Vector pairs = new Vector();
 		try {
 			while (rs.next()) {
 				long nextPk = rs.getLong(DatabaseBasics.ROW_PK);
+				if (mIsMapLoaded && nextPk > mPrimaryKey) {
+					// the actions in between were deleted with an old
+					// snapshot (see deleteActionsBefore):
+					logger.warning("Actions " + mPrimaryKey + " to "
+							+ (nextPk - 1) + " are missing.");
+					if (startAtLatestSnapshot()) {
+						// the map is read with the next query.
+						rs.close();
+						mIsMapLoaded = false;
+						return;
+					}
+				}
 				mPrimaryKey = nextPk + 1;
 				String doAction = rs.getString(DatabaseBasics.ROW_ACTION);
 				String undoAction = rs.getString(DatabaseBasics.ROW_UNDOACTION);
@@ -175,13 +570,24 @@ public class UpdateThread extends Thread implements ResultHandler,
 					XmlAction xmlDoAction = mController.unMarshall(doAction);
 					XmlAction xmlUndoAction = mController
 							.unMarshall(undoAction);
-					ActionPair pair = new ActionPair(xmlDoAction, xmlUndoAction);
-					executeTransaction(pair);
+					pairs.add(new ActionPair(xmlDoAction, xmlUndoAction));
+					mActionsSinceSnapshot++;
 				} else if (map != null) {
+					if (mIsMapLoaded) {
+						// a snapshot of the map we have already.
+						continue;
+					}
+					executeTransaction(pairs);
+					pairs = new Vector();
+					if (!map.startsWith("<")) {
+						map = Tools.decompress(map);
+					}
 					createNewMap(map);
+					mIsMapLoaded = true;
 				} else {
 					logger.info("Shutting down was signalled.");
 					rs.close();
+					executeTransaction(pairs);
 					// session has ended.
 					DatabaseBasics.togglePermanentHook(mController);
 					// and end.
@@ -192,15 +598,16 @@ public class UpdateThread extends Thread implements ResultHandler,
 		} catch (Exception e) {
 			freemind.main.Resources.getInstance().logException(e);
 		}
+		executeTransaction(pairs);
 	}
 
-	private void createNewMap(String map) throws IOException {
+	protected void createNewMap(String map) throws IOException {
 		{
 			// deregister from old controller:
 			deregisterFilter();
 			logger.info("Restoring the map...");
-			MindMapController newModeController = (MindMapController) mController
-					.getMode().createModeController();
+			MindMapController newModeController = (MindMapController) ControllerAdapter
+					.createModeController(mController.getMode());
 			MapAdapter newModel = new MindMapMapModel(mController.getFrame(),
 					newModeController);
 			HashMap IDToTarget = new HashMap();
@@ -232,15 +639,22 @@ public class UpdateThread extends Thread implements ResultHandler,
 		}
 	}
 
-	private void executeTransaction(final ActionPair pair)
-			throws InterruptedException, InvocationTargetException {
+	private void executeTransaction(final Vector pairs) {
+		if (pairs.isEmpty()) {
+			return;
+		}
+		// the controller may be replaced by a new map in the meantime:
+		final MindMapController controller = mController;
 		SwingUtilities.invokeLater(new Runnable() {
 			public void run() {
 				mFilterEnabled = false;
 				try {
-					mController.getActionFactory().startTransaction("update");
-					mController.getActionFactory().executeAction(pair);
-					mController.getActionFactory().endTransaction("update");
+					controller.getActionFactory().startTransaction("update");
+					for (Iterator it = pairs.iterator(); it.hasNext();) {
+						ActionPair pair = (ActionPair) it.next();
+						controller.getActionFactory().executeAction(pair);
+					}
+					controller.getActionFactory().endTransaction("update");
 				} finally {
 					mFilterEnabled = true;
 				}
@@ -255,6 +669,55 @@ public class UpdateThread extends Thread implements ResultHandler,
 		}
 	}
 
+	/**
+	 * Inserts the rows (do action, undo action and map, each may be null) in
+	 * one transaction.
+	 */
+	void writeActions(Vector pActions) throws SQLException {
+		synchronized (mPrimaryKeyMutex) {
+			synchronized (this) {
+				if (mInsertStatement == null) {
+					mInsertStatement = mConnection
+							.prepareStatement(INSERT_ACTION);
+				}
+				logger.info("Writing " + pActions.size() + " actions.");
+				mConnection.setAutoCommit(false);
+				try {
+					long primaryKey = mPrimaryKey;
+					for (Iterator it = pActions.iterator(); it.hasNext();) {
+						String[] row = (String[]) it.next();
+						mInsertStatement.setLong(1, primaryKey++);
+						for (int i = 0; i < row.length; i++) {
+							if (row[i] == null) {
+								mInsertStatement.setNull(i + 2, Types.VARCHAR);
+							} else {
+								mInsertStatement.setString(i + 2, row[i]);
+							}
+						}
+						mInsertStatement.addBatch();
+					}
+					mInsertStatement.executeBatch();
+					mConnection.commit();
+					mPrimaryKey = primaryKey;
+					mActionsSinceSnapshot += pActions.size();
+				} catch (SQLException e) {
+					mConnection.rollback();
+					throw e;
+				} finally {
+					mConnection.setAutoCommit(true);
+				}
+			}
+		}
+		signalNewActions();
+	}
+
+	/**
+	 * Waits until the own actions are in the database.
+	 */
+	public void flushActions() throws InterruptedException {
+		mActionWriter.flush();
+	}
+
 	public synchronized void query(PreparedStatement preparedStatement,
 			ResultHandler pHandler) throws SQLException {
 
@@ -285,16 +748,8 @@ public class UpdateThread extends Thread implements ResultHandler,
 			return pPair;
 		String doAction = mController.marshall(pPair.getDoAction());
 		String undoAction = mController.marshall(pPair.getUndoAction());
-		String expression = "INSERT INTO " + DatabaseBasics.TABLE_XML_ACTIONS
-				+ "(" + DatabaseBasics.ROW_PK + "," + DatabaseBasics.ROW_ACTION
-				+ "," + DatabaseBasics.ROW_UNDOACTION + ") VALUES("
-				+ mPrimaryKey + ", '" + escapeQuotations(doAction) + "', '"
-				+ escapeQuotations(undoAction) + "')";
-		try {
-			insertIntoActionTable(expression);
-		} catch (SQLException e) {
-			freemind.main.Resources.getInstance().logException(e);
-		}
+		// written in the background:
+		mActionWriter.add(doAction, undoAction);
 		return pPair;
 	}
 
@@ -323,11 +778,12 @@ public class UpdateThread extends Thread implements ResultHandler,
 		logger.info("Store map in database...");
 		StringWriter writer = new StringWriter();
 		mController.getMap().getXml(writer);
-		String expression = "INSERT INTO " + DatabaseBasics.TABLE_XML_ACTIONS
-				+ "(" + DatabaseBasics.ROW_PK + "," + DatabaseBasics.ROW_MAP
-				+ ") VALUES(" + mPrimaryKey + ", '"
-				+ escapeQuotations(writer.toString()) + "')";
-		insertIntoActionTable(expression);
+		Vector rows = new Vector();
+		rows.add(new String[] { null, null, Tools.compress(writer.toString()) });
+		writeActions(rows);
+		mIsMapLoaded = true;
+		mSnapshotPrimaryKey = mPrimaryKey - 1;
+		mActionsSinceSnapshot = 0;
 	}
 
 	void insertUser() throws SQLException {
@@ -369,10 +825,13 @@ public class UpdateThread extends Thread implements ResultHandler,
 
 	public void signalEndOfSession() {
 		// signal end of session:
-		String expression = "INSERT INTO " + DatabaseBasics.TABLE_XML_ACTIONS
-				+ "(" + DatabaseBasics.ROW_PK + ") VALUES(" + mPrimaryKey + ")";
 		try {
+			mActionWriter.flush();
+			String expression = "INSERT INTO "
+					+ DatabaseBasics.TABLE_XML_ACTIONS + "("
+					+ DatabaseBasics.ROW_PK + ") VALUES(" + mPrimaryKey + ")";
 			insertIntoActionTable(expression);
+			signalNewActions();
 			// and wait until the others should have shut down.
 			Thread.sleep(2000);
 		} catch (Exception e) {
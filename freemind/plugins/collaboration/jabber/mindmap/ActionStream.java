@@ -0,0 +1,338 @@
+/*FreeMind - A Program for creating and viewing Mindmaps
+*Copyright (C) 2000-2012 Joerg Mueller, Daniel Polansky, Christian Foltin, Dimitri Polivaev and others.
+*
+*See COPYING for Details
+*
+*This program is free software; you can redistribute it and/or
+*modify it under the terms of the GNU General Public License
+*as published by the Free Software Foundation; either version 2
+*of the License, or (at your option) any later version.
+*
+*This program is distributed in the hope that it will be useful,
+*but WITHOUT ANY WARRANTY; without even the implied warranty of
+*MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*GNU General Public License for more details.
+*
+*You should have received a copy of the GNU General Public License
+*along with this program; if not, write to the Free Software
+*Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+*/
+package plugins.collaboration.jabber.mindmap;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.io.ByteArrayOutputStream;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Vector;
+import java.util.zip.Adler32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+import freemind.controller.actions.generated.instance.CompoundAction;
+import freemind.controller.actions.generated.instance.XmlAction;
+import freemind.main.Tools;
+import freemind.modes.mindmapmode.MindMapController;
+import freemind.modes.mindmapmode.actions.xml.ActionFactory;
+import freemind.modes.mindmapmode.actions.xml.ActionPair;
+
+/**
+ * The actions of one shared map in both directions. The own actions are
+ * collected for a short time and sent as one message. The messages are
+ * compressed with the previous message of the same direction as dictionary,
+ * so that similar actions (like typing in a node) cost only a few bytes. The
+ * received actions are executed in one transaction.
+ * 
+ * The messages must arrive in the order they were sent, as the chat does. If
+ * a message can't be read (eg. a previous one got lost), the receiver asks the
+ * other side to start again with the initial dictionary.
+ */
+public class ActionStream {
+
+    /** Where the messages go: the chat or, in tests, another stream. */
+    public interface MessageChannel {
+        void sendMessage(String message) throws Exception;
+    }
+
+    /** Starts the messages of this stream, it isn't part of Base64. */
+    public static final String MESSAGE_PREFIX = "!";
+
+    /** Asks the other side to compress with the initial dictionary again. */
+    static final String RESET_MESSAGE = MESSAGE_PREFIX + "!reset";
+
+    /** Time (ms) the own actions are collected. */
+    public static final int COALESCING_WINDOW = 100;
+
+    private static final String TRANSACTION_NAME = "remote actions";
+
+    /** Deflate uses at most this many bytes of the dictionary. */
+    private static final int MAX_DICTIONARY_LENGTH = 32 * 1024;
+
+    /** Before the first message, both sides use this. */
+    private static final byte[] INITIAL_DICTIONARY = Tools
+            .uTF8StringToByteArray("<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+                    + "<compound_action><compound_action>"
+                    + "</compound_action>");
+
+    // Logging:
+    private static java.util.logging.Logger logger;
+
+    private final MindMapController controller;
+
+    private final MessageChannel channel;
+
+    /** The own actions not sent yet. */
+    private final Vector outgoing = new Vector();
+
+    private final Timer timer;
+
+    private byte[] sendDictionary = INITIAL_DICTIONARY;
+
+    private byte[] receiveDictionary = INITIAL_DICTIONARY;
+
+    /** Incremented, when the other side asks for a reset. */
+    private int resetCount = 0;
+
+    /** True, after a reset was requested till a message can be read again. */
+    private boolean isResetRequested = false;
+
+    /** True, while received actions are executed: they aren't sent back. */
+    private boolean isExecutingReceived = false;
+
+    public ActionStream(MindMapController controller, MessageChannel channel) {
+        this(controller, channel, COALESCING_WINDOW);
+    }
+
+    public ActionStream(MindMapController controller,
+            MessageChannel channel, int coalescingWindow) {
+        this.controller = controller;
+        this.channel = channel;
+        if (logger == null) {
+            logger = freemind.main.Resources.getInstance().getLogger(
+                    this.getClass().getName());
+        }
+        timer = new Timer(coalescingWindow, new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                flush();
+            }
+        });
+        timer.setRepeats(false);
+    }
+
+    /**
+     * Queues an own action. It is sent with the others at the end of the
+     * coalescing window.
+     */
+    public void add(ActionPair pair) {
+        if (pair == null || isExecutingReceived) {
+            return;
+        }
+        outgoing.add(pair);
+        if (!timer.isRunning()) {
+            timer.start();
+        }
+    }
+
+    /**
+     * Sends the queued actions as one message. If sending fails, they are
+     * sent with the next message.
+     */
+    public synchronized void flush() {
+        timer.stop();
+        List pairs;
+        synchronized (outgoing) {
+            if (outgoing.isEmpty()) {
+                return;
+            }
+            pairs = new Vector(outgoing);
+            outgoing.clear();
+        }
+        CompoundAction batch = new CompoundAction();
+        for (Iterator it = pairs.iterator(); it.hasNext();) {
+            ActionPair pair = (ActionPair) it.next();
+            CompoundAction compound = new CompoundAction();
+            compound.addChoice(pair.getDoAction());
+            compound.addChoice(pair.getUndoAction());
+            batch.addChoice(compound);
+        }
+        byte[] input = Tools.uTF8StringToByteArray(controller.marshall(batch));
+        String message = encode(input);
+        int resets = resetCount;
+        logger.info("Sending " + pairs.size() + " actions in "
+                + message.length() + " characters.");
+        try {
+            channel.sendMessage(message);
+        } catch (Exception e) {
+            freemind.main.Resources.getInstance().logException(e);
+            // the other side still expects the old dictionary:
+            synchronized (outgoing) {
+                outgoing.addAll(0, pairs);
+            }
+            return;
+        }
+        // (unless the other side couldn't read it and asked for a reset)
+        if (resets == resetCount) {
+            sendDictionary = getDictionary(input);
+        }
+    }
+
+    /**
+     * @return true, if the message was sent by an action stream.
+     */
+    public static boolean isStreamMessage(String message) {
+        return message != null && message.startsWith(MESSAGE_PREFIX);
+    }
+
+    /**
+     * Executes the actions of a message in one transaction on the Swing
+     * thread.
+     */
+    public synchronized void receive(String message) {
+        if (RESET_MESSAGE.equals(message)) {
+            logger.info("The other side starts with the initial dictionary.");
+            sendDictionary = INITIAL_DICTIONARY;
+            resetCount++;
+            return;
+        }
+        String xml;
+        try {
+            xml = decode(message);
+        } catch (DataFormatException e) {
+            // messages got lost, the maps differ from now on.
+            logger.severe("Can't read the actions of the other side: " + e);
+            if (!isResetRequested) {
+                requestReset();
+            }
+            return;
+        }
+        isResetRequested = false;
+        XmlAction action = controller.unMarshall(xml);
+        if (!(action instanceof CompoundAction)) {
+            logger.warning("Unknown collaboration message:" + xml);
+            return;
+        }
+        final Vector pairs = new Vector();
+        for (Iterator it = ((CompoundAction) action).getListChoiceList()
+                .iterator(); it.hasNext();) {
+            CompoundAction pair = (CompoundAction) it.next();
+            pairs.add(new ActionPair((XmlAction) pair.getChoice(0),
+                    (XmlAction) pair.getChoice(1)));
+        }
+        Runnable execution = new Runnable() {
+            public void run() {
+                execute(pairs);
+            }
+        };
+        if (SwingUtilities.isEventDispatchThread()) {
+            execution.run();
+        } else {
+            SwingUtilities.invokeLater(execution);
+        }
+    }
+
+    /**
+     * Asks the other side to compress its next message with the initial
+     * dictionary, so that the following messages can be read again.
+     */
+    private void requestReset() {
+        try {
+            channel.sendMessage(RESET_MESSAGE);
+            isResetRequested = true;
+        } catch (Exception e) {
+            freemind.main.Resources.getInstance().logException(e);
+        }
+    }
+
+    private void execute(List pairs) {
+        ActionFactory actionFactory = controller.getActionFactory();
+        isExecutingReceived = true;
+        try {
+            actionFactory.startTransaction(TRANSACTION_NAME);
+            for (Iterator it = pairs.iterator(); it.hasNext();) {
+                actionFactory.executeAction((ActionPair) it.next());
+            }
+            actionFactory.endTransaction(TRANSACTION_NAME);
+        } catch (Exception e) {
+            freemind.main.Resources.getInstance().logException(e);
+        } finally {
+            isExecutingReceived = false;
+        }
+    }
+
+    /**
+     * Compresses with the dictionary of the last sent message. The dictionary
+     * is changed by the caller, after the message was sent.
+     */
+    String encode(byte[] input) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        deflater.setDictionary(sendDictionary);
+        deflater.setInput(input);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        while (!deflater.finished()) {
+            int count = deflater.deflate(buffer);
+            out.write(buffer, 0, count);
+        }
+        deflater.end();
+        return MESSAGE_PREFIX + Tools.toBase64(out.toByteArray());
+    }
+
+    String decode(String message) throws DataFormatException {
+        byte[] data = Tools.fromBase64(message.substring(MESSAGE_PREFIX
+                .length()));
+        Inflater inflater = new Inflater();
+        inflater.setInput(data);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        try {
+            while (!inflater.finished()) {
+                int count = inflater.inflate(buffer);
+                if (count == 0) {
+                    if (inflater.needsDictionary()) {
+                        // the adler checksum is unsigned:
+                        long adler = inflater.getAdler() & 0xffffffffL;
+                        if (adler == getAdler(receiveDictionary)) {
+                            inflater.setDictionary(receiveDictionary);
+                        } else if (adler == getAdler(INITIAL_DICTIONARY)) {
+                            // the other side started again:
+                            inflater.setDictionary(INITIAL_DICTIONARY);
+                        } else {
+                            throw new DataFormatException(
+                                    "A previous message is missing.");
+                        }
+                    } else if (inflater.needsInput()) {
+                        throw new DataFormatException("Incomplete message.");
+                    }
+                }
+                out.write(buffer, 0, count);
+            }
+        } finally {
+            inflater.end();
+        }
+        byte[] xml = out.toByteArray();
+        receiveDictionary = getDictionary(xml);
+        return Tools.byteArrayToUTF8String(xml);
+    }
+
+    private static byte[] getDictionary(byte[] message) {
+        if (message.length <= MAX_DICTIONARY_LENGTH) {
+            return message;
+        }
+        byte[] dictionary = new byte[MAX_DICTIONARY_LENGTH];
+        System.arraycopy(message, message.length - MAX_DICTIONARY_LENGTH,
+                dictionary, 0, MAX_DICTIONARY_LENGTH);
+        return dictionary;
+    }
+
+    private static long getAdler(byte[] data) {
+        Adler32 adler = new Adler32();
+        adler.update(data);
+        return adler.getValue();
+    }
+
+}
@@ -152,6 +152,16 @@ public class JabberListener {
                 JabberChatMessage msg = (JabberChatMessage) commandQueue
                         .removeFirst(); //Process the first command in the
 
+                if (ActionStream.isStreamMessage(msg.getBody())) {
+                    ActionStream actionStream = sharingWizardController
+                            .getActionStream();
+                    if (actionStream == null) {
+                        logger.warning("Actions received before connection.");
+                        return;
+                    }
+                    actionStream.receive(msg.getBody());
+                    return;
+                }
                 String msgString = Tools.decompress(msg.getBody());
                 // list.
                 if(logger.isLoggable(Level.INFO)){
@@ -34,7 +34,6 @@ import com.echomine.jabber.JabberChatService;
 import com.echomine.jabber.JabberSession;
 
 import freemind.controller.actions.generated.instance.CollaborationAction;
-import freemind.controller.actions.generated.instance.CompoundAction;
 import freemind.controller.actions.generated.instance.XmlAction;
 import freemind.main.Tools;
 import freemind.modes.mindmapmode.actions.xml.ActionFilter;
@@ -71,6 +70,9 @@ public class JabberSender implements ActionFilter {
 
     private final MapSharingController controller;
 
+    /** The actions are sent in batches. */
+    private final ActionStream actionStream;
+
     public JabberSender(JabberSession session, MapSharingController controller) {
         this.controller = controller;
         if (logger == null) {
@@ -84,6 +86,16 @@ public class JabberSender implements ActionFilter {
         } catch (Exception e) {
             freemind.main.Resources.getInstance().logException(e);
         }
+        actionStream = new ActionStream(controller.getController(),
+                new ActionStream.MessageChannel() {
+                    public void sendMessage(String message) throws Exception {
+                        sendStreamMessage(message);
+                    }
+                });
+    }
+
+    public ActionStream getActionStream() {
+        return actionStream;
     }
 
     /**
@@ -117,6 +129,8 @@ public class JabberSender implements ActionFilter {
      *  
      */
     public void sendMapSharingStopRequest() {
+        // the last actions first:
+        actionStream.flush();
         try {
             CollaborationAction action = createCollaborationAction(sendToUser,
                     STOP_MAP_SHARING);
@@ -218,6 +232,16 @@ public class JabberSender implements ActionFilter {
 
     }
 
+    /** Sends a message of the action stream, which is compressed already.
+     */
+    private void sendStreamMessage(String message)
+            throws SendMessageFailedException, ParseException {
+        if (sendToUser == null)
+            throw new IllegalArgumentException(
+                    "sendToUser is null. (Did you specify the user to share with by calling 'setMapShareUser'?)");
+        chat.sendPrivateMessage(new JID(sendToUser), message, false);
+    }
+
     /**
      * True if there is a shared map at present, false otherwise. If this value
      * is false, the sender will ignore requests to send Freemind commands.
@@ -239,21 +263,14 @@ public class JabberSender implements ActionFilter {
 
     /**
      * The overloaded filter action. Each action comes here along and is sent to the other 
-     * participants.
+     * participants together with the actions following shortly after.
      */
     public ActionPair filterAction(ActionPair pair) {
-    	    try {
-            CompoundAction eAction = new CompoundAction();
-            eAction.getListChoiceList().add(
-                    pair.getDoAction());
-            eAction.getListChoiceList().add(
-                    pair.getUndoAction());
-            sendMessage(sendToUser, eAction);
-        } catch (SendMessageFailedException e) {
-            freemind.main.Resources.getInstance().logException(e);
-        } catch (ParseException e) {
-            freemind.main.Resources.getInstance().logException(e);
+        if (!controller.isSendingEnabled()) {
+            logger.fine("JabberSender should not send messages. Action not sent.");
+            return pair;
         }
+        actionStream.add(pair);
         return pair;
     }
 
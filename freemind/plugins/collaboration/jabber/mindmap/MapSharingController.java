@@ -512,6 +512,14 @@ public class MapSharingController {
         return controller;
     }
 
+    /**
+     * @return the stream of the actions of the shared map, null before the
+     *         connection.
+     */
+    public ActionStream getActionStream() {
+        return sender == null ? null : sender.getActionStream();
+    }
+
     /**
      * @param b
      */
@@ -0,0 +1,122 @@
+/*FreeMind - A Program for creating and viewing Mindmaps
+ *Copyright (C) 2000-2012 Joerg Mueller, Daniel Polansky, Christian Foltin, Dimitri Polivaev and others.
+ *
+ *See COPYING for Details
+ *
+ *This program is free software; you can redistribute it and/or
+ *modify it under the terms of the GNU General Public License
+ *as published by the Free Software Foundation; either version 2
+ *of the License, or (at your option) any later version.
+ *
+ *This program is distributed in the hope that it will be useful,
+ *but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *GNU General Public License for more details.
+ *
+ *You should have received a copy of the GNU General Public License
+ *along with this program; if not, write to the Free Software
+ *Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package plugins.script;
+
+import groovy.lang.Binding;
+import groovy.lang.GroovyShell;
+import groovy.lang.Script;
+
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.codehaus.groovy.control.CompilationFailedException;
+import org.codehaus.groovy.runtime.InvokerHelper;
+
+/**
+ * Keeps the compiled classes of the last used scripts, such that a script
+ * present in many nodes is compiled only once. The least recently used script
+ * is removed if there are more than the given number of scripts.
+ */
+public class CompiledScriptCache {
+
+	/**
+	 * A compiled script together with the result of its signature check.
+	 */
+	public static class CompiledScript {
+		private final String mSource;
+
+		private final Class mScriptClass;
+
+		private Boolean mSigned = null;
+
+		private CompiledScript(String pSource, Class pScriptClass) {
+			mSource = pSource;
+			mScriptClass = pScriptClass;
+		}
+
+		/**
+		 * The signature is checked once per script text, as the text contains
+		 * the signature.
+		 */
+		public synchronized boolean isSigned(OutputStream pOutStream) {
+			if (mSigned == null) {
+				mSigned = Boolean.valueOf(new SignedScriptHandler()
+						.isScriptSigned(mSource, pOutStream));
+			}
+			return mSigned.booleanValue();
+		}
+
+		/**
+		 * @return a new instance of the script, only using the given binding.
+		 */
+		public Script createScript(Binding pBinding) {
+			return InvokerHelper.createScript(mScriptClass, pBinding);
+		}
+
+		public Class getScriptClass() {
+			return mScriptClass;
+		}
+	}
+
+	public static final int DEFAULT_MAXIMUM_SIZE = 200;
+
+	private final LinkedHashMap mScripts;
+
+	public CompiledScriptCache(final int pMaximumSize) {
+		// access order, such that the eldest entry is the least recently used:
+		mScripts = new LinkedHashMap(16, 0.75f, true) {
+			protected boolean removeEldestEntry(Map.Entry pEldest) {
+				if (size() <= pMaximumSize) {
+					return false;
+				}
+				InvokerHelper.removeClass(((CompiledScript) pEldest.getValue())
+						.getScriptClass());
+				return true;
+			}
+		};
+	}
+
+	/**
+	 * @return the compiled script, compiled now if it was not in the cache.
+	 * @throws CompilationFailedException
+	 *             scripts with errors are not kept.
+	 */
+	public synchronized CompiledScript get(String pSource)
+			throws CompilationFailedException {
+		CompiledScript compiled = (CompiledScript) mScripts.get(pSource);
+		if (compiled == null) {
+			/*
+			 * each script gets its own class loader, such that the class can
+			 * be unloaded after its removal from the cache.
+			 */
+			Script script = new GroovyShell().parse(pSource);
+			compiled = new CompiledScript(pSource, script.getClass());
+			mScripts.put(pSource, compiled);
+		}
+		return compiled;
+	}
+
+	public synchronized int size() {
+		return mScripts.size();
+	}
+
+}
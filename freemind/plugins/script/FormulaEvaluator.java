@@ -0,0 +1,278 @@
+/*FreeMind - A Program for creating and viewing Mindmaps
+ *Copyright (C) 2000-2012 Joerg Mueller, Daniel Polansky, Christian Foltin, Dimitri Polivaev and others.
+ *
+ *See COPYING for Details
+ *
+ *This program is free software; you can redistribute it and/or
+ *modify it under the terms of the GNU General Public License
+ *as published by the Free Software Foundation; either version 2
+ *of the License, or (at your option) any later version.
+ *
+ *This program is distributed in the hope that it will be useful,
+ *but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *GNU General Public License for more details.
+ *
+ *You should have received a copy of the GNU General Public License
+ *along with this program; if not, write to the Free Software
+ *Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package plugins.script;
+
+import java.awt.EventQueue;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Vector;
+
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
+
+import plugins.script.FormulaGraph.Formula;
+import plugins.script.ScriptingEngine.ErrorHandler;
+import freemind.controller.actions.generated.instance.CompoundAction;
+import freemind.controller.actions.generated.instance.DeleteAttributeElementaryAction;
+import freemind.controller.actions.generated.instance.InsertAttributeElementaryAction;
+import freemind.controller.actions.generated.instance.NodeAction;
+import freemind.controller.actions.generated.instance.SetAttributeNameElementaryAction;
+import freemind.controller.actions.generated.instance.SetAttributeValueElementaryAction;
+import freemind.controller.actions.generated.instance.XmlAction;
+import freemind.main.FreeMind;
+import freemind.main.Tools.BooleanHolder;
+import freemind.modes.MindMap;
+import freemind.modes.MindMapNode;
+import freemind.modes.mindmapmode.MindMapController;
+import freemind.modes.mindmapmode.actions.xml.ActionHandler;
+
+/**
+ * Evaluates the formulas of a map in the order of their dependencies, see
+ * {@link FormulaGraph}. The results of one evaluation are a single undo step.
+ *
+ * If {@link FreeMind#RESOURCES_EVALUATE_FORMULAS_ON_CHANGE} is set, the
+ * evaluator listens to the changes of the map and evaluates the formulas
+ * depending on the changed nodes afterwards. Changes made by undo and redo are
+ * not evaluated, as they restore the results of earlier evaluations, too.
+ * Attribute changes don't fire tree events, they are taken from the actions.
+ */
+public class FormulaEvaluator implements TreeModelListener, ActionHandler {
+
+	private static final String TRANSACTION_NAME = "evaluate_formulas";
+
+	private static java.util.logging.Logger logger = null;
+
+	private final MindMapController mController;
+
+	private final HashMap mScriptCookies;
+
+	private final BooleanHolder mAlreadyAScriptExecuted = new BooleanHolder(
+			false);
+
+	/** The nodes changed since the last evaluation. */
+	private final HashSet mChangedNodes = new HashSet();
+
+	private boolean mIsEvaluating = false;
+
+	private MindMap mMap = null;
+
+	/** Kept up to date with the changes, while listening. */
+	private FormulaGraph mGraph = null;
+
+	/** The nodes whose attributes changed since the graph was used. */
+	private final HashSet mChangedAttributeNodes = new HashSet();
+
+	public FormulaEvaluator(MindMapController pController, HashMap pScriptCookies) {
+		mController = pController;
+		mScriptCookies = pScriptCookies;
+		if (logger == null) {
+			logger = pController.getFrame().getLogger(
+					this.getClass().getName());
+		}
+	}
+
+	public void startListening(MindMap pMap) {
+		mMap = pMap;
+		mMap.addTreeModelListener(this);
+		mController.getActionFactory().registerHandler(this);
+	}
+
+	public void stopListening() {
+		if (mMap != null) {
+			mMap.removeTreeModelListener(this);
+			mController.getActionFactory().deregisterHandler(this);
+			mMap = null;
+			mGraph = null;
+			mChangedAttributeNodes.clear();
+		}
+	}
+
+	public void evaluateAll() {
+		evaluate(getGraph().getOrder());
+	}
+
+	/**
+	 * Evaluates the formulas depending on the nodes changed since the last
+	 * evaluation.
+	 */
+	public void evaluateChanges() {
+		if (mChangedNodes.isEmpty()) {
+			return;
+		}
+		Vector order = getGraph().getOrder(mChangedNodes);
+		mChangedNodes.clear();
+		evaluate(order);
+	}
+
+	private FormulaGraph getGraph() {
+		FormulaGraph graph = mGraph;
+		if (graph != null) {
+			for (Iterator it = mChangedAttributeNodes.iterator(); it.hasNext();) {
+				graph.updateNode((MindMapNode) it.next());
+			}
+		}
+		mChangedAttributeNodes.clear();
+		if (graph == null) {
+			graph = new FormulaGraph(mController.getRootNode(), mController
+					.getMap().getLinkRegistry());
+			if (mMap != null) {
+				mGraph = graph;
+			}
+		}
+		if (!graph.getCycles().isEmpty()) {
+			logger.warning("Formulas with cyclic dependencies: "
+					+ graph.getCycles());
+		}
+		return graph;
+	}
+
+	/**
+	 * @return false, if the user didn't want to execute the scripts.
+	 */
+	public boolean evaluate(Vector pFormulas) {
+		if (pFormulas.isEmpty()) {
+			return true;
+		}
+		long start = System.currentTimeMillis();
+		mIsEvaluating = true;
+		mController.getActionFactory().startTransaction(TRANSACTION_NAME);
+		try {
+			for (Iterator it = pFormulas.iterator(); it.hasNext();) {
+				Formula formula = (Formula) it.next();
+				boolean result = ScriptingEngine.executeScript(formula
+						.getNode(), mAlreadyAScriptExecuted, formula
+						.getScript(), mController, new ErrorHandler() {
+					public void gotoLine(int pLineNumber) {
+					}
+				}, System.out, mScriptCookies);
+				if (!result && !mAlreadyAScriptExecuted.getValue()) {
+					// canceled by the user:
+					return false;
+				}
+			}
+		} finally {
+			mController.getActionFactory().endTransaction(TRANSACTION_NAME);
+			mIsEvaluating = false;
+			logger.info(pFormulas.size()
+					+ " formulas evaluated in "
+					+ (System.currentTimeMillis() - start) + " ms.");
+		}
+		return true;
+	}
+
+	private void nodeChanged(MindMapNode pNode) {
+		if (mIsEvaluating || mController.isUndoAction()) {
+			// our own results or restored ones.
+			return;
+		}
+		boolean firstChange = mChangedNodes.isEmpty();
+		// added before the evaluation is scheduled, as it may run at once:
+		mChangedNodes.add(pNode);
+		if (firstChange) {
+			// all changes of the current action are evaluated together:
+			EventQueue.invokeLater(new Runnable() {
+				public void run() {
+					evaluateChanges();
+				}
+			});
+		}
+	}
+
+	private MindMapNode getLastPathNode(TreeModelEvent e) {
+		Object[] path = e.getPath();
+		return (MindMapNode) path[path.length - 1];
+	}
+
+	public void executeAction(XmlAction pAction) {
+		if (pAction instanceof CompoundAction) {
+			for (Iterator it = ((CompoundAction) pAction).getListChoiceList()
+					.iterator(); it.hasNext();) {
+				executeAction((XmlAction) it.next());
+			}
+		} else if (pAction instanceof InsertAttributeElementaryAction
+				|| pAction instanceof DeleteAttributeElementaryAction
+				|| pAction instanceof SetAttributeNameElementaryAction
+				|| pAction instanceof SetAttributeValueElementaryAction) {
+			// the handlers are called before the action is done, the graph
+			// reads the node later, in the event dispatch thread:
+			MindMapNode node = mController.getNodeFromID(((NodeAction) pAction)
+					.getNode());
+			mChangedAttributeNodes.add(node);
+			nodeChanged(node);
+		}
+	}
+
+	public void startTransaction(String pName) {
+	}
+
+	public void endTransaction(String pName) {
+	}
+
+	public void treeNodesChanged(TreeModelEvent e) {
+		Object[] children = e.getChildren();
+		if (children == null) {
+			MindMapNode node = getLastPathNode(e);
+			if (mGraph != null) {
+				mGraph.updateNode(node);
+			}
+			nodeChanged(node);
+		} else {
+			for (int i = 0; i < children.length; i++) {
+				MindMapNode node = (MindMapNode) children[i];
+				if (mGraph != null) {
+					mGraph.updateNode(node);
+				}
+				nodeChanged(node);
+			}
+		}
+	}
+
+	public void treeNodesInserted(TreeModelEvent e) {
+		Object[] children = e.getChildren();
+		for (int i = 0; i < children.length; i++) {
+			MindMapNode node = (MindMapNode) children[i];
+			if (mGraph != null) {
+				mGraph.addBranch(node);
+			}
+			nodeChanged(node);
+		}
+	}
+
+	public void treeNodesRemoved(TreeModelEvent e) {
+		if (mGraph != null) {
+			Object[] children = e.getChildren();
+			for (int i = 0; i < children.length; i++) {
+				mGraph.removeBranch((MindMapNode) children[i]);
+			}
+		}
+		nodeChanged(getLastPathNode(e));
+	}
+
+	public void treeStructureChanged(TreeModelEvent e) {
+		MindMapNode node = getLastPathNode(e);
+		if (mGraph != null) {
+			mGraph.addBranch(node);
+		}
+		nodeChanged(node);
+	}
+
+}
@@ -0,0 +1,429 @@
+/*FreeMind - A Program for creating and viewing Mindmaps
+ *Copyright (C) 2000-2012 Joerg Mueller, Daniel Polansky, Christian Foltin, Dimitri Polivaev and others.
+ *
+ *See COPYING for Details
+ *
+ *This program is free software; you can redistribute it and/or
+ *modify it under the terms of the GNU General Public License
+ *as published by the Free Software Foundation; either version 2
+ *of the License, or (at your option) any later version.
+ *
+ *This program is distributed in the hope that it will be useful,
+ *but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *GNU General Public License for more details.
+ *
+ *You should have received a copy of the GNU General Public License
+ *along with this program; if not, write to the Free Software
+ *Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package plugins.script;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.Vector;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import freemind.modes.MindMapLinkRegistry;
+import freemind.modes.MindMapNode;
+import freemind.modes.attributes.NodeAttributeTableModel;
+
+/**
+ * The scripts in the attributes of a map (formulas) and their dependencies.
+ * The dependencies are guessed from the script texts:
+ * <ul>
+ * <li>A formula depends on the formulas below its node, as these were always
+ * evaluated before.</li>
+ * <li>A formula depends on the formulas of the nodes whose ids it contains.</li>
+ * <li>A formula depends on the formulas of its node that assign an attribute
+ * whose quoted name it contains, or that assign the node text if it reads the
+ * text.</li>
+ * </ul>
+ *
+ * The graph is kept up to date with {@link #updateNode(MindMapNode)},
+ * {@link #addBranch(MindMapNode)} and {@link #removeBranch(MindMapNode)}. The
+ * dependencies and the order are computed again on the next request, which
+ * only looks at the formulas, not at all nodes.
+ */
+public class FormulaGraph {
+
+	public static class Formula {
+		private final MindMapNode mNode;
+
+		private final String mScript;
+
+		/**
+		 * null, if the result isn't assigned, the empty string for the node
+		 * text, else the attribute name.
+		 */
+		private final String mTarget;
+
+		/** Position in depth first order, see {@link FormulaGraph#sort()}. */
+		private int mIndex;
+
+		private final HashSet mDependencies = new HashSet();
+
+		private final HashSet mDependents = new HashSet();
+
+		private Formula(MindMapNode pNode, String pScript) {
+			mNode = pNode;
+			mScript = pScript;
+			if (pScript.startsWith("=")) {
+				mTarget = "";
+			} else {
+				int indexOfEquals = pScript.indexOf('=');
+				String start = indexOfEquals > 0 ? pScript.substring(0,
+						indexOfEquals) : "";
+				mTarget = start.matches("[a-zA-Z0-9_]+") ? start : null;
+			}
+		}
+
+		public MindMapNode getNode() {
+			return mNode;
+		}
+
+		public String getScript() {
+			return mScript;
+		}
+
+		public String getTarget() {
+			return mTarget;
+		}
+
+		private void addDependency(Formula pFormula) {
+			if (pFormula != this) {
+				mDependencies.add(pFormula);
+				pFormula.mDependents.add(this);
+			}
+		}
+
+		public String toString() {
+			return mNode + ": " + mScript;
+		}
+	}
+
+	private static final Pattern ID_PATTERN = Pattern.compile("ID_\\w+");
+
+	private static final Pattern TEXT_PATTERN = Pattern
+			.compile("getText|\\btext\\b");
+
+	private static final Comparator DEPTH_FIRST_ORDER = new Comparator() {
+		public int compare(Object pO1, Object pO2) {
+			return ((Formula) pO1).mIndex - ((Formula) pO2).mIndex;
+		}
+	};
+
+	private final MindMapNode mRoot;
+
+	private final MindMapLinkRegistry mRegistry;
+
+	/** Depth first, children before their parents. */
+	private final Vector mFormulas = new Vector();
+
+	/** node -> Vector of its formulas. */
+	private final HashMap mNodeToFormulas = new HashMap();
+
+	/** node -> HashSet of formulas containing its id. */
+	private final HashMap mNodeToReaders = new HashMap();
+
+	private final Vector mOrder = new Vector();
+
+	private final Vector mCycles = new Vector();
+
+	/** True, if the dependencies and the order must be computed again. */
+	private boolean mIsDirty = true;
+
+	public FormulaGraph(MindMapNode pRoot, MindMapLinkRegistry pRegistry) {
+		mRoot = pRoot;
+		mRegistry = pRegistry;
+		addBranch(pRoot);
+	}
+
+	/**
+	 * Reads the formulas of the node again, after its attributes changed.
+	 */
+	public void updateNode(MindMapNode pNode) {
+		if (mNodeToFormulas.remove(pNode) != null) {
+			mIsDirty = true;
+		}
+		collectFormulas(pNode);
+	}
+
+	/**
+	 * Adds the formulas of an inserted branch. The positions of its siblings
+	 * and the registered ids may change, too. If the structure of a branch
+	 * changed, it is simply added again, the formulas of the nodes no longer
+	 * in the map are dropped later.
+	 */
+	public void addBranch(MindMapNode pNode) {
+		mIsDirty = true;
+		for (Iterator it = pNode.childrenUnfolded(); it.hasNext();) {
+			addBranch((MindMapNode) it.next());
+		}
+		updateNode(pNode);
+	}
+
+	/**
+	 * Removes the formulas of a removed branch.
+	 */
+	public void removeBranch(MindMapNode pNode) {
+		mIsDirty = true;
+		for (Iterator it = pNode.childrenUnfolded(); it.hasNext();) {
+			removeBranch((MindMapNode) it.next());
+		}
+		mNodeToFormulas.remove(pNode);
+	}
+
+	private void collectFormulas(MindMapNode pNode) {
+		NodeAttributeTableModel attributes = pNode.getAttributes();
+		if (attributes == null) {
+			return;
+		}
+		Vector formulas = null;
+		for (int row = 0; row < attributes.getRowCount(); ++row) {
+			String name = (String) attributes.getName(row);
+			if (name.startsWith(ScriptingEngine.SCRIPT_PREFIX)) {
+				if (formulas == null) {
+					formulas = new Vector();
+					mNodeToFormulas.put(pNode, formulas);
+					mIsDirty = true;
+				}
+				formulas.add(new Formula(pNode, (String) attributes
+						.getValue(row)));
+			}
+		}
+	}
+
+	/**
+	 * Computes the dependencies and the order, if the formulas changed.
+	 */
+	private void validate() {
+		if (!mIsDirty) {
+			return;
+		}
+		mIsDirty = false;
+		mFormulas.clear();
+		mNodeToReaders.clear();
+		mOrder.clear();
+		mCycles.clear();
+		for (Iterator it = mNodeToFormulas.entrySet().iterator(); it.hasNext();) {
+			Map.Entry entry = (Map.Entry) it.next();
+			if (isInMap((MindMapNode) entry.getKey())) {
+				mFormulas.addAll((Vector) entry.getValue());
+			} else {
+				// removed without an event for it, see #addBranch:
+				it.remove();
+			}
+		}
+		// depth first, as the scripting engine:
+		final HashMap positions = new HashMap();
+		Collections.sort(mFormulas, new Comparator() {
+			public int compare(Object pO1, Object pO2) {
+				return compareDepthFirst(getPosition(((Formula) pO1).mNode,
+						positions), getPosition(((Formula) pO2).mNode,
+						positions));
+			}
+		});
+		for (int i = 0; i < mFormulas.size(); i++) {
+			Formula formula = (Formula) mFormulas.get(i);
+			formula.mIndex = i;
+			formula.mDependencies.clear();
+			formula.mDependents.clear();
+		}
+		for (Iterator it = mFormulas.iterator(); it.hasNext();) {
+			addDependencies((Formula) it.next(), mRegistry);
+		}
+		sort();
+	}
+
+	private boolean isInMap(MindMapNode pNode) {
+		MindMapNode node = pNode;
+		while (node.getParentNode() != null) {
+			node = node.getParentNode();
+		}
+		return node == mRoot;
+	}
+
+	/**
+	 * @param pPositions
+	 *            MindMapNode -> int[], the positions computed so far.
+	 * @return the child positions on the path from the root to the node.
+	 */
+	private static int[] getPosition(MindMapNode pNode, HashMap pPositions) {
+		int[] position = (int[]) pPositions.get(pNode);
+		if (position == null) {
+			MindMapNode parent = pNode.getParentNode();
+			if (parent == null) {
+				position = new int[0];
+			} else {
+				int[] parentPosition = getPosition(parent, pPositions);
+				position = new int[parentPosition.length + 1];
+				System.arraycopy(parentPosition, 0, position, 0,
+						parentPosition.length);
+				position[parentPosition.length] = parent
+						.getChildPosition(pNode);
+			}
+			pPositions.put(pNode, position);
+		}
+		return position;
+	}
+
+	/**
+	 * Compares the positions in depth first order, children before their
+	 * parents.
+	 */
+	private static int compareDepthFirst(int[] pPosition1, int[] pPosition2) {
+		int length = Math.min(pPosition1.length, pPosition2.length);
+		for (int i = 0; i < length; i++) {
+			if (pPosition1[i] != pPosition2[i]) {
+				return pPosition1[i] - pPosition2[i];
+			}
+		}
+		// the descendant first:
+		return pPosition2.length - pPosition1.length;
+	}
+
+	private void addDependencies(Formula pFormula, MindMapLinkRegistry pRegistry) {
+		// the formulas of the ancestors depend on this one:
+		for (MindMapNode ancestor = pFormula.mNode.getParentNode(); ancestor != null; ancestor = ancestor
+				.getParentNode()) {
+			Vector formulas = getFormulas(ancestor);
+			for (Iterator it = formulas.iterator(); it.hasNext();) {
+				((Formula) it.next()).addDependency(pFormula);
+			}
+		}
+		Matcher matcher = ID_PATTERN.matcher(pFormula.mScript);
+		while (matcher.find()) {
+			MindMapNode node = pRegistry.getTargetForID(matcher
+					.group());
+			if (node == null) {
+				continue;
+			}
+			HashSet readers = (HashSet) mNodeToReaders.get(node);
+			if (readers == null) {
+				readers = new HashSet();
+				mNodeToReaders.put(node, readers);
+			}
+			readers.add(pFormula);
+			for (Iterator it = getFormulas(node).iterator(); it.hasNext();) {
+				pFormula.addDependency((Formula) it.next());
+			}
+		}
+		boolean readsText = TEXT_PATTERN.matcher(pFormula.mScript).find();
+		for (Iterator it = getFormulas(pFormula.mNode).iterator(); it.hasNext();) {
+			Formula other = (Formula) it.next();
+			if (other.mTarget == null) {
+				continue;
+			}
+			if (other.mTarget.length() == 0 ? readsText
+					: (pFormula.mScript.indexOf("\"" + other.mTarget + "\"") >= 0 || pFormula.mScript
+							.indexOf("'" + other.mTarget + "'") >= 0)) {
+				pFormula.addDependency(other);
+			}
+		}
+	}
+
+	private Vector getFormulas(MindMapNode pNode) {
+		Vector formulas = (Vector) mNodeToFormulas.get(pNode);
+		return formulas == null ? new Vector() : formulas;
+	}
+
+	/**
+	 * Topological sort, formulas without order between them keep their depth
+	 * first order. The formulas in cycles are appended in depth first order.
+	 */
+	private void sort() {
+		HashMap missing = new HashMap();
+		TreeSet ready = new TreeSet(DEPTH_FIRST_ORDER);
+		for (Iterator it = mFormulas.iterator(); it.hasNext();) {
+			Formula formula = (Formula) it.next();
+			if (formula.mDependencies.isEmpty()) {
+				ready.add(formula);
+			} else {
+				missing.put(formula, new Integer(formula.mDependencies.size()));
+			}
+		}
+		while (!ready.isEmpty()) {
+			Formula formula = (Formula) ready.first();
+			ready.remove(formula);
+			mOrder.add(formula);
+			for (Iterator it = formula.mDependents.iterator(); it.hasNext();) {
+				Formula dependent = (Formula) it.next();
+				int count = ((Integer) missing.get(dependent)).intValue() - 1;
+				if (count == 0) {
+					missing.remove(dependent);
+					ready.add(dependent);
+				} else {
+					missing.put(dependent, new Integer(count));
+				}
+			}
+		}
+		for (Iterator it = mFormulas.iterator(); it.hasNext();) {
+			Formula formula = (Formula) it.next();
+			if (missing.containsKey(formula)) {
+				mCycles.add(formula);
+				mOrder.add(formula);
+			}
+		}
+	}
+
+	/**
+	 * @return all formulas in the order of their evaluation.
+	 */
+	public Vector getOrder() {
+		validate();
+		return mOrder;
+	}
+
+	/**
+	 * @return the formulas that may read one of the given nodes and the ones
+	 *         depending on them, in the order of their evaluation.
+	 */
+	public Vector getOrder(Collection pChangedNodes) {
+		validate();
+		HashSet dirty = new HashSet();
+		Vector todo = new Vector();
+		for (Iterator it = pChangedNodes.iterator(); it.hasNext();) {
+			MindMapNode node = (MindMapNode) it.next();
+			HashSet readers = (HashSet) mNodeToReaders.get(node);
+			if (readers != null) {
+				todo.addAll(readers);
+			}
+			// the node and its ancestors:
+			for (; node != null; node = node.getParentNode()) {
+				todo.addAll(getFormulas(node));
+			}
+		}
+		while (!todo.isEmpty()) {
+			Formula formula = (Formula) todo.remove(todo.size() - 1);
+			if (dirty.add(formula)) {
+				todo.addAll(formula.mDependents);
+			}
+		}
+		Vector order = new Vector();
+		for (Iterator it = mOrder.iterator(); it.hasNext();) {
+			Object formula = it.next();
+			if (dirty.contains(formula)) {
+				order.add(formula);
+			}
+		}
+		return order;
+	}
+
+	/**
+	 * @return the formulas in a cycle or depending on one.
+	 */
+	public Vector getCycles() {
+		validate();
+		return mCycles;
+	}
+
+}
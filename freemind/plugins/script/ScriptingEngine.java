@@ -23,7 +23,6 @@
 package plugins.script;
 
 import java.io.File;
-import java.io.InputStream;
 import java.io.PrintStream;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -33,8 +32,6 @@ import javax.swing.JOptionPane;
 
 import org.codehaus.groovy.ast.ASTNode;
 import org.codehaus.groovy.ast.ModuleNode;
-import org.codehaus.groovy.control.CompilationFailedException;
-import org.codehaus.groovy.runtime.InvokerHelper;
 
 import freemind.common.OptionalDontShowMeAgainDialog;
 import freemind.main.FreeMind;
@@ -48,7 +45,6 @@ import freemind.modes.mindmapmode.MindMapController;
 import freemind.modes.mindmapmode.hooks.MindMapHookAdapter;
 import groovy.lang.Binding;
 import groovy.lang.GroovyRuntimeException;
-import groovy.lang.GroovyShell;
 import groovy.lang.Script;
 
 /**
@@ -58,6 +54,8 @@ import groovy.lang.Script;
 public class ScriptingEngine extends MindMapHookAdapter {
 	public static final String SCRIPT_PREFIX = "script";
 	private static final HashMap sScriptCookies = new HashMap();
+	private static final CompiledScriptCache sCompiledScripts = new CompiledScriptCache(
+			CompiledScriptCache.DEFAULT_MAXIMUM_SIZE);
 	static java.util.logging.Logger logger;
 
 	public interface ErrorHandler {
@@ -75,7 +73,17 @@ public class ScriptingEngine extends MindMapHookAdapter {
 			return;
 		}
 		// start calculation:
-		performScriptOperation(node, booleanHolder);
+		long start = System.currentTimeMillis();
+		if (Tools.isPreferenceTrue(getMindMapController().getFrame()
+				.getProperty(FreeMind.RESOURCES_EVALUATE_FORMULAS_ON_CHANGE))) {
+			ScriptingRegistration reg = (ScriptingRegistration) getPluginBaseClass();
+			new FormulaEvaluator(getMindMapController(), reg
+					.getScriptCookies()).evaluateAll();
+		} else {
+			performScriptOperation(node, booleanHolder);
+		}
+		logger.info("Scripts of the map executed in "
+				+ (System.currentTimeMillis() - start) + " ms.");
 	}
 
 	private void performExternalScript(String pScriptLocation,
@@ -145,12 +153,15 @@ public class ScriptingEngine extends MindMapHookAdapter {
 	 * @return true, if further scripts can be executed, false, if the user
 	 *         canceled or an error occurred.
 	 */
-	static boolean executeScript(MindMapNode node,
+	public static boolean executeScript(MindMapNode node,
 			BooleanHolder pAlreadyAScriptExecuted, String script,
 			MindMapController pMindMapController, ErrorHandler pErrorHandler,
 			PrintStream pOutStream, HashMap pScriptCookies) {
 		// ask user if first script:
 		FreeMindMain frame = pMindMapController.getFrame();
+		if (logger == null) {
+			logger = frame.getLogger(ScriptingEngine.class.getName());
+		}
 		if (!pAlreadyAScriptExecuted.getValue()) {
 			int showResult = new OptionalDontShowMeAgainDialog(
 					frame.getJFrame(), pMindMapController.getSelectedView(),
@@ -214,62 +225,40 @@ public class ScriptingEngine extends MindMapHookAdapter {
 				.isPreferenceTrue(executeWithoutNetworkRestriction);
 		boolean execPerm = Tools
 				.isPreferenceTrue(executeWithoutExecRestriction);
-		if (Tools.isPreferenceTrue(signedScriptsWithoutRestriction)) {
-			boolean isSigned = new SignedScriptHandler().isScriptSigned(script,
-					pOutStream);
-			if (isSigned) {
+		final FreeMindSecurityManager securityManager = (FreeMindSecurityManager) System
+				.getSecurityManager();
+		long start = System.currentTimeMillis();
+		try {
+			CompiledScriptCache.CompiledScript compiledScript = sCompiledScripts
+					.get(script);
+			if (Tools.isPreferenceTrue(signedScriptsWithoutRestriction)
+					&& compiledScript.isSigned(pOutStream)) {
 				filePerm = true;
 				networkPerm = true;
 				execPerm = true;
 			}
-		}
-		final ScriptingSecurityManager scriptingSecurityManager = new ScriptingSecurityManager(
-				filePerm, networkPerm, execPerm);
-		final FreeMindSecurityManager securityManager = (FreeMindSecurityManager) System
-				.getSecurityManager();
-		try {
+			ScriptingSecurityManager scriptingSecurityManager = new ScriptingSecurityManager(
+					filePerm, networkPerm, execPerm);
+			// each execution gets its own variables:
+			Script compiled = compiledScript.createScript(binding);
 			System.setOut(pOutStream);
-			// copied from freeplane from
-			// http://freeplane.bzr.sourceforge.net/bzr/freeplane/freeplane_program/release_branches/1_0_x/annotate/head%3A/freeplane_plugin_script/src/org/freeplane/plugin/script/ScriptingEngine.java
-			final GroovyShell shell = new GroovyShell(binding) {
-				/**
-				 * Evaluates some script against the current Binding and returns
-				 * the result
-				 * 
-				 * @param in
-				 *            the stream reading the script
-				 * @param fileName
-				 *            is the logical file name of the script (which is
-				 *            used to create the class name of the script)
-				 */
-				public Object evaluate(final InputStream in,
-						final String fileName)
-						throws CompilationFailedException {
-					Script script = null;
-					try {
-						script = parse(in, fileName);
-						securityManager
-								.setFinalSecurityManager(scriptingSecurityManager);
-						return script.run();
-					} finally {
-						if (script != null) {
-							InvokerHelper.removeClass(script.getClass());
-							// setting the same security manager the second time
-							// causes it to be
-							// removed.
-							securityManager
-									.setFinalSecurityManager(scriptingSecurityManager);
-						}
-					}
-				}
-			};
-			value = shell.evaluate(script);
+			securityManager.setFinalSecurityManager(scriptingSecurityManager);
+			try {
+				value = compiled.run();
+			} finally {
+				// setting the same security manager the second time causes it
+				// to be removed.
+				securityManager
+						.setFinalSecurityManager(scriptingSecurityManager);
+			}
 		} catch (final GroovyRuntimeException e) {
 			e1 = e;
 		} catch (final Throwable e) {
 			e2 = e;
 		} finally {
 			System.setOut(oldOut);
+			logger.fine("Script executed in "
+					+ (System.currentTimeMillis() - start) + " ms.");
 			/* restore preferences (and assure that the values are unchanged!). */
 			frame.setProperty(
 					FreeMind.RESOURCES_EXECUTE_SCRIPTS_WITHOUT_ASKING,
@@ -142,6 +142,7 @@ public class ScriptingRegistration implements HookRegistration,
 	private ScriptEditorProperty.ScriptEditorStarter mScriptEditorStarter;
 	private HashMap mScriptCookies = new HashMap();
 	private ScriptingPluginPropertyContributor mScriptingPluginPropertyContributor;
+	private FormulaEvaluator mFormulaEvaluator = null;
 
 	public ScriptingRegistration(ModeController controller, MindMap map) {
 		this.controller = (MindMapController) controller;
@@ -170,12 +171,23 @@ public class ScriptingRegistration implements HookRegistration,
 				controller);
 		OptionPanel.addContributor(mScriptingPluginPropertyContributor);
 		controller.getFrame().registerStartupDoneListener(this);
+		if (mMap != null
+				&& Tools.isPreferenceTrue(controller.getFrame().getProperty(
+						FreeMind.RESOURCES_EVALUATE_FORMULAS_ON_CHANGE))) {
+			mFormulaEvaluator = new FormulaEvaluator(controller,
+					getScriptCookies());
+			mFormulaEvaluator.startListening(mMap);
+		}
 	}
 
 	public void deRegister() {
 		controller.deregisterPlugin(this);
 		controller.deregisterPlugin(mScriptEditorStarter);
 		OptionPanel.removeContributor(mScriptingPluginPropertyContributor);
+		if (mFormulaEvaluator != null) {
+			mFormulaEvaluator.stopListening();
+			mFormulaEvaluator = null;
+		}
 	}
 
 	public void act(MindMapNode node, Pattern pattern) {
@@ -35,7 +35,6 @@ import java.util.Iterator;
 import javax.xml.transform.Result;
 import javax.xml.transform.Source;
 import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
 
@@ -48,6 +47,7 @@ import org.w3c.dom.DOMImplementation;
 import org.w3c.dom.Document;
 
 import freemind.extensions.ExportHook;
+import freemind.main.TemplatesCache;
 import freemind.modes.MindMapNode;
 import freemind.view.mindmapview.MapView;
 import freemind.view.mindmapview.NodeView;
@@ -149,9 +149,8 @@ public class ExportVectorGraphic extends ExportHook {
 		// create an instance of TransformerFactory
 		try {
 			// System.out.println("make transform instance");
-			TransformerFactory transFact = TransformerFactory.newInstance();
-
-			Transformer trans = transFact.newTransformer(xsltSource);
+			Transformer trans = TemplatesCache.getInstance().newTransformer(
+					xsltSource);
 			// set parameter:
 			// relative directory <filename>_files
 			trans.setParameter("destination_dir", resultFile.getName()
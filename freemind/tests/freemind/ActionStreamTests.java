@@ -0,0 +1,206 @@
+/*FreeMind - A Program for creating and viewing Mindmaps
+ *Copyright (C) 2000-2012 Joerg Mueller, Daniel Polansky, Christian Foltin, Dimitri Polivaev and others.
+ *
+ *See COPYING for Details
+ *
+ *This program is free software; you can redistribute it and/or
+ *modify it under the terms of the GNU General Public License
+ *as published by the Free Software Foundation; either version 2
+ *of the License, or (at your option) any later version.
+ *
+ *This program is distributed in the hope that it will be useful,
+ *but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *GNU General Public License for more details.
+ *
+ *You should have received a copy of the GNU General Public License
+ *along with this program; if not, write to the Free Software
+ *Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package tests.freemind;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Vector;
+
+import javax.swing.SwingUtilities;
+
+import plugins.collaboration.jabber.mindmap.ActionStream;
+import freemind.modes.MindMapNode;
+import freemind.modes.mindmapmode.MindMapController;
+import freemind.modes.mindmapmode.MindMapMode;
+import freemind.modes.mindmapmode.actions.xml.ActionFilter;
+import freemind.modes.mindmapmode.actions.xml.ActionPair;
+
+/**
+ * The actions of a shared map are sent in compressed batches. Instead of the
+ * chat, the messages are passed directly to the other side.
+ */
+public class ActionStreamTests extends FreeMindTestBase {
+
+	/** Stands in for the chat: keeps the messages and passes them on. */
+	private static class LocalChannel implements ActionStream.MessageChannel {
+		Vector mMessages = new Vector();
+
+		ActionStream mReceiver;
+
+		boolean mIsBroken = false;
+
+		public void sendMessage(String pMessage) throws Exception {
+			if (mIsBroken) {
+				throw new IOException("not connected");
+			}
+			mMessages.add(pMessage);
+			if (mReceiver != null) {
+				mReceiver.receive(pMessage);
+			}
+		}
+	}
+
+	/** The actions are only sent on flush. */
+	private static final int WINDOW = 100000;
+
+	private MindMapController mSender;
+
+	private MindMapController mReceiver;
+
+	private ActionStream mSenderStream;
+
+	private ActionStream mReceiverStream;
+
+	private LocalChannel mSenderChannel;
+
+	private LocalChannel mReceiverChannel;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		mSender = createMindMapController();
+		mReceiver = createMindMapController();
+		mSenderChannel = new LocalChannel();
+		mReceiverChannel = new LocalChannel();
+		mSenderStream = new ActionStream(mSender, mSenderChannel, WINDOW);
+		mReceiverStream = new ActionStream(mReceiver, mReceiverChannel, WINDOW);
+		mSenderChannel.mReceiver = mReceiverStream;
+		mReceiverChannel.mReceiver = mSenderStream;
+		mSender.getActionFactory().registerFilter(createFilter(mSenderStream));
+		mReceiver.getActionFactory().registerFilter(
+				createFilter(mReceiverStream));
+	}
+
+	/** Passes the actions to the stream, as the jabber sender does. */
+	private ActionFilter createFilter(final ActionStream pStream) {
+		return new ActionFilter() {
+			public ActionPair filterAction(ActionPair pPair) {
+				pStream.add(pPair);
+				return pPair;
+			}
+		};
+	}
+
+	public void testBatches() throws Exception {
+		edit(mSender, 0, 20);
+		assertTrue(mSenderChannel.mMessages.isEmpty());
+		mSenderStream.flush();
+		assertEquals(1, mSenderChannel.mMessages.size());
+		waitForSwing();
+		assertEquals("text number 19", getNode(mReceiver).getText());
+
+		// received actions aren't sent back:
+		mReceiverStream.flush();
+		assertTrue(mReceiverChannel.mMessages.isEmpty());
+
+		// the other direction:
+		mReceiver.setNodeText(getNode(mReceiver), "answer");
+		mReceiverStream.flush();
+		waitForSwing();
+		assertEquals("answer", getNode(mSender).getText());
+	}
+
+	public void testDeltaCompression() throws Exception {
+		edit(mSender, 0, 10);
+		mSenderStream.flush();
+		// a new stream compresses without the previous batch:
+		LocalChannel freshChannel = new LocalChannel();
+		ActionStream freshStream = new ActionStream(mSender, freshChannel,
+				WINDOW);
+		mSender.getActionFactory().registerFilter(createFilter(freshStream));
+		edit(mSender, 10, 20);
+		mSenderStream.flush();
+		freshStream.flush();
+		String second = (String) mSenderChannel.mMessages.get(1);
+		String fresh = (String) freshChannel.mMessages.get(0);
+		assertTrue(second.length() + " " + fresh.length(),
+				3 * second.length() < 2 * fresh.length());
+		waitForSwing();
+		assertEquals("text number 19", getNode(mReceiver).getText());
+	}
+
+	public void testMissingMessage() throws Exception {
+		// the receiver doesn't get the first message:
+		mSenderChannel.mReceiver = null;
+		edit(mSender, 0, 10);
+		mSenderStream.flush();
+		mSenderChannel.mReceiver = mReceiverStream;
+		edit(mSender, 10, 20);
+		mSenderStream.flush();
+		waitForSwing();
+		assertFalse("text number 19".equals(getNode(mReceiver).getText()));
+		// the receiver asked for a reset once, the next batch is read:
+		assertEquals(1, mReceiverChannel.mMessages.size());
+		edit(mSender, 20, 30);
+		mSenderStream.flush();
+		waitForSwing();
+		assertEquals("text number 29", getNode(mReceiver).getText());
+		// and the one after it:
+		edit(mSender, 30, 40);
+		mSenderStream.flush();
+		waitForSwing();
+		assertEquals("text number 39", getNode(mReceiver).getText());
+		assertEquals(1, mReceiverChannel.mMessages.size());
+	}
+
+	public void testFailedSendIsRepeated() throws Exception {
+		edit(mSender, 0, 10);
+		mSenderStream.flush();
+		mSenderChannel.mIsBroken = true;
+		edit(mSender, 10, 20);
+		mSenderStream.flush();
+		mSenderChannel.mIsBroken = false;
+		waitForSwing();
+		assertEquals("text number 9", getNode(mReceiver).getText());
+		// the failed actions come with the next ones, readable:
+		mSender.setNodeText(getNode(mSender).getParentNode(), "new root");
+		mSenderStream.flush();
+		waitForSwing();
+		assertEquals("text number 19", getNode(mReceiver).getText());
+		assertEquals("new root", mReceiver.getRootNode().getText());
+		assertTrue(mReceiverChannel.mMessages.isEmpty());
+	}
+
+	private void waitForSwing() throws Exception {
+		SwingUtilities.invokeAndWait(new Runnable() {
+			public void run() {
+			}
+		});
+	}
+
+	private MindMapNode getNode(MindMapController pController) {
+		return (MindMapNode) pController.getRootNode().getChildAt(0);
+	}
+
+	private void edit(MindMapController pController, int pFrom, int pTo) {
+		for (int i = pFrom; i < pTo; i++) {
+			pController.setNodeText(getNode(pController), "text number " + i);
+		}
+	}
+
+	private MindMapController createMindMapController() throws Exception {
+		MindMapController mindMapController = createMindMapController(
+				new MindMapMode());
+		loadMap(mindMapController, new File(
+				"tests/freemind/serializer_golden.mm"));
+		return mindMapController;
+	}
+
+}
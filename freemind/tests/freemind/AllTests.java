@@ -49,6 +49,29 @@ public class AllTests {
 		suite.addTest(new TestSuite(ToolsTests.class));
 		suite.addTest(new TestSuite(ExportTests.class));
 		suite.addTest(new TestSuite(XmlBindingToolsTest.class));
+		suite.addTest(new TestSuite(NodeTreeStreamLoaderTests.class));
+		suite.addTest(new TestSuite(MapJournalTests.class));
+		suite.addTest(new TestSuite(ParallelMapSerializerTests.class));
+		suite.addTest(new TestSuite(LazyFoldedSubtreeTests.class));
+		suite.addTest(new TestSuite(ArrowLinkIndexTests.class));
+		suite.addTest(new TestSuite(NodeViewLayoutTests.class));
+		suite.addTest(new TestSuite(VirtualizedNodeViewTests.class));
+		suite.addTest(new TestSuite(UndoMemoryTests.class));
+		suite.addTest(new TestSuite(PlainTextIndexTests.class));
+		suite.addTest(new TestSuite(LinkRegistryTests.class));
+		suite.addTest(new TestSuite(IncrementalFilterTests.class));
+		suite.addTest(new TestSuite(ConditionTests.class));
+		suite.addTest(new TestSuite(CollaborationDatabaseTests.class));
+		suite.addTest(new TestSuite(ActionStreamTests.class));
+		suite.addTest(new TestSuite(ScriptingEngineTests.class));
+		suite.addTest(new TestSuite(FormulaTests.class));
+		suite.addTest(new TestSuite(ReminderSchedulerTests.class));
+		suite.addTest(new TestSuite(FileWatcherTests.class));
+		suite.addTest(new TestSuite(StripRenderedImageTests.class));
+		suite.addTest(new TestSuite(TemplatesCacheTests.class));
+		suite.addTest(new TestSuite(BatchExportTests.class));
+		suite.addTest(new TestSuite(MapRestorerTests.class));
+		suite.addTest(new TestSuite(PluginIndexTests.class));
 		// $JUnit-END$
 		return suite;
 	}
@@ -0,0 +1,252 @@
+/*FreeMind - A Program for creating and viewing Mindmaps
+ *Copyright (C) 2000-2012 Joerg Mueller, Daniel Polansky, Christian Foltin, Dimitri Polivaev and others.
+ *
+ *See COPYING for Details
+ *
+ *This program is free software; you can redistribute it and/or
+ *modify it under the terms of the GNU General Public License
+ *as published by the Free Software Foundation; either version 2
+ *of the License, or (at your option) any later version.
+ *
+ *This program is distributed in the hope that it will be useful,
+ *but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *GNU General Public License for more details.
+ *
+ *You should have received a copy of the GNU General Public License
+ *along with this program; if not, write to the Free Software
+ *Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package tests.freemind;
+
+import java.awt.EventQueue;
+import java.awt.Rectangle;
+import java.io.File;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Vector;
+
+import freemind.controller.Controller;
+import freemind.modes.MindMapArrowLink;
+import freemind.modes.MindMapLink;
+import freemind.modes.MindMapNode;
+import freemind.modes.mindmapmode.MindMapArrowLinkModel;
+import freemind.modes.mindmapmode.MindMapController;
+import freemind.modes.mindmapmode.MindMapMapModel;
+import freemind.modes.mindmapmode.MindMapMode;
+import freemind.view.mindmapview.ArrowLinkIndex;
+import freemind.view.mindmapview.ArrowLinkView;
+import freemind.view.mindmapview.MapView;
+
+/**
+ * Compares the queries of the index with a linear search and the index of a
+ * changed map view with the index of a new one.
+ */
+public class ArrowLinkIndexTests extends FreeMindTestBase {
+
+	private static final int LINKS = 200;
+
+	private ArrowLinkView[] mViews;
+
+	private Rectangle[] mBounds;
+
+	private Random mRandom = new Random(4711);
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		mViews = new ArrowLinkView[LINKS];
+		mBounds = new Rectangle[LINKS];
+		for (int i = 0; i < LINKS; i++) {
+			MindMapArrowLink link = new MindMapArrowLinkModel(null, null,
+					mFreeMindMain);
+			mViews[i] = new ArrowLinkView(link, null, null) {
+			};
+		}
+	}
+
+	public void testQueriesEqualLinearSearch() {
+		ArrowLinkIndex index = new ArrowLinkIndex(64);
+		for (int i = 0; i < LINKS; i++) {
+			mBounds[i] = randomRectangle(300);
+			index.update(mViews[i], mBounds[i], i);
+		}
+		for (int round = 0; round < 20; round++) {
+			// move some links, remove and re-add others:
+			for (int i = 0; i < LINKS / 10; i++) {
+				int link = mRandom.nextInt(LINKS);
+				if (mBounds[link] != null && mRandom.nextBoolean()) {
+					index.remove(mViews[link].getModel());
+					mBounds[link] = null;
+				} else {
+					mBounds[link] = randomRectangle(300);
+					index.update(mViews[link], mBounds[link], link);
+				}
+			}
+			for (int query = 0; query < 20; query++) {
+				Rectangle area = randomRectangle(100);
+				assertEquals(search(area), index.getViews(area));
+			}
+		}
+		assertEquals(search(null), index.getViews(null));
+	}
+
+	public void testRetainAll() {
+		ArrowLinkIndex index = new ArrowLinkIndex();
+		HashSet retained = new HashSet();
+		for (int i = 0; i < LINKS; i++) {
+			index.update(mViews[i], new Rectangle(i, i, 10, 10), i);
+			if (i % 3 == 0) {
+				retained.add(mViews[i].getModel());
+			}
+		}
+		index.retainAll(retained);
+		assertEquals(retained, new HashSet(index.getLinks()));
+		assertNull(index.getView(mViews[1].getModel()));
+		assertSame(mViews[3], index.getView(mViews[3].getModel()));
+		// the links 0 and 3, the link 1 is removed:
+		assertEquals(2, index.getViews(new Rectangle(4, 4, 1, 1)).size());
+	}
+
+	/**
+	 * After changes of the links and the node views, the index of a map view
+	 * must equal the index of a new map view.
+	 */
+	public void testMapViewFollowsChanges() throws Exception {
+		final MindMapController modeController = createMindMapController(
+				new MindMapMode());
+		final MindMapMapModel model = loadMap(modeController, new File(
+				"tests/freemind/serializer_golden.mm"));
+		Controller controller = modeController.getController();
+		final MapView view = createView(model, controller);
+		assertEquals(1, view.getArrowLinkViews().size());
+		MindMapNode root = model.getRootNode();
+		final MindMapNode branch1 = (MindMapNode) root.getChildAt(1);
+		final MindMapNode source = (MindMapNode) branch1.getChildAt(0);
+		final MindMapNode target = (MindMapNode) root.getChildAt(2);
+		// revalidate() only invalidates on the event dispatch thread:
+		EventQueue.invokeAndWait(new Runnable() {
+			public void run() {
+				modeController.addLink(source, target);
+				view.validate();
+			}
+		});
+		assertEquals(2, view.getArrowLinkViews().size());
+		assertEquals(getLinks(createView(model, controller)), getLinks(view));
+		// the source of the link gets no view:
+		EventQueue.invokeAndWait(new Runnable() {
+			public void run() {
+				modeController.setFolded(branch1, true);
+				view.validate();
+			}
+		});
+		assertEquals(getLinks(createView(model, controller)), getLinks(view));
+		EventQueue.invokeAndWait(new Runnable() {
+			public void run() {
+				modeController.setFolded(branch1, false);
+				view.validate();
+			}
+		});
+		Vector links = getLinks(view);
+		assertEquals(getLinks(createView(model, controller)), links);
+		assertTrue(links.contains(source.getText() + "->" + target.getText()));
+		EventQueue.invokeAndWait(new Runnable() {
+			public void run() {
+				MindMapLink link = (MindMapLink) model.getLinkRegistry()
+						.getAllLinksFromMe(source).get(0);
+				modeController.removeReference(link);
+				view.validate();
+			}
+		});
+		assertEquals(1, view.getArrowLinkViews().size());
+		assertEquals(getLinks(createView(model, controller)), getLinks(view));
+	}
+
+	/**
+	 * Only the curves of the links whose nodes moved are calculated again.
+	 * They must equal the curves of a new map view.
+	 */
+	public void testCurvesFollowMovedNodes() throws Exception {
+		final MindMapController modeController = createMindMapController(
+				new MindMapMode());
+		final MindMapMapModel model = loadMap(modeController, new File(
+				"tests/freemind/serializer_golden.mm"));
+		Controller controller = modeController.getController();
+		final MapView view = createView(model, controller);
+		Vector bounds = getBounds(view);
+		assertEquals(getBounds(createView(model, controller)), bounds);
+		final MindMapNode root = model.getRootNode();
+		// the nodes of the link (branch 0 and 4) are moved by their siblings:
+		EventQueue.invokeAndWait(new Runnable() {
+			public void run() {
+				for (int i = 1; i < 4; i++) {
+					for (int j = 0; j < 3; j++) {
+						modeController.addNewNode(
+								(MindMapNode) root.getChildAt(i), 0, false);
+					}
+				}
+				view.validate();
+			}
+		});
+		Vector movedBounds = getBounds(view);
+		assertFalse(bounds.equals(movedBounds));
+		assertEquals(getBounds(createView(model, controller)), movedBounds);
+	}
+
+	private Vector getBounds(MapView pView) {
+		Vector bounds = new Vector();
+		Vector views = pView.getArrowLinkViews();
+		for (int i = 0; i < views.size(); i++) {
+			bounds.add(((ArrowLinkView) views.get(i)).getBounds());
+		}
+		return bounds;
+	}
+
+	private MapView createView(MindMapMapModel pModel, Controller pController) {
+		MapView view = new MapView(pModel, pController);
+		// the map view has no frame:
+		view.addNotify();
+		view.validate();
+		return view;
+	}
+
+	/**
+	 * @return the links with the nodes that have views, sorted.
+	 */
+	private Vector getLinks(MapView pView) {
+		Vector links = new Vector();
+		Vector views = pView.getArrowLinkViews();
+		for (int i = 0; i < views.size(); i++) {
+			ArrowLinkView view = (ArrowLinkView) views.get(i);
+			links.add((view.getSource() == null ? "-" : view.getSource()
+					.getModel().getText())
+					+ "->"
+					+ (view.getTarget() == null ? "-" : view.getTarget()
+							.getModel().getText()));
+		}
+		Collections.sort(links);
+		return links;
+	}
+
+	/**
+	 * Also negative coordinates, as the links may leave the map.
+	 */
+	private Rectangle randomRectangle(int pMaxSize) {
+		return new Rectangle(mRandom.nextInt(2000) - 500,
+				mRandom.nextInt(2000) - 500, mRandom.nextInt(pMaxSize),
+				mRandom.nextInt(pMaxSize));
+	}
+
+	private Vector search(Rectangle pArea) {
+		Vector result = new Vector();
+		for (int i = 0; i < LINKS; i++) {
+			if (mBounds[i] != null
+					&& (pArea == null || mBounds[i].intersects(pArea))) {
+				result.add(mViews[i]);
+			}
+		}
+		return result;
+	}
+
+}
@@ -671,6 +671,13 @@ public class AttributeRegistryIntegrationTest extends FreeMindTestBase {
 				// TODO Auto-generated method stub
 				return null;
 			}
+
+			@Override
+			public MindMapNode createNodeTreeFromXml(Reader pReader,
+					HashMap pIDToTarget, boolean pDeferFoldedChildren)
+					throws XMLParseException, IOException {
+				return null;
+			}
 			
 			@Override
 			public Transferable copySingle() {
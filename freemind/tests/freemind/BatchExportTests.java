@@ -0,0 +1,100 @@
+/*FreeMind - A Program for creating and viewing Mindmaps
+ *Copyright (C) 2000-2012 Joerg Mueller, Daniel Polansky, Christian Foltin, Dimitri Polivaev and others.
+ *
+ *See COPYING for Details
+ *
+ *This program is free software; you can redistribute it and/or
+ *modify it under the terms of the GNU General Public License
+ *as published by the Free Software Foundation; either version 2
+ *of the License, or (at your option) any later version.
+ *
+ *This program is distributed in the hope that it will be useful,
+ *but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *GNU General Public License for more details.
+ *
+ *You should have received a copy of the GNU General Public License
+ *along with this program; if not, write to the Free Software
+ *Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package tests.freemind;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import freemind.main.BatchExport;
+
+public class BatchExportTests extends FreeMindTestBase {
+
+	private File mDirectory;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		mDirectory = File.createTempFile("batchexport", "");
+		mDirectory.delete();
+		mDirectory.mkdir();
+	}
+
+	protected void tearDown() throws Exception {
+		delete(mDirectory);
+		super.tearDown();
+	}
+
+	private void delete(File pFile) {
+		File[] files = pFile.listFiles();
+		if (files != null) {
+			for (int i = 0; i < files.length; i++) {
+				delete(files[i]);
+			}
+		}
+		pFile.delete();
+	}
+
+	private void copy(File pSource, File pTarget) throws IOException {
+		pTarget.getParentFile().mkdirs();
+		InputStream in = new FileInputStream(pSource);
+		OutputStream out = new FileOutputStream(pTarget);
+		byte[] buffer = new byte[4096];
+		for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+			out.write(buffer, 0, read);
+		}
+		in.close();
+		out.close();
+	}
+
+	public void testExportDirectoryTree() throws Exception {
+		File source = new File(mDirectory, "maps");
+		File target = new File(mDirectory, "exported");
+		copy(new File("tests/freemind/testmap.mm"), new File(source,
+				"testmap.mm"));
+		copy(new File("tests/freemind/serializer_golden.mm"), new File(
+				source, "sub/golden.mm"));
+		copy(new File("tests/freemind/testmap.mm"), new File(source,
+				"sub/notamap.txt"));
+		BatchExport export = new BatchExport(mFreeMindMain, source, target,
+				"html,odt,png");
+		assertTrue(export.run(2));
+		String[] expected = new String[] { "testmap.html", "testmap.odt",
+				"testmap.png", "sub/golden.html", "sub/golden.odt",
+				"sub/golden.png" };
+		for (int i = 0; i < expected.length; i++) {
+			File file = new File(target, expected[i]);
+			assertTrue(expected[i], file.length() > 0);
+		}
+		assertFalse(new File(target, "sub/notamap.html").exists());
+	}
+
+	public void testUnknownFormat() throws Exception {
+		try {
+			new BatchExport(mFreeMindMain, mDirectory, mDirectory, "html,doc");
+			fail("Unknown format accepted.");
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+}
@@ -0,0 +1,311 @@
+/*FreeMind - A Program for creating and viewing Mindmaps
+ *Copyright (C) 2000-2012 Joerg Mueller, Daniel Polansky, Christian Foltin, Dimitri Polivaev and others.
+ *
+ *See COPYING for Details
+ *
+ *This program is free software; you can redistribute it and/or
+ *modify it under the terms of the GNU General Public License
+ *as published by the Free Software Foundation; either version 2
+ *of the License, or (at your option) any later version.
+ *
+ *This program is distributed in the hope that it will be useful,
+ *but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *GNU General Public License for more details.
+ *
+ *You should have received a copy of the GNU General Public License
+ *along with this program; if not, write to the Free Software
+ *Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package tests.freemind;
+
+import java.awt.EventQueue;
+import java.io.File;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Vector;
+
+import plugins.collaboration.database.ActionNotifier;
+import plugins.collaboration.database.UpdateThread;
+import freemind.controller.actions.generated.instance.EditNodeAction;
+import freemind.main.Tools;
+import freemind.modes.MindMapNode;
+import freemind.modes.mindmapmode.MindMapController;
+import freemind.modes.mindmapmode.MindMapMode;
+
+/**
+ * The actions of the database collaboration are written in the background and
+ * the others are notified about them.
+ */
+public class CollaborationDatabaseTests extends FreeMindTestBase {
+
+	private static final int TIMEOUT = 5000;
+
+	private ActionNotifier mNotifier;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		// any free port:
+		mNotifier = new ActionNotifier(0, InetAddress.getByName("localhost"));
+		mNotifier.start();
+	}
+
+	protected void tearDown() throws Exception {
+		mNotifier.shutdown();
+		super.tearDown();
+	}
+
+	public void testNotifier() throws Exception {
+		Socket sender = connect();
+		Socket receiver = connect();
+		Socket other = connect();
+		assertTrue(mNotifier.waitForConnections(3, TIMEOUT));
+		sender.getOutputStream().write(1);
+		sender.getOutputStream().flush();
+		assertEquals(1, receiver.getInputStream().read());
+		assertEquals(1, other.getInputStream().read());
+		sender.setSoTimeout(200);
+		try {
+			sender.getInputStream().read();
+			fail("The sender mustn't be notified.");
+		} catch (SocketTimeoutException e) {
+		}
+		sender.close();
+		receiver.close();
+		other.close();
+	}
+
+	public void testActionsAreWrittenAndSignalled() throws Exception {
+		MindMapController mindMapController = createMindMapController();
+		Connection connection = createConnection("collaboration_test");
+		UpdateThread updateThread = startMaster(connection, mindMapController,
+				0);
+		Socket receiver = connect();
+		// the receiver and the update thread:
+		assertTrue(mNotifier.waitForConnections(2, TIMEOUT));
+
+		edit(mindMapController, 0, 20);
+		updateThread.flushActions();
+		assertEquals(1, receiver.getInputStream().read());
+
+		Statement statement = connection.createStatement();
+		ResultSet rs = statement.executeQuery("SELECT * FROM XmlActions");
+		int rows = 0;
+		String lastAction = null;
+		while (rs.next()) {
+			rows++;
+			assertEquals(rows, rs.getLong("PK"));
+			if (rows == 1) {
+				assertNotNull(rs.getString("map"));
+			} else {
+				lastAction = rs.getString("do_action");
+				assertNotNull(rs.getString("undo_action"));
+			}
+		}
+		rs.close();
+		assertEquals(21, rows);
+		assertTrue(lastAction, lastAction.indexOf("it's number 19") >= 0);
+
+		updateThread.commitSuicide();
+		updateThread.shutdown(true);
+		receiver.close();
+	}
+
+	public void testSnapshots() throws Exception {
+		MindMapController mindMapController = createMindMapController();
+		Connection connection = createConnection("snapshot_test");
+		UpdateThread updateThread = startMaster(connection, mindMapController,
+				5);
+		edit(mindMapController, 0, 12);
+		long firstSnapshot = waitForSnapshot(connection, 1);
+		edit(mindMapController, 12, 24);
+		long secondSnapshot = waitForSnapshot(connection, firstSnapshot);
+
+		// the actions before the previous snapshot are deleted:
+		Statement statement = connection.createStatement();
+		ResultSet rs = statement.executeQuery("SELECT MIN(PK) FROM XmlActions");
+		rs.next();
+		assertEquals(firstSnapshot, rs.getLong(1));
+		rs.close();
+		rs = statement.executeQuery("SELECT map FROM XmlActions WHERE PK = "
+				+ secondSnapshot);
+		rs.next();
+		String map = Tools.decompress(rs.getString(1));
+		rs.close();
+		assertTrue(map.indexOf("number 23\"") >= 0);
+
+		updateThread.commitSuicide();
+		updateThread.shutdown(true);
+	}
+
+	public void testOthersWroteTheSameKey() throws Exception {
+		MindMapController mindMapController = createMindMapController();
+		Connection connection = createConnection("conflict_test");
+		// the others' actions are only read, when the writing fails:
+		UpdateThread updateThread = createMaster(connection,
+				mindMapController, 0);
+		MindMapNode other = (MindMapNode) mindMapController.getRootNode()
+				.getChildAt(1);
+		EditNodeAction othersAction = new EditNodeAction();
+		othersAction.setNode(mindMapController.getNodeID(other));
+		othersAction.setText("written by another one");
+		EditNodeAction othersUndoAction = new EditNodeAction();
+		othersUndoAction.setNode(othersAction.getNode());
+		othersUndoAction.setText(other.getText());
+		PreparedStatement insert = connection.prepareStatement("INSERT INTO "
+				+ "XmlActions(PK, do_action, undo_action) VALUES(2, ?, ?)");
+		insert.setString(1, Tools.marshall(othersAction));
+		insert.setString(2, Tools.marshall(othersUndoAction));
+		insert.executeUpdate();
+		insert.close();
+
+		edit(mindMapController, 0, 1);
+		updateThread.flushActions();
+		Statement statement = connection.createStatement();
+		ResultSet rs = statement.executeQuery("SELECT * FROM XmlActions "
+				+ "ORDER BY PK");
+		int rows = 0;
+		String lastAction = null;
+		while (rs.next()) {
+			rows++;
+			assertEquals(rows, rs.getLong("PK"));
+			lastAction = rs.getString("do_action");
+		}
+		rs.close();
+		assertEquals(3, rows);
+		assertTrue(lastAction, lastAction.indexOf("it's number 0") >= 0);
+		// the action of the other one is executed:
+		EventQueue.invokeAndWait(new Runnable() {
+			public void run() {
+			}
+		});
+		assertEquals("written by another one", other.getText());
+
+		// to be stopped:
+		updateThread.start();
+		updateThread.commitSuicide();
+		updateThread.shutdown(true);
+	}
+
+	public void testMissingActionsLoadTheLatestSnapshot() throws Exception {
+		MindMapController mindMapController = createMindMapController();
+		Connection connection = createConnection("gap_test");
+		final Vector loadedMaps = new Vector();
+		UpdateThread updateThread = new UpdateThread(connection,
+				mindMapController) {
+			protected void createNewMap(String pMap) {
+				// there are no menus to change:
+				synchronized (loadedMaps) {
+					loadedMaps.add(pMap);
+					loadedMaps.notifyAll();
+				}
+			}
+		};
+		updateThread.setHost("localhost");
+		updateThread.setPort(""
+				+ (mNotifier.getPort() - ActionNotifier.PORT_OFFSET));
+		updateThread.setupTables("");
+		// another one has stored a snapshot and deleted the actions before:
+		Statement statement = connection.createStatement();
+		statement.executeUpdate("DELETE FROM XmlActions");
+		statement.executeUpdate("INSERT INTO XmlActions(PK, map) "
+				+ "VALUES(5, '" + Tools.compress("<map>snapshot</map>") + "')");
+
+		updateThread.start();
+		synchronized (loadedMaps) {
+			long end = System.currentTimeMillis() + TIMEOUT;
+			while (loadedMaps.isEmpty() && System.currentTimeMillis() < end) {
+				loadedMaps.wait(TIMEOUT);
+			}
+		}
+		assertEquals(1, loadedMaps.size());
+		assertEquals("<map>snapshot</map>", loadedMaps.get(0));
+
+		updateThread.commitSuicide();
+		updateThread.shutdown(true);
+	}
+
+	/**
+	 * @return the primary key of the first snapshot after the given one.
+	 */
+	private long waitForSnapshot(Connection pConnection, long pAfter)
+			throws Exception {
+		Statement statement = pConnection.createStatement();
+		long end = System.currentTimeMillis() + 4 * TIMEOUT;
+		while (System.currentTimeMillis() < end) {
+			ResultSet rs = statement.executeQuery("SELECT MAX(PK) "
+					+ "FROM XmlActions WHERE map IS NOT NULL");
+			rs.next();
+			long latest = rs.getLong(1);
+			rs.close();
+			if (latest > pAfter) {
+				return latest;
+			}
+			Thread.sleep(100);
+		}
+		fail("No snapshot was stored.");
+		return 0;
+	}
+
+	private void edit(MindMapController pMindMapController, int pFrom, int pTo) {
+		MindMapNode node = (MindMapNode) pMindMapController.getRootNode()
+				.getChildAt(0);
+		for (int i = pFrom; i < pTo; i++) {
+			pMindMapController.setNodeText(node, "it's number " + i);
+		}
+	}
+
+	private MindMapController createMindMapController() throws Exception {
+		MindMapController mindMapController = createMindMapController(
+				new MindMapMode());
+		loadMap(mindMapController, new File(
+				"tests/freemind/serializer_golden.mm"));
+		return mindMapController;
+	}
+
+	private Connection createConnection(String pDatabase) throws Exception {
+		Class.forName("org.hsqldb.jdbcDriver");
+		return DriverManager.getConnection("jdbc:hsqldb:mem:" + pDatabase,
+				"sa", "");
+	}
+
+	private UpdateThread startMaster(Connection pConnection,
+			MindMapController pMindMapController, int pSnapshotInterval)
+			throws Exception {
+		UpdateThread updateThread = createMaster(pConnection,
+				pMindMapController, pSnapshotInterval);
+		updateThread.start();
+		return updateThread;
+	}
+
+	/**
+	 * @return the update thread of the master, that doesn't read the others'
+	 *         actions, as long as it isn't started.
+	 */
+	private UpdateThread createMaster(Connection pConnection,
+			MindMapController pMindMapController, int pSnapshotInterval)
+			throws Exception {
+		UpdateThread updateThread = new UpdateThread(pConnection,
+				pMindMapController);
+		updateThread.setHost("localhost");
+		updateThread.setPort(""
+				+ (mNotifier.getPort() - ActionNotifier.PORT_OFFSET));
+		updateThread.setSnapshotInterval(pSnapshotInterval);
+		updateThread.setupTables("");
+		return updateThread;
+	}
+
+	private Socket connect() throws Exception {
+		Socket socket = new Socket("localhost", mNotifier.getPort());
+		socket.setSoTimeout(TIMEOUT);
+		return socket;
+	}
+
+}
@@ -0,0 +1,157 @@
+/*FreeMind - A Program for creating and viewing Mindmaps
+ *Copyright (C) 2000-2012 Joerg Mueller, Daniel Polansky, Christian Foltin, Dimitri Polivaev and others.
+ *
+ *See COPYING for Details
+ *
+ *This program is free software; you can redistribute it and/or
+ *modify it under the terms of the GNU General Public License
+ *as published by the Free Software Foundation; either version 2
+ *of the License, or (at your option) any later version.
+ *
+ *This program is distributed in the hope that it will be useful,
+ *but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *GNU General Public License for more details.
+ *
+ *You should have received a copy of the GNU General Public License
+ *along with this program; if not, write to the Free Software
+ *Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package tests.freemind;
+
+import java.io.File;
+
+import javax.swing.JComponent;
+
+import freemind.common.NamedObject;
+import freemind.controller.Controller;
+import freemind.controller.filter.FilterController;
+import freemind.controller.filter.condition.AttributeCompareCondition;
+import freemind.controller.filter.condition.Condition;
+import freemind.controller.filter.condition.ConditionNotSatisfiedDecorator;
+import freemind.controller.filter.condition.ConjunctConditions;
+import freemind.controller.filter.condition.DisjunctConditions;
+import freemind.main.XMLElement;
+import freemind.modes.MindMapNode;
+import freemind.modes.mindmapmode.MindMapController;
+import freemind.modes.mindmapmode.MindMapMapModel;
+import freemind.modes.mindmapmode.MindMapMode;
+
+/**
+ * Conditions are checked on the cached plain text of the nodes, the cheapest
+ * first.
+ */
+public class ConditionTests extends FreeMindTestBase {
+
+	/** A condition of unknown cost, counting its checks. */
+	private static class CountingCondition implements Condition {
+		int mChecks = 0;
+
+		private final boolean mResult;
+
+		CountingCondition(boolean pResult) {
+			mResult = pResult;
+		}
+
+		public boolean checkNode(Controller c, MindMapNode node) {
+			mChecks++;
+			return mResult;
+		}
+
+		public JComponent getListCellRendererComponent() {
+			return null;
+		}
+
+		public void save(XMLElement element) {
+		}
+	}
+
+	private MindMapController mMindMapController;
+
+	private MindMapNode mNode;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		mMindMapController = createMindMapController(new MindMapMode());
+		MindMapMapModel model = loadMap(mMindMapController, new File(
+				"tests/freemind/serializer_golden.mm"));
+		mNode = (MindMapNode) model.getRootNode().getChildAt(0);
+	}
+
+	public void testCheapestFirst() {
+		mMindMapController.setNodeText(mNode, "some text");
+		CountingCondition counting = new CountingCondition(true);
+		Condition contains = createCondition("filter_contains", "other");
+		Condition conjunct = new ConjunctConditions(new Object[] { counting,
+				contains });
+		assertFalse(conjunct.checkNode(null, mNode));
+		assertEquals(0, counting.mChecks);
+
+		Condition disjunct = new DisjunctConditions(new Object[] { counting,
+				new ConditionNotSatisfiedDecorator(contains) });
+		assertTrue(disjunct.checkNode(null, mNode));
+		assertEquals(0, counting.mChecks);
+
+		// the saved order is kept:
+		XMLElement element = new XMLElement();
+		CountingCondition saving = new CountingCondition(true) {
+			public void save(XMLElement element) {
+				XMLElement child = new XMLElement();
+				child.setName("counting");
+				element.addChild(child);
+			}
+		};
+		new ConjunctConditions(new Object[] { saving, contains }).save(element);
+		XMLElement saved = (XMLElement) element.getChildren().get(0);
+		assertEquals("counting", ((XMLElement) saved.getChildren().get(0))
+				.getName());
+	}
+
+	public void testCompareHtml() {
+		mMindMapController.setNodeText(mNode,
+				"<html><body><p>12.5</p></body></html>");
+		assertTrue(createCondition(">", "12").checkNode(null, mNode));
+		assertTrue(createCondition("filter_is_equal_to", "12.5").checkNode(
+				null, mNode));
+		assertFalse(createCondition("<", "9").checkNode(null, mNode));
+
+		mMindMapController.setNodeText(mNode, "7");
+		assertTrue(createCondition("<", "9").checkNode(null, mNode));
+		assertFalse(createCondition(">", "12").checkNode(null, mNode));
+
+		// numbers aren't compared to texts:
+		mMindMapController.setNodeText(mNode, "seven");
+		assertFalse(createCondition("<", "9").checkNode(null, mNode));
+		assertFalse(createCondition("filter_is_not_equal_to", "9").checkNode(
+				null, mNode));
+		assertTrue(createCondition("filter_is_not_equal_to", "eight")
+				.checkNode(null, mNode));
+	}
+
+	public void testCompareAttribute() {
+		Condition greater = new AttributeCompareCondition("prio", "12", false,
+				1, true);
+		Condition notGreater = new AttributeCompareCondition("prio", "12",
+				false, 1, false);
+		mMindMapController.editAttribute(mNode, "prio", "12.5");
+		assertTrue(greater.checkNode(null, mNode));
+		// the cached number follows the changes:
+		mMindMapController.editAttribute(mNode, "prio", "7");
+		assertFalse(greater.checkNode(null, mNode));
+		assertTrue(notGreater.checkNode(null, mNode));
+		// numbers aren't compared to texts:
+		mMindMapController.editAttribute(mNode, "prio", "seven");
+		assertFalse(greater.checkNode(null, mNode));
+		assertFalse(notGreater.checkNode(null, mNode));
+		assertTrue(new AttributeCompareCondition("prio", "Seven", true, 0,
+				true).checkNode(null, mNode));
+	}
+
+	private Condition createCondition(String pSimpleCondition, String pValue) {
+		return FilterController.getConditionFactory().createCondition(
+				NamedObject.literal("filter_node"),
+				NamedObject.literal(pSimpleCondition), pValue, false);
+	}
+
+}
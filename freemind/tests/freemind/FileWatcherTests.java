@@ -0,0 +1,142 @@
+/*FreeMind - A Program for creating and viewing Mindmaps
+ *Copyright (C) 2000-2012 Joerg Mueller, Daniel Polansky, Christian Foltin, Dimitri Polivaev and others.
+ *
+ *See COPYING for Details
+ *
+ *This program is free software; you can redistribute it and/or
+ *modify it under the terms of the GNU General Public License
+ *as published by the Free Software Foundation; either version 2
+ *of the License, or (at your option) any later version.
+ *
+ *This program is distributed in the hope that it will be useful,
+ *but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *GNU General Public License for more details.
+ *
+ *You should have received a copy of the GNU General Public License
+ *along with this program; if not, write to the Free Software
+ *Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package tests.freemind;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+
+import freemind.main.Tools;
+import freemind.modes.FileWatcher;
+import freemind.modes.MindMap;
+import freemind.modes.MindMap.MapSourceChangedObserver;
+import freemind.modes.mindmapmode.MindMapMapModel;
+import freemind.modes.mindmapmode.MindMapMode;
+
+/**
+ * The checks must be executed after the watched file was changed.
+ */
+public class FileWatcherTests extends FreeMindTestBase {
+
+	/** Longer than the poll interval, if the file can't be watched. */
+	private static final long TIMEOUT = 3 * FileWatcher.POLL_INTERVAL;
+
+	private static class Check implements Runnable {
+		private int mCount = 0;
+
+		public synchronized void run() {
+			mCount++;
+			notifyAll();
+		}
+
+		synchronized boolean waitForRun(long pTimeout)
+				throws InterruptedException {
+			long end = System.currentTimeMillis() + pTimeout;
+			while (mCount == 0 && System.currentTimeMillis() < end) {
+				wait(100);
+			}
+			boolean result = mCount > 0;
+			mCount = 0;
+			return result;
+		}
+	}
+
+	private File mDirectory;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		mDirectory = File.createTempFile("watched", "");
+		mDirectory.delete();
+		mDirectory.mkdir();
+	}
+
+	protected void tearDown() throws Exception {
+		File[] files = mDirectory.listFiles();
+		for (int i = 0; i < files.length; i++) {
+			files[i].delete();
+		}
+		mDirectory.delete();
+		super.tearDown();
+	}
+
+	public void testChanges() throws Exception {
+		File file = new File(mDirectory, "a.mm");
+		File other = new File(mDirectory, "b.mm");
+		write(file, "a");
+		write(other, "b");
+		Check check = new Check();
+		Check otherCheck = new Check();
+		FileWatcher watcher = FileWatcher.getInstance();
+		watcher.watch(file, check);
+		watcher.watch(other, otherCheck);
+		try {
+			Thread.sleep(100);
+			write(file, "changed");
+			assertTrue(check.waitForRun(TIMEOUT));
+			// the unchanged file of the same directory:
+			otherCheck.waitForRun(0);
+
+			watcher.unwatch(check);
+			write(file, "unwatched");
+			write(other, "changed");
+			assertTrue(otherCheck.waitForRun(TIMEOUT));
+			assertFalse(check.waitForRun(500));
+		} finally {
+			watcher.unwatch(check);
+			watcher.unwatch(otherCheck);
+		}
+	}
+
+	public void testMapSourceChanged() throws Exception {
+		File file = new File(mDirectory, "map.mm");
+		Tools.copyStream(new FileInputStream(
+				"tests/freemind/serializer_golden.mm"), new FileOutputStream(
+				file), true);
+		MindMapMapModel model = loadMap(
+				createMindMapController(new MindMapMode()), file);
+		final Check check = new Check();
+		model.registerMapSourceChangedObserver(new MapSourceChangedObserver() {
+			public boolean mapSourceChanged(MindMap pMap) {
+				check.run();
+				return true;
+			}
+		}, 0);
+		try {
+			Thread.sleep(100);
+			// saving isn't reported:
+			model.save(file);
+			assertFalse(check.waitForRun(500));
+			write(file, "<map><node TEXT=\"changed\"/></map>");
+			file.setLastModified(System.currentTimeMillis() + 10000);
+			assertTrue(check.waitForRun(TIMEOUT));
+		} finally {
+			model.destroy();
+		}
+	}
+
+	private void write(File pFile, String pContent) throws Exception {
+		FileWriter writer = new FileWriter(pFile);
+		writer.write(pContent);
+		writer.close();
+	}
+
+}
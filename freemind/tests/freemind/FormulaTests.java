@@ -0,0 +1,243 @@
+/*FreeMind - A Program for creating and viewing Mindmaps
+ *Copyright (C) 2000-2012 Joerg Mueller, Daniel Polansky, Christian Foltin, Dimitri Polivaev and others.
+ *
+ *See COPYING for Details
+ *
+ *This program is free software; you can redistribute it and/or
+ *modify it under the terms of the GNU General Public License
+ *as published by the Free Software Foundation; either version 2
+ *of the License, or (at your option) any later version.
+ *
+ *This program is distributed in the hope that it will be useful,
+ *but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *GNU General Public License for more details.
+ *
+ *You should have received a copy of the GNU General Public License
+ *along with this program; if not, write to the Free Software
+ *Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package tests.freemind;
+
+import java.awt.EventQueue;
+import java.io.File;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Vector;
+
+import org.codehaus.groovy.runtime.InvokerHelper;
+
+import plugins.script.FormulaEvaluator;
+import plugins.script.FormulaGraph;
+import plugins.script.FormulaGraph.Formula;
+import freemind.main.FreeMind;
+import freemind.main.FreeMindSecurityManager;
+import freemind.modes.MindMapNode;
+import freemind.modes.mindmapmode.MindMapController;
+import freemind.modes.mindmapmode.MindMapMapModel;
+import freemind.modes.mindmapmode.MindMapMode;
+
+/**
+ * Formulas must be evaluated after the formulas they depend on.
+ */
+public class FormulaTests extends FreeMindTestBase {
+
+	private MindMapController mMindMapController;
+
+	private MindMapMapModel mModel;
+
+	private SecurityManager mOldSecurityManager;
+
+	private MindMapNode mBranch0;
+
+	private MindMapNode mBranch1;
+
+	private MindMapNode mLeaf;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		mFreeMindMain.getProperties().setProperty(
+				FreeMind.RESOURCES_EXECUTE_SCRIPTS_WITHOUT_ASKING, "true");
+		mOldSecurityManager = System.getSecurityManager();
+		System.setSecurityManager(new FreeMindSecurityManager());
+		mMindMapController = createMindMapController(new MindMapMode());
+		mModel = loadMap(mMindMapController, new File(
+				"tests/freemind/serializer_golden.mm"));
+		mBranch0 = (MindMapNode) mModel.getRootNode().getChildAt(0);
+		mBranch1 = (MindMapNode) mModel.getRootNode().getChildAt(1);
+		mLeaf = (MindMapNode) ((MindMapNode) mModel.getRootNode().getChildAt(
+				2)).getChildAt(0);
+		// the scripts may not read the classes from the class directory:
+		InvokerHelper.invokeMethod(mMindMapController, "getNodeFromID",
+				"ID_1002");
+		InvokerHelper.invokeMethod(mBranch0, "getAttribute", "x");
+	}
+
+	protected void tearDown() throws Exception {
+		System.setSecurityManager(mOldSecurityManager);
+		mFreeMindMain.getProperties().setProperty(
+				FreeMind.RESOURCES_EXECUTE_SCRIPTS_WITHOUT_ASKING, "");
+		super.tearDown();
+	}
+
+	public void testOrder() throws Exception {
+		// reads a node evaluated later in depth first order:
+		mMindMapController.editAttribute(mBranch0, "script1",
+				"=c.getNodeFromID('" + getId(mBranch1) + "').getText() + '!'");
+		mMindMapController.editAttribute(mBranch1, "script1",
+				"=node.getAttribute('total').toInteger() / 2");
+		mMindMapController.editAttribute(mBranch1, "script2", "total=84");
+		FormulaGraph graph = createGraph();
+		Vector order = graph.getOrder();
+		assertEquals(3, order.size());
+		assertEquals("total=84", ((Formula) order.get(0)).getScript());
+		assertSame(mBranch0, ((Formula) order.get(2)).getNode());
+		assertTrue(graph.getCycles().isEmpty());
+
+		final FormulaEvaluator evaluator = new FormulaEvaluator(
+				mMindMapController, new HashMap());
+		// in the event dispatch thread, the changes are one undo step:
+		EventQueue.invokeAndWait(new Runnable() {
+			public void run() {
+				evaluator.evaluateAll();
+			}
+		});
+		assertEquals("84", mBranch1.getAttribute("total"));
+		assertEquals("42", mBranch1.getText());
+		assertEquals("42!", mBranch0.getText());
+		// one undo step:
+		mMindMapController.undo.actionPerformed(null);
+		assertEquals("Branch 0", mBranch0.getText());
+		assertNull(mBranch1.getAttribute("total"));
+	}
+
+	public void testCycles() throws Exception {
+		mMindMapController.editAttribute(mBranch0, "script1", "=c.getNodeFromID('"
+				+ getId(mBranch1) + "').getText()");
+		mMindMapController.editAttribute(mBranch1, "script1", "=c.getNodeFromID('"
+				+ getId(mBranch0) + "').getText()");
+		mMindMapController.editAttribute(mLeaf, "script1", "=1");
+		FormulaGraph graph = createGraph();
+		assertEquals(3, graph.getOrder().size());
+		assertEquals(2, graph.getCycles().size());
+	}
+
+	public void testChanges() throws Exception {
+		mMindMapController.editAttribute(mBranch0, "script1",
+				"=c.getNodeFromID('" + getId(mLeaf) + "').getText() + '!'");
+		mMindMapController.editAttribute(mBranch1, "script1", "=6*7");
+		FormulaGraph graph = createGraph();
+		Vector order = graph.getOrder(Collections.singleton(mLeaf));
+		assertEquals(1, order.size());
+		assertSame(mBranch0, ((Formula) order.get(0)).getNode());
+		assertTrue(graph.getOrder(
+				Collections.singleton(mLeaf.getChildAt(0))).isEmpty());
+
+		FormulaEvaluator evaluator = new FormulaEvaluator(mMindMapController,
+				new HashMap());
+		evaluator.startListening(mModel);
+		try {
+			mMindMapController.setNodeText(mLeaf, "changed");
+			waitForEvaluation();
+			assertEquals("changed!", mBranch0.getText());
+			// not depending on the leaf:
+			assertEquals("Branch 1", mBranch1.getText());
+		} finally {
+			evaluator.stopListening();
+		}
+		mMindMapController.setNodeText(mLeaf, "unobserved");
+		waitForEvaluation();
+		assertEquals("changed!", mBranch0.getText());
+	}
+
+	public void testGraphFollowsTheChanges() throws Exception {
+		FormulaEvaluator evaluator = new FormulaEvaluator(mMindMapController,
+				new HashMap());
+		evaluator.startListening(mModel);
+		try {
+			// builds the graph:
+			evaluator.evaluateAll();
+			editAttributeInEventThread(mBranch0, "script1",
+					"=c.getNodeFromID('" + getId(mLeaf) + "').getText() + '!'");
+			waitForEvaluation();
+			assertEquals(mLeaf.getText() + "!", mBranch0.getText());
+			MindMapNode newNode = mMindMapController.addNewNode(mBranch1, 0,
+					false);
+			editAttributeInEventThread(newNode, "script1",
+					"=c.getNodeFromID('" + getId(mLeaf) + "').getText() + '?'");
+			waitForEvaluation();
+			assertEquals(mLeaf.getText() + "?", newNode.getText());
+			mMindMapController.deleteNode(mBranch0);
+			mMindMapController.setNodeText(mLeaf, "changed");
+			waitForEvaluation();
+			assertEquals("changed?", newNode.getText());
+			// removed from the graph:
+			assertFalse(mBranch0.getText().startsWith("changed"));
+		} finally {
+			evaluator.stopListening();
+		}
+	}
+
+	public void testUndoRedoIsNotEvaluated() throws Exception {
+		mMindMapController.editAttribute(mBranch0, "script1",
+				"=c.getNodeFromID('" + getId(mLeaf) + "').getText() + '!'");
+		// the formula stays, when the change is undone:
+		mMindMapController.undo.clear();
+		String leafText = mLeaf.getText();
+		FormulaEvaluator evaluator = new FormulaEvaluator(mMindMapController,
+				new HashMap());
+		evaluator.startListening(mModel);
+		try {
+			mMindMapController.setNodeText(mLeaf, "changed");
+			waitForEvaluation();
+			assertEquals("changed!", mBranch0.getText());
+			// the evaluation is undone first or together with the change:
+			int undoSteps = 0;
+			do {
+				mMindMapController.undo.actionPerformed(null);
+				waitForEvaluation();
+				assertEquals("Branch 0", mBranch0.getText());
+				++undoSteps;
+			} while (!leafText.equals(mLeaf.getText()));
+			assertTrue(undoSteps <= 2);
+			// the redo history is kept:
+			for (int i = 0; i < undoSteps; i++) {
+				mMindMapController.redo.actionPerformed(null);
+				waitForEvaluation();
+				assertEquals("changed", mLeaf.getText());
+			}
+			assertEquals("changed!", mBranch0.getText());
+		} finally {
+			evaluator.stopListening();
+		}
+	}
+
+	/**
+	 * As the user does, the evaluator sees the action before it is done.
+	 */
+	private void editAttributeInEventThread(final MindMapNode pNode,
+			final String pName, final String pValue) throws Exception {
+		EventQueue.invokeAndWait(new Runnable() {
+			public void run() {
+				mMindMapController.editAttribute(pNode, pName, pValue);
+			}
+		});
+	}
+
+	private FormulaGraph createGraph() {
+		return new FormulaGraph(mModel.getRootNode(), mModel.getLinkRegistry());
+	}
+
+	private String getId(MindMapNode pNode) {
+		return mMindMapController.getNodeID(pNode);
+	}
+
+	private void waitForEvaluation() throws Exception {
+		EventQueue.invokeAndWait(new Runnable() {
+			public void run() {
+			}
+		});
+	}
+
+}
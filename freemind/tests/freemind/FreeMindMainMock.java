@@ -140,7 +140,7 @@ public class FreeMindMainMock implements FreeMindMain {
 	}
 
 	public String getFreemindDirectory() {
-		return ".";
+		return System.getProperty("java.io.tmpdir");
 	}
 
 	public JLayeredPane getLayeredPane() {
@@ -20,13 +20,23 @@
 
 package tests.freemind;
 
+import java.io.File;
+import java.util.Vector;
+
 import junit.framework.TestCase;
+import freemind.controller.Controller;
+import freemind.modes.mindmapmode.MindMapController;
+import freemind.modes.mindmapmode.MindMapMapModel;
+import freemind.modes.mindmapmode.MindMapMode;
 
 /** */
 public class FreeMindTestBase extends TestCase {
 
 	protected FreeMindMainMock mFreeMindMain;
 
+	/** The error messages of the controllers, that would be shown. */
+	protected Vector mErrorMessages = new Vector();
+
 	/**
      * 
      */
@@ -50,6 +60,46 @@ public class FreeMindTestBase extends TestCase {
 	public FreeMindMainMock getFrame() {
 		return mFreeMindMain;
 	}
+
+	/**
+	 * @return an initialized controller. There is no frame to show the title
+	 *         or the error messages, they are added to mErrorMessages.
+	 */
+	protected Controller createController() {
+		Controller controller = new Controller(mFreeMindMain) {
+			public void setTitle() {
+			}
+
+			public void errorMessage(Object pMessage) {
+				mErrorMessages.add(pMessage);
+			}
+		};
+		controller.initialization();
+		return controller;
+	}
+
+	/**
+	 * @param pMode
+	 *            may create a subclass of the MindMapController.
+	 * @return the mode controller of the mode, with a new controller and
+	 *         without a map.
+	 */
+	protected MindMapController createMindMapController(MindMapMode pMode) {
+		pMode.init(createController());
+		return (MindMapController) pMode.createModeController();
+	}
+
+	/**
+	 * Loads the file into a new map of the mode controller.
+	 */
+	protected MindMapMapModel loadMap(MindMapController pMindMapController,
+			File pFile) throws Exception {
+		MindMapMapModel model = new MindMapMapModel(mFreeMindMain,
+				pMindMapController);
+		pMindMapController.setModel(model);
+		model.load(pFile);
+		return model;
+	}
 	
 	/**
 	 * Added a test to remove the warning, it doesn't do anything else.
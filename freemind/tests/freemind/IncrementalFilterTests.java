@@ -0,0 +1,176 @@
+/*FreeMind - A Program for creating and viewing Mindmaps
+ *Copyright (C) 2000-2012 Joerg Mueller, Daniel Polansky, Christian Foltin, Dimitri Polivaev and others.
+ *
+ *See COPYING for Details
+ *
+ *This program is free software; you can redistribute it and/or
+ *modify it under the terms of the GNU General Public License
+ *as published by the Free Software Foundation; either version 2
+ *of the License, or (at your option) any later version.
+ *
+ *This program is distributed in the hope that it will be useful,
+ *but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *GNU General Public License for more details.
+ *
+ *You should have received a copy of the GNU General Public License
+ *along with this program; if not, write to the Free Software
+ *Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package tests.freemind;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.ListIterator;
+import java.util.Random;
+
+import freemind.common.NamedObject;
+import freemind.controller.Controller;
+import freemind.controller.filter.DefaultFilter;
+import freemind.controller.filter.FilterController;
+import freemind.controller.filter.condition.Condition;
+import freemind.main.FreeMind;
+import freemind.main.Resources;
+import freemind.modes.MindMapNode;
+import freemind.modes.mindmapmode.MindMapController;
+import freemind.modes.mindmapmode.MindMapMapModel;
+import freemind.modes.mindmapmode.MindMapMode;
+
+/**
+ * The filter kept up to date on changes must give the same result as
+ * filtering the changed map again.
+ */
+public class IncrementalFilterTests extends FreeMindTestBase {
+
+	private static final String[] TEXTS = new String[] { "x", "y", "a x b",
+			"Leaf", "" };
+
+	private static final int SEQUENCES = 10;
+
+	private static final int EDITS = 30;
+
+	private Controller mController;
+
+	private MindMapController mMindMapController;
+
+	private MindMapMapModel mModel;
+
+	private Random mRandom = new Random(4711);
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		Resources.getInstance().getProperties().setProperty(
+				FreeMind.RESOURCES_FILTER_ON_CHANGE, "true");
+		mMindMapController = createMindMapController(new MindMapMode());
+		mController = mMindMapController.getController();
+		mModel = loadMap(mMindMapController, new File(
+				"tests/freemind/serializer_golden.mm"));
+	}
+
+	protected void tearDown() throws Exception {
+		Resources.getInstance().getProperties().setProperty(
+				FreeMind.RESOURCES_FILTER_ON_CHANGE, "false");
+		super.tearDown();
+	}
+
+	public void testRandomEdits() throws Exception {
+		compareAfterRandomEdits(createCondition("x"), true, false);
+	}
+
+	public void testRandomEditsWithDescendants() throws Exception {
+		compareAfterRandomEdits(createCondition("Leaf"), false, true);
+	}
+
+	private void compareAfterRandomEdits(Condition pCondition,
+			boolean pAncestorsShown, boolean pDescendantsShown)
+			throws Exception {
+		DefaultFilter filter = new DefaultFilter(pCondition, pAncestorsShown,
+				pDescendantsShown);
+		mModel.setFilter(filter);
+		filter.applyFilter(mController, mModel);
+		for (int i = 0; i < SEQUENCES; i++) {
+			for (int j = 0; j < EDITS; j++) {
+				editRandomly();
+			}
+			HashMap incremental = getFilterResults();
+			filter.applyFilter(mController, mModel);
+			HashMap expected = getFilterResults();
+			assertEquals(expected.keySet(), incremental.keySet());
+			for (Iterator it = expected.keySet().iterator(); it.hasNext();) {
+				Object node = it.next();
+				assertEquals("sequence " + i + ", " + node,
+						expected.get(node), incremental.get(node));
+			}
+		}
+	}
+
+	private Condition createCondition(String pValue) {
+		return FilterController.getConditionFactory().createCondition(
+				NamedObject.literal("filter_node"),
+				NamedObject.literal("filter_contains"), pValue, false);
+	}
+
+	private void editRandomly() {
+		ArrayList nodes = new ArrayList();
+		collectNodes(mModel.getRootNode(), nodes);
+		MindMapNode node = (MindMapNode) nodes.get(mRandom
+				.nextInt(nodes.size()));
+		switch (mRandom.nextInt(5)) {
+		case 0:
+		case 1:
+			mMindMapController.setNodeText(node, randomText());
+			break;
+		case 2:
+			MindMapNode newNode = mMindMapController.addNewNode(node, 0,
+					false);
+			mMindMapController.setNodeText(newNode, randomText());
+			break;
+		case 3:
+			if (!node.isRoot() && nodes.size() > 20) {
+				mMindMapController.deleteNode(node);
+			}
+			break;
+		case 4:
+			MindMapNode target = (MindMapNode) nodes.get(mRandom
+					.nextInt(nodes.size()));
+			if (!node.isRoot() && !target.isChildOfOrEqual(node)) {
+				mMindMapController.paste(mMindMapController.cut(Collections
+						.singletonList(node)), target);
+			}
+			break;
+		}
+	}
+
+	private String randomText() {
+		return TEXTS[mRandom.nextInt(TEXTS.length)] + " "
+				+ TEXTS[mRandom.nextInt(TEXTS.length)];
+	}
+
+	private void collectNodes(MindMapNode pNode, ArrayList pNodes) {
+		pNodes.add(pNode);
+		for (ListIterator it = pNode.childrenUnfolded(); it.hasNext();) {
+			collectNodes((MindMapNode) it.next(), pNodes);
+		}
+	}
+
+	/**
+	 * @return node -> visibility and flags.
+	 */
+	private HashMap getFilterResults() {
+		HashMap results = new HashMap();
+		ArrayList nodes = new ArrayList();
+		collectNodes(mModel.getRootNode(), nodes);
+		for (Iterator it = nodes.iterator(); it.hasNext();) {
+			MindMapNode node = (MindMapNode) it.next();
+			results.put(node, node.isVisible() + " matched="
+					+ node.getFilterInfo().isMatched() + " ancestor="
+					+ node.getFilterInfo().isAncestor());
+		}
+		return results;
+	}
+
+}
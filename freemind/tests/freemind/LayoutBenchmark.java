@@ -0,0 +1,158 @@
+/*FreeMind - A Program for creating and viewing Mindmaps
+ *Copyright (C) 2000-2012 Joerg Mueller, Daniel Polansky, Christian Foltin, Dimitri Polivaev and others.
+ *
+ *See COPYING for Details
+ *
+ *This program is free software; you can redistribute it and/or
+ *modify it under the terms of the GNU General Public License
+ *as published by the Free Software Foundation; either version 2
+ *of the License, or (at your option) any later version.
+ *
+ *This program is distributed in the hope that it will be useful,
+ *but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *GNU General Public License for more details.
+ *
+ *You should have received a copy of the GNU General Public License
+ *along with this program; if not, write to the Free Software
+ *Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package tests.freemind;
+
+import java.awt.EventQueue;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.Writer;
+import java.util.logging.Logger;
+
+import freemind.controller.Controller;
+import freemind.main.FreeMind;
+import freemind.main.Resources;
+import freemind.modes.MindMapNode;
+import freemind.modes.mindmapmode.MindMapController;
+import freemind.modes.mindmapmode.MindMapMapModel;
+import freemind.modes.mindmapmode.MindMapMode;
+import freemind.view.mindmapview.MapView;
+
+/**
+ * Measures the layout of a large map after a leaf was edited. Not part of
+ * {@link AllTests}, run it with
+ *
+ * <pre>
+ * java -Djava.awt.headless=true -Dnodes=50000 -Dvirtualized=false junit.textui.TestRunner tests.freemind.LayoutBenchmark
+ * </pre>
+ *
+ * The map view is created without a frame.
+ */
+public class LayoutBenchmark extends FreeMindTestBase {
+
+	private static final int BRANCHES = 50;
+
+	private static final int EDITS = 100;
+
+	private MindMapController mMindMapController;
+
+	private Controller mController;
+
+	private File mFile;
+
+	private Logger mLogger;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		mLogger = mFreeMindMain.getLogger(this.getClass().getName());
+		Resources.getInstance().getProperties().setProperty(
+				FreeMind.RESOURCES_VIRTUALIZED_NODE_VIEWS,
+				System.getProperty("virtualized", "false"));
+		MindMapMode mode = new MindMapMode() {
+			public freemind.modes.ModeController createModeController() {
+				return new MindMapController(this) {
+					protected void init() {
+					}
+				};
+			};
+		};
+		mMindMapController = createMindMapController(mode);
+		mController = mMindMapController.getController();
+		mFile = File.createTempFile("layout", ".mm");
+		writeMap(mFile, Integer.getInteger("nodes", 50000).intValue());
+	}
+
+	protected void tearDown() throws Exception {
+		Resources.getInstance().getProperties().setProperty(
+				FreeMind.RESOURCES_VIRTUALIZED_NODE_VIEWS, "false");
+		mFile.delete();
+		super.tearDown();
+	}
+
+	public void testLayoutAfterLeafEdit() throws Exception {
+		MindMapMapModel model = loadMap(mMindMapController, mFile);
+		long start = System.currentTimeMillis();
+		MapView view = createView(model);
+		long firstLayoutTime = System.currentTimeMillis() - start;
+		mLogger.info("Creation and first layout: " + firstLayoutTime + " ms");
+		MindMapNode branch = (MindMapNode) model.getRootNode().getChildAt(
+				BRANCHES / 2);
+		final MindMapNode leaf = (MindMapNode) branch.getChildAt(branch
+				.getChildCount() / 2);
+		final MapView mapView = view;
+		final long[] layoutTime = new long[1];
+		for (int i = 0; i < EDITS; i++) {
+			final String text = "edited leaf " + i;
+			// revalidate() only invalidates on the event dispatch thread:
+			EventQueue.invokeAndWait(new Runnable() {
+				public void run() {
+					leaf.setText(text);
+					mMindMapController.nodeRefresh(leaf);
+					long start = System.currentTimeMillis();
+					mapView.validate();
+					layoutTime[0] += System.currentTimeMillis() - start;
+				}
+			});
+		}
+		long meanLayoutTime = layoutTime[0] / EDITS;
+		mLogger.info("Layout after a leaf edit: " + meanLayoutTime
+				+ " ms (mean of " + EDITS + " edits)");
+		assertTrue(view.isValid());
+		// the edited layout equals a new layout:
+		MapView newView = createView(model);
+		assertEquals(newView.getRoot().getBounds(), view.getRoot().getBounds());
+		assertEquals(newView.getNodeView(branch).getBounds(), view
+				.getNodeView(branch).getBounds());
+		assertEquals(newView.getNodeView(leaf).getBounds(), view
+				.getNodeView(leaf).getBounds());
+		assertTrue("only the edited branch is laid out again: "
+				+ meanLayoutTime + " ms",
+				meanLayoutTime < Math.max(1, firstLayoutTime / 10));
+	}
+
+	private MapView createView(MindMapMapModel pModel) {
+		MapView view = new MapView(pModel, mController);
+		// the map view has no frame:
+		view.addNotify();
+		view.validate();
+		return view;
+	}
+
+	/**
+	 * The root has {@link #BRANCHES} children, the nodes are distributed
+	 * evenly below them.
+	 */
+	private void writeMap(File pFile, int pNodes) throws Exception {
+		Writer writer = new FileWriter(pFile);
+		writer.write("<map version=\"1.0.0\">\n<node TEXT=\"root\">\n");
+		final int leaves = Math.max(0, pNodes / BRANCHES - 1);
+		for (int i = 0; i < BRANCHES; i++) {
+			writer.write("<node POSITION=\"" + (i % 2 == 0 ? "right" : "left")
+					+ "\" TEXT=\"branch " + i + "\">\n");
+			for (int j = 0; j < leaves; j++) {
+				writer.write("<node TEXT=\"leaf " + i + "." + j + "\"/>\n");
+			}
+			writer.write("</node>\n");
+		}
+		writer.write("</node>\n</map>\n");
+		writer.close();
+	}
+
+}
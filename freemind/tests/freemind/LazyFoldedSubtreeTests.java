@@ -0,0 +1,201 @@
+/*FreeMind - A Program for creating and viewing Mindmaps
+ *Copyright (C) 2000-2012 Joerg Mueller, Daniel Polansky, Christian Foltin, Dimitri Polivaev and others.
+ *
+ *See COPYING for Details
+ *
+ *This program is free software; you can redistribute it and/or
+ *modify it under the terms of the GNU General Public License
+ *as published by the Free Software Foundation; either version 2
+ *of the License, or (at your option) any later version.
+ *
+ *This program is distributed in the hope that it will be useful,
+ *but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *GNU General Public License for more details.
+ *
+ *You should have received a copy of the GNU General Public License
+ *along with this program; if not, write to the Free Software
+ *Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package tests.freemind;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.util.Collections;
+
+import freemind.main.FreeMind;
+import freemind.main.Resources;
+import freemind.modes.MindMapNode;
+import freemind.modes.NodeAdapter;
+import freemind.modes.PlainTextIndex;
+import freemind.modes.attributes.AttributeRegistry;
+import freemind.modes.mindmapmode.MindMapController;
+import freemind.modes.mindmapmode.MindMapMapModel;
+import freemind.modes.mindmapmode.MindMapMode;
+
+/**
+ * Loads maps with the children of folded nodes kept as text.
+ */
+public class LazyFoldedSubtreeTests extends FreeMindTestBase {
+
+	private static final String MAP = "<map version=\"1.0.0\">\n"
+			+ "<node ID=\"ID_1\" TEXT=\"root\">\n"
+			+ "<node FOLDED=\"true\" ID=\"ID_2\" POSITION=\"right\" TEXT=\"lazy\">\n"
+			+ "<font NAME=\"SansSerif\" SIZE=\"12\"/>\n"
+			+ "<node ID=\"ID_3\" TEXT=\"a &amp; b\">\n"
+			+ "<attribute NAME=\"prio\" VALUE=\"1\"/>\n"
+			+ "<node FOLDED=\"true\" ID=\"ID_4\" TEXT=\"nested\">\n"
+			+ "<node ID=\"ID_5\" TEXT=\"leaf\">\n"
+			+ "<attribute NAME=\"owner\" VALUE=\"me\"/>\n" + "</node>\n"
+			+ "</node>\n"
+			+ "</node>\n" + "<node ID=\"ID_6\" TEXT=\"second\"/>\n"
+			+ "</node>\n"
+			+ "<node FOLDED=\"true\" ID=\"ID_7\" POSITION=\"left\" TEXT=\"target\">\n"
+			+ "<node ID=\"ID_8\" TEXT=\"linked\"/>\n" + "</node>\n"
+			+ "<node FOLDED=\"true\" ID=\"ID_9\" POSITION=\"left\" TEXT=\"source\">\n"
+			+ "<node ID=\"ID_10\" TEXT=\"link\">\n"
+			+ "<arrowlink DESTINATION=\"ID_8\" ENDARROW=\"Default\" ID=\"Arrow_ID_1\" STARTARROW=\"None\"/>\n"
+			+ "</node>\n" + "</node>\n" + "</node>\n" + "</map>\n";
+
+	private MindMapController mMindMapController;
+
+	private File mFile;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		Resources.getInstance().getProperties().setProperty(
+				FreeMind.RESOURCES_LAZY_LOAD_FOLDED_SUBTREES, "true");
+		MindMapMode mode = new MindMapMode() {
+			public freemind.modes.ModeController createModeController() {
+				return new MindMapController(this) {
+					protected void init() {
+					}
+				};
+			};
+		};
+		mMindMapController = createMindMapController(mode);
+		mFile = File.createTempFile("lazy", ".mm");
+		FileWriter writer = new FileWriter(mFile);
+		writer.write(MAP);
+		writer.close();
+	}
+
+	protected void tearDown() throws Exception {
+		Resources.getInstance().getProperties().setProperty(
+				FreeMind.RESOURCES_LAZY_LOAD_FOLDED_SUBTREES, "false");
+		mFile.delete();
+		super.tearDown();
+	}
+
+	public void testChildrenAreLoadedOnAccess() throws Exception {
+		MindMapMapModel model = load(mFile);
+		NodeAdapter lazy = (NodeAdapter) model.getRootNode().getChildAt(0);
+		assertTrue(lazy.hasPendingChildren());
+		assertTrue(lazy.hasChildren());
+		assertFalse(lazy.isLeaf());
+		assertNull(model.getLinkRegistry().getTargetForID("ID_3"));
+
+		assertEquals(2, lazy.getChildCount());
+		assertFalse(lazy.hasPendingChildren());
+		MindMapNode child = (MindMapNode) lazy.getChildAt(0);
+		assertEquals("a & b", child.getText());
+		assertSame(lazy, child.getParentNode());
+		assertEquals("1", child.getAttribute("prio"));
+		assertSame(child, model.getLinkRegistry().getTargetForID("ID_3"));
+		// the next level is loaded on demand, too:
+		NodeAdapter nested = (NodeAdapter) child.getChildAt(0);
+		assertTrue(nested.hasPendingChildren());
+		assertEquals("leaf", ((MindMapNode) nested.getChildAt(0)).getText());
+	}
+
+	public void testAttributesOfPendingChildrenAreRegistered()
+			throws Exception {
+		MindMapMapModel model = load(mFile);
+		NodeAdapter lazy = (NodeAdapter) model.getRootNode().getChildAt(0);
+		assertTrue(lazy.hasPendingChildren());
+		AttributeRegistry registry = model.getRegistry().getAttributes();
+		assertTrue(registry.exist("prio", "1"));
+		assertTrue(registry.exist("owner", "me"));
+	}
+
+	public void testLinkedSubtreesAreLoaded() throws Exception {
+		MindMapMapModel model = load(mFile);
+		NodeAdapter target = (NodeAdapter) model.getRootNode().getChildAt(1);
+		NodeAdapter source = (NodeAdapter) model.getRootNode().getChildAt(2);
+		assertFalse(target.hasPendingChildren());
+		assertFalse(source.hasPendingChildren());
+		MindMapNode linked = (MindMapNode) target.getChildAt(0);
+		assertSame(linked, model.getLinkRegistry().getTargetForID("ID_8"));
+		assertEquals(1, model.getLinkRegistry().getAllLinksIntoMe(linked)
+				.size());
+	}
+
+	public void testIndexLoadsOnlyMatchingSubtrees() throws Exception {
+		MindMapMapModel model = load(mFile);
+		NodeAdapter lazy = (NodeAdapter) model.getRootNode().getChildAt(0);
+		PlainTextIndex index = model.getRegistry().getTextIndex();
+		assertTrue(index.getCandidates("leaf").isEmpty());
+		assertTrue(lazy.hasPendingChildren());
+		index.loadPendingChildren(Collections.singleton("missing"), model
+				.getRootNode());
+		assertTrue(lazy.hasPendingChildren());
+
+		index.loadPendingChildren(Collections.singleton("a & b"), model
+				.getRootNode());
+		assertFalse(lazy.hasPendingChildren());
+		MindMapNode child = (MindMapNode) lazy.getChildAt(0);
+		assertEquals(Collections.singleton(child), index
+				.getCandidates("a & b"));
+		NodeAdapter nested = (NodeAdapter) child.getChildAt(0);
+		assertTrue(nested.hasPendingChildren());
+		// loaded on access, the children are indexed, too:
+		MindMapNode leaf = (MindMapNode) nested.getChildAt(0);
+		assertEquals(Collections.singleton(leaf), index.getCandidates("leaf"));
+	}
+
+		public void testSaveEqualsCompleteLoad() throws Exception {
+		String lazy = getXml(load(mFile));
+		Resources.getInstance().getProperties().setProperty(
+				FreeMind.RESOURCES_LAZY_LOAD_FOLDED_SUBTREES, "false");
+		assertEquals(getXml(load(mFile)), lazy);
+	}
+
+	public void testUnchangedSubtreesAreSavedVerbatim() throws Exception {
+		String golden = "tests/freemind/serializer_golden.mm";
+		MindMapMapModel model = load(new File(golden));
+		StringWriter writer = new StringWriter();
+		model.getXml(writer);
+		assertEquals(readFile(golden), writer.toString());
+	}
+
+	private MindMapMapModel load(File pFile) throws Exception {
+		return loadMap(mMindMapController, pFile);
+	}
+
+	private String getXml(MindMapMapModel pModel) throws Exception {
+		StringWriter writer = new StringWriter();
+		pModel.getXml(writer);
+		// nodes without time stamps get the current time:
+		return writer.toString().replaceAll(" (CREATED|MODIFIED)=\"\\d+\"",
+				"");
+	}
+
+	private String readFile(String pFile) throws Exception {
+		Reader reader = new InputStreamReader(new FileInputStream(pFile),
+				"UTF-8");
+		StringWriter writer = new StringWriter();
+		char[] buffer = new char[4096];
+		int count;
+		while ((count = reader.read(buffer)) >= 0) {
+			writer.write(buffer, 0, count);
+		}
+		reader.close();
+		return writer.toString();
+	}
+
+}
@@ -0,0 +1,185 @@
+/*FreeMind - A Program for creating and viewing Mindmaps
+ *Copyright (C) 2000-2012 Joerg Mueller, Daniel Polansky, Christian Foltin, Dimitri Polivaev and others.
+ *
+ *See COPYING for Details
+ *
+ *This program is free software; you can redistribute it and/or
+ *modify it under the terms of the GNU General Public License
+ *as published by the Free Software Foundation; either version 2
+ *of the License, or (at your option) any later version.
+ *
+ *This program is distributed in the hope that it will be useful,
+ *but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *GNU General Public License for more details.
+ *
+ *You should have received a copy of the GNU General Public License
+ *along with this program; if not, write to the Free Software
+ *Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package tests.freemind;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Vector;
+
+import freemind.modes.LinkRegistryAdapter;
+import freemind.modes.MindMapLink;
+import freemind.modes.MindMapNode;
+import freemind.modes.mindmapmode.MindMapArrowLinkModel;
+import freemind.modes.mindmapmode.MindMapNodeModel;
+
+/**
+ * Only the nodes with links need more than their id in the link registry.
+ */
+public class LinkRegistryTests extends FreeMindTestBase {
+
+	/** Gives access to the tables of the registry. */
+	private static class TestRegistry extends LinkRegistryAdapter {
+		HashMap getIDToLinks() {
+			return IDToLinks;
+		}
+
+		HashMap getSourceToLinks() {
+			return SourceToLinks;
+		}
+	}
+
+	private TestRegistry mRegistry;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		mRegistry = new TestRegistry();
+	}
+
+	public void testIdsWithoutLinks() {
+		HashSet ids = new HashSet();
+		MindMapNode[] nodes = new MindMapNode[1000];
+		for (int i = 0; i < nodes.length; i++) {
+			nodes[i] = createNode("node " + i);
+			mRegistry.registerLinkTarget(nodes[i]);
+			String id = mRegistry.getLabel(nodes[i]);
+			assertTrue(id.startsWith("ID_"));
+			assertTrue(ids.add(id));
+			assertEquals(id, mRegistry.registerLinkTarget(nodes[i], "ID_1"));
+		}
+		assertTrue(mRegistry.getIDToLinks().isEmpty());
+		for (int i = 0; i < nodes.length; i++) {
+			assertSame(nodes[i], mRegistry.getTargetForID(mRegistry
+					.getLabel(nodes[i])));
+			assertTrue(mRegistry.getAllLinks(nodes[i]).isEmpty());
+		}
+		// no copies are made:
+		assertSame(mRegistry.getAllLinks(nodes[0]), mRegistry
+				.getAllLinksFromMe(nodes[1]));
+		checkUnchangeable(mRegistry.getAllLinksIntoMe(nodes[0]));
+		// the states are kept:
+		assertSame(mRegistry.getState(nodes[0]), mRegistry
+				._registerLinkTarget(nodes[0]));
+		assertEquals(mRegistry.getLabel(nodes[0]), mRegistry.getState(
+				nodes[0]).getID());
+
+		MindMapNode node = createNode("proposed");
+		assertEquals("ID_proposed", mRegistry.registerLinkTarget(node,
+				"ID_proposed"));
+		mRegistry.deregisterLinkTarget(node);
+		assertNull(mRegistry.getLabel(node));
+		assertNull(mRegistry.getTargetForID("ID_proposed"));
+		assertNull(mRegistry.getState(node).getID());
+	}
+
+	private void checkUnchangeable(final List pLinks) {
+		final Object element = createNode("element");
+		List links = new ArrayList(pLinks);
+		Runnable[] changes = new Runnable[] { new Runnable() {
+			public void run() {
+				pLinks.add(element);
+			}
+		}, new Runnable() {
+			public void run() {
+				pLinks.add(0, element);
+			}
+		}, new Runnable() {
+			public void run() {
+				pLinks.set(0, element);
+			}
+		}, new Runnable() {
+			public void run() {
+				pLinks.remove(element);
+			}
+		}, new Runnable() {
+			public void run() {
+				pLinks.remove(0);
+			}
+		}, new Runnable() {
+			public void run() {
+				pLinks.clear();
+			}
+		}, new Runnable() {
+			public void run() {
+				pLinks.listIterator().add(element);
+			}
+		} };
+		for (int i = 0; i < changes.length; i++) {
+			try {
+				changes[i].run();
+			} catch (UnsupportedOperationException e) {
+			}
+			// (removing nothing from an empty list is allowed)
+			assertEquals("change " + i, links, pLinks);
+		}
+	}
+
+	public void testLinks() {
+		MindMapNode source = createNode("source");
+		MindMapNode target = createNode("target");
+		MindMapNode other = createNode("other");
+		MindMapLink link = createLink(source, target);
+		MindMapLink otherLink = createLink(target, other);
+		mRegistry.registerLink(link);
+		mRegistry.registerLink(otherLink);
+		// twice is ignored:
+		mRegistry.registerLink(link);
+
+		assertEquals(1, mRegistry.getAllLinksFromMe(source).size());
+		assertEquals(0, mRegistry.getAllLinksIntoMe(source).size());
+		assertEquals(2, mRegistry.getAllLinks(target).size());
+		checkUnchangeable(mRegistry.getAllLinksFromMe(source));
+		checkUnchangeable(mRegistry.getAllLinks(target));
+		assertSame(link, mRegistry.getLinkForID(link.getUniqueID()));
+		assertEquals(source, mRegistry.getAllSources(target).get(0));
+
+		mRegistry.deregisterLink(otherLink);
+		assertNull(mRegistry.getLinkForID(otherLink.getUniqueID()));
+		assertTrue(mRegistry.getAllLinksIntoMe(other).isEmpty());
+		assertTrue(mRegistry.getAllLinksFromMe(target).isEmpty());
+
+		// the removed links are kept for paste:
+		String targetID = mRegistry.getLabel(target);
+		mRegistry.cutNode(target);
+		assertNull(mRegistry.getLabel(target));
+		Vector cutLinks = mRegistry.getCuttedLinks(targetID);
+		assertEquals(1, cutLinks.size());
+		assertSame(link, cutLinks.get(0));
+		assertTrue(mRegistry.getAllLinks(source).isEmpty());
+		// no empty vectors are left:
+		assertTrue(mRegistry.getIDToLinks().isEmpty());
+		assertTrue(mRegistry.getSourceToLinks().isEmpty());
+	}
+
+	private MindMapNode createNode(String pText) {
+		// the registry doesn't need the map:
+		return new MindMapNodeModel(pText, mFreeMindMain, null);
+	}
+
+	private MindMapLink createLink(MindMapNode pSource, MindMapNode pTarget) {
+		MindMapArrowLinkModel link = new MindMapArrowLinkModel(pSource,
+				pTarget, mFreeMindMain);
+		link.setDestinationLabel(mRegistry.registerLinkTarget(pTarget, null));
+		return link;
+	}
+
+}
@@ -0,0 +1,204 @@
+/*FreeMind - A Program for creating and viewing Mindmaps
+ *Copyright (C) 2000-2012 Joerg Mueller, Daniel Polansky, Christian Foltin, Dimitri Polivaev and others.
+ *
+ *See COPYING for Details
+ *
+ *This program is free software; you can redistribute it and/or
+ *modify it under the terms of the GNU General Public License
+ *as published by the Free Software Foundation; either version 2
+ *of the License, or (at your option) any later version.
+ *
+ *This program is distributed in the hope that it will be useful,
+ *but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *GNU General Public License for more details.
+ *
+ *You should have received a copy of the GNU General Public License
+ *along with this program; if not, write to the Free Software
+ *Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package tests.freemind;
+
+import java.awt.Color;
+import java.awt.datatransfer.Transferable;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.StringWriter;
+
+import freemind.main.FreeMind;
+import freemind.main.Resources;
+import freemind.main.Tools;
+import freemind.modes.MindMapNode;
+import freemind.modes.ModeController.NodeSelectionListener;
+import freemind.modes.mindmapmode.MapJournal;
+import freemind.modes.mindmapmode.MindMapController;
+import freemind.modes.mindmapmode.MindMapMapModel;
+import freemind.modes.mindmapmode.MindMapMode;
+import freemind.view.mindmapview.NodeView;
+
+/**
+ * Saves changes into the journal and replays them.
+ */
+public class MapJournalTests extends FreeMindTestBase {
+
+	/** The nodes have no ids, so that the journal has to record them. */
+	private static final String MAP = "<map version=\"1.0.0\">\n"
+			+ "<node TEXT=\"root\">\n"
+			+ "<node TEXT=\"a\" POSITION=\"right\">\n"
+			+ "<node TEXT=\"a1\"/>\n" + "<node TEXT=\"a2\"/>\n" + "</node>\n"
+			+ "<node TEXT=\"b\" POSITION=\"left\"/>\n" + "</node>\n"
+			+ "</map>\n";
+
+	private MindMapController mMindMapController;
+
+	private File mFile;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		Resources.getInstance().getProperties().setProperty(
+				FreeMind.RESOURCES_USE_SAVE_JOURNAL, "true");
+		mMindMapController = createMindMapController(new MindMapMode());
+		mFile = File.createTempFile("journal", ".mm");
+		FileWriter writer = new FileWriter(mFile);
+		writer.write(MAP);
+		writer.close();
+	}
+
+	protected void tearDown() throws Exception {
+		Resources.getInstance().getProperties().setProperty(
+				FreeMind.RESOURCES_USE_SAVE_JOURNAL, "false");
+		MapJournal.getJournalFile(mFile).delete();
+		mFile.delete();
+		super.tearDown();
+	}
+
+	public void testSaveAndReplay() throws Exception {
+		MindMapMapModel model = load();
+		MindMapNode root = model.getRootNode();
+		MindMapNode a = (MindMapNode) root.getChildAt(0);
+		mMindMapController.setNodeText((MindMapNode) a.getChildAt(1), "a2'");
+		MindMapNode c = mMindMapController.addNewNode(root, 1, false);
+		mMindMapController.setNodeText(c, "c");
+		mMindMapController.setNodeColor(c, Color.blue);
+		// the pasted nodes get new ids:
+		Transferable copy = mMindMapController.copy(a, true);
+		mMindMapController.paste(copy, c);
+		MindMapNode pasted = (MindMapNode) c.getChildAt(0);
+		mMindMapController.setNodeColor((MindMapNode) pasted.getChildAt(0),
+				Color.red);
+		mMindMapController.deleteNode((MindMapNode) root.getChildAt(2));
+		long length = mFile.length();
+		assertTrue(model.save(mFile));
+		assertEquals("only the journal is written", length, mFile.length());
+		assertTrue(MapJournal.getJournalFile(mFile).exists());
+		mMindMapController.setNodeText(pasted, "pasted");
+		assertTrue(model.save(mFile));
+		String expected = getXml(model);
+
+		MindMapMapModel replayed = load();
+		assertEquals(expected, getXml(replayed));
+
+		replayed.destroy();
+		assertFalse("journal is written into the map", MapJournal
+				.getJournalFile(mFile).exists());
+		assertEquals(expected, getXml(load()));
+	}
+
+	public void testForeignJournalIsIgnored() throws Exception {
+		MindMapMapModel model = load();
+		mMindMapController.setNodeText(model.getRootNode(), "changed");
+		assertTrue(model.save(mFile));
+		// the map is changed by somebody else:
+		FileWriter writer = new FileWriter(mFile);
+		writer.write(MAP.replaceAll("\"b\"", "\"B\""));
+		writer.close();
+		MindMapMapModel reloaded = load();
+		assertEquals("root", reloaded.getRootNode().getText());
+		assertEquals("the user is told", 1, mErrorMessages.size());
+		assertTrue(reloaded.save(mFile));
+		assertFalse(MapJournal.getJournalFile(mFile).exists());
+	}
+
+	public void testPendingChangesAreAppended() throws Exception {
+		MindMapMapModel model = load();
+		final MindMapNode root = model.getRootNode();
+		// like a note, that is still edited:
+		NodeSelectionListener editor = new NodeSelectionListener() {
+			public void onSaveNode(MindMapNode pNode) {
+				if (pNode == root && !"edited".equals(root.getText())) {
+					mMindMapController.setNodeText(root, "edited");
+				}
+			}
+
+			public void onUpdateNodeHook(MindMapNode pNode) {
+			}
+
+			public void onFocusNode(NodeView pNode) {
+			}
+
+			public void onLostFocusNode(NodeView pNode) {
+			}
+
+			public void onSelectionChange(NodeView pNode, boolean pIsSelected) {
+			}
+		};
+		mMindMapController.registerNodeSelectionListener(editor, false);
+		try {
+			long length = mFile.length();
+			assertTrue(model.save(mFile));
+			assertEquals("only the journal is written", length, mFile.length());
+		} finally {
+			mMindMapController.deregisterNodeSelectionListener(editor);
+		}
+		assertEquals("edited", load().getRootNode().getText());
+	}
+
+	public void testJournalIsReplayedWhenSwitchedOff() throws Exception {
+		MindMapMapModel model = load();
+		mMindMapController.setNodeText(model.getRootNode(), "changed");
+		assertTrue(model.save(mFile));
+		Resources.getInstance().getProperties().setProperty(
+				FreeMind.RESOURCES_USE_SAVE_JOURNAL, "false");
+		assertEquals("changed", load().getRootNode().getText());
+		assertFalse("journal is written into the map", MapJournal
+				.getJournalFile(mFile).exists());
+		assertEquals("changed", load().getRootNode().getText());
+		assertTrue(mErrorMessages.isEmpty());
+	}
+
+	public void testForeignJournalIsKeptWhenSwitchedOff() throws Exception {
+		MindMapMapModel model = load();
+		mMindMapController.setNodeText(model.getRootNode(), "changed");
+		assertTrue(model.save(mFile));
+		FileWriter writer = new FileWriter(mFile);
+		writer.write(MAP.replaceAll("\"b\"", "\"B\""));
+		writer.close();
+		Resources.getInstance().getProperties().setProperty(
+				FreeMind.RESOURCES_USE_SAVE_JOURNAL, "false");
+		MindMapMapModel reloaded = load();
+		assertEquals("root", reloaded.getRootNode().getText());
+		assertEquals("the user is told", 1, mErrorMessages.size());
+		assertTrue(MapJournal.getJournalFile(mFile).exists());
+		assertTrue(reloaded.save(mFile));
+		assertFalse(MapJournal.getJournalFile(mFile).exists());
+	}
+
+	private MindMapMapModel load() throws Exception {
+		MindMapMapModel model = new MindMapMapModel(mFreeMindMain,
+				mMindMapController);
+		model.load(Tools.fileToUrl(mFile));
+		// like ControllerAdapter.load:
+		model.setSaved(true);
+		return model;
+	}
+
+	private String getXml(MindMapMapModel pModel) throws Exception {
+		StringWriter writer = new StringWriter();
+		pModel.getXml(writer);
+		// the replayed changes get the current time:
+		return writer.toString().replaceAll(" (CREATED|MODIFIED)=\"\\d+\"",
+				"");
+	}
+
+}
@@ -0,0 +1,197 @@
+/*FreeMind - A Program for creating and viewing Mindmaps
+ *Copyright (C) 2000-2012 Joerg Mueller, Daniel Polansky, Christian Foltin, Dimitri Polivaev and others.
+ *
+ *See COPYING for Details
+ *
+ *This program is free software; you can redistribute it and/or
+ *modify it under the terms of the GNU General Public License
+ *as published by the Free Software Foundation; either version 2
+ *of the License, or (at your option) any later version.
+ *
+ *This program is distributed in the hope that it will be useful,
+ *but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *GNU General Public License for more details.
+ *
+ *You should have received a copy of the GNU General Public License
+ *along with this program; if not, write to the Free Software
+ *Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package tests.freemind;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Vector;
+
+import freemind.controller.Controller;
+import freemind.controller.MapRestorer;
+import freemind.extensions.PermanentNodeHook;
+import freemind.extensions.PermanentNodeHookSubstituteUnknown;
+import freemind.main.Tools;
+import freemind.modes.MindMapNode;
+import freemind.modes.Mode;
+import freemind.modes.mindmapmode.MindMapMapModel;
+import freemind.view.MapModule;
+
+public class MapRestorerTests extends FreeMindTestBase {
+
+	private static final int MAPS = 4;
+
+	private static final String[] HOOKS = new String[] {
+			"accessories/plugins/HierarchicalIcons.properties",
+			"accessories/plugins/CreationModificationPlugin_new.properties" };
+
+	private Controller mController;
+
+	private File[] mFiles;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		// without frame, menus and toolbars:
+		mController = new Controller(mFreeMindMain) {
+			private Mode mMode;
+
+			public void setTitle() {
+			}
+
+			public Mode getMode() {
+				return mMode;
+			}
+
+			public void beforeMapModuleChange(MapModule pOldMapModule,
+					Mode pOldMode, MapModule pNewMapModule, Mode pNewMode) {
+				mMode = pNewMode;
+			}
+
+			public void afterMapModuleChange(MapModule pOldMapModule,
+					Mode pOldMode, MapModule pNewMapModule, Mode pNewMode) {
+			}
+
+			public void numberOfOpenMapInformation(int pNumber, int pIndex) {
+			}
+		};
+		mController.initialization();
+		mFiles = new File[MAPS];
+		for (int i = 0; i < MAPS; i++) {
+			mFiles[i] = File.createTempFile("restore" + i, ".mm");
+			copy(new File("tests/freemind/testmap.mm"), mFiles[i]);
+		}
+	}
+
+	protected void tearDown() throws Exception {
+		for (int i = 0; i < MAPS; i++) {
+			mFiles[i].delete();
+		}
+		super.tearDown();
+	}
+
+	private void copy(File pSource, File pTarget) throws Exception {
+		InputStream in = new FileInputStream(pSource);
+		OutputStream out = new FileOutputStream(pTarget);
+		byte[] buffer = new byte[4096];
+		for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+			out.write(buffer, 0, read);
+		}
+		in.close();
+		out.close();
+	}
+
+	private List getRestorables() {
+		Vector restorables = new Vector();
+		for (int i = 0; i < MAPS; i++) {
+			restorables.add(MindMapMapModel.RESTORE_MODE_MIND_MAP
+					+ mFiles[i].getAbsolutePath());
+		}
+		return restorables;
+	}
+
+	private File getFile(MapModule pMapModule) {
+		return ((MindMapMapModel) pMapModule.getModel()).getFile();
+	}
+
+	public void testFocusedFirstAndOrderKept() throws Exception {
+		MapRestorer restorer = new MapRestorer(mController, getRestorables(),
+				2);
+		assertTrue(restorer.restore(3));
+		assertEquals(mFiles[2], getFile(mController.getMapModule()));
+		restorer.waitUntilFinished();
+		Tools.waitForEventQueue();
+		List mapModules = mController.getMapModuleManager()
+				.getMapModuleVector();
+		assertEquals(MAPS, mapModules.size());
+		for (int i = 0; i < MAPS; i++) {
+			assertEquals(mFiles[i], getFile((MapModule) mapModules.get(i)));
+		}
+		// the others are added without changing to them:
+		assertEquals(mFiles[2], getFile(mController.getMapModule()));
+	}
+
+	public void testFocusedMapMissing() throws Exception {
+		mFiles[1].delete();
+		MapRestorer restorer = new MapRestorer(mController, getRestorables(),
+				1);
+		assertTrue(restorer.restore(2));
+		restorer.waitUntilFinished();
+		Tools.waitForEventQueue();
+		List mapModules = mController.getMapModuleManager()
+				.getMapModuleVector();
+		assertEquals(MAPS - 1, mapModules.size());
+		assertEquals(mFiles[0], getFile((MapModule) mapModules.get(0)));
+		assertEquals(mFiles[2], getFile((MapModule) mapModules.get(1)));
+		assertNotNull(mController.getMapModule());
+	}
+
+	public void testMapsWithHooks() throws Exception {
+		String map = Tools.getFile(new File("tests/freemind/testmap.mm"));
+		// after the root node tag:
+		int index = map.indexOf('>', map.indexOf("<node")) + 1;
+		StringBuffer hooks = new StringBuffer();
+		for (int i = 0; i < HOOKS.length; i++) {
+			hooks.append("\n<hook NAME=\"" + HOOKS[i] + "\"/>");
+		}
+		for (int i = 0; i < MAPS; i++) {
+			Writer writer = new FileWriter(mFiles[i]);
+			writer.write(map.substring(0, index) + hooks
+					+ map.substring(index));
+			writer.close();
+		}
+		// the hooks of the other maps are created in parallel:
+		MapRestorer restorer = new MapRestorer(mController, getRestorables(),
+				0);
+		assertTrue(restorer.restore(MAPS));
+		restorer.waitUntilFinished();
+		Tools.waitForEventQueue();
+		List mapModules = mController.getMapModuleManager()
+				.getMapModuleVector();
+		assertEquals(MAPS, mapModules.size());
+		for (int i = 0; i < MAPS; i++) {
+			MindMapNode root = ((MapModule) mapModules.get(i)).getModel()
+					.getRootNode();
+			Vector names = new Vector();
+			for (Iterator it = root.getHooks().iterator(); it.hasNext();) {
+				PermanentNodeHook hook = (PermanentNodeHook) it.next();
+				assertFalse(hook.getName(),
+						hook instanceof PermanentNodeHookSubstituteUnknown);
+				names.add(hook.getName());
+			}
+			assertEquals(Arrays.asList(HOOKS), names);
+		}
+	}
+
+	public void testOnlyMindMaps() throws Exception {
+		List restorables = getRestorables();
+		assertTrue(MapRestorer.canRestore(restorables));
+		restorables.add("Browse:" + mFiles[0].getAbsolutePath());
+		assertFalse(MapRestorer.canRestore(restorables));
+	}
+
+}
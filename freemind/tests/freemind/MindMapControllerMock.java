@@ -104,6 +104,12 @@ public class MindMapControllerMock implements ModeController {
 		return null;
 	}
 
+	public MindMapNode createNodeTreeFromXml(Reader pReader,
+			HashMap pIDToTarget, boolean pDeferFoldedChildren)
+			throws XMLParseException, IOException {
+		return null;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -0,0 +1,171 @@
+/*FreeMind - A Program for creating and viewing Mindmaps
+ *Copyright (C) 2000-2012 Joerg Mueller, Daniel Polansky, Christian Foltin, Dimitri Polivaev and others.
+ *
+ *See COPYING for Details
+ *
+ *This program is free software; you can redistribute it and/or
+ *modify it under the terms of the GNU General Public License
+ *as published by the Free Software Foundation; either version 2
+ *of the License, or (at your option) any later version.
+ *
+ *This program is distributed in the hope that it will be useful,
+ *but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *GNU General Public License for more details.
+ *
+ *You should have received a copy of the GNU General Public License
+ *along with this program; if not, write to the Free Software
+ *Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package tests.freemind;
+
+import java.io.File;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.HashMap;
+
+import freemind.main.FreeMind;
+import freemind.main.Resources;
+import freemind.main.XMLPullParser;
+import freemind.modes.MindMapNode;
+import freemind.modes.mindmapmode.MindMapController;
+import freemind.modes.mindmapmode.MindMapMapModel;
+import freemind.modes.mindmapmode.MindMapMode;
+
+/**
+ * Compares the streaming map loader with the former XMLElement based one.
+ */
+public class NodeTreeStreamLoaderTests extends FreeMindTestBase {
+
+	private static final String TESTMAP_MM = "tests/freemind/testmap.mm";
+
+	private static final String TEST_MAP = "<map version=\"1.0.0\">\n"
+			+ "<!-- comment -->\n"
+			+ "<node ID=\"ID_1\" TEXT=\"root &amp; &lt;more&gt; &#x41;&#66;\">\n"
+			+ "<node ID=\"ID_2\" POSITION=\"left\" FOLDED=\"true\" COLOR=\"#ff0000\" TEXT=\"child\">\n"
+			+ "<edge STYLE=\"bezier\" WIDTH=\"thin\" COLOR=\"#00ff00\"/>\n"
+			+ "<cloud COLOR=\"#0000ff\"/>\n"
+			+ "<font BOLD=\"true\" NAME=\"SansSerif\" SIZE=\"14\"/>\n"
+			+ "<icon BUILTIN=\"idea\"/>\n"
+			+ "<arrowlink DESTINATION=\"ID_3\" ENDARROW=\"Default\" ID=\"Arrow_ID_1\" STARTARROW=\"None\"/>\n"
+			+ "<attribute_layout NAME_WIDTH=\"60\" VALUE_WIDTH=\"70\"/>\n"
+			+ "<attribute NAME=\"key\" VALUE=\"value\"/>\n"
+			+ "<node ID=\"ID_3\" TEXT=\"grandchild\"/>\n"
+			+ "</node>\n"
+			+ "<node ID=\"ID_4\" POSITION=\"right\" TEXT=\"hook\">\n"
+			+ "<hook NAME=\"unknown/Hook\">\n"
+			+ "<Parameters A=\"1\"/>\n"
+			+ "<text>some <![CDATA[<text>]]></text>\n"
+			+ "</hook>\n"
+			+ "<richcontent TYPE=\"NOTE\"><html><body><p>a &amp; b</p></body></html></richcontent>\n"
+			+ "</node>\n" + "</node>\n" + "</map>\n";
+
+	private MindMapController mMindMapController;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		mMindMapController = createMindMapController(new MindMapMode() {
+			public freemind.modes.ModeController createModeController() {
+				return new MindMapController(this) {
+					protected void init() {
+					}
+				};
+			};
+		});
+	}
+
+	public void testPullParserTokens() throws Exception {
+		XMLPullParser parser = new XMLPullParser(new StringReader(
+				"<?xml version=\"1.0\"?><a X='1' y=\"&quot;\"><b/>"
+						+ "<c>text</c><richcontent><p>raw &amp;</p>"
+						+ "</richcontent></a>trailing"));
+		assertEquals(XMLPullParser.START_TAG, parser.next());
+		assertEquals("a", parser.getName());
+		assertEquals(2, parser.getAttributeCount());
+		assertEquals("1", parser.getAttributeValue("X"));
+		assertEquals("\"", parser.getAttributeValue("y"));
+		assertEquals(XMLPullParser.START_TAG, parser.next());
+		assertEquals("b", parser.getName());
+		assertEquals(XMLPullParser.END_TAG, parser.next());
+		assertEquals("b", parser.getName());
+		assertEquals(XMLPullParser.START_TAG, parser.next());
+		assertEquals(XMLPullParser.TEXT, parser.next());
+		assertEquals("text", parser.getText());
+		assertEquals(XMLPullParser.END_TAG, parser.next());
+		assertEquals(XMLPullParser.START_TAG, parser.next());
+		assertEquals("richcontent", parser.getName());
+		assertEquals(XMLPullParser.TEXT, parser.next());
+		assertEquals("<p>raw &amp;</p>", parser.getText());
+		assertEquals(XMLPullParser.END_TAG, parser.next());
+		assertEquals(XMLPullParser.END_TAG, parser.next());
+		assertEquals("a", parser.getName());
+		assertEquals(0, parser.getDepth());
+		// parsing stops after the root element:
+		assertEquals(XMLPullParser.END_DOCUMENT, parser.next());
+	}
+
+	public void testLoadFileIdentical() throws Exception {
+		assertEquals(loadFile(false), loadFile(true));
+	}
+
+	public void testLoadMapIdentical() throws Exception {
+		String expected = loadString(TEST_MAP, false);
+		String actual = loadString(TEST_MAP, true);
+		assertEquals(expected, actual);
+		assertTrue(actual.indexOf("DESTINATION=\"ID_3\"") >= 0);
+		assertTrue(actual.indexOf("root &amp; &lt;more&gt; AB") >= 0);
+	}
+
+	/**
+	 * Rich content is HTML, it is kept as it is and needn't be well formed
+	 * XML.
+	 */
+	public void testRichContentIsNotParsed() throws Exception {
+		String branch = "<node TEXT=\"note\"><richcontent TYPE=\"NOTE\">"
+				+ "<html><body>a&nbsp;b<br>c</body></html></richcontent></node>";
+		String actual = loadString(branch, true);
+		assertEquals(loadString(branch, false), actual);
+		assertTrue(actual, actual.indexOf("a&nbsp;b<br>c") >= 0);
+	}
+
+	public void testLoadBranchIdentical() throws Exception {
+		String branch = "<node TEXT=\"pasted\"><node TEXT=\"a\"/>"
+				+ "<node TEXT=\"b\"/></node>";
+		assertEquals(loadString(branch, false), loadString(branch, true));
+	}
+
+	/**
+	 * The mock doesn't store properties via setProperty, so the properties of
+	 * the resources are changed directly.
+	 */
+	private void setStreaming(boolean pStreaming) {
+		Resources.getInstance().getProperties().setProperty(
+				FreeMind.RESOURCES_USE_STREAMING_MAP_LOADER,
+				Boolean.toString(pStreaming));
+	}
+
+	private String loadFile(boolean pStreaming) throws Exception {
+		setStreaming(pStreaming);
+		MindMapMapModel model = loadMap(mMindMapController, new File(TESTMAP_MM));
+		StringWriter writer = new StringWriter();
+		model.getXml(writer);
+		return writer.toString();
+	}
+
+	private String loadString(String pXml, boolean pStreaming)
+			throws Exception {
+		setStreaming(pStreaming);
+		MindMapMapModel model = new MindMapMapModel(mFreeMindMain,
+				mMindMapController);
+		mMindMapController.setModel(model);
+		MindMapNode root = mMindMapController.createNodeTreeFromXml(
+				new StringReader(pXml), new HashMap());
+		StringWriter writer = new StringWriter();
+		model.getXml(writer, true, root);
+		// nodes without history information get the current time:
+		return writer.toString().replaceAll(" (CREATED|MODIFIED)=\"\\d+\"",
+				"");
+	}
+
+}
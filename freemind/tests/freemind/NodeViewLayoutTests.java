@@ -0,0 +1,121 @@
+/*FreeMind - A Program for creating and viewing Mindmaps
+ *Copyright (C) 2000-2012 Joerg Mueller, Daniel Polansky, Christian Foltin, Dimitri Polivaev and others.
+ *
+ *See COPYING for Details
+ *
+ *This program is free software; you can redistribute it and/or
+ *modify it under the terms of the GNU General Public License
+ *as published by the Free Software Foundation; either version 2
+ *of the License, or (at your option) any later version.
+ *
+ *This program is distributed in the hope that it will be useful,
+ *but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *GNU General Public License for more details.
+ *
+ *You should have received a copy of the GNU General Public License
+ *along with this program; if not, write to the Free Software
+ *Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package tests.freemind;
+
+import java.awt.EventQueue;
+import java.awt.Rectangle;
+import java.io.File;
+import java.util.Iterator;
+import java.util.Vector;
+
+import javax.swing.JComponent;
+import javax.swing.SwingUtilities;
+
+import freemind.controller.Controller;
+import freemind.modes.MindMapNode;
+import freemind.modes.mindmapmode.MindMapController;
+import freemind.modes.mindmapmode.MindMapMapModel;
+import freemind.modes.mindmapmode.MindMapMode;
+import freemind.view.mindmapview.MapView;
+import freemind.view.mindmapview.NodeMotionListenerView;
+import freemind.view.mindmapview.NodeView;
+
+/**
+ * After an edit, only the changed branches are placed again. The result must
+ * equal the layout of a new map view.
+ */
+public class NodeViewLayoutTests extends FreeMindTestBase {
+
+	private MindMapController mMindMapController;
+
+	private Controller mController;
+
+	private MindMapMapModel mModel;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		MindMapMode mode = new MindMapMode() {
+			public freemind.modes.ModeController createModeController() {
+				return new MindMapController(this) {
+					protected void init() {
+					}
+				};
+			};
+		};
+		mMindMapController = createMindMapController(mode);
+		mController = mMindMapController.getController();
+		mModel = loadMap(mMindMapController, new File(
+				"tests/freemind/serializer_golden.mm"));
+	}
+
+	public void testEditedLayoutEqualsNewLayout() throws Exception {
+		final MapView view = createView();
+		final MindMapNode branch = (MindMapNode) mModel.getRootNode()
+				.getChildAt(0);
+		final MindMapNode leaf = (MindMapNode) branch.getChildAt(1);
+		// revalidate() only invalidates on the event dispatch thread:
+		EventQueue.invokeAndWait(new Runnable() {
+			public void run() {
+				leaf.setText("a much longer text than before\nwith two lines");
+				mMindMapController.nodeRefresh(leaf);
+				view.validate();
+			}
+		});
+		assertEquals(getMotionListenerBounds(createView()),
+				getMotionListenerBounds(view));
+	}
+
+	private MapView createView() {
+		MapView view = new MapView(mModel, mController);
+		// the map view has no frame:
+		view.addNotify();
+		view.validate();
+		return view;
+	}
+
+	private Vector getMotionListenerBounds(MapView pView) {
+		Vector bounds = new Vector();
+		collectMotionListenerBounds(pView.getRoot(), bounds);
+		assertTrue(bounds.size() > 100);
+		return bounds;
+	}
+
+	private void collectMotionListenerBounds(NodeView pView, Vector pBounds) {
+		NodeMotionListenerView motionListenerView = pView
+				.getMotionListenerView();
+		if (motionListenerView != null) {
+			final Rectangle bounds = motionListenerView.getBounds();
+			// the motion listener view is beside the content:
+			final JComponent content = pView.getContent();
+			final Rectangle contentBounds = SwingUtilities.convertRectangle(
+					pView, content.getBounds(), pView.getMap());
+			assertEquals(contentBounds.y, bounds.y);
+			assertEquals(contentBounds.height, bounds.height);
+			assertTrue(bounds.x + bounds.width == contentBounds.x
+					|| bounds.x == contentBounds.x + contentBounds.width);
+			pBounds.add(bounds);
+		}
+		for (Iterator it = pView.getChildrenViews().iterator(); it.hasNext();) {
+			collectMotionListenerBounds((NodeView) it.next(), pBounds);
+		}
+	}
+
+}
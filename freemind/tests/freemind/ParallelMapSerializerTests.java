@@ -0,0 +1,140 @@
+/*FreeMind - A Program for creating and viewing Mindmaps
+ *Copyright (C) 2000-2012 Joerg Mueller, Daniel Polansky, Christian Foltin, Dimitri Polivaev and others.
+ *
+ *See COPYING for Details
+ *
+ *This program is free software; you can redistribute it and/or
+ *modify it under the terms of the GNU General Public License
+ *as published by the Free Software Foundation; either version 2
+ *of the License, or (at your option) any later version.
+ *
+ *This program is distributed in the hope that it will be useful,
+ *but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *GNU General Public License for more details.
+ *
+ *You should have received a copy of the GNU General Public License
+ *along with this program; if not, write to the Free Software
+ *Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package tests.freemind;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.util.Vector;
+
+import freemind.extensions.PermanentNodeHookAdapter;
+import freemind.main.FreeMind;
+import freemind.main.Resources;
+import freemind.main.XMLElement;
+import freemind.modes.NodeAdapter;
+import freemind.modes.mindmapmode.MindMapController;
+import freemind.modes.mindmapmode.MindMapMapModel;
+import freemind.modes.mindmapmode.MindMapMode;
+import freemind.modes.mindmapmode.ParallelMapSerializer;
+
+/**
+ * The golden file was written by the sequential serializer. Both serializers
+ * must reproduce it exactly.
+ */
+public class ParallelMapSerializerTests extends FreeMindTestBase {
+
+	private static final String GOLDEN_MM = "tests/freemind/serializer_golden.mm";
+
+	private MindMapMapModel mModel;
+
+	private String mGolden;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		MindMapMode mode = new MindMapMode() {
+			public freemind.modes.ModeController createModeController() {
+				return new MindMapController(this) {
+					protected void init() {
+					}
+				};
+			};
+		};
+		MindMapController mindMapController = createMindMapController(mode);
+		mModel = loadMap(mindMapController, new File(GOLDEN_MM));
+		mGolden = readFile(GOLDEN_MM);
+	}
+
+	protected void tearDown() throws Exception {
+		Resources.getInstance().getProperties().setProperty(
+				FreeMind.RESOURCES_USE_PARALLEL_MAP_SERIALIZER, "true");
+		super.tearDown();
+	}
+
+	public void testSequentialEqualsGolden() throws Exception {
+		Resources.getInstance().getProperties().setProperty(
+				FreeMind.RESOURCES_USE_PARALLEL_MAP_SERIALIZER, "false");
+		StringWriter writer = new StringWriter();
+		mModel.getXml(writer);
+		assertEquals(mGolden, writer.toString());
+	}
+
+	public void testParallelEqualsGolden() throws Exception {
+		String header = mGolden.substring(0, mGolden.indexOf("<node "));
+		// more threads than processors and branches, to test the ordering:
+		for (int threads = 2; threads <= 10; threads += 4) {
+			StringWriter writer = new StringWriter();
+			writer.write(header);
+			new ParallelMapSerializer((NodeAdapter) mModel.getRootNode(),
+					mModel.getLinkRegistry(), true, 0, threads).save(writer);
+			writer.write("</map>\n");
+			assertEquals(mGolden, writer.toString());
+		}
+	}
+
+	public void testHooksAreSavedByTheCallingThread() throws Exception {
+		final Vector savingThreads = new Vector();
+		PermanentNodeHookAdapter hook = new PermanentNodeHookAdapter() {
+			public void save(XMLElement pXml) {
+				savingThreads.add(Thread.currentThread());
+				super.save(pXml);
+			}
+		};
+		hook.setName("TestHook");
+		hook.setController(mModel.getModeController());
+		NodeAdapter branch = (NodeAdapter) mModel.getRootNode().getChildAt(1);
+		branch.invokeHook(hook);
+		for (int i = 0; i < 2; i++) {
+			StringWriter writer = new StringWriter();
+			new ParallelMapSerializer((NodeAdapter) mModel.getRootNode(),
+					mModel.getLinkRegistry(), true, 0, 4).save(writer);
+			assertEquals(1, countOccurrences(writer.toString(),
+					"<hook NAME=\"TestHook\"/>"));
+		}
+		assertEquals(2, savingThreads.size());
+		assertSame(Thread.currentThread(), savingThreads.get(0));
+		assertSame(Thread.currentThread(), savingThreads.get(1));
+	}
+
+	private int countOccurrences(String pString, String pPart) {
+		int count = 0;
+		for (int index = pString.indexOf(pPart); index >= 0; index = pString
+				.indexOf(pPart, index + 1)) {
+			++count;
+		}
+		return count;
+	}
+
+	private String readFile(String pFile) throws Exception {
+		Reader reader = new InputStreamReader(new FileInputStream(pFile),
+				"UTF-8");
+		StringWriter writer = new StringWriter();
+		char[] buffer = new char[4096];
+		int count;
+		while ((count = reader.read(buffer)) >= 0) {
+			writer.write(buffer, 0, count);
+		}
+		reader.close();
+		return writer.toString();
+	}
+
+}
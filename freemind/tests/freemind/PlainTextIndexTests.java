@@ -0,0 +1,246 @@
+/*FreeMind - A Program for creating and viewing Mindmaps
+ *Copyright (C) 2000-2012 Joerg Mueller, Daniel Polansky, Christian Foltin, Dimitri Polivaev and others.
+ *
+ *See COPYING for Details
+ *
+ *This program is free software; you can redistribute it and/or
+ *modify it under the terms of the GNU General Public License
+ *as published by the Free Software Foundation; either version 2
+ *of the License, or (at your option) any later version.
+ *
+ *This program is distributed in the hope that it will be useful,
+ *but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *GNU General Public License for more details.
+ *
+ *You should have received a copy of the GNU General Public License
+ *along with this program; if not, write to the Free Software
+ *Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package tests.freemind;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.ListIterator;
+import java.util.Set;
+import java.util.Vector;
+
+import freemind.main.FreeMind;
+import freemind.main.Resources;
+import freemind.modes.MindMapNode;
+import freemind.modes.PlainTextIndex;
+import freemind.modes.common.actions.FindAction;
+import freemind.modes.mindmapmode.MindMapController;
+import freemind.modes.mindmapmode.MindMapMapModel;
+import freemind.modes.mindmapmode.MindMapMode;
+
+/**
+ * The text index must find the same nodes as a search through all nodes, also
+ * after the map was changed.
+ */
+public class PlainTextIndexTests extends FreeMindTestBase {
+
+	private static final String[] TERMS = new String[] { "leaf", "Leaf",
+			"0.1", "branch 1", "é", "&", "<x>", "nothing", "af 0.0.", " ", "" };
+
+	private MindMapController mMindMapController;
+
+	private MindMapNode mRoot;
+
+	private PlainTextIndex mIndex;
+
+	/** The nodes centered by the find action. */
+	private Vector mCenteredNodes = new Vector();
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		MindMapMode mode = new MindMapMode() {
+			public freemind.modes.ModeController createModeController() {
+				return new MindMapController(this) {
+					public void centerNode(MindMapNode pNode) {
+						// there is no map view:
+						mCenteredNodes.add(pNode);
+					}
+				};
+			};
+		};
+		mMindMapController = createMindMapController(mode);
+		MindMapMapModel model = loadMap(mMindMapController, new File(
+				"tests/freemind/serializer_golden.mm"));
+		mRoot = model.getRootNode();
+		mIndex = model.getRegistry().getTextIndex();
+	}
+
+	public void testPlainText() {
+		assertEquals("a \u00e9 b", PlainTextIndex.getPlainText(
+				"<html><body><p>a &#xe9; <b>b</b></p></body></html>").trim());
+		assertEquals("<x>", PlainTextIndex.getPlainText("<x>"));
+		assertEquals("", PlainTextIndex.getPlainText(null));
+		assertEquals("[ab, 12, c]", PlainTextIndex.getWords("ab 12.c")
+				.toString());
+	}
+
+	public void testIndexEqualsLinearSearch() {
+		compareWithLinearSearch();
+	}
+
+	public void testChanges() throws Exception {
+		compareWithLinearSearch();
+		Set unusual = mIndex.getCandidates("unusu");
+		assertTrue(unusual.isEmpty());
+		MindMapNode branch = (MindMapNode) mRoot.getChildAt(1);
+		MindMapNode child = (MindMapNode) branch.getChildAt(0);
+		mMindMapController.setNodeText(child,
+				"<html><body>Quite <b>unusual</b></body></html>");
+		assertTrue(mIndex.getCandidates("unusu").contains(child));
+		// the returned sets aren't changed afterwards:
+		assertTrue(unusual.isEmpty());
+		assertTrue(mIndex.containsText(child, "Quite unusual", true));
+		assertFalse(mIndex.containsText(child, "quite unusual", true));
+		assertFalse(mIndex.containsText(child, "<b>", false));
+		compareWithLinearSearch();
+
+		// the note actor is registered by a plugin:
+		child.setNoteText("a remarkable note");
+		mMindMapController.nodeRefresh(child);
+		assertTrue(mIndex.getCandidates("remarkable").contains(child));
+		assertEquals("a remarkable note", mIndex.getNoteText(child, true));
+
+		MindMapNode newNode = mMindMapController.addNewNode(branch, 0, false);
+		mMindMapController.setNodeText(newNode, "inserted unusual node");
+		assertEquals(2, mIndex.getCandidates("unusual").size());
+		compareWithLinearSearch();
+
+		mMindMapController.deleteNode(branch);
+		assertTrue(mIndex.getCandidates("unusual").isEmpty());
+		compareWithLinearSearch();
+	}
+
+	public void testFoldingKeepsTheCandidates() throws Exception {
+		MindMapNode branch = (MindMapNode) mRoot.getChildAt(1);
+		Set candidates = mIndex.getCandidates(Arrays.asList(new String[] {
+				"leaf", "&" }));
+		int structureModificationCount = mIndex
+				.getStructureModificationCount();
+		mMindMapController.setFolded(branch, !branch.isFolded());
+		assertSame(candidates, mIndex.getCandidates(Arrays
+				.asList(new String[] { "leaf", "&" })));
+		assertEquals(structureModificationCount, mIndex
+				.getStructureModificationCount());
+		mMindMapController.addNewNode(branch, 0, false);
+		assertTrue(mIndex.getStructureModificationCount() > structureModificationCount);
+	}
+
+	public void testEqualTextIsNotIndexedAgain() throws Exception {
+		MindMapNode child = (MindMapNode) mRoot.getChildAt(0);
+		mIndex.getText(child, true);
+		int modificationCount = mIndex.getModificationCount();
+		// like nodes creating their text on each call:
+		child.setText(new String(child.getText()));
+		mIndex.getText(child, true);
+		assertEquals(modificationCount, mIndex.getModificationCount());
+		child.setText("changed");
+		assertEquals("changed", mIndex.getText(child, true));
+		assertTrue(mIndex.getModificationCount() > modificationCount);
+	}
+
+	public void testFindNextInWidthFirstOrder() throws Exception {
+		Vector expected = findWidthFirst("1");
+		assertTrue(expected.size() > 10);
+		FindAction findAction = mMindMapController.find;
+		Vector found = new Vector();
+		boolean deleted = false;
+		boolean hasFound = findAction.find(mRoot, Collections
+				.singletonList("1"), false);
+		while (hasFound) {
+			MindMapNode node = (MindMapNode) mCenteredNodes.lastElement();
+			found.add(node);
+			if (!deleted && node.isLeaf() && isFollowedBy(node, expected)) {
+				// find next continues at the position of a removed node,
+				// where its next sibling is now:
+				mMindMapController.deleteNode(node);
+				expected.remove(node);
+				found.remove(node);
+				deleted = true;
+			}
+			hasFound = findAction.findNext();
+		}
+		assertEquals(expected, found);
+	}
+
+	private boolean isFollowedBy(MindMapNode pNode, Vector pNodes) {
+		MindMapNode parent = pNode.getParentNode();
+		int position = parent.getChildPosition(pNode);
+		return position + 1 < parent.getChildCount()
+				&& pNodes.contains(parent.getChildAt(position + 1));
+	}
+
+	/**
+	 * @return the nodes containing the term in their text (or note) in the
+	 *         order of a width-first search.
+	 */
+	private Vector findWidthFirst(String pTerm) {
+		boolean searchInNotesToo = Resources.getInstance().getBoolProperty(
+				FreeMind.RESOURCES_SEARCH_IN_NOTES_TOO);
+		FindAction findAction = mMindMapController.find;
+		Vector result = new Vector();
+		LinkedList nodes = new LinkedList();
+		nodes.add(mRoot);
+		while (!nodes.isEmpty()) {
+			MindMapNode node = (MindMapNode) nodes.removeFirst();
+			nodes.addAll(node.getChildren());
+			if (findAction.prepareTextContent(false, node.toString())
+					.indexOf(pTerm) >= 0
+					|| (searchInNotesToo && findAction.prepareTextContent(
+							false, node.getNoteText()).indexOf(pTerm) >= 0)) {
+				result.add(node);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Compares the candidates with the nodes containing the terms.
+	 */
+	private void compareWithLinearSearch() {
+		FindAction findAction = new FindAction(mMindMapController);
+		for (int i = 0; i < TERMS.length; i++) {
+			for (int caseSensitive = 0; caseSensitive < 2; caseSensitive++) {
+				String term = TERMS[i];
+				boolean isCaseSensitive = caseSensitive == 1;
+				if (!isCaseSensitive) {
+					term = term.toLowerCase();
+				}
+				Set expected = new HashSet();
+				Set found = new HashSet();
+				collect(mRoot, term, isCaseSensitive, findAction, expected,
+						found);
+				assertEquals(term, expected, found);
+				Set candidates = mIndex.getCandidates(term.toLowerCase());
+				assertTrue(term, candidates.containsAll(expected));
+			}
+		}
+	}
+
+	private void collect(MindMapNode pNode, String pTerm,
+			boolean pCaseSensitive, FindAction pFindAction, Set pExpected,
+			Set pFound) {
+		String text = pFindAction.prepareTextContent(pCaseSensitive, pNode
+				.toString());
+		if (text.indexOf(pTerm) >= 0) {
+			pExpected.add(pNode);
+		}
+		if (mIndex.containsText(pNode, pTerm, pCaseSensitive)) {
+			pFound.add(pNode);
+		}
+		for (ListIterator it = pNode.childrenUnfolded(); it.hasNext();) {
+			collect((MindMapNode) it.next(), pTerm, pCaseSensitive,
+					pFindAction, pExpected, pFound);
+		}
+	}
+
+}
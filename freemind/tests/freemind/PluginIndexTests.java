@@ -0,0 +1,188 @@
+/*FreeMind - A Program for creating and viewing Mindmaps
+ *Copyright (C) 2000-2012 Joerg Mueller, Daniel Polansky, Christian Foltin, Dimitri Polivaev and others.
+ *
+ *See COPYING for Details
+ *
+ *This program is free software; you can redistribute it and/or
+ *modify it under the terms of the GNU General Public License
+ *as published by the Free Software Foundation; either version 2
+ *of the License, or (at your option) any later version.
+ *
+ *This program is distributed in the hope that it will be useful,
+ *but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *GNU General Public License for more details.
+ *
+ *You should have received a copy of the GNU General Public License
+ *along with this program; if not, write to the Free Software
+ *Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package tests.freemind;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.util.Vector;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import freemind.common.XmlBindingTools;
+import freemind.controller.actions.generated.instance.Plugin;
+import freemind.extensions.ImportWizard;
+import freemind.extensions.PluginIndex;
+
+public class PluginIndexTests extends FreeMindTestBase {
+
+	private File mDirectory;
+
+	private File mJar;
+
+	private File mPluginDir;
+
+	private File mIndexFile;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		mDirectory = File.createTempFile("plugins", "");
+		mDirectory.delete();
+		mPluginDir = new File(mDirectory, "plugins");
+		mPluginDir.mkdirs();
+		new File(mPluginDir, "a.xml").createNewFile();
+		mJar = new File(mDirectory.getParentFile(), mDirectory.getName()
+				+ ".jar");
+		writeJar("x");
+		mIndexFile = new File(mDirectory.getParentFile(), mDirectory.getName()
+				+ ".index");
+	}
+
+	protected void tearDown() throws Exception {
+		File[] files = mPluginDir.listFiles();
+		for (int i = 0; i < files.length; i++) {
+			files[i].delete();
+		}
+		mPluginDir.delete();
+		mDirectory.delete();
+		mJar.delete();
+		mIndexFile.delete();
+		super.tearDown();
+	}
+
+	private void writeJar(String pPlugin) throws Exception {
+		ZipOutputStream out = new ZipOutputStream(new FileOutputStream(mJar));
+		out.putNextEntry(new ZipEntry("plugins/" + pPlugin + ".xml"));
+		out.closeEntry();
+		out.close();
+	}
+
+	/**
+	 * @return the found descriptors, with the scanned entries as last element.
+	 */
+	private Vector build() {
+		PluginIndex index = new PluginIndex(mIndexFile);
+		ImportWizard wizard = new ImportWizard(mFreeMindMain);
+		wizard.buildClassList(mDirectory.getPath() + File.pathSeparator
+				+ mJar.getPath(), index);
+		Vector result = new Vector(wizard.CLASS_LIST);
+		result.add(new Integer(index.getScannedEntries()));
+		return result;
+	}
+
+	private String plugin(String pName) {
+		return "plugins" + File.separator + pName;
+	}
+
+	public void testUnchangedEntriesAreNotScanned() throws Exception {
+		Vector first = build();
+		assertEquals(new Integer(2), first.lastElement());
+		assertTrue(first.contains(plugin("a")));
+		assertTrue(first.contains("plugins/x"));
+		assertTrue(mIndexFile.exists());
+		Vector second = build();
+		assertEquals(new Integer(0), second.lastElement());
+		assertEquals(first.subList(0, first.size() - 1), second.subList(0,
+				second.size() - 1));
+	}
+
+	public void testChangedJarIsScanned() throws Exception {
+		build();
+		writeJar("y");
+		mJar.setLastModified(mJar.lastModified() - 10000);
+		Vector result = build();
+		assertEquals(new Integer(1), result.lastElement());
+		assertTrue(result.contains("plugins/y"));
+		assertFalse(result.contains("plugins/x"));
+		assertTrue(result.contains(plugin("a")));
+	}
+
+	public void testAddedDescriptorIsFound() throws Exception {
+		build();
+		new File(mPluginDir, "b.xml").createNewFile();
+		mPluginDir.setLastModified(mPluginDir.lastModified() - 10000);
+		Vector result = build();
+		assertEquals(new Integer(1), result.lastElement());
+		assertTrue(result.contains(plugin("a")));
+		assertTrue(result.contains(plugin("b")));
+		assertEquals(new Integer(0), build().lastElement());
+	}
+
+	public void testWithoutIndexEverythingIsScanned() throws Exception {
+		ImportWizard wizard = new ImportWizard(mFreeMindMain);
+		wizard.buildClassList(mDirectory.getPath() + File.pathSeparator
+				+ mJar.getPath(), null);
+		assertTrue(wizard.CLASS_LIST.contains(plugin("a")));
+		assertTrue(wizard.CLASS_LIST.contains("plugins/x"));
+		assertFalse(mIndexFile.exists());
+	}
+
+	public void testDescriptorContentIsCached() throws Exception {
+		String[] descriptors = new String[] { "plugins/ScriptingEngine",
+				"accessories/plugins/EncryptNode" };
+		PluginIndex index = new PluginIndex(mIndexFile);
+		for (int i = 0; i < descriptors.length; i++) {
+			assertNull(index.getPlugin(descriptors[i]));
+			index.putPlugin(descriptors[i], read(descriptors[i]));
+		}
+		index.save();
+		index = new PluginIndex(mIndexFile);
+		for (int i = 0; i < descriptors.length; i++) {
+			Plugin cached = index.getPlugin(descriptors[i]);
+			assertNotNull(cached);
+			assertEquals(marshal(read(descriptors[i])), marshal(cached));
+		}
+	}
+
+	public void testChangedDescriptorIsNotCached() throws Exception {
+		PluginIndex index = new PluginIndex(mIndexFile);
+		ImportWizard wizard = new ImportWizard(mFreeMindMain);
+		wizard.buildClassList(mDirectory.getPath() + File.pathSeparator
+				+ mJar.getPath(), index);
+		index.putPlugin(plugin("a"), read("plugins/ScriptingEngine"));
+		index.save();
+		assertNotNull(new PluginIndex(mIndexFile).getPlugin(plugin("a")));
+		File descriptor = new File(mPluginDir, "a.xml");
+		descriptor.setLastModified(descriptor.lastModified() - 10000);
+		assertEquals(new Integer(1), build().lastElement());
+		assertNull(new PluginIndex(mIndexFile).getPlugin(plugin("a")));
+	}
+
+	private Plugin read(String pDescriptor) throws Exception {
+		InputStream in = new FileInputStream(pDescriptor + ".xml");
+		try {
+			return (Plugin) XmlBindingTools.getInstance().createUnmarshaller()
+					.unmarshalDocument(in, null);
+		} finally {
+			in.close();
+		}
+	}
+
+	private String marshal(Plugin pPlugin) throws Exception {
+		StringWriter writer = new StringWriter();
+		XmlBindingTools.getInstance().createMarshaller().marshalDocument(
+				pPlugin, "UTF-8", null, writer);
+		return writer.toString();
+	}
+
+}
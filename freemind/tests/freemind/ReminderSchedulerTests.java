@@ -0,0 +1,136 @@
+/*FreeMind - A Program for creating and viewing Mindmaps
+ *Copyright (C) 2000-2012 Joerg Mueller, Daniel Polansky, Christian Foltin, Dimitri Polivaev and others.
+ *
+ *See COPYING for Details
+ *
+ *This program is free software; you can redistribute it and/or
+ *modify it under the terms of the GNU General Public License
+ *as published by the Free Software Foundation; either version 2
+ *of the License, or (at your option) any later version.
+ *
+ *This program is distributed in the hope that it will be useful,
+ *but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *GNU General Public License for more details.
+ *
+ *You should have received a copy of the GNU General Public License
+ *along with this program; if not, write to the Free Software
+ *Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package tests.freemind;
+
+import java.awt.EventQueue;
+import java.util.Vector;
+
+import freemind.modes.MindMapNode;
+import freemind.modes.common.plugins.ReminderHookBase;
+import freemind.modes.common.plugins.ReminderScheduler;
+import freemind.modes.mindmapmode.MindMapNodeModel;
+
+/**
+ * All reminders share one timer thread.
+ */
+public class ReminderSchedulerTests extends FreeMindTestBase {
+
+	private static final int REMINDERS = 500;
+
+	private static class TestReminderHook extends ReminderHookBase {
+		private Vector mBlinks = new Vector();
+
+		TestReminderHook(long pTime) {
+			setRemindUserAt(pTime);
+		}
+
+		public void blink(boolean pClockVisible) {
+			mBlinks.add(Boolean.valueOf(pClockVisible));
+		}
+
+		protected void nodeRefresh(MindMapNode pNode) {
+		}
+
+		protected void setToolTip(MindMapNode pNode, String pKey,
+				String pValue) {
+		}
+	}
+
+	private ReminderScheduler mScheduler;
+
+	private Vector mHooks = new Vector();
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		mScheduler = ReminderScheduler.getInstance();
+	}
+
+	protected void tearDown() throws Exception {
+		for (int i = 0; i < mHooks.size(); i++) {
+			mScheduler.unschedule((ReminderHookBase) mHooks.get(i));
+		}
+		super.tearDown();
+	}
+
+	public void testIndex() {
+		long now = System.currentTimeMillis();
+		int threads = Thread.activeCount();
+		for (int i = 0; i < REMINDERS; i++) {
+			// in reverse order:
+			schedule(now + 3600000L * (REMINDERS - i));
+		}
+		assertTrue(Thread.activeCount() < threads + 3);
+		Vector upcoming = mScheduler.getReminders(now, now + 3600000L * 10 + 1);
+		assertEquals(10, upcoming.size());
+		assertSame(mHooks.get(REMINDERS - 1), upcoming.get(0));
+		assertSame(mHooks.get(REMINDERS - 10), upcoming.get(9));
+
+		// rescheduled:
+		ReminderHookBase hook = (ReminderHookBase) mHooks.get(0);
+		hook.setRemindUserAt(now + 1000);
+		mScheduler.schedule(hook);
+		upcoming = mScheduler.getReminders(now, now + 3600000L);
+		assertEquals(1, upcoming.size());
+		assertSame(hook, upcoming.get(0));
+		assertEquals(REMINDERS, mScheduler.getReminders(0, Long.MAX_VALUE)
+				.size());
+	}
+
+	public void testDue() throws Exception {
+		long now = System.currentTimeMillis();
+		TestReminderHook due = schedule(now + 50);
+		TestReminderHook removed = schedule(now + 50);
+		TestReminderHook later = schedule(now + 3600000L);
+		mScheduler.unschedule(removed);
+		Thread.sleep(300);
+		waitForEventThread();
+		assertEquals(1, due.mBlinks.size());
+		assertEquals(Boolean.TRUE, due.mBlinks.get(0));
+		assertTrue(removed.mBlinks.isEmpty());
+		assertTrue(later.mBlinks.isEmpty());
+		// the due reminders stay until they are removed:
+		assertTrue(mScheduler.isScheduled(due));
+		mScheduler.unschedule(due);
+		waitForEventThread();
+		assertFalse(mScheduler.isScheduled(due));
+		EventQueue.invokeAndWait(new Runnable() {
+			public void run() {
+				assertEquals(0, mScheduler.getDueCount());
+			}
+		});
+	}
+
+	private TestReminderHook schedule(long pTime) {
+		TestReminderHook hook = new TestReminderHook(pTime);
+		hook.setNode(new MindMapNodeModel("reminder", mFreeMindMain, null));
+		mHooks.add(hook);
+		mScheduler.schedule(hook);
+		return hook;
+	}
+
+	private void waitForEventThread() throws Exception {
+		EventQueue.invokeAndWait(new Runnable() {
+			public void run() {
+			}
+		});
+	}
+
+}
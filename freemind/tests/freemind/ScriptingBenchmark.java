@@ -0,0 +1,173 @@
+/*FreeMind - A Program for creating and viewing Mindmaps
+ *Copyright (C) 2000-2012 Joerg Mueller, Daniel Polansky, Christian Foltin, Dimitri Polivaev and others.
+ *
+ *See COPYING for Details
+ *
+ *This program is free software; you can redistribute it and/or
+ *modify it under the terms of the GNU General Public License
+ *as published by the Free Software Foundation; either version 2
+ *of the License, or (at your option) any later version.
+ *
+ *This program is distributed in the hope that it will be useful,
+ *but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *GNU General Public License for more details.
+ *
+ *You should have received a copy of the GNU General Public License
+ *along with this program; if not, write to the Free Software
+ *Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package tests.freemind;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.logging.Logger;
+
+import org.codehaus.groovy.runtime.InvokerHelper;
+
+import plugins.script.ScriptingEngine;
+import plugins.script.ScriptingEngine.ErrorHandler;
+import freemind.main.FreeMindSecurityManager;
+import freemind.main.Tools.BooleanHolder;
+import freemind.modes.MindMapNode;
+import freemind.modes.attributes.NodeAttributeTableModel;
+import freemind.modes.mindmapmode.MindMapController;
+import freemind.modes.mindmapmode.MindMapMapModel;
+import freemind.modes.mindmapmode.MindMapMode;
+
+/**
+ * Executes the scripts of a map with many scripted nodes, like the scripting
+ * engine does. Not part of {@link AllTests}, run it with
+ *
+ * <pre>
+ * java -Djava.awt.headless=true -Dnodes=500 junit.textui.TestRunner tests.freemind.ScriptingBenchmark
+ * </pre>
+ *
+ * The nodes share a few different scripts, as usual for calculations in maps.
+ */
+public class ScriptingBenchmark extends FreeMindTestBase {
+
+	private static final String[] SCRIPTS = new String[] {
+			"=node.getChildCount() + 1",
+			"length=node.getText().length()",
+			"=(1..10).inject(0) { sum, i -> sum + i }",
+			"words=node.getText().split(' ').size()" };
+
+	private static final int RUNS = 3;
+
+	private MindMapController mMindMapController;
+
+	private SecurityManager mOldSecurityManager;
+
+	private File mFile;
+
+	private int mNodes = Integer.getInteger("nodes", 500).intValue();
+
+	private Logger mLogger;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		mOldSecurityManager = System.getSecurityManager();
+		System.setSecurityManager(new FreeMindSecurityManager());
+		mLogger = mFreeMindMain.getLogger(this.getClass().getName());
+		mMindMapController = createMindMapController(new MindMapMode());
+		mFile = File.createTempFile("scripts", ".mm");
+		writeMap(mFile, mNodes);
+	}
+
+	protected void tearDown() throws Exception {
+		System.setSecurityManager(mOldSecurityManager);
+		mFile.delete();
+		super.tearDown();
+	}
+
+	public void testScriptedNodes() throws Exception {
+		MindMapMapModel model = loadMap(mMindMapController, mFile);
+		// the scripts may not read the classes from the class directory:
+		InvokerHelper.invokeMethod(model.getRootNode(), "getChildCount", null);
+		PrintStream out = new PrintStream(new OutputStream() {
+			public void write(int pB) {
+			}
+		});
+		long[] times = new long[RUNS];
+		for (int i = 0; i < RUNS; i++) {
+			int[] count = new int[1];
+			long start = System.currentTimeMillis();
+			assertTrue(executeScripts(model.getRootNode(), out, count));
+			times[i] = System.currentTimeMillis() - start;
+			mLogger.info("Run " + i + ": " + count[0] + " scripts in "
+					+ times[i] + " ms");
+			assertEquals(mNodes, count[0]);
+		}
+		for (int i = 0; i < mNodes; i++) {
+			MindMapNode node = (MindMapNode) model.getRootNode().getChildAt(i);
+			String text = "scripted node " + i;
+			switch (i % SCRIPTS.length) {
+			case 0:
+				assertEquals("1", node.getText());
+				break;
+			case 1:
+				assertEquals(String.valueOf(text.length()), node
+						.getAttribute("length"));
+				break;
+			case 2:
+				assertEquals("55", node.getText());
+				break;
+			default:
+				assertEquals("3", node.getAttribute("words"));
+			}
+		}
+		// the compiled scripts are cached after the first run:
+		assertTrue("first run " + times[0] + " ms, last run "
+				+ times[RUNS - 1] + " ms", times[RUNS - 1] < times[0]);
+	}
+
+	/**
+	 * Depth first, as the scripting engine.
+	 */
+	private boolean executeScripts(MindMapNode pNode, PrintStream pOut,
+			int[] pCount) {
+		for (Iterator it = pNode.childrenUnfolded(); it.hasNext();) {
+			if (!executeScripts((MindMapNode) it.next(), pOut, pCount)) {
+				return false;
+			}
+		}
+		NodeAttributeTableModel attributes = pNode.getAttributes();
+		for (int row = 0; row < attributes.getRowCount(); ++row) {
+			String name = (String) attributes.getName(row);
+			if (name.startsWith(ScriptingEngine.SCRIPT_PREFIX)) {
+				pCount[0]++;
+				if (!ScriptingEngine.executeScript(pNode, new BooleanHolder(
+						true), (String) attributes.getValue(row),
+						mMindMapController, new ErrorHandler() {
+							public void gotoLine(int pLineNumber) {
+							}
+						}, pOut, new HashMap())) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	private void writeMap(File pFile, int pNodes) throws Exception {
+		Writer writer = new FileWriter(pFile);
+		writer.write("<map version=\"1.0.0\">\n<node TEXT=\"root\">\n");
+		for (int i = 0; i < pNodes; i++) {
+			writer.write("<node TEXT=\"scripted node " + i + "\">\n");
+			writer.write("<attribute NAME=\"script1\" VALUE=\""
+					+ SCRIPTS[i % SCRIPTS.length].replaceAll(">", "&gt;")
+					+ "\"/>\n");
+			writer.write("</node>\n");
+		}
+		writer.write("</node>\n</map>\n");
+		writer.close();
+	}
+
+}
@@ -0,0 +1,137 @@
+/*FreeMind - A Program for creating and viewing Mindmaps
+ *Copyright (C) 2000-2012 Joerg Mueller, Daniel Polansky, Christian Foltin, Dimitri Polivaev and others.
+ *
+ *See COPYING for Details
+ *
+ *This program is free software; you can redistribute it and/or
+ *modify it under the terms of the GNU General Public License
+ *as published by the Free Software Foundation; either version 2
+ *of the License, or (at your option) any later version.
+ *
+ *This program is distributed in the hope that it will be useful,
+ *but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *GNU General Public License for more details.
+ *
+ *You should have received a copy of the GNU General Public License
+ *along with this program; if not, write to the Free Software
+ *Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package tests.freemind;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.util.HashMap;
+
+import org.codehaus.groovy.runtime.InvokerHelper;
+
+import plugins.script.CompiledScriptCache;
+import plugins.script.ScriptingEngine;
+import plugins.script.ScriptingEngine.ErrorHandler;
+import freemind.main.FreeMindSecurityManager;
+import freemind.main.Tools.BooleanHolder;
+import freemind.modes.MindMapNode;
+import freemind.modes.mindmapmode.MindMapController;
+import freemind.modes.mindmapmode.MindMapMapModel;
+import freemind.modes.mindmapmode.MindMapMode;
+
+/**
+ * Cached scripts must behave like scripts compiled for each execution.
+ */
+public class ScriptingEngineTests extends FreeMindTestBase {
+
+	private MindMapController mMindMapController;
+
+	private MindMapNode mNode;
+
+	private SecurityManager mOldSecurityManager;
+
+	private ByteArrayOutputStream mOutput;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		// as installed by FreeMind at startup:
+		mOldSecurityManager = System.getSecurityManager();
+		System.setSecurityManager(new FreeMindSecurityManager());
+		mMindMapController = createMindMapController(new MindMapMode());
+		MindMapMapModel model = loadMap(mMindMapController, new File(
+				"tests/freemind/serializer_golden.mm"));
+		mNode = (MindMapNode) model.getRootNode().getChildAt(0);
+		/*
+		 * the scripts may not read files, thus the classes used by them are
+		 * loaded from the class directory before:
+		 */
+		InvokerHelper.invokeMethod(mNode, "getChildCount", null);
+		mOutput = new ByteArrayOutputStream();
+	}
+
+	protected void tearDown() throws Exception {
+		System.setSecurityManager(mOldSecurityManager);
+		super.tearDown();
+	}
+
+	public void testResults() {
+		assertTrue(execute("=1+2"));
+		assertEquals("3", mNode.getText());
+		// each execution gets its own node:
+		assertTrue(execute("=node.getChildCount() + 1"));
+		assertEquals(Integer.toString(mNode.getChildCount() + 1), mNode
+				.getText());
+		mNode = (MindMapNode) mNode.getParentNode().getChildAt(1);
+		assertTrue(execute("=node.getChildCount() + 1"));
+		assertEquals(Integer.toString(mNode.getChildCount() + 1), mNode
+				.getText());
+		assertTrue(execute("sum=2*3"));
+		assertEquals("6", mNode.getAttribute("sum"));
+	}
+
+	public void testFreshBinding() {
+		assertTrue(execute("counter = 1"));
+		// the variable of the last execution is gone:
+		assertFalse(execute("counter"));
+		assertFalse(execute("1 +"));
+		assertFalse(execute("1 +"));
+	}
+
+	public void testSecurityManager() throws Exception {
+		File file = File.createTempFile("script", ".txt");
+		try {
+			String script = "new File('"
+					+ file.getAbsolutePath().replace('\\', '/')
+					+ "').delete()";
+			assertFalse(execute(script));
+			assertTrue(file.exists());
+			// the same compiled script again:
+			assertFalse(execute(script));
+			assertTrue(file.exists());
+			// the scripting security manager is removed afterwards:
+			assertTrue(execute("=2"));
+			assertTrue(file.canWrite());
+		} finally {
+			file.delete();
+		}
+	}
+
+	public void testLeastRecentlyUsed() {
+		CompiledScriptCache cache = new CompiledScriptCache(2);
+		CompiledScriptCache.CompiledScript a = cache.get("1");
+		CompiledScriptCache.CompiledScript b = cache.get("2");
+		assertSame(a, cache.get("1"));
+		cache.get("3");
+		assertEquals(2, cache.size());
+		assertSame(a, cache.get("1"));
+		assertNotSame(b, cache.get("2"));
+		assertNotSame(a.getScriptClass(), b.getScriptClass());
+	}
+
+	private boolean execute(String pScript) {
+		return ScriptingEngine.executeScript(mNode, new BooleanHolder(true),
+				pScript, mMindMapController, new ErrorHandler() {
+					public void gotoLine(int pLineNumber) {
+					}
+				}, new PrintStream(mOutput), new HashMap());
+	}
+
+}
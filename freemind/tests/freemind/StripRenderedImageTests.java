@@ -0,0 +1,109 @@
+/*FreeMind - A Program for creating and viewing Mindmaps
+ *Copyright (C) 2000-2012 Joerg Mueller, Daniel Polansky, Christian Foltin, Dimitri Polivaev and others.
+ *
+ *See COPYING for Details
+ *
+ *This program is free software; you can redistribute it and/or
+ *modify it under the terms of the GNU General Public License
+ *as published by the Free Software Foundation; either version 2
+ *of the License, or (at your option) any later version.
+ *
+ *This program is distributed in the hope that it will be useful,
+ *but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *GNU General Public License for more details.
+ *
+ *You should have received a copy of the GNU General Public License
+ *along with this program; if not, write to the Free Software
+ *Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package tests.freemind;
+
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import javax.imageio.ImageIO;
+
+import freemind.view.mindmapview.StripRenderedImage;
+
+/**
+ * Compares the images painted in strips with the ones painted at once.
+ */
+public class StripRenderedImageTests extends FreeMindTestBase {
+
+	private static final Rectangle BOUNDS = new Rectangle(7, 13, 150, 333);
+
+	/** Every pixel has its own color, depending on its coordinates. */
+	private static class Pattern extends Component {
+		public void paint(Graphics g) {
+			Rectangle clip = g.getClipBounds();
+			for (int y = clip.y; y < clip.y + clip.height; y++) {
+				for (int x = clip.x; x < clip.x + clip.width; x++) {
+					g.setColor(new Color(x % 256, y % 256, (x + y) % 256));
+					g.fillRect(x, y, 1, 1);
+				}
+			}
+		}
+	}
+
+	private BufferedImage paintAtOnce(Component pComponent) {
+		BufferedImage image = new BufferedImage(BOUNDS.x + BOUNDS.width,
+				BOUNDS.y + BOUNDS.height, BufferedImage.TYPE_INT_RGB);
+		Graphics g = image.getGraphics();
+		g.clipRect(BOUNDS.x, BOUNDS.y, BOUNDS.width, BOUNDS.height);
+		pComponent.print(g);
+		g.dispose();
+		return image.getSubimage(BOUNDS.x, BOUNDS.y, BOUNDS.width,
+				BOUNDS.height);
+	}
+
+	private void assertSameImage(BufferedImage pExpected, BufferedImage pActual) {
+		assertEquals(pExpected.getWidth(), pActual.getWidth());
+		assertEquals(pExpected.getHeight(), pActual.getHeight());
+		for (int y = 0; y < pExpected.getHeight(); y++) {
+			for (int x = 0; x < pExpected.getWidth(); x++) {
+				assertEquals("Pixel " + x + ", " + y, pExpected.getRGB(x, y)
+						& 0xffffff, pActual.getRGB(x, y) & 0xffffff);
+			}
+		}
+	}
+
+	public void testPixels() {
+		Pattern pattern = new Pattern();
+		StripRenderedImage strips = new StripRenderedImage(pattern, BOUNDS, 50);
+		assertSameImage(paintAtOnce(pattern), strips.getImage());
+		// 333 rows:
+		assertEquals(7, strips.getPaintedStrips());
+	}
+
+	public void testWritePng() throws Exception {
+		Pattern pattern = new Pattern();
+		StripRenderedImage strips = new StripRenderedImage(pattern, BOUNDS, 64);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		assertTrue(ImageIO.write(strips.getImage(), "png", out));
+		// each strip is painted once, as the rows are written in order:
+		assertEquals(6, strips.getPaintedStrips());
+		BufferedImage read = ImageIO.read(new ByteArrayInputStream(out
+				.toByteArray()));
+		assertSameImage(paintAtOnce(pattern), read);
+	}
+
+	public void testWriteJpeg() throws Exception {
+		StripRenderedImage strips = new StripRenderedImage(new Pattern(),
+				BOUNDS, 64);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		assertTrue(ImageIO.write(strips.getImage(), "jpg", out));
+		assertEquals(6, strips.getPaintedStrips());
+		BufferedImage read = ImageIO.read(new ByteArrayInputStream(out
+				.toByteArray()));
+		assertEquals(BOUNDS.width, read.getWidth());
+		assertEquals(BOUNDS.height, read.getHeight());
+	}
+
+}
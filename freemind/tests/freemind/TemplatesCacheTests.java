@@ -0,0 +1,126 @@
+/*FreeMind - A Program for creating and viewing Mindmaps
+ *Copyright (C) 2000-2012 Joerg Mueller, Daniel Polansky, Christian Foltin, Dimitri Polivaev and others.
+ *
+ *See COPYING for Details
+ *
+ *This program is free software; you can redistribute it and/or
+ *modify it under the terms of the GNU General Public License
+ *as published by the Free Software Foundation; either version 2
+ *of the License, or (at your option) any later version.
+ *
+ *This program is distributed in the hope that it will be useful,
+ *but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *GNU General Public License for more details.
+ *
+ *You should have received a copy of the GNU General Public License
+ *along with this program; if not, write to the Free Software
+ *Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package tests.freemind;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.net.URL;
+
+import javax.xml.transform.Source;
+import javax.xml.transform.Templates;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+
+import freemind.main.TemplatesCache;
+import freemind.main.Tools;
+import freemind.modes.mindmapmode.MapXmlReader;
+import freemind.modes.mindmapmode.MindMapMapModel;
+import freemind.modes.mindmapmode.MindMapMode;
+
+public class TemplatesCacheTests extends FreeMindTestBase {
+
+	private static final String STYLESHEET = "<xsl:stylesheet version='1.0' xmlns:xsl='http://www.w3.org/1999/XSL/Transform'>"
+			+ "<xsl:output method='text'/>"
+			+ "<xsl:template match='/'>%s</xsl:template></xsl:stylesheet>";
+
+	private File mStylesheet;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		mStylesheet = File.createTempFile("templates", ".xsl");
+	}
+
+	protected void tearDown() throws Exception {
+		mStylesheet.delete();
+		super.tearDown();
+	}
+
+	private void writeStylesheet(String pResult) throws Exception {
+		FileWriter writer = new FileWriter(mStylesheet);
+		writer.write(STYLESHEET.replaceAll("%s", pResult));
+		writer.close();
+	}
+
+	private String transform(Transformer pTransformer) throws Exception {
+		StringWriter result = new StringWriter();
+		pTransformer.transform(new StreamSource(new StringReader("<a/>")),
+				new StreamResult(result));
+		return result.toString();
+	}
+
+	public void testCompiledOnce() throws Exception {
+		writeStylesheet("first");
+		URL url = Tools.fileToUrl(mStylesheet);
+		TemplatesCache cache = TemplatesCache.getInstance();
+		int compilations = cache.getCompilations();
+		Templates templates = cache.getTemplates(url);
+		assertSame(templates, cache.getTemplates(url));
+		assertEquals(compilations + 1, cache.getCompilations());
+		assertEquals("first", transform(cache.newTransformer(url)));
+		assertEquals(compilations + 1, cache.getCompilations());
+	}
+
+	public void testChangedStylesheet() throws Exception {
+		writeStylesheet("first");
+		URL url = Tools.fileToUrl(mStylesheet);
+		TemplatesCache cache = TemplatesCache.getInstance();
+		assertEquals("first", transform(cache.newTransformer(url)));
+		writeStylesheet("second");
+		// the file times may be in seconds only:
+		mStylesheet.setLastModified(mStylesheet.lastModified() + 2000);
+		assertEquals("second", transform(cache.newTransformer(url)));
+	}
+
+	private MindMapMapModel loadMap() throws Exception {
+		return loadMap(createMindMapController(new MindMapMode()), new File(
+				"tests/freemind/serializer_golden.mm"));
+	}
+
+	private String copy(Source pSource) throws Exception {
+		StringWriter result = new StringWriter();
+		TransformerFactory.newInstance().newTransformer().transform(pSource,
+				new StreamResult(result));
+		return result.toString();
+	}
+
+	/**
+	 * The map delivered as events must be the same as the saved map.
+	 */
+	public void testMapXmlReader() throws Exception {
+		MindMapMapModel model = loadMap();
+		StringWriter saved = new StringWriter();
+		model.getXml(saved);
+		String expected = copy(new StreamSource(new StringReader(saved
+				.toString())));
+		assertTrue(expected.indexOf("richcontent") > 0);
+		assertEquals(expected, copy(MapXmlReader.createSource(model, true)));
+
+		StringWriter filtered = new StringWriter();
+		model.getFilteredXml(filtered);
+		assertEquals(copy(new StreamSource(new StringReader(filtered
+				.toString()))), copy(MapXmlReader.createSource(model, false)));
+	}
+
+}
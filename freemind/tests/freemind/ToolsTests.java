@@ -22,6 +22,7 @@ package tests.freemind;
 
 import java.awt.Color;
 import java.awt.Point;
+import java.io.File;
 import java.io.Reader;
 import java.io.StringReader;
 import java.net.URL;
@@ -147,6 +148,13 @@ public class ToolsTests extends FreeMindTestBase {
 	public void testExpandFileName() {
 		assertEquals( System.getProperty("user.home") + "/derp.exe", Tools.expandFileName("~/derp.exe"));
 	}
-}
-
 
+	public void testWriteFileAtomically() throws Exception {
+		File file = File.createTempFile("atomic", ".mm");
+		file.deleteOnExit();
+		assertEquals(5, Tools.writeFileAtomically(file, "first"));
+		assertEquals(6, Tools.writeFileAtomically(file, "second"));
+		assertEquals("second", Tools.getFile(file).trim());
+		assertFalse(new File(file.getPath() + ".part").exists());
+	}
+}
@@ -0,0 +1,161 @@
+/*FreeMind - A Program for creating and viewing Mindmaps
+ *Copyright (C) 2000-2012 Joerg Mueller, Daniel Polansky, Christian Foltin, Dimitri Polivaev and others.
+ *
+ *See COPYING for Details
+ *
+ *This program is free software; you can redistribute it and/or
+ *modify it under the terms of the GNU General Public License
+ *as published by the Free Software Foundation; either version 2
+ *of the License, or (at your option) any later version.
+ *
+ *This program is distributed in the hope that it will be useful,
+ *but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *GNU General Public License for more details.
+ *
+ *You should have received a copy of the GNU General Public License
+ *along with this program; if not, write to the Free Software
+ *Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package tests.freemind;
+
+import java.io.File;
+
+import javax.swing.Action;
+
+import freemind.controller.actions.generated.instance.EditNodeAction;
+import freemind.main.Tools;
+import freemind.modes.MindMapNode;
+import freemind.modes.mindmapmode.MindMapController;
+import freemind.modes.mindmapmode.MindMapMapModel;
+import freemind.modes.mindmapmode.MindMapMode;
+import freemind.modes.mindmapmode.actions.xml.ActionPair;
+import freemind.modes.mindmapmode.actions.xml.CompressedActionPair;
+
+/**
+ * The undo list keeps compressed actions and drops the oldest ones, when its
+ * memory limit is exceeded.
+ */
+public class UndoMemoryTests extends FreeMindTestBase {
+
+	/** Actions within this time are joined to one undo step. */
+	private static final long NEW_UNDO_STEP_DELAY = 150;
+
+	private MindMapController mMindMapController;
+
+	private MindMapNode mRoot;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		mMindMapController = createMindMapController(new MindMapMode());
+		MindMapMapModel model = loadMap(mMindMapController, new File(
+				"tests/freemind/testmap.mm"));
+		mRoot = model.getRootNode();
+	}
+
+	public void testUndoAndRedoCompressedActions() throws Exception {
+		final String text = mRoot.getText();
+		setText("first");
+		setText("second");
+		setText("third");
+		assertEquals(3, mMindMapController.undo.getSize());
+		// the last step isn't compressed:
+		final long memoryUsage = mMindMapController.undo.getMemoryUsage();
+		assertTrue(memoryUsage > 0);
+
+		undo();
+		assertEquals("second", mRoot.getText());
+		undo();
+		assertTrue(mMindMapController.undo.getMemoryUsage() < memoryUsage);
+		undo();
+		assertEquals(text, mRoot.getText());
+		assertEquals(0, mMindMapController.undo.getMemoryUsage());
+
+		redo();
+		redo();
+		assertEquals("second", mRoot.getText());
+		undo();
+		assertEquals("first", mRoot.getText());
+	}
+
+	public void testMemoryLimit() throws Exception {
+		StringBuffer longText = new StringBuffer();
+		for (int i = 0; i < 2000; i++) {
+			// not too compressible:
+			longText.append(Integer.toHexString(i * 7919));
+		}
+		mFreeMindMain.getProperties().setProperty("undo_memory_limit", "8");
+		for (int i = 0; i < 10; i++) {
+			setText(i + longText.toString());
+		}
+		assertTrue(mMindMapController.undo.getSize() < 10);
+		assertTrue(mMindMapController.undo.getMemoryUsage() <= 8 * 1024);
+		// the remaining steps can be undone:
+		final int size = mMindMapController.undo.getSize();
+		for (int i = 0; i < size; i++) {
+			undo();
+		}
+		assertEquals((9 - size) + longText.toString(), mRoot.getText());
+	}
+
+	public void testReplaceCompressedActions() throws Exception {
+		CompressedActionPair pair = new CompressedActionPair(new ActionPair(
+				createEditAction("new"), createEditAction("old")));
+		final EditNodeAction doAction = createEditAction("replaced new");
+		pair.setDoAction(doAction);
+		pair.setUndoAction(createEditAction("replaced old"));
+		assertEquals(Tools.marshall(doAction), pair.getDoActionXml());
+		assertEquals("replaced new", ((EditNodeAction) pair.getDoAction())
+				.getText());
+		assertEquals("replaced old", ((EditNodeAction) pair.getUndoAction())
+				.getText());
+		assertEquals("replaced new", ((EditNodeAction) pair.reverse()
+				.getUndoAction()).getText());
+	}
+
+	public void testMemoryUsageFollowsReplacedActions() throws Exception {
+		mMindMapController.undo.clear();
+		CompressedActionPair pair = new CompressedActionPair(new ActionPair(
+				createEditAction("new"), createEditAction("old")));
+		mMindMapController.undo.add(pair);
+		assertEquals(pair.getSize(), mMindMapController.undo.getMemoryUsage());
+		StringBuffer longText = new StringBuffer();
+		for (int i = 0; i < 2000; i++) {
+			longText.append(Integer.toHexString(i * 7919));
+		}
+		pair.setDoAction(createEditAction(longText.toString()));
+		assertTrue(pair.getSize() > 1024);
+		assertEquals(pair.getSize(), mMindMapController.undo.getMemoryUsage());
+		// shown in the tool tip:
+		assertNotNull(mMindMapController.undo.getValue(Action.SHORT_DESCRIPTION));
+		// no longer counted:
+		mMindMapController.undo.clear();
+		pair.setUndoAction(createEditAction(longText.toString()));
+		assertEquals(0, mMindMapController.undo.getMemoryUsage());
+	}
+
+	private EditNodeAction createEditAction(String pText) {
+		EditNodeAction action = new EditNodeAction();
+		action.setNode("ID_1");
+		action.setText(pText);
+		return action;
+	}
+
+	private void setText(String pText) throws InterruptedException {
+		Thread.sleep(NEW_UNDO_STEP_DELAY);
+		mMindMapController.setNodeText(mRoot, pText);
+	}
+
+	/** The undone steps are added to the redo list (and vice versa). */
+	private void undo() throws InterruptedException {
+		Thread.sleep(NEW_UNDO_STEP_DELAY);
+		mMindMapController.undo.actionPerformed(null);
+	}
+
+	private void redo() throws InterruptedException {
+		Thread.sleep(NEW_UNDO_STEP_DELAY);
+		mMindMapController.redo.actionPerformed(null);
+	}
+
+}
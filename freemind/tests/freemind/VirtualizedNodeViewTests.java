@@ -0,0 +1,245 @@
+/*FreeMind - A Program for creating and viewing Mindmaps
+ *Copyright (C) 2000-2012 Joerg Mueller, Daniel Polansky, Christian Foltin, Dimitri Polivaev and others.
+ *
+ *See COPYING for Details
+ *
+ *This program is free software; you can redistribute it and/or
+ *modify it under the terms of the GNU General Public License
+ *as published by the Free Software Foundation; either version 2
+ *of the License, or (at your option) any later version.
+ *
+ *This program is distributed in the hope that it will be useful,
+ *but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *GNU General Public License for more details.
+ *
+ *You should have received a copy of the GNU General Public License
+ *along with this program; if not, write to the Free Software
+ *Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package tests.freemind;
+
+import java.awt.Dimension;
+import java.awt.EventQueue;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.HashSet;
+import java.util.Iterator;
+
+import javax.swing.JViewport;
+import javax.swing.SwingUtilities;
+
+import freemind.controller.Controller;
+import freemind.main.FreeMind;
+import freemind.main.Resources;
+import freemind.modes.MindMapNode;
+import freemind.modes.mindmapmode.MindMapController;
+import freemind.modes.mindmapmode.MindMapMapModel;
+import freemind.modes.mindmapmode.MindMapMode;
+import freemind.view.mindmapview.MapView;
+import freemind.view.mindmapview.NodeMotionListenerView;
+import freemind.view.mindmapview.NodeView;
+
+/**
+ * In the virtualized mode, folded branches get no node views and only the
+ * node views near the visible area are decorated.
+ */
+public class VirtualizedNodeViewTests extends FreeMindTestBase {
+
+	/** The margin around the visible area, see MapView. */
+	private static final int DECORATION_MARGIN = 100;
+
+	private MindMapController mMindMapController;
+
+	private Controller mController;
+
+	private MindMapMapModel mModel;
+
+	/** Number of decorated views with a tool tip found. */
+	private int mToolTipCount = 0;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		Resources.getInstance().getProperties().setProperty(
+				FreeMind.RESOURCES_VIRTUALIZED_NODE_VIEWS, "true");
+		MindMapMode mode = new MindMapMode() {
+			public freemind.modes.ModeController createModeController() {
+				return new MindMapController(this) {
+					protected void init() {
+					}
+				};
+			};
+		};
+		mMindMapController = createMindMapController(mode);
+		mController = mMindMapController.getController();
+		mModel = loadMap(mMindMapController, new File(
+				"tests/freemind/serializer_golden.mm"));
+	}
+
+	protected void tearDown() throws Exception {
+		Resources.getInstance().getProperties().setProperty(
+				FreeMind.RESOURCES_VIRTUALIZED_NODE_VIEWS, "false");
+		super.tearDown();
+	}
+
+	public void testFoldedBranchesHaveNoViews() throws Exception {
+		MindMapNode root = mModel.getRootNode();
+		for (int i = 0; i < root.getChildCount(); i += 2) {
+			((MindMapNode) root.getChildAt(i)).setFolded(true);
+		}
+		MapView view = createView();
+		assertTrue(view.isVirtualized());
+		HashSet expected = new HashSet();
+		collectUnfoldedNodes(root, expected);
+		HashSet created = new HashSet();
+		collectViews(view.getRoot(), created);
+		assertTrue(expected.size() < 150);
+		assertEquals(expected, created);
+	}
+
+	public void testOnlyVisibleViewsAreDecorated() throws Exception {
+		setToolTips(mModel.getRootNode());
+		MapView view = createView();
+		JViewport viewport = new JViewport();
+		viewport.setView(view);
+		viewport.setSize(new Dimension(300, 200));
+		// the map view centers the root node on its first validation:
+		validate(view);
+		final NodeView rootView = view.getRoot();
+		Point rootLocation = SwingUtilities.convertPoint(rootView, 0, 0, view);
+		viewport.setViewPosition(rootLocation);
+		paint(view);
+		HashSet decorated = checkDecorations(view);
+		assertFalse(decorated.isEmpty());
+		HashSet all = new HashSet();
+		collectViews(rootView, all);
+		assertTrue(decorated.size() < all.size() / 2);
+		HashSet motionListenerViews = getMotionListenerViews(view);
+		// scroll to the other end of the map:
+		Dimension size = view.getSize();
+		viewport.setViewPosition(new Point(size.width - 300,
+				size.height - 200));
+		paint(view);
+		HashSet scrolled = checkDecorations(view);
+		assertFalse(scrolled.isEmpty());
+		assertFalse(scrolled.equals(decorated));
+		// the motion listener views are reused:
+		HashSet scrolledMotionListenerViews = getMotionListenerViews(view);
+		scrolledMotionListenerViews.retainAll(motionListenerViews);
+		assertFalse(scrolledMotionListenerViews.isEmpty());
+		assertTrue(mToolTipCount > 0);
+	}
+
+	private void setToolTips(MindMapNode pNode) {
+		pNode.setToolTip("test", "Tool tip of " + pNode.getText());
+		for (Iterator it = pNode.childrenUnfolded(); it.hasNext();) {
+			setToolTips((MindMapNode) it.next());
+		}
+	}
+
+	private MapView createView() {
+		MapView view = new MapView(mModel, mController);
+		// the map view has no frame:
+		view.addNotify();
+		view.validate();
+		return view;
+	}
+
+	/**
+	 * Paints the visible area and waits for the decoration update scheduled
+	 * by the painting.
+	 */
+	private void paint(final MapView pView) throws Exception {
+		validate(pView);
+		EventQueue.invokeAndWait(new Runnable() {
+			public void run() {
+				Rectangle visible = pView.getVisibleRect();
+				BufferedImage image = new BufferedImage(pView.getWidth(),
+						pView.getHeight(), BufferedImage.TYPE_INT_RGB);
+				Graphics2D g = image.createGraphics();
+				g.setClip(visible);
+				pView.paint(g);
+				g.dispose();
+			}
+		});
+		validate(pView);
+	}
+
+	private void validate(final MapView pView) throws Exception {
+		EventQueue.invokeAndWait(new Runnable() {
+			public void run() {
+				pView.getParent().validate();
+			}
+		});
+	}
+
+	/**
+	 * Asserts, that exactly the views near the visible area have a motion
+	 * listener view and their tool tip.
+	 *
+	 * @return the decorated views.
+	 */
+	private HashSet checkDecorations(MapView pView) {
+		Rectangle area = pView.getVisibleRect();
+		final int margin = pView.getZoomed(DECORATION_MARGIN);
+		area.grow(margin, margin);
+		HashSet all = new HashSet();
+		collectViews(pView.getRoot(), all);
+		HashSet decorated = new HashSet();
+		for (Iterator it = all.iterator(); it.hasNext();) {
+			NodeView nodeView = pView.getNodeView((MindMapNode) it.next());
+			if (nodeView.isRoot()) {
+				continue;
+			}
+			Rectangle content = SwingUtilities.convertRectangle(nodeView,
+					nodeView.getContent().getBounds(), pView);
+			boolean near = nodeView.isContentVisible()
+					&& content.intersects(area);
+			assertEquals(nodeView.getModel().toString(), near, nodeView
+					.getMotionListenerView() != null);
+			boolean hasToolTip = !nodeView.getModel().getToolTip().isEmpty();
+			assertEquals(near && hasToolTip, nodeView.getMainView()
+					.getToolTipText() != null);
+			if (near && hasToolTip) {
+				++mToolTipCount;
+			}
+			if (near) {
+				decorated.add(nodeView);
+			}
+		}
+		return decorated;
+	}
+
+	private HashSet getMotionListenerViews(MapView pView) {
+		HashSet result = new HashSet();
+		for (int i = 0; i < pView.getComponentCount(); i++) {
+			if (pView.getComponent(i) instanceof NodeMotionListenerView) {
+				result.add(pView.getComponent(i));
+			}
+		}
+		return result;
+	}
+
+	private void collectUnfoldedNodes(MindMapNode pNode, HashSet pResult) {
+		pResult.add(pNode);
+		if (pNode.isFolded()) {
+			return;
+		}
+		for (Iterator it = pNode.childrenUnfolded(); it.hasNext();) {
+			collectUnfoldedNodes((MindMapNode) it.next(), pResult);
+		}
+	}
+
+	/** Collects the models of the view and its descendant views. */
+	private void collectViews(NodeView pView, HashSet pResult) {
+		assertTrue(pResult.add(pView.getModel()));
+		for (Iterator it = pView.getChildrenViews().iterator(); it.hasNext();) {
+			collectViews((NodeView) it.next(), pResult);
+		}
+	}
+
+}
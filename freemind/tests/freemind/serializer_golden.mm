@@ -0,0 +1,608 @@
+<map version="1.0.0">
+<!-- To view this file, download free mind mapping software FreeMind from http://freemind.sourceforge.net -->
+<node CREATED="1160462631115" ID="ID_1001" MODIFIED="1160462631122" TEXT="Golden &amp; serializer">
+<node COLOR="#003366" CREATED="1160462632128" ID="ID_1002" MODIFIED="1160462632135" POSITION="right" TEXT="Branch 0">
+<font BOLD="true" NAME="SansSerif" SIZE="12"/>
+<icon BUILTIN="idea"/>
+<attribute NAME="prio" VALUE="0"/>
+<node CREATED="1160462633141" ID="ID_1003" MODIFIED="1160462633148" TEXT="Child 0.0 &lt;x&gt; &#xe9;&#x4e2d;">
+<richcontent TYPE="NOTE"><html>
+  <head>
+    
+  </head>
+  <body>
+    <p>
+      Note 0.0 with <b>bold</b> &amp; &#xfc;nicode &#x263a;
+    </p>
+  </body>
+</html></richcontent>
+<node CREATED="1160462634154" ID="ID_1004" LINK="http://example.org/0" MODIFIED="1160462634161" TEXT="Leaf 0.0.0"/>
+<node CREATED="1160462635167" ID="ID_1005" LINK="http://example.org/1" MODIFIED="1160462635174" TEXT="Leaf 0.0.1"/>
+<node CREATED="1160462636180" ID="ID_1006" LINK="http://example.org/2" MODIFIED="1160462636187" TEXT="Leaf 0.0.2"/>
+</node>
+<node CREATED="1160462637193" ID="ID_1007" MODIFIED="1160462637200" TEXT="Child 0.1 &lt;x&gt; &#xe9;&#x4e2d;">
+<node CREATED="1160462638206" ID="ID_1008" LINK="http://example.org/0" MODIFIED="1160462638213" TEXT="Leaf 0.1.0"/>
+<node CREATED="1160462639219" ID="ID_1009" LINK="http://example.org/1" MODIFIED="1160462639226" TEXT="Leaf 0.1.1"/>
+<node CREATED="1160462640232" ID="ID_1010" LINK="http://example.org/2" MODIFIED="1160462640239" TEXT="Leaf 0.1.2"/>
+</node>
+<node CREATED="1160462641245" ID="ID_1011" MODIFIED="1160462641252" TEXT="Child 0.2 &lt;x&gt; &#xe9;&#x4e2d;">
+<richcontent TYPE="NOTE"><html>
+  <head>
+    
+  </head>
+  <body>
+    <p>
+      Note 0.2 with <b>bold</b> &amp; &#xfc;nicode &#x263a;
+    </p>
+  </body>
+</html></richcontent>
+<node CREATED="1160462642258" ID="ID_1012" LINK="http://example.org/0" MODIFIED="1160462642265" TEXT="Leaf 0.2.0"/>
+<node CREATED="1160462643271" ID="ID_1013" LINK="http://example.org/1" MODIFIED="1160462643278" TEXT="Leaf 0.2.1"/>
+<node CREATED="1160462644284" ID="ID_1014" LINK="http://example.org/2" MODIFIED="1160462644291" TEXT="Leaf 0.2.2"/>
+</node>
+<node CREATED="1160462645297" ID="ID_1015" MODIFIED="1160462645304">
+<richcontent TYPE="NODE"><html>
+  <head>
+    
+  </head>
+  <body>
+    <p>
+      Rich <i>node</i> 0
+    </p>
+  </body>
+</html></richcontent>
+<node CREATED="1160462646310" ID="ID_1016" LINK="http://example.org/0" MODIFIED="1160462646317" TEXT="Leaf 0.3.0"/>
+<node CREATED="1160462647323" ID="ID_1017" LINK="http://example.org/1" MODIFIED="1160462647330" TEXT="Leaf 0.3.1"/>
+<node CREATED="1160462648336" ID="ID_1018" LINK="http://example.org/2" MODIFIED="1160462648343" TEXT="Leaf 0.3.2"/>
+</node>
+<node CREATED="1160462649349" ID="ID_1019" MODIFIED="1160462649356" TEXT="Child 0.4 &lt;x&gt; &#xe9;&#x4e2d;">
+<richcontent TYPE="NOTE"><html>
+  <head>
+    
+  </head>
+  <body>
+    <p>
+      Note 0.4 with <b>bold</b> &amp; &#xfc;nicode &#x263a;
+    </p>
+  </body>
+</html></richcontent>
+<node CREATED="1160462650362" ID="ID_1020" LINK="http://example.org/0" MODIFIED="1160462650369" TEXT="Leaf 0.4.0"/>
+<node CREATED="1160462651375" ID="ID_1021" LINK="http://example.org/1" MODIFIED="1160462651382" TEXT="Leaf 0.4.1"/>
+<node CREATED="1160462652388" ID="ID_1022" LINK="http://example.org/2" MODIFIED="1160462652395" TEXT="Leaf 0.4.2"/>
+</node>
+<node CREATED="1160462653401" ID="ID_1023" MODIFIED="1160462653408" TEXT="Child 0.5 &lt;x&gt; &#xe9;&#x4e2d;">
+<node CREATED="1160462654414" ID="ID_1024" LINK="http://example.org/0" MODIFIED="1160462654421" TEXT="Leaf 0.5.0"/>
+<node CREATED="1160462655427" ID="ID_1025" LINK="http://example.org/1" MODIFIED="1160462655434" TEXT="Leaf 0.5.1"/>
+<node CREATED="1160462656440" ID="ID_1026" LINK="http://example.org/2" MODIFIED="1160462656447" TEXT="Leaf 0.5.2"/>
+</node>
+</node>
+<node COLOR="#143366" CREATED="1160462657453" ID="ID_1027" MODIFIED="1160462657460" POSITION="left" TEXT="Branch 1">
+<cloud COLOR="#f0f0f0"/>
+<font BOLD="true" NAME="SansSerif" SIZE="13"/>
+<icon BUILTIN="idea"/>
+<attribute NAME="prio" VALUE="1"/>
+<node CREATED="1160462658466" ID="ID_1028" MODIFIED="1160462658473" TEXT="Child 1.0 &lt;x&gt; &#xe9;&#x4e2d;">
+<richcontent TYPE="NOTE"><html>
+  <head>
+    
+  </head>
+  <body>
+    <p>
+      Note 1.0 with <b>bold</b> &amp; &#xfc;nicode &#x263a;
+    </p>
+  </body>
+</html></richcontent>
+<node CREATED="1160462659479" ID="ID_1029" LINK="http://example.org/0" MODIFIED="1160462659486" TEXT="Leaf 1.0.0"/>
+<node CREATED="1160462660492" ID="ID_1030" LINK="http://example.org/1" MODIFIED="1160462660499" TEXT="Leaf 1.0.1"/>
+<node CREATED="1160462661505" ID="ID_1031" LINK="http://example.org/2" MODIFIED="1160462661512" TEXT="Leaf 1.0.2"/>
+</node>
+<node CREATED="1160462662518" ID="ID_1032" MODIFIED="1160462662525" TEXT="Child 1.1 &lt;x&gt; &#xe9;&#x4e2d;">
+<node CREATED="1160462663531" ID="ID_1033" LINK="http://example.org/0" MODIFIED="1160462663538" TEXT="Leaf 1.1.0"/>
+<node CREATED="1160462664544" ID="ID_1034" LINK="http://example.org/1" MODIFIED="1160462664551" TEXT="Leaf 1.1.1"/>
+<node CREATED="1160462665557" ID="ID_1035" LINK="http://example.org/2" MODIFIED="1160462665564" TEXT="Leaf 1.1.2"/>
+</node>
+<node CREATED="1160462666570" ID="ID_1036" MODIFIED="1160462666577" TEXT="Child 1.2 &lt;x&gt; &#xe9;&#x4e2d;">
+<richcontent TYPE="NOTE"><html>
+  <head>
+    
+  </head>
+  <body>
+    <p>
+      Note 1.2 with <b>bold</b> &amp; &#xfc;nicode &#x263a;
+    </p>
+  </body>
+</html></richcontent>
+<node CREATED="1160462667583" ID="ID_1037" LINK="http://example.org/0" MODIFIED="1160462667590" TEXT="Leaf 1.2.0"/>
+<node CREATED="1160462668596" ID="ID_1038" LINK="http://example.org/1" MODIFIED="1160462668603" TEXT="Leaf 1.2.1"/>
+<node CREATED="1160462669609" ID="ID_1039" LINK="http://example.org/2" MODIFIED="1160462669616" TEXT="Leaf 1.2.2"/>
+</node>
+<node CREATED="1160462670622" ID="ID_1040" MODIFIED="1160462670629">
+<richcontent TYPE="NODE"><html>
+  <head>
+    
+  </head>
+  <body>
+    <p>
+      Rich <i>node</i> 1
+    </p>
+  </body>
+</html></richcontent>
+<node CREATED="1160462671635" ID="ID_1041" LINK="http://example.org/0" MODIFIED="1160462671642" TEXT="Leaf 1.3.0"/>
+<node CREATED="1160462672648" ID="ID_1042" LINK="http://example.org/1" MODIFIED="1160462672655" TEXT="Leaf 1.3.1"/>
+<node CREATED="1160462673661" ID="ID_1043" LINK="http://example.org/2" MODIFIED="1160462673668" TEXT="Leaf 1.3.2"/>
+</node>
+<node CREATED="1160462674674" ID="ID_1044" MODIFIED="1160462674681" TEXT="Child 1.4 &lt;x&gt; &#xe9;&#x4e2d;">
+<richcontent TYPE="NOTE"><html>
+  <head>
+    
+  </head>
+  <body>
+    <p>
+      Note 1.4 with <b>bold</b> &amp; &#xfc;nicode &#x263a;
+    </p>
+  </body>
+</html></richcontent>
+<node CREATED="1160462675687" ID="ID_1045" LINK="http://example.org/0" MODIFIED="1160462675694" TEXT="Leaf 1.4.0"/>
+<node CREATED="1160462676700" ID="ID_1046" LINK="http://example.org/1" MODIFIED="1160462676707" TEXT="Leaf 1.4.1"/>
+<node CREATED="1160462677713" ID="ID_1047" LINK="http://example.org/2" MODIFIED="1160462677720" TEXT="Leaf 1.4.2"/>
+</node>
+<node CREATED="1160462678726" ID="ID_1048" MODIFIED="1160462678733" TEXT="Child 1.5 &lt;x&gt; &#xe9;&#x4e2d;">
+<node CREATED="1160462679739" ID="ID_1049" LINK="http://example.org/0" MODIFIED="1160462679746" TEXT="Leaf 1.5.0"/>
+<node CREATED="1160462680752" ID="ID_1050" LINK="http://example.org/1" MODIFIED="1160462680759" TEXT="Leaf 1.5.1"/>
+<node CREATED="1160462681765" ID="ID_1051" LINK="http://example.org/2" MODIFIED="1160462681772" TEXT="Leaf 1.5.2"/>
+</node>
+</node>
+<node COLOR="#283366" CREATED="1160462682778" ID="ID_1052" MODIFIED="1160462682785" POSITION="right" TEXT="Branch 2">
+<edge COLOR="#808080" STYLE="bezier" WIDTH="2"/>
+<font BOLD="true" NAME="SansSerif" SIZE="14"/>
+<icon BUILTIN="idea"/>
+<attribute NAME="prio" VALUE="2"/>
+<node CREATED="1160462683791" ID="ID_1053" MODIFIED="1160462683798" TEXT="Child 2.0 &lt;x&gt; &#xe9;&#x4e2d;">
+<richcontent TYPE="NOTE"><html>
+  <head>
+    
+  </head>
+  <body>
+    <p>
+      Note 2.0 with <b>bold</b> &amp; &#xfc;nicode &#x263a;
+    </p>
+  </body>
+</html></richcontent>
+<node CREATED="1160462684804" ID="ID_1054" LINK="http://example.org/0" MODIFIED="1160462684811" TEXT="Leaf 2.0.0"/>
+<node CREATED="1160462685817" ID="ID_1055" LINK="http://example.org/1" MODIFIED="1160462685824" TEXT="Leaf 2.0.1"/>
+<node CREATED="1160462686830" ID="ID_1056" LINK="http://example.org/2" MODIFIED="1160462686837" TEXT="Leaf 2.0.2"/>
+</node>
+<node CREATED="1160462687843" ID="ID_1057" MODIFIED="1160462687850" TEXT="Child 2.1 &lt;x&gt; &#xe9;&#x4e2d;">
+<node CREATED="1160462688856" ID="ID_1058" LINK="http://example.org/0" MODIFIED="1160462688863" TEXT="Leaf 2.1.0"/>
+<node CREATED="1160462689869" ID="ID_1059" LINK="http://example.org/1" MODIFIED="1160462689876" TEXT="Leaf 2.1.1"/>
+<node CREATED="1160462690882" ID="ID_1060" LINK="http://example.org/2" MODIFIED="1160462690889" TEXT="Leaf 2.1.2"/>
+</node>
+<node CREATED="1160462691895" ID="ID_1061" MODIFIED="1160462691902" TEXT="Child 2.2 &lt;x&gt; &#xe9;&#x4e2d;">
+<richcontent TYPE="NOTE"><html>
+  <head>
+    
+  </head>
+  <body>
+    <p>
+      Note 2.2 with <b>bold</b> &amp; &#xfc;nicode &#x263a;
+    </p>
+  </body>
+</html></richcontent>
+<node CREATED="1160462692908" ID="ID_1062" LINK="http://example.org/0" MODIFIED="1160462692915" TEXT="Leaf 2.2.0"/>
+<node CREATED="1160462693921" ID="ID_1063" LINK="http://example.org/1" MODIFIED="1160462693928" TEXT="Leaf 2.2.1"/>
+<node CREATED="1160462694934" ID="ID_1064" LINK="http://example.org/2" MODIFIED="1160462694941" TEXT="Leaf 2.2.2"/>
+</node>
+<node CREATED="1160462695947" ID="ID_1065" MODIFIED="1160462695954">
+<richcontent TYPE="NODE"><html>
+  <head>
+    
+  </head>
+  <body>
+    <p>
+      Rich <i>node</i> 2
+    </p>
+  </body>
+</html></richcontent>
+<node CREATED="1160462696960" ID="ID_1066" LINK="http://example.org/0" MODIFIED="1160462696967" TEXT="Leaf 2.3.0"/>
+<node CREATED="1160462697973" ID="ID_1067" LINK="http://example.org/1" MODIFIED="1160462697980" TEXT="Leaf 2.3.1"/>
+<node CREATED="1160462698986" ID="ID_1068" LINK="http://example.org/2" MODIFIED="1160462698993" TEXT="Leaf 2.3.2"/>
+</node>
+<node CREATED="1160462699999" ID="ID_1069" MODIFIED="1160462700006" TEXT="Child 2.4 &lt;x&gt; &#xe9;&#x4e2d;">
+<richcontent TYPE="NOTE"><html>
+  <head>
+    
+  </head>
+  <body>
+    <p>
+      Note 2.4 with <b>bold</b> &amp; &#xfc;nicode &#x263a;
+    </p>
+  </body>
+</html></richcontent>
+<node CREATED="1160462701012" ID="ID_1070" LINK="http://example.org/0" MODIFIED="1160462701019" TEXT="Leaf 2.4.0"/>
+<node CREATED="1160462702025" ID="ID_1071" LINK="http://example.org/1" MODIFIED="1160462702032" TEXT="Leaf 2.4.1"/>
+<node CREATED="1160462703038" ID="ID_1072" LINK="http://example.org/2" MODIFIED="1160462703045" TEXT="Leaf 2.4.2"/>
+</node>
+<node CREATED="1160462704051" ID="ID_1073" MODIFIED="1160462704058" TEXT="Child 2.5 &lt;x&gt; &#xe9;&#x4e2d;">
+<node CREATED="1160462705064" ID="ID_1074" LINK="http://example.org/0" MODIFIED="1160462705071" TEXT="Leaf 2.5.0"/>
+<node CREATED="1160462706077" ID="ID_1075" LINK="http://example.org/1" MODIFIED="1160462706084" TEXT="Leaf 2.5.1"/>
+<node CREATED="1160462707090" ID="ID_1076" LINK="http://example.org/2" MODIFIED="1160462707097" TEXT="Leaf 2.5.2"/>
+</node>
+</node>
+<node COLOR="#3c3366" CREATED="1160462708103" FOLDED="true" ID="ID_1077" MODIFIED="1160462708110" POSITION="left" TEXT="Branch 3">
+<font BOLD="true" NAME="SansSerif" SIZE="15"/>
+<icon BUILTIN="idea"/>
+<attribute NAME="prio" VALUE="3"/>
+<node CREATED="1160462709116" ID="ID_1078" MODIFIED="1160462709123" TEXT="Child 3.0 &lt;x&gt; &#xe9;&#x4e2d;">
+<richcontent TYPE="NOTE"><html>
+  <head>
+    
+  </head>
+  <body>
+    <p>
+      Note 3.0 with <b>bold</b> &amp; &#xfc;nicode &#x263a;
+    </p>
+  </body>
+</html></richcontent>
+<node CREATED="1160462710129" ID="ID_1079" LINK="http://example.org/0" MODIFIED="1160462710136" TEXT="Leaf 3.0.0"/>
+<node CREATED="1160462711142" ID="ID_1080" LINK="http://example.org/1" MODIFIED="1160462711149" TEXT="Leaf 3.0.1"/>
+<node CREATED="1160462712155" ID="ID_1081" LINK="http://example.org/2" MODIFIED="1160462712162" TEXT="Leaf 3.0.2"/>
+</node>
+<node CREATED="1160462713168" ID="ID_1082" MODIFIED="1160462713175" TEXT="Child 3.1 &lt;x&gt; &#xe9;&#x4e2d;">
+<node CREATED="1160462714181" ID="ID_1083" LINK="http://example.org/0" MODIFIED="1160462714188" TEXT="Leaf 3.1.0"/>
+<node CREATED="1160462715194" ID="ID_1084" LINK="http://example.org/1" MODIFIED="1160462715201" TEXT="Leaf 3.1.1"/>
+<node CREATED="1160462716207" ID="ID_1085" LINK="http://example.org/2" MODIFIED="1160462716214" TEXT="Leaf 3.1.2"/>
+</node>
+<node CREATED="1160462717220" ID="ID_1086" MODIFIED="1160462717227" TEXT="Child 3.2 &lt;x&gt; &#xe9;&#x4e2d;">
+<richcontent TYPE="NOTE"><html>
+  <head>
+    
+  </head>
+  <body>
+    <p>
+      Note 3.2 with <b>bold</b> &amp; &#xfc;nicode &#x263a;
+    </p>
+  </body>
+</html></richcontent>
+<node CREATED="1160462718233" ID="ID_1087" LINK="http://example.org/0" MODIFIED="1160462718240" TEXT="Leaf 3.2.0"/>
+<node CREATED="1160462719246" ID="ID_1088" LINK="http://example.org/1" MODIFIED="1160462719253" TEXT="Leaf 3.2.1"/>
+<node CREATED="1160462720259" ID="ID_1089" LINK="http://example.org/2" MODIFIED="1160462720266" TEXT="Leaf 3.2.2"/>
+</node>
+<node CREATED="1160462721272" ID="ID_1090" MODIFIED="1160462721279">
+<richcontent TYPE="NODE"><html>
+  <head>
+    
+  </head>
+  <body>
+    <p>
+      Rich <i>node</i> 3
+    </p>
+  </body>
+</html></richcontent>
+<node CREATED="1160462722285" ID="ID_1091" LINK="http://example.org/0" MODIFIED="1160462722292" TEXT="Leaf 3.3.0"/>
+<node CREATED="1160462723298" ID="ID_1092" LINK="http://example.org/1" MODIFIED="1160462723305" TEXT="Leaf 3.3.1"/>
+<node CREATED="1160462724311" ID="ID_1093" LINK="http://example.org/2" MODIFIED="1160462724318" TEXT="Leaf 3.3.2"/>
+</node>
+<node CREATED="1160462725324" ID="ID_1094" MODIFIED="1160462725331" TEXT="Child 3.4 &lt;x&gt; &#xe9;&#x4e2d;">
+<richcontent TYPE="NOTE"><html>
+  <head>
+    
+  </head>
+  <body>
+    <p>
+      Note 3.4 with <b>bold</b> &amp; &#xfc;nicode &#x263a;
+    </p>
+  </body>
+</html></richcontent>
+<node CREATED="1160462726337" ID="ID_1095" LINK="http://example.org/0" MODIFIED="1160462726344" TEXT="Leaf 3.4.0"/>
+<node CREATED="1160462727350" ID="ID_1096" LINK="http://example.org/1" MODIFIED="1160462727357" TEXT="Leaf 3.4.1"/>
+<node CREATED="1160462728363" ID="ID_1097" LINK="http://example.org/2" MODIFIED="1160462728370" TEXT="Leaf 3.4.2"/>
+</node>
+<node CREATED="1160462729376" ID="ID_1098" MODIFIED="1160462729383" TEXT="Child 3.5 &lt;x&gt; &#xe9;&#x4e2d;">
+<node CREATED="1160462730389" ID="ID_1099" LINK="http://example.org/0" MODIFIED="1160462730396" TEXT="Leaf 3.5.0"/>
+<node CREATED="1160462731402" ID="ID_1100" LINK="http://example.org/1" MODIFIED="1160462731409" TEXT="Leaf 3.5.1"/>
+<node CREATED="1160462732415" ID="ID_1101" LINK="http://example.org/2" MODIFIED="1160462732422" TEXT="Leaf 3.5.2"/>
+</node>
+</node>
+<node COLOR="#503366" CREATED="1160462733428" ID="ID_1102" MODIFIED="1160462733435" POSITION="right" TEXT="Branch 4">
+<arrowlink DESTINATION="ID_1002" ENDARROW="Default" ID="Arrow_ID_77" STARTARROW="None"/>
+<font BOLD="true" NAME="SansSerif" SIZE="16"/>
+<icon BUILTIN="idea"/>
+<attribute NAME="prio" VALUE="4"/>
+<node CREATED="1160462734441" ID="ID_1103" MODIFIED="1160462734448" TEXT="Child 4.0 &lt;x&gt; &#xe9;&#x4e2d;">
+<richcontent TYPE="NOTE"><html>
+  <head>
+    
+  </head>
+  <body>
+    <p>
+      Note 4.0 with <b>bold</b> &amp; &#xfc;nicode &#x263a;
+    </p>
+  </body>
+</html></richcontent>
+<node CREATED="1160462735454" ID="ID_1104" LINK="http://example.org/0" MODIFIED="1160462735461" TEXT="Leaf 4.0.0"/>
+<node CREATED="1160462736467" ID="ID_1105" LINK="http://example.org/1" MODIFIED="1160462736474" TEXT="Leaf 4.0.1"/>
+<node CREATED="1160462737480" ID="ID_1106" LINK="http://example.org/2" MODIFIED="1160462737487" TEXT="Leaf 4.0.2"/>
+</node>
+<node CREATED="1160462738493" ID="ID_1107" MODIFIED="1160462738500" TEXT="Child 4.1 &lt;x&gt; &#xe9;&#x4e2d;">
+<node CREATED="1160462739506" ID="ID_1108" LINK="http://example.org/0" MODIFIED="1160462739513" TEXT="Leaf 4.1.0"/>
+<node CREATED="1160462740519" ID="ID_1109" LINK="http://example.org/1" MODIFIED="1160462740526" TEXT="Leaf 4.1.1"/>
+<node CREATED="1160462741532" ID="ID_1110" LINK="http://example.org/2" MODIFIED="1160462741539" TEXT="Leaf 4.1.2"/>
+</node>
+<node CREATED="1160462742545" ID="ID_1111" MODIFIED="1160462742552" TEXT="Child 4.2 &lt;x&gt; &#xe9;&#x4e2d;">
+<richcontent TYPE="NOTE"><html>
+  <head>
+    
+  </head>
+  <body>
+    <p>
+      Note 4.2 with <b>bold</b> &amp; &#xfc;nicode &#x263a;
+    </p>
+  </body>
+</html></richcontent>
+<node CREATED="1160462743558" ID="ID_1112" LINK="http://example.org/0" MODIFIED="1160462743565" TEXT="Leaf 4.2.0"/>
+<node CREATED="1160462744571" ID="ID_1113" LINK="http://example.org/1" MODIFIED="1160462744578" TEXT="Leaf 4.2.1"/>
+<node CREATED="1160462745584" ID="ID_1114" LINK="http://example.org/2" MODIFIED="1160462745591" TEXT="Leaf 4.2.2"/>
+</node>
+<node CREATED="1160462746597" ID="ID_1115" MODIFIED="1160462746604">
+<richcontent TYPE="NODE"><html>
+  <head>
+    
+  </head>
+  <body>
+    <p>
+      Rich <i>node</i> 4
+    </p>
+  </body>
+</html></richcontent>
+<node CREATED="1160462747610" ID="ID_1116" LINK="http://example.org/0" MODIFIED="1160462747617" TEXT="Leaf 4.3.0"/>
+<node CREATED="1160462748623" ID="ID_1117" LINK="http://example.org/1" MODIFIED="1160462748630" TEXT="Leaf 4.3.1"/>
+<node CREATED="1160462749636" ID="ID_1118" LINK="http://example.org/2" MODIFIED="1160462749643" TEXT="Leaf 4.3.2"/>
+</node>
+<node CREATED="1160462750649" ID="ID_1119" MODIFIED="1160462750656" TEXT="Child 4.4 &lt;x&gt; &#xe9;&#x4e2d;">
+<richcontent TYPE="NOTE"><html>
+  <head>
+    
+  </head>
+  <body>
+    <p>
+      Note 4.4 with <b>bold</b> &amp; &#xfc;nicode &#x263a;
+    </p>
+  </body>
+</html></richcontent>
+<node CREATED="1160462751662" ID="ID_1120" LINK="http://example.org/0" MODIFIED="1160462751669" TEXT="Leaf 4.4.0"/>
+<node CREATED="1160462752675" ID="ID_1121" LINK="http://example.org/1" MODIFIED="1160462752682" TEXT="Leaf 4.4.1"/>
+<node CREATED="1160462753688" ID="ID_1122" LINK="http://example.org/2" MODIFIED="1160462753695" TEXT="Leaf 4.4.2"/>
+</node>
+<node CREATED="1160462754701" ID="ID_1123" MODIFIED="1160462754708" TEXT="Child 4.5 &lt;x&gt; &#xe9;&#x4e2d;">
+<node CREATED="1160462755714" ID="ID_1124" LINK="http://example.org/0" MODIFIED="1160462755721" TEXT="Leaf 4.5.0"/>
+<node CREATED="1160462756727" ID="ID_1125" LINK="http://example.org/1" MODIFIED="1160462756734" TEXT="Leaf 4.5.1"/>
+<node CREATED="1160462757740" ID="ID_1126" LINK="http://example.org/2" MODIFIED="1160462757747" TEXT="Leaf 4.5.2"/>
+</node>
+</node>
+<node COLOR="#643366" CREATED="1160462758753" ID="ID_1127" MODIFIED="1160462758760" POSITION="left" TEXT="Branch 5">
+<font BOLD="true" NAME="SansSerif" SIZE="17"/>
+<icon BUILTIN="idea"/>
+<attribute NAME="prio" VALUE="5"/>
+<node CREATED="1160462759766" ID="ID_1128" MODIFIED="1160462759773" TEXT="Child 5.0 &lt;x&gt; &#xe9;&#x4e2d;">
+<richcontent TYPE="NOTE"><html>
+  <head>
+    
+  </head>
+  <body>
+    <p>
+      Note 5.0 with <b>bold</b> &amp; &#xfc;nicode &#x263a;
+    </p>
+  </body>
+</html></richcontent>
+<node CREATED="1160462760779" ID="ID_1129" LINK="http://example.org/0" MODIFIED="1160462760786" TEXT="Leaf 5.0.0"/>
+<node CREATED="1160462761792" ID="ID_1130" LINK="http://example.org/1" MODIFIED="1160462761799" TEXT="Leaf 5.0.1"/>
+<node CREATED="1160462762805" ID="ID_1131" LINK="http://example.org/2" MODIFIED="1160462762812" TEXT="Leaf 5.0.2"/>
+</node>
+<node CREATED="1160462763818" ID="ID_1132" MODIFIED="1160462763825" TEXT="Child 5.1 &lt;x&gt; &#xe9;&#x4e2d;">
+<node CREATED="1160462764831" ID="ID_1133" LINK="http://example.org/0" MODIFIED="1160462764838" TEXT="Leaf 5.1.0"/>
+<node CREATED="1160462765844" ID="ID_1134" LINK="http://example.org/1" MODIFIED="1160462765851" TEXT="Leaf 5.1.1"/>
+<node CREATED="1160462766857" ID="ID_1135" LINK="http://example.org/2" MODIFIED="1160462766864" TEXT="Leaf 5.1.2"/>
+</node>
+<node CREATED="1160462767870" ID="ID_1136" MODIFIED="1160462767877" TEXT="Child 5.2 &lt;x&gt; &#xe9;&#x4e2d;">
+<richcontent TYPE="NOTE"><html>
+  <head>
+    
+  </head>
+  <body>
+    <p>
+      Note 5.2 with <b>bold</b> &amp; &#xfc;nicode &#x263a;
+    </p>
+  </body>
+</html></richcontent>
+<node CREATED="1160462768883" ID="ID_1137" LINK="http://example.org/0" MODIFIED="1160462768890" TEXT="Leaf 5.2.0"/>
+<node CREATED="1160462769896" ID="ID_1138" LINK="http://example.org/1" MODIFIED="1160462769903" TEXT="Leaf 5.2.1"/>
+<node CREATED="1160462770909" ID="ID_1139" LINK="http://example.org/2" MODIFIED="1160462770916" TEXT="Leaf 5.2.2"/>
+</node>
+<node CREATED="1160462771922" ID="ID_1140" MODIFIED="1160462771929">
+<richcontent TYPE="NODE"><html>
+  <head>
+    
+  </head>
+  <body>
+    <p>
+      Rich <i>node</i> 5
+    </p>
+  </body>
+</html></richcontent>
+<node CREATED="1160462772935" ID="ID_1141" LINK="http://example.org/0" MODIFIED="1160462772942" TEXT="Leaf 5.3.0"/>
+<node CREATED="1160462773948" ID="ID_1142" LINK="http://example.org/1" MODIFIED="1160462773955" TEXT="Leaf 5.3.1"/>
+<node CREATED="1160462774961" ID="ID_1143" LINK="http://example.org/2" MODIFIED="1160462774968" TEXT="Leaf 5.3.2"/>
+</node>
+<node CREATED="1160462775974" ID="ID_1144" MODIFIED="1160462775981" TEXT="Child 5.4 &lt;x&gt; &#xe9;&#x4e2d;">
+<richcontent TYPE="NOTE"><html>
+  <head>
+    
+  </head>
+  <body>
+    <p>
+      Note 5.4 with <b>bold</b> &amp; &#xfc;nicode &#x263a;
+    </p>
+  </body>
+</html></richcontent>
+<node CREATED="1160462776987" ID="ID_1145" LINK="http://example.org/0" MODIFIED="1160462776994" TEXT="Leaf 5.4.0"/>
+<node CREATED="1160462778000" ID="ID_1146" LINK="http://example.org/1" MODIFIED="1160462778007" TEXT="Leaf 5.4.1"/>
+<node CREATED="1160462779013" ID="ID_1147" LINK="http://example.org/2" MODIFIED="1160462779020" TEXT="Leaf 5.4.2"/>
+</node>
+<node CREATED="1160462780026" ID="ID_1148" MODIFIED="1160462780033" TEXT="Child 5.5 &lt;x&gt; &#xe9;&#x4e2d;">
+<node CREATED="1160462781039" ID="ID_1149" LINK="http://example.org/0" MODIFIED="1160462781046" TEXT="Leaf 5.5.0"/>
+<node CREATED="1160462782052" ID="ID_1150" LINK="http://example.org/1" MODIFIED="1160462782059" TEXT="Leaf 5.5.1"/>
+<node CREATED="1160462783065" ID="ID_1151" LINK="http://example.org/2" MODIFIED="1160462783072" TEXT="Leaf 5.5.2"/>
+</node>
+</node>
+<node COLOR="#783366" CREATED="1160462784078" ID="ID_1152" MODIFIED="1160462784085" POSITION="right" TEXT="Branch 6">
+<font BOLD="true" NAME="SansSerif" SIZE="18"/>
+<icon BUILTIN="idea"/>
+<attribute NAME="prio" VALUE="6"/>
+<node CREATED="1160462785091" ID="ID_1153" MODIFIED="1160462785098" TEXT="Child 6.0 &lt;x&gt; &#xe9;&#x4e2d;">
+<richcontent TYPE="NOTE"><html>
+  <head>
+    
+  </head>
+  <body>
+    <p>
+      Note 6.0 with <b>bold</b> &amp; &#xfc;nicode &#x263a;
+    </p>
+  </body>
+</html></richcontent>
+<node CREATED="1160462786104" ID="ID_1154" LINK="http://example.org/0" MODIFIED="1160462786111" TEXT="Leaf 6.0.0"/>
+<node CREATED="1160462787117" ID="ID_1155" LINK="http://example.org/1" MODIFIED="1160462787124" TEXT="Leaf 6.0.1"/>
+<node CREATED="1160462788130" ID="ID_1156" LINK="http://example.org/2" MODIFIED="1160462788137" TEXT="Leaf 6.0.2"/>
+</node>
+<node CREATED="1160462789143" ID="ID_1157" MODIFIED="1160462789150" TEXT="Child 6.1 &lt;x&gt; &#xe9;&#x4e2d;">
+<node CREATED="1160462790156" ID="ID_1158" LINK="http://example.org/0" MODIFIED="1160462790163" TEXT="Leaf 6.1.0"/>
+<node CREATED="1160462791169" ID="ID_1159" LINK="http://example.org/1" MODIFIED="1160462791176" TEXT="Leaf 6.1.1"/>
+<node CREATED="1160462792182" ID="ID_1160" LINK="http://example.org/2" MODIFIED="1160462792189" TEXT="Leaf 6.1.2"/>
+</node>
+<node CREATED="1160462793195" ID="ID_1161" MODIFIED="1160462793202" TEXT="Child 6.2 &lt;x&gt; &#xe9;&#x4e2d;">
+<richcontent TYPE="NOTE"><html>
+  <head>
+    
+  </head>
+  <body>
+    <p>
+      Note 6.2 with <b>bold</b> &amp; &#xfc;nicode &#x263a;
+    </p>
+  </body>
+</html></richcontent>
+<node CREATED="1160462794208" ID="ID_1162" LINK="http://example.org/0" MODIFIED="1160462794215" TEXT="Leaf 6.2.0"/>
+<node CREATED="1160462795221" ID="ID_1163" LINK="http://example.org/1" MODIFIED="1160462795228" TEXT="Leaf 6.2.1"/>
+<node CREATED="1160462796234" ID="ID_1164" LINK="http://example.org/2" MODIFIED="1160462796241" TEXT="Leaf 6.2.2"/>
+</node>
+<node CREATED="1160462797247" ID="ID_1165" MODIFIED="1160462797254">
+<richcontent TYPE="NODE"><html>
+  <head>
+    
+  </head>
+  <body>
+    <p>
+      Rich <i>node</i> 6
+    </p>
+  </body>
+</html></richcontent>
+<node CREATED="1160462798260" ID="ID_1166" LINK="http://example.org/0" MODIFIED="1160462798267" TEXT="Leaf 6.3.0"/>
+<node CREATED="1160462799273" ID="ID_1167" LINK="http://example.org/1" MODIFIED="1160462799280" TEXT="Leaf 6.3.1"/>
+<node CREATED="1160462800286" ID="ID_1168" LINK="http://example.org/2" MODIFIED="1160462800293" TEXT="Leaf 6.3.2"/>
+</node>
+<node CREATED="1160462801299" ID="ID_1169" MODIFIED="1160462801306" TEXT="Child 6.4 &lt;x&gt; &#xe9;&#x4e2d;">
+<richcontent TYPE="NOTE"><html>
+  <head>
+    
+  </head>
+  <body>
+    <p>
+      Note 6.4 with <b>bold</b> &amp; &#xfc;nicode &#x263a;
+    </p>
+  </body>
+</html></richcontent>
+<node CREATED="1160462802312" ID="ID_1170" LINK="http://example.org/0" MODIFIED="1160462802319" TEXT="Leaf 6.4.0"/>
+<node CREATED="1160462803325" ID="ID_1171" LINK="http://example.org/1" MODIFIED="1160462803332" TEXT="Leaf 6.4.1"/>
+<node CREATED="1160462804338" ID="ID_1172" LINK="http://example.org/2" MODIFIED="1160462804345" TEXT="Leaf 6.4.2"/>
+</node>
+<node CREATED="1160462805351" ID="ID_1173" MODIFIED="1160462805358" TEXT="Child 6.5 &lt;x&gt; &#xe9;&#x4e2d;">
+<node CREATED="1160462806364" ID="ID_1174" LINK="http://example.org/0" MODIFIED="1160462806371" TEXT="Leaf 6.5.0"/>
+<node CREATED="1160462807377" ID="ID_1175" LINK="http://example.org/1" MODIFIED="1160462807384" TEXT="Leaf 6.5.1"/>
+<node CREATED="1160462808390" ID="ID_1176" LINK="http://example.org/2" MODIFIED="1160462808397" TEXT="Leaf 6.5.2"/>
+</node>
+</node>
+<node COLOR="#8c3366" CREATED="1160462809403" ID="ID_1177" MODIFIED="1160462809410" POSITION="left" TEXT="Branch 7">
+<font BOLD="true" NAME="SansSerif" SIZE="19"/>
+<icon BUILTIN="idea"/>
+<attribute NAME="prio" VALUE="7"/>
+<node CREATED="1160462810416" ID="ID_1178" MODIFIED="1160462810423" TEXT="Child 7.0 &lt;x&gt; &#xe9;&#x4e2d;">
+<richcontent TYPE="NOTE"><html>
+  <head>
+    
+  </head>
+  <body>
+    <p>
+      Note 7.0 with <b>bold</b> &amp; &#xfc;nicode &#x263a;
+    </p>
+  </body>
+</html></richcontent>
+<node CREATED="1160462811429" ID="ID_1179" LINK="http://example.org/0" MODIFIED="1160462811436" TEXT="Leaf 7.0.0"/>
+<node CREATED="1160462812442" ID="ID_1180" LINK="http://example.org/1" MODIFIED="1160462812449" TEXT="Leaf 7.0.1"/>
+<node CREATED="1160462813455" ID="ID_1181" LINK="http://example.org/2" MODIFIED="1160462813462" TEXT="Leaf 7.0.2"/>
+</node>
+<node CREATED="1160462814468" ID="ID_1182" MODIFIED="1160462814475" TEXT="Child 7.1 &lt;x&gt; &#xe9;&#x4e2d;">
+<node CREATED="1160462815481" ID="ID_1183" LINK="http://example.org/0" MODIFIED="1160462815488" TEXT="Leaf 7.1.0"/>
+<node CREATED="1160462816494" ID="ID_1184" LINK="http://example.org/1" MODIFIED="1160462816501" TEXT="Leaf 7.1.1"/>
+<node CREATED="1160462817507" ID="ID_1185" LINK="http://example.org/2" MODIFIED="1160462817514" TEXT="Leaf 7.1.2"/>
+</node>
+<node CREATED="1160462818520" ID="ID_1186" MODIFIED="1160462818527" TEXT="Child 7.2 &lt;x&gt; &#xe9;&#x4e2d;">
+<richcontent TYPE="NOTE"><html>
+  <head>
+    
+  </head>
+  <body>
+    <p>
+      Note 7.2 with <b>bold</b> &amp; &#xfc;nicode &#x263a;
+    </p>
+  </body>
+</html></richcontent>
+<node CREATED="1160462819533" ID="ID_1187" LINK="http://example.org/0" MODIFIED="1160462819540" TEXT="Leaf 7.2.0"/>
+<node CREATED="1160462820546" ID="ID_1188" LINK="http://example.org/1" MODIFIED="1160462820553" TEXT="Leaf 7.2.1"/>
+<node CREATED="1160462821559" ID="ID_1189" LINK="http://example.org/2" MODIFIED="1160462821566" TEXT="Leaf 7.2.2"/>
+</node>
+<node CREATED="1160462822572" ID="ID_1190" MODIFIED="1160462822579">
+<richcontent TYPE="NODE"><html>
+  <head>
+    
+  </head>
+  <body>
+    <p>
+      Rich <i>node</i> 7
+    </p>
+  </body>
+</html></richcontent>
+<node CREATED="1160462823585" ID="ID_1191" LINK="http://example.org/0" MODIFIED="1160462823592" TEXT="Leaf 7.3.0"/>
+<node CREATED="1160462824598" ID="ID_1192" LINK="http://example.org/1" MODIFIED="1160462824605" TEXT="Leaf 7.3.1"/>
+<node CREATED="1160462825611" ID="ID_1193" LINK="http://example.org/2" MODIFIED="1160462825618" TEXT="Leaf 7.3.2"/>
+</node>
+<node CREATED="1160462826624" ID="ID_1194" MODIFIED="1160462826631" TEXT="Child 7.4 &lt;x&gt; &#xe9;&#x4e2d;">
+<richcontent TYPE="NOTE"><html>
+  <head>
+    
+  </head>
+  <body>
+    <p>
+      Note 7.4 with <b>bold</b> &amp; &#xfc;nicode &#x263a;
+    </p>
+  </body>
+</html></richcontent>
+<node CREATED="1160462827637" ID="ID_1195" LINK="http://example.org/0" MODIFIED="1160462827644" TEXT="Leaf 7.4.0"/>
+<node CREATED="1160462828650" ID="ID_1196" LINK="http://example.org/1" MODIFIED="1160462828657" TEXT="Leaf 7.4.1"/>
+<node CREATED="1160462829663" ID="ID_1197" LINK="http://example.org/2" MODIFIED="1160462829670" TEXT="Leaf 7.4.2"/>
+</node>
+<node CREATED="1160462830676" ID="ID_1198" MODIFIED="1160462830683" TEXT="Child 7.5 &lt;x&gt; &#xe9;&#x4e2d;">
+<node CREATED="1160462831689" ID="ID_1199" LINK="http://example.org/0" MODIFIED="1160462831696" TEXT="Leaf 7.5.0"/>
+<node CREATED="1160462832702" ID="ID_1200" LINK="http://example.org/1" MODIFIED="1160462832709" TEXT="Leaf 7.5.1"/>
+<node CREATED="1160462833715" ID="ID_1201" LINK="http://example.org/2" MODIFIED="1160462833722" TEXT="Leaf 7.5.2"/>
+</node>
+</node>
+</node>
+</map>